@@ -12,9 +12,12 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.zalando.planb.revocation.api.exception.AncientRevocationException;
+import org.zalando.planb.revocation.api.exception.DeadlineExceededException;
 import org.zalando.planb.revocation.api.exception.FutureRevocationException;
+import org.zalando.planb.revocation.api.exception.RevocationIndexUnavailableException;
 import org.zalando.planb.revocation.api.exception.RevocationUnauthorizedException;
 import org.zalando.planb.revocation.api.exception.SerializationException;
+import org.zalando.planb.revocation.api.exception.SnapshotUnavailableException;
 import org.zalando.planb.revocation.domain.Problem;
 
 import static org.slf4j.LoggerFactory.getLogger;
@@ -65,6 +68,45 @@ public class ExceptionsResource {
         return Problem.fromException(e, HttpStatus.BAD_REQUEST);
     }
 
+    /**
+     * Handles revocation checks received before revocations could be indexed.
+     *
+     * @param e the exception triggering the error
+     * @return a {@link Problem} with the error information from the exception.
+     */
+    @ExceptionHandler(RevocationIndexUnavailableException.class)
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    @ResponseBody
+    public Problem revocationIndexUnavailable(final RevocationIndexUnavailableException e) {
+        return Problem.fromException(e, HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
+    /**
+     * Handles requests for revocations that could not be read before their deadline.
+     *
+     * @param e the exception triggering the error
+     * @return a {@link Problem} with the error information from the exception.
+     */
+    @ExceptionHandler(DeadlineExceededException.class)
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    @ResponseBody
+    public Problem deadlineExceeded(final DeadlineExceededException e) {
+        return Problem.fromException(e, HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
+    /**
+     * Handles requests for snapshots before the first one was built.
+     *
+     * @param e the exception triggering the error
+     * @return a {@link Problem} with the error information from the exception.
+     */
+    @ExceptionHandler(SnapshotUnavailableException.class)
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    @ResponseBody
+    public Problem snapshotUnavailable(final SnapshotUnavailableException e) {
+        return Problem.fromException(e, HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
     /**
      * Handles missing parameters in requests.
      *
@@ -0,0 +1,38 @@
+package org.zalando.planb.revocation.api;
+
+import org.springframework.http.ResponseEntity;
+import org.zalando.planb.revocation.domain.RevocationBucketList;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Resource to get closed buckets of revocations, rendered once to files.
+ *
+ * <p>Closed buckets never change, so clients bootstrapping can get them in parallel, and caches can keep them until
+ * they leave the window of {@code MAX_TIME_DELTA} seconds.</p>
+ *
+ * @author <a href="mailto:team-greendale@zalando.de">Team Greendale</a>
+ */
+public interface RevocationBucketResource {
+
+    /**
+     * Returns the buckets rendered, with their checksums.
+     *
+     * @return  the buckets, or {@code 404 Not Found} if buckets are not rendered
+     */
+    ResponseEntity<RevocationBucketList> buckets();
+
+    /**
+     * Sends the specified bucket, gzip compressed if the client accepts it.
+     *
+     * @param   date      the UTC date of the bucket, as {@code yyyy-MM-dd}
+     * @param   interval  the interval of the bucket in its day
+     * @param   request   the request
+     * @param   response  the response the bucket is sent in
+     *
+     * @throws  IOException  if the bucket cannot be sent
+     */
+    void get(String date, int interval, HttpServletRequest request, HttpServletResponse response) throws IOException;
+}
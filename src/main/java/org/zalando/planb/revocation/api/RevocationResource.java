@@ -1,9 +1,15 @@
 package org.zalando.planb.revocation.api;
 
 import org.springframework.http.HttpEntity;
+import org.springframework.http.ResponseEntity;
 
+import org.zalando.planb.revocation.domain.RevocationCheckList;
+import org.zalando.planb.revocation.domain.RevocationCheckRequest;
 import org.zalando.planb.revocation.domain.RevocationRequest;
 import org.zalando.planb.revocation.domain.RevocationList;
+import org.zalando.planb.revocation.domain.RevocationType;
+
+import java.util.Set;
 
 /**
  * Resource to get and post revocations.
@@ -13,15 +19,40 @@ import org.zalando.planb.revocation.domain.RevocationList;
 public interface RevocationResource {
 
     /**
-     * Returns all the revocations since the specified timestamp.
+     * Returns all the revocations since the specified timestamp, or in the specified range.
      *
      * <p>Also returns meta information which may be of importance to the client, like a refresh notification.</p>
      *
-     * @param   from  instant from when tokens were revoked, in UTC UNIX timestamp
+     * <p>If not all revocations can be read before the deadline of the request, only the ones read until then may be
+     * returned, with the instant to get the remaining ones from.</p>
+     *
+     * <p>Clients interested in some revocations only can narrow them down by type, by the names of the claims of
+     * {@code CLAIM} revocations, and by the issuer of the tokens revoked. Validators sharded by token hash can narrow
+     * {@code TOKEN} revocations down to the ones of their shard.</p>
+     *
+     * <p>Clients supporting it can get revocations in {@code grouped} format, where the type, claim names, hashing
+     * algorithm and separator shared by revocations are only given once.</p>
      *
-     * @return  all the revocations since the specified timestamp
+     * <p>Clients bootstrapping can get ranges in parallel. Ranges ending before the current bucket never get new
+     * revocations, and can be cached until they leave the window of {@code MAX_TIME_DELTA} seconds.</p>
+     *
+     * @param   from        instant from when tokens were revoked, in UTC UNIX timestamp, exclusive
+     * @param   to          instant until when tokens were revoked, in UTC UNIX timestamp, exclusive, or {@code null}
+     *                      for all revocations since {@code from}
+     * @param   timeout     time the client waits for the response, in milliseconds, or {@code null}
+     * @param   types       types of the revocations returned, or {@code null} for all types
+     * @param   claimNames  claims {@code CLAIM} revocations returned may be on, or {@code null} for all claims
+     * @param   issuer      issuer of the tokens revoked by the revocations returned, or {@code null} for all issuers
+     * @param   hashPrefix  prefix of the token hashes of the {@code TOKEN} revocations returned, in hexadecimal, or
+     *                      {@code null} for all token hashes
+     * @param   prefixBits  number of leading bits of {@code hashPrefix} making the prefix, or {@code null} for all
+     * @param   format      {@code grouped} for a {@link org.zalando.planb.revocation.domain.GroupedRevocationList},
+     *                      or {@code null} for a {@link RevocationList}
+     *
+     * @return  all the revocations since the specified timestamp, or in the specified range
      */
-    RevocationList get(int from);
+    ResponseEntity<?> get(int from, Integer to, Long timeout, Set<RevocationType> types, Set<String> claimNames,
+            String issuer, String hashPrefix, Integer prefixBits, String format);
 
     /**
      * Posts the specified revocation to be stored.
@@ -31,4 +62,17 @@ public interface RevocationResource {
      * @param   revocation  the revocation associated with the tokens to revoke
      */
     void post(RevocationRequest revocation);
+
+    /**
+     * Checks whether the specified tokens are revoked.
+     *
+     * <p>Allows clients to check tokens without keeping a copy of all revocations. Like {@code GET /revocations},
+     * checks need no authorization: they only reveal what the public revocation list already does. Batches are capped
+     * by {@code revocation.check.maxChecks} instead.</p>
+     *
+     * @param   request  the tokens to check
+     *
+     * @return  the outcome of each check, in order
+     */
+    RevocationCheckList check(RevocationCheckRequest request);
 }
@@ -0,0 +1,31 @@
+package org.zalando.planb.revocation.api;
+
+import org.springframework.http.ResponseEntity;
+
+/**
+ * Resource to get snapshots of all revocations, for clients to bootstrap from.
+ *
+ * <p>Clients get the latest snapshot, then the revocations written since from {@code /revocations}, using the
+ * {@code NEXT_FROM} meta information of the snapshot as {@code from}.</p>
+ *
+ * @author <a href="mailto:team-greendale@zalando.de">Team Greendale</a>
+ */
+public interface RevocationSnapshotResource {
+
+    /**
+     * Returns the latest snapshot, cacheable until the next one is due.
+     *
+     * @return  the snapshot, or {@code 304 Not Modified} if the client has it already
+     */
+    ResponseEntity<byte[]> latest();
+
+    /**
+     * Returns the snapshot of the specified version, which never changes.
+     *
+     * @param   version  the version of the snapshot
+     *
+     * @return  the snapshot, {@code 304 Not Modified} if the client has it already, or {@code 404 Not Found} if the
+     *          snapshot is not retained
+     */
+    ResponseEntity<byte[]> get(int version);
+}
@@ -0,0 +1,46 @@
+package org.zalando.planb.revocation.api.exception;
+
+import org.zalando.planb.revocation.domain.RevocationData;
+
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * Thrown when revocations could not all be read before the deadline of the request.
+ * <p>
+ * <p>Holds the revocations read until then, which are complete up to {@link DeadlineExceededException#nextFrom()}.
+ * </p>
+ *
+ * @author <a href="mailto:team-greendale@zalando.de">Team Greendale</a>
+ */
+public class DeadlineExceededException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final String MESSAGE = "Revocations could not be read in time.";
+
+    private final transient Collection<RevocationData> revocations;
+
+    private final Integer nextFrom;
+
+    /**
+     * Constructs a new exception.
+     *
+     * @param revocations revocations read before the deadline
+     * @param nextFrom    timestamp from when the remaining revocations are to be read, or {@code null} if none could
+     *                    be read
+     */
+    public DeadlineExceededException(final Collection<RevocationData> revocations, final Integer nextFrom) {
+        super(MESSAGE);
+        this.revocations = Collections.unmodifiableCollection(revocations);
+        this.nextFrom = nextFrom;
+    }
+
+    public Collection<RevocationData> revocations() {
+        return revocations;
+    }
+
+    public Integer nextFrom() {
+        return nextFrom;
+    }
+}
@@ -0,0 +1,21 @@
+package org.zalando.planb.revocation.api.exception;
+
+/**
+ * Thrown when tokens are checked before revocations could be indexed, or while checks are disabled.
+ *
+ * @author <a href="mailto:team-greendale@zalando.de">Team Greendale</a>
+ */
+public class RevocationIndexUnavailableException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final String MESSAGE = "Revocations are not indexed yet.";
+
+    public RevocationIndexUnavailableException() {
+        super(MESSAGE);
+    }
+
+    public RevocationIndexUnavailableException(final String message) {
+        super(message);
+    }
+}
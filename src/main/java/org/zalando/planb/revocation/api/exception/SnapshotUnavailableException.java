@@ -0,0 +1,15 @@
+package org.zalando.planb.revocation.api.exception;
+
+/**
+ * Thrown when the latest snapshot is requested while snapshots are disabled, or before the first one was built.
+ *
+ * @author <a href="mailto:team-greendale@zalando.de">Team Greendale</a>
+ */
+public class SnapshotUnavailableException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public SnapshotUnavailableException(final String message) {
+        super(message);
+    }
+}
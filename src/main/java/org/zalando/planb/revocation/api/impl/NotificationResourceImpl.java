@@ -12,6 +12,7 @@ import org.springframework.web.bind.annotation.RestController;
 import org.zalando.planb.revocation.api.NotificationResource;
 import org.zalando.planb.revocation.domain.NotificationType;
 import org.zalando.planb.revocation.persistence.RevocationStore;
+import org.zalando.planb.revocation.service.PeerNotificationService;
 
 @RestController
 @RequestMapping(path = "/notifications", produces = MediaType.APPLICATION_JSON_VALUE)
@@ -20,9 +21,12 @@ public class NotificationResourceImpl implements NotificationResource {
 
     private final RevocationStore storage;
 
+    private final PeerNotificationService peerNotificationService;
+
     @Autowired
-    public NotificationResourceImpl(RevocationStore storage) {
+    public NotificationResourceImpl(RevocationStore storage, PeerNotificationService peerNotificationService) {
         this.storage = storage;
+        this.peerNotificationService = peerNotificationService;
     }
 
     @Override
@@ -50,6 +54,7 @@ public class NotificationResourceImpl implements NotificationResource {
                 }
 
                 storage.storeRefresh(from);
+                peerNotificationService.publish(from);
                 break;
         }
     }
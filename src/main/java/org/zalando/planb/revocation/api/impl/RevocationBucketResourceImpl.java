@@ -0,0 +1,128 @@
+package org.zalando.planb.revocation.api.impl;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RestController;
+import org.zalando.planb.revocation.api.RevocationBucketResource;
+import org.zalando.planb.revocation.config.properties.CassandraProperties;
+import org.zalando.planb.revocation.domain.ImmutableRevocationBucketList;
+import org.zalando.planb.revocation.domain.RevocationBucket;
+import org.zalando.planb.revocation.domain.RevocationBucketList;
+import org.zalando.planb.revocation.service.RevocationBucketService;
+import org.zalando.planb.revocation.util.UnixTimestamp;
+import org.zalando.planb.revocation.web.CompressedResponseCache;
+import org.zalando.planb.revocation.web.DigestHeaderFilter;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Controller implementation for the revocation buckets endpoint.
+ *
+ * <p>Buckets are sent as rendered to clients accepting gzip, through {@code sendfile} when Tomcat supports it.</p>
+ *
+ * @author <a href="mailto:team-greendale@zalando.de">Team Greendale</a>
+ */
+@RestController
+@RequestMapping(value = "/revocations/buckets", produces = MediaType.APPLICATION_JSON_VALUE)
+public class RevocationBucketResourceImpl implements RevocationBucketResource {
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private final Optional<RevocationBucketService> bucketService;
+
+    private final CassandraProperties cassandraProperties;
+
+    @Autowired
+    public RevocationBucketResourceImpl(final Optional<RevocationBucketService> bucketService,
+                                        final CassandraProperties cassandraProperties) {
+        this.bucketService = bucketService;
+        this.cassandraProperties = cassandraProperties;
+    }
+
+    @Override
+    @RequestMapping(method = RequestMethod.GET)
+    public ResponseEntity<RevocationBucketList> buckets() {
+        if (!bucketService.isPresent()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(null);
+        }
+        return ResponseEntity.ok(ImmutableRevocationBucketList.builder()
+                .buckets(bucketService.get().buckets())
+                .build());
+    }
+
+    @Override
+    @RequestMapping(value = "/{date}/{interval}", method = RequestMethod.GET)
+    public void get(@PathVariable("date") final String date, @PathVariable("interval") final int interval,
+                    final HttpServletRequest request, final HttpServletResponse response) throws IOException {
+        final Optional<RevocationBucket> bucket = bucketService.flatMap(service -> service.get(date, interval));
+        if (!bucket.isPresent()) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        // A bucket is cacheable until its revocations are not returned anymore
+        final String etag = "\"" + bucket.get().checksum() + "\"";
+        final long maxAge = Math.max(0,
+                bucket.get().after() + 1 + cassandraProperties.getMaxTimeDelta() - UnixTimestamp.now());
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setHeader(HttpHeaders.CACHE_CONTROL,
+                CacheControl.maxAge(maxAge, TimeUnit.SECONDS).cachePublic().getHeaderValue());
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (etag.equals(request.getHeader(HttpHeaders.IF_NONE_MATCH))) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        final Path file = bucketService.get().file(bucket.get());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setHeader(DigestHeaderFilter.DIGEST_HEADER, "SHA-256=" + bucket.get().checksum());
+        if (!CompressedResponseCache.acceptsGzip(request)) {
+            try (InputStream in = new GZIPInputStream(Files.newInputStream(file))) {
+                StreamUtils.copy(in, response.getOutputStream());
+            }
+            return;
+        }
+
+        response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        response.setContentLengthLong(bucket.get().size());
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, file.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, 0L);
+            request.setAttribute(SENDFILE_END, bucket.get().size());
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = 0;
+            while (position < bucket.get().size()) {
+                position += channel.transferTo(position, bucket.get().size() - position, out);
+            }
+        }
+    }
+}
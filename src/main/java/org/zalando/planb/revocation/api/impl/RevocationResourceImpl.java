@@ -1,10 +1,14 @@
 package org.zalando.planb.revocation.api.impl;
 
+import com.codahale.metrics.MetricRegistry;
 import org.slf4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
@@ -12,34 +16,48 @@ import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
 import org.zalando.planb.revocation.api.RevocationResource;
+import org.zalando.planb.revocation.api.exception.DeadlineExceededException;
+import org.zalando.planb.revocation.api.exception.RevocationIndexUnavailableException;
 import org.zalando.planb.revocation.config.properties.CassandraProperties;
-import org.zalando.planb.revocation.domain.ImmutableRevocationInfo;
-import org.zalando.planb.revocation.domain.ImmutableRevocationList;
-import org.zalando.planb.revocation.domain.ImmutableRevokedClaimsInfo;
-import org.zalando.planb.revocation.domain.ImmutableRevokedTokenInfo;
+import org.zalando.planb.revocation.config.properties.RevocationCheckProperties;
+import org.zalando.planb.revocation.config.properties.RevocationProperties;
+import org.zalando.planb.revocation.domain.ImmutableRevocationCheckList;
+import org.zalando.planb.revocation.domain.ImmutableRevocationFilter;
 import org.zalando.planb.revocation.domain.NotificationType;
 import org.zalando.planb.revocation.domain.Refresh;
+import org.zalando.planb.revocation.domain.RevocationCheck;
+import org.zalando.planb.revocation.domain.RevocationCheckList;
+import org.zalando.planb.revocation.domain.RevocationCheckRequest;
 import org.zalando.planb.revocation.domain.RevocationData;
-import org.zalando.planb.revocation.domain.RevocationInfo;
-import org.zalando.planb.revocation.domain.RevocationList;
+import org.zalando.planb.revocation.domain.RevocationFilter;
 import org.zalando.planb.revocation.domain.RevocationRequest;
 import org.zalando.planb.revocation.domain.RevocationType;
-import org.zalando.planb.revocation.domain.RevokedClaimsData;
-import org.zalando.planb.revocation.domain.RevokedData;
-import org.zalando.planb.revocation.domain.RevokedGlobal;
-import org.zalando.planb.revocation.domain.RevokedInfo;
-import org.zalando.planb.revocation.domain.RevokedTokenData;
 import org.zalando.planb.revocation.persistence.CassandraRevocationStore;
+import org.zalando.planb.revocation.persistence.FileRevocationStore;
+import org.zalando.planb.revocation.persistence.InMemoryRevocationStore;
 import org.zalando.planb.revocation.persistence.RevocationStore;
+import org.zalando.planb.revocation.service.PeerNotificationService;
 import org.zalando.planb.revocation.service.RevocationAuthorizationService;
-import org.zalando.planb.revocation.util.MessageHasher;
+import org.zalando.planb.revocation.service.RevocationCheckService;
+import org.zalando.planb.revocation.service.RevocationFilterService;
+import org.zalando.planb.revocation.util.Deadline;
+import org.zalando.planb.revocation.util.HashPrefix;
+import org.zalando.planb.revocation.util.RevocationExpiry;
+import org.zalando.planb.revocation.util.RevocationGrouper;
+import org.zalando.planb.revocation.util.RevocationInfoConverter;
+import org.zalando.planb.revocation.util.RevocationPruner;
+import org.zalando.planb.revocation.util.StreamedRevocationList;
+import org.zalando.planb.revocation.util.UnixTimestamp;
 
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
-import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.EnumMap;
-import java.util.List;
+import java.util.EnumSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 import static java.time.Instant.ofEpochSecond;
 import static org.slf4j.LoggerFactory.getLogger;
@@ -53,66 +71,181 @@ import static org.slf4j.LoggerFactory.getLogger;
 @RequestMapping(value = "/revocations", produces = MediaType.APPLICATION_JSON_VALUE)
 public class RevocationResourceImpl implements RevocationResource {
 
+    /**
+     * Header in which clients send the time they wait for a response, in milliseconds.
+     */
+    public static final String TIMEOUT_HEADER = "X-Request-Timeout";
+
+    /**
+     * Value of the {@code format} parameter for revocations in groups.
+     */
+    public static final String GROUPED_FORMAT = "grouped";
+
+    /**
+     * Time after the end of a bucket during which ranges ending before it are not cached yet, in seconds.
+     */
+    public static final int CLOCK_SKEW_MARGIN = 300;
+
+    /*
+     * Meta information of responses that can be cached. Refreshes, degraded reads and partial results all change.
+     */
+    private static final Set<NotificationType> CACHEABLE_META = Collections.unmodifiableSet(
+            EnumSet.of(NotificationType.MAX_TIME_DELTA));
+
     private final Logger log = getLogger(getClass());
 
     @Autowired
     private RevocationStore storage;
 
     @Autowired
-    private MessageHasher messageHasher;
+    private RevocationInfoConverter revocationInfoConverter;
 
     @Autowired
     private CassandraProperties cassandraProperties;
 
+    @Autowired
+    private RevocationProperties revocationProperties;
+
+    @Autowired
+    private MetricRegistry metricRegistry;
+
+    @Autowired
+    private RevocationPruner revocationPruner;
+
+    @Autowired
+    private RevocationExpiry revocationExpiry;
+
     @Autowired
     private RevocationAuthorizationService revocationAuthorizationService;
 
+    @Autowired
+    private Optional<RevocationCheckService> revocationCheckService = Optional.empty();
+
+    @Autowired
+    private RevocationCheckProperties revocationCheckProperties;
+
+    @Autowired
+    private RevocationFilterService revocationFilterService;
+
+    @Autowired
+    private PeerNotificationService peerNotificationService;
+
     @Override
     @RequestMapping(method = RequestMethod.GET)
-    @ResponseStatus(HttpStatus.OK)
-    @ResponseBody
-    public RevocationList get(@RequestParam final int from) {
+    public ResponseEntity<?> get(@RequestParam final int from,
+            @RequestParam(value = "to", required = false) final Integer to,
+            @RequestHeader(value = TIMEOUT_HEADER, required = false) final Long timeout,
+            @RequestParam(value = "types", required = false) final Set<RevocationType> types,
+            @RequestParam(value = "claim_names", required = false) final Set<String> claimNames,
+            @RequestParam(value = "iss", required = false) final String issuer,
+            @RequestParam(value = "hash_prefix", required = false) final String hashPrefix,
+            @RequestParam(value = "prefix_bits", required = false) final Integer prefixBits,
+            @RequestParam(value = "format", required = false) final String format) {
         log.debug("GET revocations since {} ({})", from, ZonedDateTime.ofInstant(ofEpochSecond(from), ZoneId.systemDefault()));
-        Collection<RevocationData> revocations = storage.getRevocations(from);
-
-        List<RevocationInfo> apiRevocations = new ArrayList<>(revocations.size());
-        for (RevocationData stored : revocations) {
-            final RevokedData data = stored.revocationRequest().data();
-
-            RevokedInfo revokedInfo = null;
-            if (data instanceof RevokedGlobal) {
-                // No transformation necessary
-                revokedInfo = (RevokedInfo) data;
-
-            } else if (data instanceof RevokedClaimsData) {
-                revokedInfo = ImmutableRevokedClaimsInfo.builder()
-                        .names(((RevokedClaimsData) data).claims().keySet())
-                        .valueHash(messageHasher.hashAndEncode(RevocationType.CLAIM,
-                                ((RevokedClaimsData) data).claims().values()))
-                        .hashAlgorithm(messageHasher.hashingAlgorithms().get(RevocationType.CLAIM).getAlgorithm())
-                        .issuedBefore(((RevokedClaimsData) data).issuedBefore())
-                        .separator(messageHasher.separator())
-                        .build();
-
-            } else if (data instanceof RevokedTokenData) {
-                revokedInfo = ImmutableRevokedTokenInfo.builder()
-                        .tokenHash(messageHasher.hashAndEncode(RevocationType.TOKEN, ((RevokedTokenData) data).token()))
-                        .hashAlgorithm(messageHasher.hashingAlgorithms().get(RevocationType.TOKEN).getAlgorithm())
-                        .issuedBefore(((RevokedTokenData) data).issuedBefore())
-                        .build();
+        final int now = UnixTimestamp.now();
+        if (to != null) {
+            checkRange(from, to, now);
+        }
+        if (format != null && !GROUPED_FORMAT.equals(format)) {
+            throw new IllegalArgumentException("'format' must be '" + GROUPED_FORMAT + "'");
+        }
+        final RevocationFilter filter = ImmutableRevocationFilter.builder()
+                .types(types != null ? types : Collections.emptySet())
+                .claimNames(claimNames != null ? claimNames : Collections.emptySet())
+                .issuer(issuer)
+                .hashPrefix(hashPrefix(hashPrefix, prefixBits))
+                .build();
+
+        Collection<RevocationData> revocations;
+        Integer nextFrom = null;
+        try {
+            if (to == null) {
+                revocations = filter.isEmpty() ? storage.getRevocations(from, deadline(timeout))
+                        : revocationFilterService.getRevocations(from, filter, deadline(timeout));
+            } else {
+                revocations = filter.isEmpty() ? storage.getRevocations(from, to, deadline(timeout))
+                        : revocationFilterService.getRevocations(from, to, filter, deadline(timeout));
             }
+        } catch (DeadlineExceededException e) {
+            metricRegistry.counter("planb.revocations.deadline.exceeded").inc();
+            if (!revocationProperties.isPartialResults() || e.nextFrom() == null) {
+                throw e;
+            }
+            metricRegistry.counter("planb.revocations.deadline.partial").inc();
+            revocations = e.revocations();
+            nextFrom = e.nextFrom();
+        }
 
-            apiRevocations.add(ImmutableRevocationInfo.builder()
-                    .type(stored.revocationRequest().type())
-                    .revokedAt(stored.revokedAt())
-                    .data(revokedInfo)
-                    .build());
+        if (to != null && nextFrom != null && nextFrom >= to - 1) {
+            nextFrom = null;
         }
 
-        return ImmutableRevocationList.builder()
-                .meta(metaInformation())
-                .revocations(apiRevocations)
-                .build();
+        revocations = RevocationExpiry.unexpired(revocations, now,
+                metricRegistry.counter("planb.revocations.expired"));
+
+        if (revocationProperties.isPruneSuperseded()) {
+            revocations = revocationPruner.prune(revocations);
+        }
+
+        final EnumMap<NotificationType, Object> meta = metaInformation();
+        if (nextFrom != null) {
+            meta.put(NotificationType.NEXT_FROM, nextFrom);
+        }
+
+        // The default format is written straight from the stored revocations
+        final StreamedRevocationList body = revocationInfoConverter.stream(meta, revocations);
+        final Object formatted = GROUPED_FORMAT.equals(format) ? RevocationGrouper.group(body.toRevocationList())
+                : body;
+        if (to != null && CACHEABLE_META.containsAll(meta.keySet()) && isClosed(to, now)) {
+            return ResponseEntity.ok()
+                    .cacheControl(CacheControl.maxAge(from + cassandraProperties.getMaxTimeDelta() - now,
+                            TimeUnit.SECONDS).cachePublic())
+                    .body(formatted);
+        }
+        return ResponseEntity.ok(formatted);
+    }
+
+    /*
+     * Ranges must end after they start, and start within the window of revocations kept.
+     */
+    private void checkRange(final int from, final int to, final int now) {
+        if (to <= from + 1) {
+            throw new IllegalArgumentException("'to' must be greater than 'from' + 1");
+        }
+        if (from < now - cassandraProperties.getMaxTimeDelta()) {
+            throw new IllegalArgumentException("'from' must not be older than " + cassandraProperties.getMaxTimeDelta()
+                    + " seconds when 'to' is set");
+        }
+    }
+
+    /*
+     * Revocations are only written to the current bucket, so ranges ending before it never change. Instances with a
+     * clock behind may still write to the previous bucket for a while after it ended.
+     */
+    private static boolean isClosed(final int to, final int now) {
+        return to <= (now - CLOCK_SKEW_MARGIN) / CassandraRevocationStore.BUCKET_LENGTH
+                * CassandraRevocationStore.BUCKET_LENGTH;
+    }
+
+    private static HashPrefix hashPrefix(final String hashPrefix, final Integer prefixBits) {
+        if (hashPrefix == null) {
+            if (prefixBits != null) {
+                throw new IllegalArgumentException("'prefix_bits' requires 'hash_prefix'");
+            }
+            return null;
+        }
+        return HashPrefix.parse(hashPrefix, prefixBits);
+    }
+
+    /*
+     * Clients can only shorten the configured deadline.
+     */
+    private Deadline deadline(final Long timeout) {
+        final long configured = revocationProperties.getRequestTimeout();
+        if (timeout == null || timeout <= 0) {
+            return Deadline.after(configured);
+        }
+        return Deadline.after(configured > 0 ? Math.min(timeout, configured) : timeout);
     }
 
     /**
@@ -122,6 +255,10 @@ public class RevocationResourceImpl implements RevocationResource {
      * <p>
      * <p>If the field {@code issued_before} is a timestamp set in the future, returns {@link HttpStatus#BAD_REQUEST}.
      * </p>
+     * <p>
+     * <p>The revocation is stored with the time it expires at, after which it is no longer returned.</p>
+     * <p>
+     * <p>Once stored, peers are notified of the revocation.</p>
      *
      * @param revocation the revocation associated with the tokens to revoke
      */
@@ -130,16 +267,40 @@ public class RevocationResourceImpl implements RevocationResource {
     @ResponseStatus(HttpStatus.CREATED)
     public void post(@RequestBody final RevocationRequest revocation) {
         revocationAuthorizationService.checkAuthorization(revocation);
-        storage.storeRevocation(revocation);
+        storage.storeRevocation(revocation, revocationExpiry.expiresAt(revocation));
+        peerNotificationService.publish(UnixTimestamp.now());
+    }
+
+    @Override
+    @RequestMapping(value = "/check", method = RequestMethod.POST)
+    @ResponseStatus(HttpStatus.OK)
+    @ResponseBody
+    public RevocationCheckList check(@RequestBody final RevocationCheckRequest request) {
+        final RevocationCheckService checkService = revocationCheckService.orElseThrow(
+                () -> new RevocationIndexUnavailableException("Revocation checks are disabled."));
+        if (request.checks().size() > revocationCheckProperties.getMaxChecks()) {
+            throw new IllegalArgumentException("At most " + revocationCheckProperties.getMaxChecks()
+                    + " tokens can be checked at once.");
+        }
+        final ImmutableRevocationCheckList.Builder results = ImmutableRevocationCheckList.builder();
+        for (RevocationCheck check : request.checks()) {
+            results.addResults(checkService.check(check));
+        }
+        return results.build();
     }
 
     private EnumMap<NotificationType, Object> metaInformation() {
         EnumMap<NotificationType, Object> metaInfo = new EnumMap<>(NotificationType.class);
 
-        if (storage instanceof CassandraRevocationStore) {
+        if (storage instanceof CassandraRevocationStore || storage instanceof FileRevocationStore
+                || storage instanceof InMemoryRevocationStore) {
             metaInfo.put(NotificationType.MAX_TIME_DELTA, cassandraProperties.getMaxTimeDelta());
         }
 
+        if (storage instanceof CassandraRevocationStore && ((CassandraRevocationStore) storage).isDegraded()) {
+            metaInfo.put(NotificationType.DEGRADED_CONSISTENCY, true);
+        }
+
         Refresh refresh = storage.getRefresh();
 
         if (refresh != null) {
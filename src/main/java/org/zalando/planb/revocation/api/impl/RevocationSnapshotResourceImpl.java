@@ -0,0 +1,83 @@
+package org.zalando.planb.revocation.api.impl;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RestController;
+import org.zalando.planb.revocation.api.RevocationSnapshotResource;
+import org.zalando.planb.revocation.api.exception.SnapshotUnavailableException;
+import org.zalando.planb.revocation.config.properties.CassandraProperties;
+import org.zalando.planb.revocation.domain.RevocationSnapshot;
+import org.zalando.planb.revocation.service.RevocationSnapshotService;
+import org.zalando.planb.revocation.util.UnixTimestamp;
+import org.zalando.planb.revocation.web.DigestHeaderFilter;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Controller implementation for the revocation snapshots endpoint.
+ *
+ * @author <a href="mailto:team-greendale@zalando.de">Team Greendale</a>
+ */
+@RestController
+@RequestMapping(value = "/revocations/snapshot", produces = MediaType.APPLICATION_JSON_VALUE)
+public class RevocationSnapshotResourceImpl implements RevocationSnapshotResource {
+
+    /**
+     * Header holding the version of the snapshot returned.
+     */
+    public static final String VERSION_HEADER = "X-Snapshot-Version";
+
+    private final Optional<RevocationSnapshotService> snapshotService;
+
+    private final CassandraProperties cassandraProperties;
+
+    @Autowired
+    public RevocationSnapshotResourceImpl(final Optional<RevocationSnapshotService> snapshotService,
+                                          final CassandraProperties cassandraProperties) {
+        this.snapshotService = snapshotService;
+        this.cassandraProperties = cassandraProperties;
+    }
+
+    @Override
+    @RequestMapping(method = RequestMethod.GET)
+    public ResponseEntity<byte[]> latest() {
+        final RevocationSnapshotService service = snapshotService
+                .orElseThrow(() -> new SnapshotUnavailableException("Snapshots are disabled."));
+        final RevocationSnapshot snapshot = service.latest()
+                .orElseThrow(() -> new SnapshotUnavailableException("No snapshot was built yet."));
+        final long maxAge = Math.max(0, service.nextSnapshotAt() - UnixTimestamp.now());
+        return respond(snapshot, CacheControl.maxAge(maxAge, TimeUnit.SECONDS).cachePublic());
+    }
+
+    @Override
+    @RequestMapping(value = "/{version}", method = RequestMethod.GET)
+    public ResponseEntity<byte[]> get(@PathVariable("version") final int version) {
+        final Optional<RevocationSnapshot> snapshot = snapshotService.flatMap(service -> service.get(version));
+        if (!snapshot.isPresent()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(null);
+        }
+        return respond(snapshot.get(),
+                CacheControl.maxAge(cassandraProperties.getMaxTimeDelta(), TimeUnit.SECONDS).cachePublic());
+    }
+
+    /*
+     * The checksum of the content is a strong validator of the snapshot, answered with 304 Not Modified when sent back
+     * in If-None-Match.
+     */
+    private static ResponseEntity<byte[]> respond(final RevocationSnapshot snapshot, final CacheControl cacheControl) {
+        return ResponseEntity.ok()
+                .eTag("\"" + snapshot.checksum() + "\"")
+                .cacheControl(cacheControl)
+                .header(VERSION_HEADER, String.valueOf(snapshot.version()))
+                .header(DigestHeaderFilter.DIGEST_HEADER, "SHA-256=" + snapshot.checksum())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(snapshot.content());
+    }
+}
@@ -1,14 +1,26 @@
 package org.zalando.planb.revocation.config;
 
+import com.codahale.metrics.MetricRegistry;
 import com.datastax.driver.core.Cluster;
+import com.datastax.driver.core.HostDistance;
+import com.datastax.driver.core.PerHostPercentileTracker;
+import com.datastax.driver.core.PoolingOptions;
 import com.datastax.driver.core.Session;
+import com.datastax.driver.core.SocketOptions;
 import com.datastax.driver.core.policies.AddressTranslator;
+import com.datastax.driver.core.policies.DCAwareRoundRobinPolicy;
+import com.datastax.driver.core.policies.LoadBalancingPolicy;
+import com.datastax.driver.core.policies.NoSpeculativeExecutionPolicy;
+import com.datastax.driver.core.policies.PercentileSpeculativeExecutionPolicy;
+import com.datastax.driver.core.policies.SpeculativeExecutionPolicy;
+import com.datastax.driver.core.policies.TokenAwarePolicy;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.zalando.planb.revocation.config.properties.CassandraProperties;
+import org.zalando.planb.revocation.management.CassandraDriverMetrics;
 
 import java.util.Optional;
 
@@ -22,6 +34,9 @@ public class CassandraConfig {
     @Autowired
     private Optional<AddressTranslator> addressTranslator;
 
+    @Autowired
+    private Optional<MetricRegistry> metricRegistry;
+
     @Bean
     @ConditionalOnProperty(prefix = "cassandra", name = "contact-points")
     public Session cassandraSession() {
@@ -33,13 +48,66 @@ public class CassandraConfig {
         builder.withClusterName(cassandraProperties.getClusterName());
         builder.withPort(cassandraProperties.getPort());
 
+        // Route queries to a replica of the local data center, over a pool sized for it
+        builder.withLoadBalancingPolicy(loadBalancingPolicy(cassandraProperties));
+        builder.withPoolingOptions(poolingOptions(cassandraProperties));
+        builder.withSocketOptions(socketOptions(cassandraProperties));
+        builder.withCompression(cassandraProperties.getCompression());
+
+        // Only idempotent statements are executed speculatively, the first replica answering wins
+        final Optional<PerHostPercentileTracker> latencyTracker = latencyTracker(cassandraProperties);
+        builder.withSpeculativeExecutionPolicy(latencyTracker
+                .<SpeculativeExecutionPolicy>map(tracker -> new PercentileSpeculativeExecutionPolicy(tracker,
+                        cassandraProperties.getSpeculativeExecutionPercentile(),
+                        cassandraProperties.getMaxSpeculativeExecutions()))
+                .orElse(NoSpeculativeExecutionPolicy.INSTANCE));
+
         // Only set credentials if they exist
         if (cassandraProperties.getUsername().isPresent() && cassandraProperties.getPassword().isPresent()) {
             builder.withCredentials(cassandraProperties.getUsername().get(), cassandraProperties.getPassword().get());
         }
 
-        return builder.build().connect(cassandraProperties.getKeyspace());
+        final Cluster cluster = builder.build();
+        latencyTracker.ifPresent(cluster::register);
+        final Session session = cluster.connect(cassandraProperties.getKeyspace());
+
+        // The metrics of the driver only exist once the cluster is initialized, which connecting does
+        metricRegistry.map(registry -> new CassandraDriverMetrics(registry,
+                cassandraProperties.getMaxRequestsPerConnection())).ifPresent(metrics -> {
+            metrics.bind(cluster);
+            metrics.bind(session);
+        });
+        return session;
+    }
+
+    static LoadBalancingPolicy loadBalancingPolicy(final CassandraProperties properties) {
+        final DCAwareRoundRobinPolicy.Builder dcAware = DCAwareRoundRobinPolicy.builder()
+                .withUsedHostsPerRemoteDc(properties.getUsedHostsPerRemoteDc());
+        properties.getLocalDataCenter().ifPresent(dcAware::withLocalDc);
+        return new TokenAwarePolicy(dcAware.build());
+    }
+
+    static PoolingOptions poolingOptions(final CassandraProperties properties) {
+        return new PoolingOptions()
+                .setConnectionsPerHost(HostDistance.LOCAL, properties.getCoreConnectionsPerHost(),
+                        properties.getMaxConnectionsPerHost())
+                .setMaxRequestsPerConnection(HostDistance.LOCAL, properties.getMaxRequestsPerConnection());
     }
 
+    static SocketOptions socketOptions(final CassandraProperties properties) {
+        return new SocketOptions()
+                .setConnectTimeoutMillis(properties.getConnectTimeout())
+                .setReadTimeoutMillis(properties.getReadTimeout())
+                .setTcpNoDelay(properties.isTcpNoDelay())
+                .setKeepAlive(properties.isKeepAlive());
+    }
 
+    static Optional<PerHostPercentileTracker> latencyTracker(final CassandraProperties properties) {
+        if (properties.getMaxSpeculativeExecutions() <= 0) {
+            return Optional.empty();
+        }
+        return Optional.of(PerHostPercentileTracker
+                .builderWithHighestTrackableLatencyMillis(properties.getSpeculativeExecutionHighestLatency())
+                .build());
+    }
 }
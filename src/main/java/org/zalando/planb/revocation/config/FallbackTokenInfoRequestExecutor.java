@@ -1,21 +1,58 @@
 package org.zalando.planb.revocation.config;
 
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
 import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.security.oauth2.common.exceptions.InvalidTokenException;
 import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+import org.zalando.planb.revocation.config.properties.TokenInfoProperties;
 import org.zalando.stups.oauth2.spring.server.DefaultTokenInfoRequestExecutor;
 import org.zalando.stups.oauth2.spring.server.TokenInfoRequestExecutor;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToIntFunction;
+import java.util.stream.Collectors;
 
 /**
- * Executor that allows several tokeninfo endpoints separated by "|", then requests
- * by order of definition in the string, and if an error happens, falls-back to the next one.
+ * Executor that allows several tokeninfo endpoints separated by ",", and falls back to the next one if an error
+ * happens.
+ * <p>
+ * <p>Endpoints are tried fastest first, according to their observed latency. When hedging is enabled and an endpoint
+ * takes longer than its usual latency percentile, a hedged request is sent to the next endpoint and the first valid
+ * answer wins. Requests are sent from a pool of at most {@code tokeninfo.maxHedgingThreads} threads; once it is
+ * exhausted, they are sent from the calling thread instead. Endpoints failing repeatedly are skipped until their circuit breaker allows a new trial (See
+ * {@link TokenInfoEndpoint}).</p>
+ * <p>
+ * <p>All endpoints share a pool of keep-alive connections, whose statistics are published as
+ * {@code planb.tokeninfo.pool.*} gauges.</p>
  *
  * @author vroldanbetan
  *
@@ -26,28 +63,145 @@ public class FallbackTokenInfoRequestExecutor implements TokenInfoRequestExecuto
 
     private final static String URI_SEPARATOR = "\\,";
 
-    private List<TokenInfoRequestExecutor> executors;
+    private static final String METRIC_PREFIX = "planb.tokeninfo";
+
+    // Failing endpoints go last, the others by latency. Sorting is stable, keeping the order of definition on ties
+    private static final Comparator<TokenInfoEndpoint> FASTEST_HEALTHY_FIRST = Comparator
+            .comparing((TokenInfoEndpoint endpoint) -> endpoint.consecutiveFailures() > 0)
+            .thenComparing(TokenInfoEndpoint::percentileLatency);
+
+    private final List<TokenInfoEndpoint> endpoints;
+
+    private final TokenInfoProperties properties;
+
+    private final ExecutorService requestExecutor;
+
+    private final CloseableHttpClient httpClient;
+
+    private final Meter hedgedRequests;
 
     public FallbackTokenInfoRequestExecutor(final String tokenInfoEndpointUrl) {
-        executors = buildExecutorsFromMultipleURLs(tokenInfoEndpointUrl);
+        this(tokenInfoEndpointUrl, new TokenInfoProperties(), new MetricRegistry());
+    }
+
+    public FallbackTokenInfoRequestExecutor(final String tokenInfoEndpointUrl, final TokenInfoProperties properties,
+                                            final MetricRegistry metricRegistry) {
+        this.properties = properties;
+        this.httpClient = buildHttpClient(metricRegistry);
+        this.endpoints = buildExecutorsFromMultipleURLs(tokenInfoEndpointUrl, metricRegistry);
+        this.hedgedRequests = metricRegistry.meter(METRIC_PREFIX + ".hedged");
+        final Meter rejectedRequests = metricRegistry.meter(METRIC_PREFIX + ".rejected");
+        // Bounded and without queue, so that a slow endpoint cannot pile up threads. Requests the pool has no thread
+        // for are sent from the calling thread, which makes them sequential
+        this.requestExecutor = new ThreadPoolExecutor(0, properties.getMaxHedgingThreads(), 60, TimeUnit.SECONDS,
+                new SynchronousQueue<>(), new ThreadFactoryBuilder()
+                .setNameFormat("tokeninfo-%d")
+                .setDaemon(true)
+                .build(), (task, executor) -> {
+                    if (executor.isShutdown()) {
+                        throw new RejectedExecutionException("Token info executor is shut down");
+                    }
+                    rejectedRequests.mark();
+                    task.run();
+                });
+    }
+
+    /*
+     * A single connection pool shared by all endpoints, so that connections (and TLS sessions) are reused across
+     * requests instead of being established for each one.
+     */
+    private CloseableHttpClient buildHttpClient(MetricRegistry metricRegistry) {
+        final PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(properties.getMaxConnections());
+        connectionManager.setDefaultMaxPerRoute(properties.getMaxConnectionsPerEndpoint());
+
+        registerPoolGauge(metricRegistry, "leased", connectionManager, PoolStats::getLeased);
+        registerPoolGauge(metricRegistry, "available", connectionManager, PoolStats::getAvailable);
+        registerPoolGauge(metricRegistry, "pending", connectionManager, PoolStats::getPending);
+        registerPoolGauge(metricRegistry, "max", connectionManager, PoolStats::getMax);
+
+        return HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectTimeout(properties.getConnectTimeout())
+                        .setConnectionRequestTimeout(properties.getConnectTimeout())
+                        .setSocketTimeout(properties.getReadTimeout())
+                        .build())
+                .setKeepAliveStrategy((response, context) -> {
+                    final long keepAlive = DefaultConnectionKeepAliveStrategy.INSTANCE
+                            .getKeepAliveDuration(response, context);
+                    return keepAlive > 0 ? keepAlive : properties.getKeepAlive();
+                })
+                .evictExpiredConnections()
+                .evictIdleConnections(properties.getIdleEvictionInterval(), TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    private static void registerPoolGauge(MetricRegistry metricRegistry, String name,
+                                          PoolingHttpClientConnectionManager connectionManager,
+                                          ToIntFunction<PoolStats> stat) {
+        final String metric = MetricRegistry.name(METRIC_PREFIX, "pool", name);
+        metricRegistry.remove(metric);
+        metricRegistry.register(metric, (Gauge<Integer>) () -> stat.applyAsInt(connectionManager.getTotalStats()));
     }
 
-    private List<TokenInfoRequestExecutor> buildExecutorsFromMultipleURLs(String tokenInfoEndpointUrl) {
+    private List<TokenInfoEndpoint> buildExecutorsFromMultipleURLs(String tokenInfoEndpointUrl,
+                                                                   MetricRegistry metricRegistry) {
         log.info("Token Info with fallback enabled: {}", tokenInfoEndpointUrl);
-        final List<TokenInfoRequestExecutor> tokenInfoRequestExecutors = new ArrayList<>();
+        // Keeps the error handling of the default executors, but sends requests through the shared pool
+        final RestTemplate restTemplate = DefaultTokenInfoRequestExecutor.buildRestTemplate();
+        restTemplate.setRequestFactory(new HttpComponentsClientHttpRequestFactory(httpClient));
+
+        final List<TokenInfoEndpoint> tokenInfoEndpoints = new ArrayList<>();
         for (String endpoint : tokenInfoEndpointUrl.split(URI_SEPARATOR)) {
-            tokenInfoRequestExecutors.add(new DefaultTokenInfoRequestExecutor(endpoint.trim()));
+            final String url = endpoint.trim();
+            final String latencyMetric = MetricRegistry.name(METRIC_PREFIX,
+                    String.valueOf(tokenInfoEndpoints.size()), "latency");
+            metricRegistry.remove(latencyMetric);
+
+            tokenInfoEndpoints.add(new TokenInfoEndpoint(url, new DefaultTokenInfoRequestExecutor(url, restTemplate),
+                    metricRegistry.register(latencyMetric, new Timer()), properties.getHedgePercentile(),
+                    properties.getFailureThreshold(), properties.getOpenCircuitDuration()));
         }
-        return ImmutableList.copyOf(tokenInfoRequestExecutors);
+        return ImmutableList.copyOf(tokenInfoEndpoints);
+    }
+
+    /**
+     * Returns all configured endpoints, in order of definition.
+     *
+     * @return the configured endpoints
+     */
+    public List<TokenInfoEndpoint> getEndpoints() {
+        return endpoints;
     }
 
     @Override
     public Map<String, Object> getMap(String accessToken) {
+        final List<TokenInfoEndpoint> candidates = candidates();
+        if (!properties.isHedgingEnabled() || candidates.size() == 1) {
+            return getMapSequentially(candidates, accessToken);
+        }
+        return getMapHedged(candidates, accessToken);
+    }
+
+    /*
+     * Available endpoints, fastest healthy first. If all circuits are open, every endpoint is tried anyway, in order of
+     * definition, as failing fast would mean rejecting every request.
+     */
+    private List<TokenInfoEndpoint> candidates() {
+        final List<TokenInfoEndpoint> available = endpoints.stream()
+                .filter(TokenInfoEndpoint::isAvailable)
+                .sorted(FASTEST_HEALTHY_FIRST)
+                .collect(Collectors.toList());
+        return available.isEmpty() ? endpoints : available;
+    }
+
+    private Map<String, Object> getMapSequentially(List<TokenInfoEndpoint> candidates, String accessToken) {
         RuntimeException cachedException = new InvalidTokenException("Access Token not valid");
         Map<String, Object> result = Collections.emptyMap();
-        for (TokenInfoRequestExecutor executor : executors) {
+        for (TokenInfoEndpoint endpoint : candidates) {
             try {
-                result = executor.getMap(accessToken);
+                result = endpoint.getMap(accessToken);
                 if (result.containsKey("error")) {
                     log.warn("Token info responded {} for provided token: {}", result.get("error"), result.get("error_description"));
                 } else {
@@ -63,4 +217,100 @@ public class FallbackTokenInfoRequestExecutor implements TokenInfoRequestExecuto
         }
         throw cachedException;
     }
+
+    private Map<String, Object> getMapHedged(List<TokenInfoEndpoint> candidates, String accessToken) {
+        RuntimeException cachedException = new InvalidTokenException("Access Token not valid");
+        Map<String, Object> result = Collections.emptyMap();
+
+        final CompletionService<Map<String, Object>> completionService =
+                new ExecutorCompletionService<>(requestExecutor);
+        final List<Future<Map<String, Object>>> submitted = new ArrayList<>(candidates.size());
+        final Iterator<TokenInfoEndpoint> remaining = candidates.iterator();
+
+        TokenInfoEndpoint current = submit(remaining.next(), accessToken, completionService, submitted);
+        int pending = 1;
+        try {
+            while (pending > 0) {
+                final Future<Map<String, Object>> done;
+                if (remaining.hasNext()) {
+                    done = completionService.poll(hedgeDelay(current), TimeUnit.MILLISECONDS);
+                    if (done == null) {
+                        log.debug("Token info endpoint {} is slow, hedging request", current.url());
+                        hedgedRequests.mark();
+                        current = submit(remaining.next(), accessToken, completionService, submitted);
+                        pending++;
+                        continue;
+                    }
+                } else {
+                    done = completionService.take();
+                }
+                pending--;
+
+                try {
+                    result = done.get();
+                    if (result.containsKey("error")) {
+                        log.warn("Token info responded {} for provided token: {}", result.get("error"), result.get("error_description"));
+                    } else {
+                        return result;
+                    }
+                } catch (ExecutionException ex) {
+                    cachedException = restClientExceptionOf(ex);
+                    log.warn("Token info request failed: {}", cachedException.getMessage());
+                }
+
+                // Nothing in flight anymore, so fall back right away
+                if (pending == 0 && remaining.hasNext()) {
+                    current = submit(remaining.next(), accessToken, completionService, submitted);
+                    pending++;
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } finally {
+            submitted.forEach(future -> future.cancel(true));
+        }
+
+        if (!result.isEmpty()) {
+            return result;
+        }
+        throw cachedException;
+    }
+
+    private TokenInfoEndpoint submit(TokenInfoEndpoint endpoint, String accessToken,
+                                     CompletionService<Map<String, Object>> completionService,
+                                     List<Future<Map<String, Object>>> submitted) {
+        submitted.add(completionService.submit(() -> endpoint.getMap(accessToken)));
+        return endpoint;
+    }
+
+    private long hedgeDelay(TokenInfoEndpoint endpoint) {
+        return Math.max(properties.getMinHedgeDelay(), endpoint.percentileLatency());
+    }
+
+    /*
+     * Rest client exceptions are handled like in a sequential fallback, everything else is propagated.
+     */
+    private static RestClientException restClientExceptionOf(ExecutionException ex) {
+        final Throwable cause = ex.getCause();
+        if (cause instanceof RestClientException) {
+            return (RestClientException) cause;
+        } else if (cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+        } else if (cause instanceof Error) {
+            throw (Error) cause;
+        }
+        throw new IllegalStateException(cause);
+    }
+
+    /**
+     * Stops the threads used for hedged requests and closes all pooled connections.
+     */
+    public void shutdown() {
+        requestExecutor.shutdownNow();
+        try {
+            httpClient.close();
+        } catch (IOException e) {
+            log.warn("Failed to close token info connections: {}", e.getMessage());
+        }
+    }
 }
@@ -0,0 +1,195 @@
+package org.zalando.planb.revocation.config;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSVerifier;
+import com.nimbusds.jose.crypto.ECDSAVerifier;
+import com.nimbusds.jose.crypto.RSASSAVerifier;
+import com.nimbusds.jose.jwk.ECKey;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import org.slf4j.Logger;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.io.Resource;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.oauth2.common.OAuth2AccessToken;
+import org.springframework.security.oauth2.common.exceptions.InvalidTokenException;
+import org.springframework.security.oauth2.provider.OAuth2Authentication;
+import org.springframework.security.oauth2.provider.token.ResourceServerTokenServices;
+import org.springframework.util.StreamUtils;
+import org.zalando.stups.oauth2.spring.server.AuthenticationExtractor;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Validates Plan B JWTs locally, verifying their signature against the keys of a JWKS document.
+ * <p>
+ * <p>The claims of a valid JWT are mapped to the same token info shape returned by the token info endpoints, so that
+ * the resulting {@link OAuth2Authentication} is identical to the one of a remote validation. Tokens which are not
+ * signed JWTs, or signed with an unknown key, are validated by the fallback {@link ResourceServerTokenServices}.</p>
+ * <p>
+ * <p>The JWKS document is loaded from a {@code file:}, {@code classpath:} or {@code http(s):} location, and reloaded in
+ * the background. If reloading fails, the previously loaded keys are kept.</p>
+ *
+ * @author <a href="mailto:team-greendale@zalando.de">Team Greendale</a>
+ */
+public class JwtResourceServerTokenServices implements ResourceServerTokenServices {
+
+    private static final Logger LOG = getLogger(JwtResourceServerTokenServices.class);
+
+    private static final String CLIENT_ID = "CLIENT_ID_NOT_NEEDED";
+
+    private static final String UID = "uid";
+
+    private final Resource jwks;
+
+    private final AuthenticationExtractor authenticationExtractor;
+
+    private final ResourceServerTokenServices fallback;
+
+    private final ScheduledExecutorService refresher;
+
+    private volatile Map<String, JWSVerifier> verifiers = ImmutableMap.of();
+
+    /**
+     * Constructs a new instance, loading the JWKS document right away and reloading it periodically.
+     *
+     * @param jwksLocation            location of the JWKS document
+     * @param refreshInterval         interval used to reload the JWKS document, in milliseconds
+     * @param authenticationExtractor extractor building an authentication from token info
+     * @param fallback                token services used for tokens that can't be validated locally
+     */
+    public JwtResourceServerTokenServices(final String jwksLocation, final long refreshInterval,
+                                          final AuthenticationExtractor authenticationExtractor,
+                                          final ResourceServerTokenServices fallback) {
+        this.jwks = new DefaultResourceLoader().getResource(jwksLocation);
+        this.authenticationExtractor = authenticationExtractor;
+        this.fallback = fallback;
+
+        refresh();
+        this.refresher = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+                .setNameFormat("jwks-refresh-%d")
+                .setDaemon(true)
+                .build());
+        refresher.scheduleWithFixedDelay(this::refresh, refreshInterval, refreshInterval, MILLISECONDS);
+    }
+
+    /**
+     * Reloads the JWKS document, replacing the known keys.
+     */
+    public void refresh() {
+        try (InputStream in = jwks.getInputStream()) {
+            final JWKSet keys = JWKSet.parse(StreamUtils.copyToString(in, StandardCharsets.UTF_8));
+            final Map<String, JWSVerifier> loaded = new HashMap<>(keys.getKeys().size());
+            for (JWK key : keys.getKeys()) {
+                if (key.getKeyID() == null) {
+                    LOG.warn("Ignoring JWK without key ID from {}", jwks.getDescription());
+                    continue;
+                }
+                final JWSVerifier verifier = verifierOf(key);
+                if (verifier != null) {
+                    loaded.put(key.getKeyID(), verifier);
+                }
+            }
+            verifiers = ImmutableMap.copyOf(loaded);
+            LOG.debug("Loaded {} keys from {}", loaded.size(), jwks.getDescription());
+        } catch (IOException | ParseException e) {
+            LOG.error("Failed to load JWKS from {}: {}", jwks.getDescription(), e.getMessage());
+        }
+    }
+
+    private JWSVerifier verifierOf(final JWK key) {
+        try {
+            if (key instanceof ECKey) {
+                return new ECDSAVerifier((ECKey) key);
+            } else if (key instanceof RSAKey) {
+                return new RSASSAVerifier((RSAKey) key);
+            }
+            LOG.warn("Ignoring JWK {} with unsupported key type {}", key.getKeyID(), key.getKeyType());
+        } catch (JOSEException e) {
+            LOG.warn("Ignoring invalid JWK {}: {}", key.getKeyID(), e.getMessage());
+        }
+        return null;
+    }
+
+    @Override
+    public OAuth2Authentication loadAuthentication(final String accessToken)
+            throws AuthenticationException, InvalidTokenException {
+        final SignedJWT jwt;
+        try {
+            jwt = SignedJWT.parse(accessToken);
+        } catch (ParseException e) {
+            // Opaque token
+            return fallback.loadAuthentication(accessToken);
+        }
+
+        final JWSVerifier verifier = verifiers.get(jwt.getHeader().getKeyID());
+        if (verifier == null || !verifier.supportedJWSAlgorithms().contains(jwt.getHeader().getAlgorithm())) {
+            LOG.debug("No local key for JWT with key ID {}", jwt.getHeader().getKeyID());
+            return fallback.loadAuthentication(accessToken);
+        }
+
+        return authenticationExtractor.extractAuthentication(tokenInfo(jwt, verifier, accessToken), CLIENT_ID);
+    }
+
+    /*
+     * Builds the same map the token info endpoint would return for the token.
+     */
+    private static Map<String, Object> tokenInfo(final SignedJWT jwt, final JWSVerifier verifier,
+                                                 final String accessToken) {
+        final JWTClaimsSet claims;
+        try {
+            if (!jwt.verify(verifier)) {
+                throw new InvalidTokenException("Access Token not valid");
+            }
+            claims = jwt.getJWTClaimsSet();
+        } catch (JOSEException | ParseException e) {
+            throw new InvalidTokenException("Access Token not valid", e);
+        }
+
+        final Date expiration = claims.getExpirationTime();
+        final long now = System.currentTimeMillis();
+        if (expiration == null || expiration.getTime() <= now) {
+            throw new InvalidTokenException("Access Token expired");
+        }
+
+        final Map<String, Object> tokenInfo = new HashMap<>(claims.getClaims().size() + 4);
+        for (Map.Entry<String, Object> claim : claims.getClaims().entrySet()) {
+            final Object value = claim.getValue();
+            tokenInfo.put(claim.getKey(), value instanceof Date ? ((Date) value).getTime() / 1000 : value);
+        }
+        tokenInfo.putIfAbsent(UID, claims.getSubject());
+        tokenInfo.put(OAuth2AccessToken.ACCESS_TOKEN, accessToken);
+        tokenInfo.put(OAuth2AccessToken.TOKEN_TYPE, OAuth2AccessToken.BEARER_TYPE);
+        tokenInfo.put(OAuth2AccessToken.EXPIRES_IN, TimeUnit.MILLISECONDS.toSeconds(expiration.getTime() - now));
+        return tokenInfo;
+    }
+
+    @Override
+    public OAuth2AccessToken readAccessToken(final String accessToken) {
+        return fallback.readAccessToken(accessToken);
+    }
+
+    /**
+     * Stops reloading the JWKS document.
+     */
+    public void shutdown() {
+        refresher.shutdownNow();
+    }
+}
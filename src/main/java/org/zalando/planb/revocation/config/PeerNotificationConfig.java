@@ -0,0 +1,70 @@
+package org.zalando.planb.revocation.config;
+
+import com.codahale.metrics.MetricRegistry;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.zalando.planb.revocation.config.properties.PeerNotificationProperties;
+import org.zalando.planb.revocation.management.PeerNotificationMvcEndpoint;
+import org.zalando.planb.revocation.service.impl.AbstractPeerNotificationService;
+import org.zalando.planb.revocation.service.impl.HttpPeerNotificationService;
+import org.zalando.planb.revocation.service.impl.LocalPeerNotificationService;
+import org.zalando.planb.revocation.service.impl.UdpPeerNotificationService;
+import org.zalando.planb.revocation.util.PeerNotificationSigner;
+
+import java.io.IOException;
+
+/**
+ * Sets up notifications between peer instances, so that caches pick up revocations written to other instances
+ * without waiting for their next refresh.
+ */
+@Configuration
+@EnableConfigurationProperties(PeerNotificationProperties.class)
+public class PeerNotificationConfig {
+
+    @Autowired
+    private PeerNotificationProperties peerNotificationProperties;
+
+    /**
+     * Signs notifications with the shared secret. Peers are only notified when a secret is configured.
+     */
+    @Bean
+    public PeerNotificationSigner peerNotificationSigner() {
+        final PeerNotificationSigner signer = new PeerNotificationSigner(peerNotificationProperties.getSecret());
+        if (!signer.hasSecret()
+                && peerNotificationProperties.getTransport() != PeerNotificationProperties.Transport.LOCAL) {
+            throw new IllegalStateException("peers.secret must be set to notify peers with "
+                    + peerNotificationProperties.getTransport());
+        }
+        return signer;
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    public AbstractPeerNotificationService peerNotificationService(ObjectMapper objectMapper,
+            MetricRegistry metricRegistry) throws IOException {
+        switch (peerNotificationProperties.getTransport()) {
+            case HTTP:
+                return new HttpPeerNotificationService(peerNotificationProperties.getAddresses(),
+                        peerNotificationProperties.getConnectTimeout(), peerNotificationProperties.getReadTimeout(),
+                        objectMapper, peerNotificationSigner(), metricRegistry);
+            case UDP:
+                return new UdpPeerNotificationService(peerNotificationProperties.getAddresses(),
+                        peerNotificationProperties.getUdpPort(), peerNotificationSigner(), metricRegistry);
+            default:
+                return new LocalPeerNotificationService(metricRegistry);
+        }
+    }
+
+    /**
+     * Receives HTTP notifications on the management port. Registered with all transports, so that peers can be
+     * switched to HTTP one at a time. Without a secret, all notifications are rejected.
+     */
+    @Bean
+    public PeerNotificationMvcEndpoint peerNotificationMvcEndpoint(ObjectMapper objectMapper,
+            MetricRegistry metricRegistry) throws IOException {
+        return new PeerNotificationMvcEndpoint(peerNotificationService(objectMapper, metricRegistry),
+                peerNotificationSigner());
+    }
+}
@@ -1,43 +1,203 @@
 package org.zalando.planb.revocation.config;
 
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.cache.CacheStats;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.zalando.planb.revocation.config.properties.CassandraProperties;
 import org.zalando.planb.revocation.config.properties.HashingProperties;
+import org.zalando.planb.revocation.config.properties.RevocationBucketProperties;
+import org.zalando.planb.revocation.config.properties.RevocationCheckProperties;
 import org.zalando.planb.revocation.config.properties.RevocationProperties;
+import org.zalando.planb.revocation.config.properties.RevocationSnapshotProperties;
+import org.zalando.planb.revocation.domain.RevocationSnapshot;
 import org.zalando.planb.revocation.domain.RevocationType;
 import org.zalando.planb.revocation.persistence.AuthorizationRulesStore;
+import org.zalando.planb.revocation.persistence.RevocationStore;
+import org.zalando.planb.revocation.service.PeerNotificationService;
 import org.zalando.planb.revocation.service.RevocationAuthorizationService;
+import org.zalando.planb.revocation.service.impl.FileRevocationBucketService;
+import org.zalando.planb.revocation.service.impl.IndexedRevocationCheckService;
+import org.zalando.planb.revocation.service.impl.IndexedRevocationFilterService;
 import org.zalando.planb.revocation.service.impl.RuleBasedClaimRevocationAuthorizationService;
+import org.zalando.planb.revocation.service.impl.ScanningRevocationFilterService;
+import org.zalando.planb.revocation.service.impl.ScheduledRevocationSnapshotService;
 import org.zalando.planb.revocation.util.ImmutableMessageHasher;
 import org.zalando.planb.revocation.util.MessageHasher;
+import org.zalando.planb.revocation.util.RevocationExpiry;
+import org.zalando.planb.revocation.util.RevocationInfoConverter;
+import org.zalando.planb.revocation.util.RevocationPruner;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
 
 @Configuration
-@EnableConfigurationProperties({HashingProperties.class, RevocationProperties.class})
+@EnableConfigurationProperties({HashingProperties.class, RevocationProperties.class,
+        RevocationCheckProperties.class, RevocationSnapshotProperties.class, RevocationBucketProperties.class})
 public class RevocationConfig {
 
     @Autowired
     private HashingProperties hashingProperties;
 
+    /**
+     * Hashes revocation values. Cached hashes expire after {@code cassandra.maxTimeDelta}, as older revocations are
+     * never returned.
+     */
     @Bean
-    public MessageHasher messageHasher() throws NoSuchAlgorithmException {
+    public MessageHasher messageHasher(CassandraProperties cassandraProperties, MetricRegistry metricRegistry)
+            throws NoSuchAlgorithmException {
         Map<RevocationType, MessageDigest> hashers = new HashMap<>(hashingProperties.getAlgorithms().size());
         for (RevocationType type : hashingProperties.getAlgorithms().keySet()) {
             hashers.put(type, MessageDigest.getInstance(hashingProperties.getAlgorithms().get(type)));
         }
 
-        return ImmutableMessageHasher.builder()
+        final MessageHasher messageHasher = ImmutableMessageHasher.builder()
                 .hashingAlgorithms(hashers)
                 .salt(hashingProperties.getSalt())
                 .separator(hashingProperties.getSeparator())
+                .cacheMaximumSize(hashingProperties.isCacheEnabled() ? hashingProperties.getCacheMaximumSize() : 0)
+                .cacheTtl(Duration.ofSeconds(cassandraProperties.getMaxTimeDelta()))
                 .build();
+
+        registerCacheGauge(metricRegistry, "hitRatio",
+                () -> messageHasher.cacheStats().map(CacheStats::hitRate).orElse(0.0));
+        registerCacheGauge(metricRegistry, "hits",
+                () -> messageHasher.cacheStats().map(CacheStats::hitCount).orElse(0L));
+        registerCacheGauge(metricRegistry, "misses",
+                () -> messageHasher.cacheStats().map(CacheStats::missCount).orElse(0L));
+        registerCacheGauge(metricRegistry, "size", messageHasher::cachedHashes);
+        return messageHasher;
+    }
+
+    private static void registerCacheGauge(MetricRegistry metricRegistry, String name, Gauge<?> gauge) {
+        registerGauge(metricRegistry, MetricRegistry.name("planb.hashing.cache", name), gauge);
+    }
+
+    private static void registerGauge(MetricRegistry metricRegistry, String metric, Gauge<?> gauge) {
+        metricRegistry.remove(metric);
+        metricRegistry.register(metric, gauge);
+    }
+
+    @Bean
+    public RevocationInfoConverter revocationInfoConverter(MessageHasher messageHasher) {
+        return new RevocationInfoConverter(messageHasher);
+    }
+
+    @Bean
+    public RevocationExpiry revocationExpiry(RevocationProperties revocationProperties) {
+        return new RevocationExpiry(revocationProperties.getMaxTokenLifetime());
+    }
+
+    @Bean
+    public RevocationPruner revocationPruner(MetricRegistry metricRegistry) {
+        return new RevocationPruner(metricRegistry);
+    }
+
+    /**
+     * Checks tokens against an off heap index of the revocations of the last {@code cassandra.maxTimeDelta} seconds,
+     * updated as soon as revocations are written to this instance or its peers.
+     */
+    @Bean(destroyMethod = "shutdown")
+    @ConditionalOnProperty(prefix = "revocation.check", name = "enabled")
+    public IndexedRevocationCheckService revocationCheckService(RevocationStore revocationStore,
+            MessageHasher messageHasher, RevocationCheckProperties revocationCheckProperties,
+            CassandraProperties cassandraProperties, PeerNotificationService peerNotificationService,
+            MetricRegistry metricRegistry) {
+        final IndexedRevocationCheckService service = new IndexedRevocationCheckService(revocationStore,
+                messageHasher, cassandraProperties.getMaxTimeDelta(), revocationCheckProperties.getExpectedEntries(),
+                revocationCheckProperties.getPollInterval(), revocationCheckProperties.getRebuildInterval());
+
+        registerGauge(metricRegistry, "planb.check.index.tokens", service::indexedTokens);
+        registerGauge(metricRegistry, "planb.check.index.claims", service::indexedClaims);
+        registerGauge(metricRegistry, "planb.check.index.memory", service::memoryUsage);
+        peerNotificationService.addListener(service::onNotification);
+        return service;
+    }
+
+    /**
+     * Filters revocations using in memory indexes of the revocations of the last {@code cassandra.maxTimeDelta}
+     * seconds, updated like the index of revocation checks.
+     */
+    @Bean(destroyMethod = "shutdown")
+    @ConditionalOnProperty(prefix = "revocation.check", name = "filter-enabled")
+    public IndexedRevocationFilterService revocationFilterService(RevocationStore revocationStore,
+            MessageHasher messageHasher, RevocationCheckProperties revocationCheckProperties,
+            CassandraProperties cassandraProperties, PeerNotificationService peerNotificationService,
+            MetricRegistry metricRegistry) {
+        final IndexedRevocationFilterService service = new IndexedRevocationFilterService(revocationStore,
+                messageHasher, cassandraProperties.getMaxTimeDelta(), revocationCheckProperties.getPollInterval(),
+                revocationCheckProperties.getRebuildInterval());
+
+        registerGauge(metricRegistry, "planb.filter.index.partitions", service::indexedPartitions);
+        registerGauge(metricRegistry, "planb.filter.index.revocations", service::indexedRevocations);
+        peerNotificationService.addListener(service::onNotification);
+        return service;
+    }
+
+    /**
+     * Filters revocations read from the store, while the indexes are disabled.
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "revocation.check", name = "filter-enabled", havingValue = "false",
+            matchIfMissing = true)
+    public ScanningRevocationFilterService scanningRevocationFilterService(RevocationStore revocationStore,
+            MessageHasher messageHasher) {
+        return new ScanningRevocationFilterService(revocationStore, messageHasher);
+    }
+
+    /**
+     * Builds the snapshots new clients bootstrap from, pruned like responses to {@code GET /revocations}.
+     */
+    @Bean(destroyMethod = "shutdown")
+    @ConditionalOnProperty(prefix = "revocation.snapshot", name = "enabled")
+    public ScheduledRevocationSnapshotService revocationSnapshotService(RevocationStore revocationStore,
+            RevocationInfoConverter revocationInfoConverter, RevocationPruner revocationPruner,
+            RevocationProperties revocationProperties, RevocationSnapshotProperties revocationSnapshotProperties,
+            CassandraProperties cassandraProperties, ObjectMapper objectMapper, MetricRegistry metricRegistry) {
+        final ScheduledRevocationSnapshotService service = new ScheduledRevocationSnapshotService(revocationStore,
+                revocationInfoConverter, revocationProperties.isPruneSuperseded() ? revocationPruner : null,
+                objectMapper, metricRegistry, cassandraProperties.getMaxTimeDelta(),
+                revocationSnapshotProperties.getInterval(), revocationSnapshotProperties.getSettleDelay(),
+                revocationSnapshotProperties.getRetained());
+
+        registerGauge(metricRegistry, "planb.snapshot.version",
+                () -> service.latest().map(RevocationSnapshot::version).orElse(0));
+        registerGauge(metricRegistry, "planb.snapshot.bytes",
+                () -> service.latest().map(snapshot -> snapshot.content().length).orElse(0));
+        return service;
+    }
+
+    /**
+     * Renders closed buckets of revocations to files, pruned like responses to {@code GET /revocations}.
+     */
+    @Bean(destroyMethod = "shutdown")
+    @ConditionalOnProperty(prefix = "revocation.buckets", name = "enabled")
+    public FileRevocationBucketService revocationBucketService(RevocationStore revocationStore,
+            RevocationInfoConverter revocationInfoConverter, RevocationPruner revocationPruner,
+            RevocationProperties revocationProperties, RevocationBucketProperties revocationBucketProperties,
+            CassandraProperties cassandraProperties, ObjectMapper objectMapper, MetricRegistry metricRegistry)
+            throws IOException {
+        final FileRevocationBucketService service = new FileRevocationBucketService(revocationStore,
+                revocationInfoConverter, revocationProperties.isPruneSuperseded() ? revocationPruner : null,
+                objectMapper, metricRegistry, cassandraProperties.getMaxTimeDelta(),
+                revocationBucketProperties.getDirectory().isPresent()
+                        ? Paths.get(revocationBucketProperties.getDirectory().get())
+                        : Files.createTempDirectory("revocation-buckets"),
+                revocationBucketProperties.getCheckInterval());
+
+        registerGauge(metricRegistry, "planb.buckets.rendered", () -> service.buckets().size());
+        return service;
     }
 
     @Bean
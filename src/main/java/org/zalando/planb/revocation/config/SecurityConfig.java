@@ -1,5 +1,6 @@
 package org.zalando.planb.revocation.config;
 
+import com.codahale.metrics.MetricRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.security.oauth2.resource.ResourceServerProperties;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
@@ -17,7 +18,9 @@ import org.springframework.security.oauth2.provider.token.ResourceServerTokenSer
 import org.springframework.security.web.header.writers.HstsHeaderWriter;
 import org.springframework.security.web.util.matcher.AnyRequestMatcher;
 import org.zalando.planb.revocation.config.properties.ApiSecurityProperties;
+import org.zalando.planb.revocation.config.properties.TokenInfoProperties;
 import org.zalando.planb.revocation.domain.CurrentUser;
+import org.zalando.planb.revocation.management.TokenInfoHealthIndicator;
 import org.zalando.stups.oauth2.spring.security.expression.ExtendedOAuth2WebSecurityExpressionHandler;
 import org.zalando.stups.oauth2.spring.server.DefaultAuthenticationExtractor;
 import org.zalando.stups.oauth2.spring.server.TokenInfoResourceServerTokenServices;
@@ -29,7 +32,7 @@ import java.util.concurrent.TimeUnit;
  */
 @Configuration
 @EnableResourceServer
-@EnableConfigurationProperties(ApiSecurityProperties.class)
+@EnableConfigurationProperties({ApiSecurityProperties.class, TokenInfoProperties.class})
 public class SecurityConfig extends WebSecurityConfigurerAdapter implements ResourceServerConfigurer {
 
     @Autowired
@@ -38,11 +41,37 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter implements Reso
     @Autowired
     private ResourceServerProperties resourceServerProperties;
 
+    @Autowired
+    private TokenInfoProperties tokenInfoProperties;
+
+    @Autowired
+    private MetricRegistry metricRegistry;
+
+    @Bean(destroyMethod = "shutdown")
+    public FallbackTokenInfoRequestExecutor tokenInfoRequestExecutor() {
+        return new FallbackTokenInfoRequestExecutor(resourceServerProperties.getTokenInfoUri(), tokenInfoProperties,
+                metricRegistry);
+    }
+
+    /**
+     * Validates tokens remotely through the token info endpoints or, when a JWKS location is configured, validates
+     * signed JWTs locally and only falls back to the token info endpoints for other tokens.
+     */
     @Bean
     public ResourceServerTokenServices tokenInfoTokenServices() {
-        return new TokenInfoResourceServerTokenServices("CLIENT_ID_NOT_NEEDED",
+        final ResourceServerTokenServices remote = new TokenInfoResourceServerTokenServices("CLIENT_ID_NOT_NEEDED",
                 new DefaultAuthenticationExtractor(),
-                new FallbackTokenInfoRequestExecutor(resourceServerProperties.getTokenInfoUri()));
+                tokenInfoRequestExecutor());
+
+        return tokenInfoProperties.getJwksLocation()
+                .<ResourceServerTokenServices>map(location -> new JwtResourceServerTokenServices(location,
+                        tokenInfoProperties.getJwksRefreshInterval(), new DefaultAuthenticationExtractor(), remote))
+                .orElse(remote);
+    }
+
+    @Bean
+    public TokenInfoHealthIndicator tokenInfoHealthIndicator() {
+        return new TokenInfoHealthIndicator(tokenInfoRequestExecutor());
     }
 
     @Override
@@ -52,10 +81,13 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter implements Reso
         resources.resourceId("revocation").expressionHandler(new ExtendedOAuth2WebSecurityExpressionHandler());
     }
 
+    /*
+     * Revocation checks are as public as the revocation list: a check only tells whether a token is in it.
+     */
     @Override
     public void configure(final WebSecurity web) throws Exception {
         web.ignoring().antMatchers("/swagger.json", "/.well-known/schema-discovery").antMatchers(HttpMethod.GET,
-                "/revocations/**");
+                "/revocations/**").antMatchers(HttpMethod.POST, "/revocations/check");
     }
 
     @Override
@@ -67,6 +99,7 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter implements Reso
                 .antMatchers(HttpMethod.POST, "/revocations")
                     .access(apiSecurityProperties.getRevokeExpr())
                 .antMatchers(HttpMethod.GET, "/revocations").permitAll()
+                .antMatchers(HttpMethod.POST, "/revocations/check").permitAll()
                 .antMatchers(HttpMethod.POST, "/notifications/**")
                 .access(apiSecurityProperties.getRevokeExpr())
                 .anyRequest().denyAll();
@@ -1,22 +1,35 @@
 package org.zalando.planb.revocation.config;
 
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
 import com.datastax.driver.core.Session;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.AutoConfigureAfter;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.zalando.planb.revocation.config.properties.CassandraProperties;
+import org.zalando.planb.revocation.config.properties.FileStorageProperties;
 import org.zalando.planb.revocation.domain.CurrentUser;
 import org.zalando.planb.revocation.management.CassandraHealthIndicator;
+import org.zalando.planb.revocation.management.SlowQueryLogMvcEndpoint;
+import org.zalando.planb.revocation.persistence.AdaptiveConsistency;
 import org.zalando.planb.revocation.persistence.AuthorizationRulesStore;
 import org.zalando.planb.revocation.persistence.CassandraAuthorizationRuleStore;
 import org.zalando.planb.revocation.persistence.CassandraRevocationStore;
+import org.zalando.planb.revocation.persistence.FileRevocationStore;
 import org.zalando.planb.revocation.persistence.InMemoryAuthorizationRuleStore;
 import org.zalando.planb.revocation.persistence.InMemoryRevocationStore;
 import org.zalando.planb.revocation.persistence.RevocationStore;
+import org.zalando.planb.revocation.persistence.SlowQueryLog;
+
+import java.io.IOException;
+import java.nio.file.Paths;
 
 @Configuration
 @AutoConfigureAfter(CassandraConfig.class)
@@ -33,16 +46,42 @@ public class StorageConfig {
         private Session session;
 
         @Bean
-        public RevocationStore revocationStore(final CurrentUser currentUser, final ObjectMapper objectMapper) {
-            return new CassandraRevocationStore(session, cassandraProperties.getReadConsistencyLevel(),
-                    cassandraProperties.getWriteConsistencyLevel(), cassandraProperties.getMaxTimeDelta(),
-                    currentUser, objectMapper);
+        public RevocationStore revocationStore(final CurrentUser currentUser, final ObjectMapper objectMapper,
+                                               final MetricRegistry metricRegistry) {
+            final CassandraRevocationStore store = new CassandraRevocationStore(session,
+                    cassandraProperties.getReadConsistencyLevel(), cassandraProperties.getWriteConsistencyLevel(),
+                    cassandraProperties.getFallbackConsistencyLevels(),
+                    cassandraProperties.getConsistencyUpgradeInterval(), cassandraProperties.getMaxTimeDelta(),
+                    currentUser, objectMapper, metricRegistry, slowQueryLog(),
+                    cassandraProperties.isExpiryTtl());
+
+            registerConsistencyGauge(metricRegistry, "read", store.readConsistency());
+            registerConsistencyGauge(metricRegistry, "write", store.writeConsistency());
+            return store;
+        }
+
+        private static void registerConsistencyGauge(final MetricRegistry metricRegistry, final String name,
+                                                     final AdaptiveConsistency consistency) {
+            final String metric = MetricRegistry.name("planb.cassandra.consistency", name, "level");
+            metricRegistry.remove(metric);
+            metricRegistry.register(metric, (Gauge<String>) () -> consistency.currentLevel().name());
         }
 
         @Bean
         public AuthorizationRulesStore authorizationRulesStore() {
             return new CassandraAuthorizationRuleStore(session, cassandraProperties.getReadConsistencyLevel(),
-                    cassandraProperties.getWriteConsistencyLevel());
+                    cassandraProperties.getWriteConsistencyLevel(), slowQueryLog());
+        }
+
+        @Bean
+        public SlowQueryLog slowQueryLog() {
+            return new SlowQueryLog(cassandraProperties.isSlowQueryLogEnabled(),
+                    cassandraProperties.getSlowQueryThreshold(), cassandraProperties.getSlowQuerySampleRate());
+        }
+
+        @Bean
+        public SlowQueryLogMvcEndpoint slowQueryLogMvcEndpoint() {
+            return new SlowQueryLogMvcEndpoint(slowQueryLog());
         }
 
         @Bean
@@ -51,13 +90,37 @@ public class StorageConfig {
         }
     }
 
+    @Configuration
+    @ConditionalOnMissingBean(Session.class)
+    @ConditionalOnProperty(prefix = "filestorage", name = "directory")
+    @EnableConfigurationProperties(FileStorageProperties.class)
+    static class FileStorageConfig {
+
+        @Autowired
+        private CassandraProperties cassandraProperties;
+
+        @Autowired
+        private FileStorageProperties fileStorageProperties;
+
+        @Bean
+        public RevocationStore revocationStore(final ObjectMapper objectMapper) throws IOException {
+            return new FileRevocationStore(Paths.get(fileStorageProperties.getDirectory().get()),
+                    cassandraProperties.getMaxTimeDelta(), fileStorageProperties.getMaxBatchSize(),
+                    fileStorageProperties.getIndexInterval(), fileStorageProperties.getWriteTimeout(), objectMapper);
+        }
+    }
+
     @Configuration
     @ConditionalOnMissingBean(Session.class)
     static class InMemoryStorageConfig {
 
+        @Autowired
+        private CassandraProperties cassandraProperties;
+
         @Bean
+        @ConditionalOnExpression("'${filestorage.directory:}'.isEmpty()")
         public RevocationStore revocationStore() {
-            return new InMemoryRevocationStore();
+            return new InMemoryRevocationStore(cassandraProperties.getMaxTimeDelta());
         }
 
         @Bean
@@ -0,0 +1,198 @@
+package org.zalando.planb.revocation.config;
+
+import com.codahale.metrics.Timer;
+import org.apache.http.impl.execchain.RequestAbortedException;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestClientException;
+import org.zalando.stups.oauth2.spring.server.TokenInfoRequestExecutor;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A single token info endpoint, tracking its latency and guarded by a circuit breaker.
+ * <p>
+ * <p>After {@code failureThreshold} consecutive failures the circuit is opened and the endpoint should be skipped. Once
+ * {@code openCircuitDuration} has passed the endpoint becomes available again on trial: the next success closes the
+ * circuit, the next failure opens it again.</p>
+ * <p>
+ * <p>Client errors (HTTP 4xx) are not counted as failures, as they are caused by the token and not by the endpoint, and
+ * neither are requests interrupted because a hedged request answered first.</p>
+ *
+ * @author <a href="mailto:team-greendale@zalando.de">Team Greendale</a>
+ */
+public class TokenInfoEndpoint {
+
+    /**
+     * States of the circuit breaker of an endpoint.
+     */
+    public enum State {
+        /**
+         * The endpoint is healthy and used.
+         */
+        CLOSED,
+        /**
+         * The endpoint failed repeatedly and is skipped.
+         */
+        OPEN,
+        /**
+         * The endpoint failed repeatedly, but is available again on trial.
+         */
+        HALF_OPEN
+    }
+
+    // Recomputing percentiles means copying the reservoir, so it's done at most once per interval
+    private static final long PERCENTILE_REFRESH_INTERVAL = TimeUnit.SECONDS.toMillis(1);
+
+    private final String url;
+
+    private final TokenInfoRequestExecutor executor;
+
+    private final Timer latency;
+
+    private final double percentile;
+
+    private final int failureThreshold;
+
+    private final long openCircuitDuration;
+
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+
+    private volatile long openedAt = -1;
+
+    private volatile long percentileLatency;
+
+    private volatile long percentileComputedAt;
+
+    /**
+     * Constructs a new endpoint.
+     *
+     * @param url                 the token info URL
+     * @param executor            executor sending requests to {@code url}
+     * @param latency             timer used to track latencies of this endpoint
+     * @param percentile          the latency percentile returned by {@link TokenInfoEndpoint#percentileLatency()}
+     * @param failureThreshold    consecutive failures after which the circuit is opened
+     * @param openCircuitDuration time the circuit stays open, in milliseconds
+     */
+    public TokenInfoEndpoint(final String url, final TokenInfoRequestExecutor executor, final Timer latency,
+                             final double percentile, final int failureThreshold, final long openCircuitDuration) {
+        this.url = url;
+        this.executor = executor;
+        this.latency = latency;
+        this.percentile = percentile;
+        this.failureThreshold = failureThreshold;
+        this.openCircuitDuration = openCircuitDuration;
+    }
+
+    /**
+     * Requests token info from this endpoint, recording its latency and updating the circuit breaker.
+     *
+     * @param accessToken the access token to validate
+     * @return the token info
+     */
+    public Map<String, Object> getMap(final String accessToken) {
+        final Timer.Context context = latency.time();
+        try {
+            final Map<String, Object> result = executor.getMap(accessToken);
+            onSuccess(context);
+            return result;
+        } catch (HttpClientErrorException e) {
+            onSuccess(context);
+            throw e;
+        } catch (RestClientException e) {
+            if (!isAborted(e)) {
+                onFailure();
+            }
+            throw e;
+        }
+    }
+
+    /*
+     * Hedged requests losing the race are cancelled, possibly while waiting for a pooled connection. That says nothing
+     * about the endpoint.
+     */
+    private static boolean isAborted(final RestClientException e) {
+        if (Thread.currentThread().isInterrupted()) {
+            return true;
+        }
+        for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause()) {
+            if (cause instanceof InterruptedException || cause instanceof RequestAbortedException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /*
+     * Only latencies of answered requests are recorded, so that an endpoint failing fast is not mistaken for a fast one.
+     */
+    private void onSuccess(final Timer.Context context) {
+        context.stop();
+        consecutiveFailures.set(0);
+        openedAt = -1;
+    }
+
+    private void onFailure() {
+        if (consecutiveFailures.incrementAndGet() >= failureThreshold) {
+            openedAt = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * Returns the current state of the circuit breaker of this endpoint.
+     *
+     * @return the state of the circuit breaker
+     */
+    public State state() {
+        final long opened = openedAt;
+        if (opened < 0) {
+            return State.CLOSED;
+        }
+        return System.currentTimeMillis() - opened < openCircuitDuration ? State.OPEN : State.HALF_OPEN;
+    }
+
+    /**
+     * Returns if requests should be sent to this endpoint, i.e. if the circuit is not {@link State#OPEN}.
+     *
+     * @return {@code true} if this endpoint is available, {@code false} otherwise
+     */
+    public boolean isAvailable() {
+        return state() != State.OPEN;
+    }
+
+    /**
+     * Returns the configured latency percentile of this endpoint, in milliseconds.
+     * <p>
+     * <p>The value is {@code 0} until latencies have been recorded.</p>
+     *
+     * @return the latency percentile, in milliseconds
+     */
+    public long percentileLatency() {
+        final long now = System.currentTimeMillis();
+        if (now - percentileComputedAt > PERCENTILE_REFRESH_INTERVAL) {
+            percentileComputedAt = now;
+            percentileLatency = TimeUnit.NANOSECONDS.toMillis(
+                    (long) latency.getSnapshot().getValue(percentile));
+        }
+        return percentileLatency;
+    }
+
+    /**
+     * Returns the number of consecutive failures of this endpoint.
+     *
+     * @return the number of consecutive failures
+     */
+    public int consecutiveFailures() {
+        return consecutiveFailures.get();
+    }
+
+    /**
+     * Returns the URL of this endpoint.
+     *
+     * @return the URL of this endpoint
+     */
+    public String url() {
+        return url;
+    }
+}
@@ -1,11 +1,16 @@
 package org.zalando.planb.revocation.config;
 
+import com.codahale.metrics.Gauge;
 import com.codahale.metrics.MetricRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.embedded.FilterRegistrationBean;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.ComponentScan.Filter;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.RestController;
@@ -13,9 +18,18 @@ import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurerAdapter;
 import org.zalando.planb.revocation.api.impl.ResponseSizeHandlerInterceptor;
+import org.zalando.planb.revocation.config.properties.ResponseCompressionProperties;
+import org.zalando.planb.revocation.config.properties.RevocationProperties;
+import org.zalando.planb.revocation.web.CompressedResponseCache;
+import org.zalando.planb.revocation.web.CompressedResponseCacheFilter;
+import org.zalando.planb.revocation.web.DigestHeaderFilter;
+import org.zalando.planb.revocation.web.RenderedResponseCache;
 import org.zalando.planb.revocation.web.RequestInfoMDCFilter;
 
+import java.util.Optional;
+
 @Configuration
+@EnableConfigurationProperties(ResponseCompressionProperties.class)
 @ComponentScan(
         useDefaultFilters = false,
         includeFilters = @Filter(classes = {Controller.class, RestController.class, ControllerAdvice.class}),
@@ -37,6 +51,55 @@ public class WebConfig {
         };
     }
 
+    /**
+     * Compressed revocation lists and snapshots recently sent.
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "revocation.compression", name = "enabled", matchIfMissing = true)
+    public CompressedResponseCache compressedResponseCache(
+            ResponseCompressionProperties responseCompressionProperties) {
+        final CompressedResponseCache cache = new CompressedResponseCache(metricRegistry,
+                responseCompressionProperties.getMaximumSize(), responseCompressionProperties.getMinResponseSize());
+        metricRegistry.remove("planb.compression.cache.size");
+        metricRegistry.register("planb.compression.cache.size", (Gauge<Long>) cache::cachedBytes);
+        return cache;
+    }
+
+    /**
+     * Tags revocation lists with the hash of their content, so that clients polling the same feed, like validators of
+     * the same shard, get {@code 304 Not Modified} while it is unchanged. The same hash is sent as checksum, like the
+     * one of snapshots, so that clients can verify the deltas they apply on a snapshot. Lists are compressed from the
+     * same buffer, unless compression is disabled. Lists of closed ranges are kept rendered, and sent again as is.
+     */
+    @Bean
+    public FilterRegistrationBean revocationsDigestFilter(Optional<CompressedResponseCache> compressedResponseCache,
+            RevocationProperties revocationProperties) {
+        RenderedResponseCache renderedResponseCache = null;
+        if (revocationProperties.getResponseCacheSize() > 0) {
+            renderedResponseCache = new RenderedResponseCache(metricRegistry,
+                    revocationProperties.getResponseCacheSize());
+            metricRegistry.remove("planb.responses.cache.size");
+            metricRegistry.register("planb.responses.cache.size", (Gauge<Long>) renderedResponseCache::cachedBytes);
+        }
+        final FilterRegistrationBean registration = new FilterRegistrationBean(
+                new DigestHeaderFilter(compressedResponseCache.orElse(null), renderedResponseCache));
+        registration.addUrlPatterns("/revocations");
+        return registration;
+    }
+
+    /**
+     * Compresses snapshots, the latest one and the ones got by version, from the cache of the ones recently sent.
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "revocation.compression", name = "enabled", matchIfMissing = true)
+    public FilterRegistrationBean snapshotCompressionFilter(CompressedResponseCache compressedResponseCache) {
+        final FilterRegistrationBean registration = new FilterRegistrationBean(
+                new CompressedResponseCacheFilter(compressedResponseCache));
+        registration.addUrlPatterns("/revocations/snapshot", "/revocations/snapshot/*");
+        registration.setOrder(Ordered.LOWEST_PRECEDENCE - 1);
+        return registration;
+    }
+
     @Bean
     public RequestInfoMDCFilter requestInfoMDCFilter() {
         return new RequestInfoMDCFilter();
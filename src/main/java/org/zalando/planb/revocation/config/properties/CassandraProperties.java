@@ -2,12 +2,16 @@ package org.zalando.planb.revocation.config.properties;
 
 import com.datastax.driver.core.ConsistencyLevel;
 import com.datastax.driver.core.ProtocolOptions;
+import com.datastax.driver.core.SocketOptions;
+import com.google.common.collect.Lists;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
 import java.time.Duration;
+import java.util.List;
 import java.util.Optional;
 
 import static com.datastax.driver.core.ConsistencyLevel.EACH_QUORUM;
+import static com.datastax.driver.core.ConsistencyLevel.LOCAL_QUORUM;
 import static com.datastax.driver.core.ConsistencyLevel.ONE;
 
 /**
@@ -24,10 +28,49 @@ import static com.datastax.driver.core.ConsistencyLevel.ONE;
  * <li>{@code cassandra.contactPoints} - Comma separated list of hosts;</li>
  * <li>{@code cassandra.clusterName} - Name of the Cassandra cluster. Default value is {@code Cassandra};</li>
  * <li>{@code cassandra.port} - Port of the Cassandra cluster. Default value is {@code 9042};</li>
- * <li>{@code cassandra.writeConsistencyLevel} - Consistency level for write operations. Default value is {@code ONE};
- * </li>
- * <li>{@code cassandra.readConsistencyLevel} - Consistency level for read operations. Default value is
+ * <li>{@code cassandra.localDataCenter} - Data center whose hosts are queried first. Default value is empty, meaning
+ * the data center of the contact points;</li>
+ * <li>{@code cassandra.usedHostsPerRemoteDc} - Number of hosts of each remote data center queried when no local host
+ * is available. Default value is {@code 0};</li>
+ * <li>{@code cassandra.coreConnectionsPerHost} - Number of connections kept open to each local host. Default value is
+ * {@code 1};</li>
+ * <li>{@code cassandra.maxConnectionsPerHost} - Maximum number of connections opened to each local host. Default
+ * value is {@code 2};</li>
+ * <li>{@code cassandra.maxRequestsPerConnection} - Maximum number of requests in flight on each connection to a local
+ * host. Default value is {@code 1024};</li>
+ * <li>{@code cassandra.connectTimeout} - Connection timeout, in milliseconds. Default value is {@code 5000};</li>
+ * <li>{@code cassandra.readTimeout} - Time to wait for a host to answer a request, in milliseconds. Default value is
+ * {@code 12000};</li>
+ * <li>{@code cassandra.tcpNoDelay} - Whether Nagle's algorithm is disabled on connections. Default value is
+ * {@code true};</li>
+ * <li>{@code cassandra.keepAlive} - Whether TCP keep alive is enabled on connections. Default value is
+ * {@code true};</li>
+ * <li>{@code cassandra.compression} - Compression of the native protocol frames, {@code NONE}, {@code LZ4} or
+ * {@code SNAPPY}. Default value is {@code NONE};</li>
+ * <li>{@code cassandra.writeConsistencyLevel} - Consistency level for write operations. Default value is
  * {@code EACH_QUORUM};</li>
+ * <li>{@code cassandra.readConsistencyLevel} - Consistency level for read operations. Default value is {@code ONE};
+ * </li>
+ * <li>{@code cassandra.fallbackConsistencyLevels} - Weaker consistency levels reads and writes degrade to when their
+ * configured level can't be met, because replicas are unavailable or time out. Default value is
+ * {@code LOCAL_QUORUM,ONE}. Empty to never degrade;</li>
+ * <li>{@code cassandra.consistencyUpgradeInterval} - Interval in milliseconds between two attempts to upgrade a
+ * degraded consistency level. Default value is {@code 30000};</li>
+ * <li>{@code cassandra.maxSpeculativeExecutions} - Maximum number of speculative executions started for idempotent
+ * reads, each on another replica, when the queried one takes longer than usual to answer. Default value is
+ * {@code 2}. {@code 0} disables speculative executions;</li>
+ * <li>{@code cassandra.speculativeExecutionPercentile} - Percentile of the latency of a host after which the next
+ * speculative execution is started. Default value is {@code 99.0};</li>
+ * <li>{@code cassandra.speculativeExecutionHighestLatency} - Highest latency tracked to compute percentiles, in
+ * milliseconds. Slower responses are ignored. Default value is {@code 15000};</li>
+ * <li>{@code cassandra.slowQueryLogEnabled} - Whether slow statements are logged. Can be toggled at runtime on the
+ * management port ({@code /slow-queries}). Default value is {@code false};</li>
+ * <li>{@code cassandra.slowQueryThreshold} - Latency above which statements are logged, in milliseconds. Default value
+ * is {@code 500};</li>
+ * <li>{@code cassandra.slowQuerySampleRate} - Fraction of the faster statements logged as well. Default value is
+ * {@code 0.001};</li>
+ * <li>{@code cassandra.expiryTtl} - Whether revocations expiring are stored with a matching TTL, so that Cassandra
+ * drops them once expired. Default value is {@code false};</li>
  * <li>{@code cassandra.username} - User account to access the Cassandra cluster. Default value is empty;</li>
  * <li>{@code cassandra.password} - User password to access the Cassandra cluster. Default value is empty;</li>
  * <li>{@code cassandra.maxTimeDelta} - The maximum time span limit to get revocations, in seconds. Default value is
@@ -47,10 +90,48 @@ public class CassandraProperties {
 
     private int port = ProtocolOptions.DEFAULT_PORT;
 
+    private Optional<String> localDataCenter = Optional.empty();
+
+    private int usedHostsPerRemoteDc = 0;
+
+    private int coreConnectionsPerHost = 1;
+
+    private int maxConnectionsPerHost = 2;
+
+    private int maxRequestsPerConnection = 1024;
+
+    private int connectTimeout = SocketOptions.DEFAULT_CONNECT_TIMEOUT_MILLIS;
+
+    private int readTimeout = SocketOptions.DEFAULT_READ_TIMEOUT_MILLIS;
+
+    private boolean tcpNoDelay = true;
+
+    private boolean keepAlive = true;
+
+    private ProtocolOptions.Compression compression = ProtocolOptions.Compression.NONE;
+
     private ConsistencyLevel writeConsistencyLevel = EACH_QUORUM;
 
     private ConsistencyLevel readConsistencyLevel = ONE;
 
+    private List<ConsistencyLevel> fallbackConsistencyLevels = Lists.newArrayList(LOCAL_QUORUM, ONE);
+
+    private long consistencyUpgradeInterval = 30000;
+
+    private int maxSpeculativeExecutions = 2;
+
+    private double speculativeExecutionPercentile = 99.0;
+
+    private long speculativeExecutionHighestLatency = 15000;
+
+    private boolean slowQueryLogEnabled = false;
+
+    private long slowQueryThreshold = 500;
+
+    private double slowQuerySampleRate = 0.001;
+
+    private boolean expiryTtl = false;
+
     private Optional<String> username = Optional.empty();
 
     private Optional<String> password = Optional.empty();
@@ -92,6 +173,86 @@ public class CassandraProperties {
         this.port = port;
     }
 
+    public Optional<String> getLocalDataCenter() {
+        return localDataCenter;
+    }
+
+    public void setLocalDataCenter(Optional<String> localDataCenter) {
+        this.localDataCenter = localDataCenter;
+    }
+
+    public int getUsedHostsPerRemoteDc() {
+        return usedHostsPerRemoteDc;
+    }
+
+    public void setUsedHostsPerRemoteDc(int usedHostsPerRemoteDc) {
+        this.usedHostsPerRemoteDc = usedHostsPerRemoteDc;
+    }
+
+    public int getCoreConnectionsPerHost() {
+        return coreConnectionsPerHost;
+    }
+
+    public void setCoreConnectionsPerHost(int coreConnectionsPerHost) {
+        this.coreConnectionsPerHost = coreConnectionsPerHost;
+    }
+
+    public int getMaxConnectionsPerHost() {
+        return maxConnectionsPerHost;
+    }
+
+    public void setMaxConnectionsPerHost(int maxConnectionsPerHost) {
+        this.maxConnectionsPerHost = maxConnectionsPerHost;
+    }
+
+    public int getMaxRequestsPerConnection() {
+        return maxRequestsPerConnection;
+    }
+
+    public void setMaxRequestsPerConnection(int maxRequestsPerConnection) {
+        this.maxRequestsPerConnection = maxRequestsPerConnection;
+    }
+
+    public int getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    public void setConnectTimeout(int connectTimeout) {
+        this.connectTimeout = connectTimeout;
+    }
+
+    public int getReadTimeout() {
+        return readTimeout;
+    }
+
+    public void setReadTimeout(int readTimeout) {
+        this.readTimeout = readTimeout;
+    }
+
+    public boolean isTcpNoDelay() {
+        return tcpNoDelay;
+    }
+
+    public void setTcpNoDelay(boolean tcpNoDelay) {
+        this.tcpNoDelay = tcpNoDelay;
+    }
+
+    public boolean isKeepAlive() {
+        return keepAlive;
+    }
+
+    public void setKeepAlive(boolean keepAlive) {
+        this.keepAlive = keepAlive;
+    }
+
+    public ProtocolOptions.Compression getCompression() {
+        return compression;
+    }
+
+    public void setCompression(ProtocolOptions.Compression compression) {
+        this.compression = compression;
+    }
+
     public ConsistencyLevel getWriteConsistencyLevel() {
         return writeConsistencyLevel;
     }
@@ -108,6 +269,78 @@ public class CassandraProperties {
         this.readConsistencyLevel = readConsistencyLevel;
     }
 
+    public List<ConsistencyLevel> getFallbackConsistencyLevels() {
+        return fallbackConsistencyLevels;
+    }
+
+    public void setFallbackConsistencyLevels(List<ConsistencyLevel> fallbackConsistencyLevels) {
+        this.fallbackConsistencyLevels = fallbackConsistencyLevels;
+    }
+
+    public long getConsistencyUpgradeInterval() {
+        return consistencyUpgradeInterval;
+    }
+
+    public void setConsistencyUpgradeInterval(long consistencyUpgradeInterval) {
+        this.consistencyUpgradeInterval = consistencyUpgradeInterval;
+    }
+
+    public int getMaxSpeculativeExecutions() {
+        return maxSpeculativeExecutions;
+    }
+
+    public void setMaxSpeculativeExecutions(int maxSpeculativeExecutions) {
+        this.maxSpeculativeExecutions = maxSpeculativeExecutions;
+    }
+
+    public double getSpeculativeExecutionPercentile() {
+        return speculativeExecutionPercentile;
+    }
+
+    public void setSpeculativeExecutionPercentile(double speculativeExecutionPercentile) {
+        this.speculativeExecutionPercentile = speculativeExecutionPercentile;
+    }
+
+    public long getSpeculativeExecutionHighestLatency() {
+        return speculativeExecutionHighestLatency;
+    }
+
+    public void setSpeculativeExecutionHighestLatency(long speculativeExecutionHighestLatency) {
+        this.speculativeExecutionHighestLatency = speculativeExecutionHighestLatency;
+    }
+
+    public boolean isSlowQueryLogEnabled() {
+        return slowQueryLogEnabled;
+    }
+
+    public void setSlowQueryLogEnabled(boolean slowQueryLogEnabled) {
+        this.slowQueryLogEnabled = slowQueryLogEnabled;
+    }
+
+    public long getSlowQueryThreshold() {
+        return slowQueryThreshold;
+    }
+
+    public void setSlowQueryThreshold(long slowQueryThreshold) {
+        this.slowQueryThreshold = slowQueryThreshold;
+    }
+
+    public double getSlowQuerySampleRate() {
+        return slowQuerySampleRate;
+    }
+
+    public void setSlowQuerySampleRate(double slowQuerySampleRate) {
+        this.slowQuerySampleRate = slowQuerySampleRate;
+    }
+
+    public boolean isExpiryTtl() {
+        return expiryTtl;
+    }
+
+    public void setExpiryTtl(boolean expiryTtl) {
+        this.expiryTtl = expiryTtl;
+    }
+
     public Optional<String> getUsername() {
         return username;
     }
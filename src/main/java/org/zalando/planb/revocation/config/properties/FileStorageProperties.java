@@ -0,0 +1,69 @@
+package org.zalando.planb.revocation.config.properties;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.Optional;
+
+/**
+ * Properties used to configure storage of revocations in local files, when no Cassandra cluster is configured.
+ * <p>
+ * <p>The following properties are used and can be defined through <a
+ * href="https://docs.spring.io/spring-boot/docs/current/reference/html/boot-features-external-config.html">Spring
+ * Configuration</a>:</p>
+ * <p>
+ * <ul>
+ * <li>{@code filestorage.directory} - Directory where revocations are stored. Default value is empty, meaning
+ * revocations are only kept in memory;</li>
+ * <li>{@code filestorage.maxBatchSize} - Maximum number of revocations written and synced to disk at once. Default
+ * value is {@code 256};</li>
+ * <li>{@code filestorage.indexInterval} - Number of revocations between two entries of the time index of a segment
+ * file. Default value is {@code 64};</li>
+ * <li>{@code filestorage.writeTimeout} - Maximum time a revocation waits to be written, in milliseconds. Default value
+ * is {@code 10000}.</li>
+ * </ul>
+ *
+ * @author <a href="mailto:team-greendale@zalando.de">Team Greendale</a>
+ */
+@ConfigurationProperties(prefix = "filestorage")
+public class FileStorageProperties {
+
+    private Optional<String> directory = Optional.empty();
+
+    private int maxBatchSize = 256;
+
+    private int indexInterval = 64;
+
+    private long writeTimeout = 10000;
+
+    public Optional<String> getDirectory() {
+        return directory;
+    }
+
+    public void setDirectory(Optional<String> directory) {
+        this.directory = directory;
+    }
+
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    public void setMaxBatchSize(int maxBatchSize) {
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    public int getIndexInterval() {
+        return indexInterval;
+    }
+
+    public void setIndexInterval(int indexInterval) {
+        this.indexInterval = indexInterval;
+    }
+
+    public long getWriteTimeout() {
+        return writeTimeout;
+    }
+
+    public void setWriteTimeout(long writeTimeout) {
+        this.writeTimeout = writeTimeout;
+    }
+}
@@ -22,6 +22,9 @@ import java.util.Map;
  * <li>{@code revocation.hashing.salt} - Salt value used to hash revocation values;</li>
  * <li>{@code revocation.hashing.separator} - The separator used to concatenate claim values in
  * {@link RevokedClaimsInfo}. Default is '|';</li>
+ * <li>{@code revocation.hashing.cacheEnabled} - If computed hashes are cached. The cache is built along with the
+ * hasher, so changes of the salt or algorithms never serve stale hashes. Default is {@code true};</li>
+ * <li>{@code revocation.hashing.cacheMaximumSize} - Maximum number of cached hashes. Default is {@code 100000};</li>
  * </ul>
  *
  * @author <a href="mailto:rodrigo.reis@zalando.de">Rodrigo Reis</a>
@@ -37,6 +40,10 @@ public class HashingProperties {
 
     private Character separator = Character.valueOf('|');
 
+    private boolean cacheEnabled = true;
+
+    private long cacheMaximumSize = 100000;
+
     public Map<RevocationType, String> getAlgorithms() {
         return algorithms;
     }
@@ -60,4 +67,20 @@ public class HashingProperties {
     public void setSeparator(Character separator) {
         this.separator = separator;
     }
-}
\ No newline at end of file
+
+    public boolean isCacheEnabled() {
+        return cacheEnabled;
+    }
+
+    public void setCacheEnabled(boolean cacheEnabled) {
+        this.cacheEnabled = cacheEnabled;
+    }
+
+    public long getCacheMaximumSize() {
+        return cacheMaximumSize;
+    }
+
+    public void setCacheMaximumSize(long cacheMaximumSize) {
+        this.cacheMaximumSize = cacheMaximumSize;
+    }
+}
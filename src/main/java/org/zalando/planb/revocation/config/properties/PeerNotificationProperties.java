@@ -0,0 +1,101 @@
+package org.zalando.planb.revocation.config.properties;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Properties used to configure notifications between peer instances.
+ * <p>
+ * <p>The following properties are used and can be defined through <a
+ * href="https://docs.spring.io/spring-boot/docs/current/reference/html/boot-features-external-config.html">Spring
+ * Configuration</a>:</p>
+ * <p>
+ * <ul>
+ * <li>{@code peers.transport} - How peers are notified: {@code LOCAL} only notifies this instance, {@code HTTP} posts
+ * notifications to the management endpoint of peers and {@code UDP} sends datagrams. Default is {@code LOCAL};</li>
+ * <li>{@code peers.addresses} - Peers to notify. Management base URLs like {@code http://10.0.0.2:7979} for
+ * {@code HTTP}, {@code host:port} for {@code UDP}. Empty by default;</li>
+ * <li>{@code peers.udpPort} - Port UDP notifications are received on, and default port of peers. Default is
+ * {@code 7980};</li>
+ * <li>{@code peers.connectTimeout} - Timeout in milliseconds to connect to a peer with {@code HTTP}. Default is
+ * {@code 500};</li>
+ * <li>{@code peers.readTimeout} - Timeout in milliseconds to wait for a peer response with {@code HTTP}. Default is
+ * {@code 1000};</li>
+ * <li>{@code peers.secret} - Secret shared by all peers, notifications are signed with. Required with {@code HTTP}
+ * and {@code UDP}, unsigned notifications are rejected. Not set by default;</li>
+ * </ul>
+ *
+ * @author <a href="mailto:team-greendale@zalando.de">Team Greendale</a>
+ */
+@ConfigurationProperties(prefix = "peers")
+public class PeerNotificationProperties {
+
+    /**
+     * Transports for peer notifications.
+     */
+    public enum Transport {
+        LOCAL, HTTP, UDP
+    }
+
+    private Transport transport = Transport.LOCAL;
+
+    private List<String> addresses = new ArrayList<>();
+
+    private int udpPort = 7980;
+
+    private int connectTimeout = 500;
+
+    private int readTimeout = 1000;
+
+    private String secret;
+
+    public Transport getTransport() {
+        return transport;
+    }
+
+    public void setTransport(Transport transport) {
+        this.transport = transport;
+    }
+
+    public List<String> getAddresses() {
+        return addresses;
+    }
+
+    public void setAddresses(List<String> addresses) {
+        this.addresses = addresses;
+    }
+
+    public int getUdpPort() {
+        return udpPort;
+    }
+
+    public void setUdpPort(int udpPort) {
+        this.udpPort = udpPort;
+    }
+
+    public int getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    public void setConnectTimeout(int connectTimeout) {
+        this.connectTimeout = connectTimeout;
+    }
+
+    public int getReadTimeout() {
+        return readTimeout;
+    }
+
+    public void setReadTimeout(int readTimeout) {
+        this.readTimeout = readTimeout;
+    }
+
+    public String getSecret() {
+        return secret;
+    }
+
+    public void setSecret(String secret) {
+        this.secret = secret;
+    }
+}
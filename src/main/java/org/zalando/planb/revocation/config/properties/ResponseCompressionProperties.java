@@ -0,0 +1,55 @@
+package org.zalando.planb.revocation.config.properties;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Properties used to configure the cache of compressed revocation lists.
+ * <p>
+ * <p>The following properties are used and can be defined through <a
+ * href="https://docs.spring.io/spring-boot/docs/current/reference/html/boot-features-external-config.html">Spring
+ * Configuration</a>:</p>
+ * <p>
+ * <ul>
+ * <li>{@code revocation.compression.enabled} - Whether revocation lists are gzip compressed by the service, from a
+ * cache of the ones recently sent, instead of by the container. Default is {@code true};</li>
+ * <li>{@code revocation.compression.maximumSize} - Maximum size in bytes of the compressed revocation lists cached.
+ * Default is {@code 67108864} (64 MB);</li>
+ * <li>{@code revocation.compression.minResponseSize} - Minimum size in bytes of the revocation lists compressed. Default
+ * is {@code 2048}, like the container compression.</li>
+ * </ul>
+ *
+ * @author <a href="mailto:team-greendale@zalando.de">Team Greendale</a>
+ */
+@ConfigurationProperties(prefix = "revocation.compression")
+public class ResponseCompressionProperties {
+
+    private boolean enabled = true;
+
+    private long maximumSize = 64 * 1024 * 1024;
+
+    private int minResponseSize = 2048;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public long getMaximumSize() {
+        return maximumSize;
+    }
+
+    public void setMaximumSize(long maximumSize) {
+        this.maximumSize = maximumSize;
+    }
+
+    public int getMinResponseSize() {
+        return minResponseSize;
+    }
+
+    public void setMinResponseSize(int minResponseSize) {
+        this.minResponseSize = minResponseSize;
+    }
+}
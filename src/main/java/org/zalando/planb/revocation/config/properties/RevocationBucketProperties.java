@@ -0,0 +1,57 @@
+package org.zalando.planb.revocation.config.properties;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.Optional;
+
+/**
+ * Properties used to configure the rendering of closed buckets of revocations to local files.
+ * <p>
+ * <p>The following properties are used and can be defined through <a
+ * href="https://docs.spring.io/spring-boot/docs/current/reference/html/boot-features-external-config.html">Spring
+ * Configuration</a>:</p>
+ * <p>
+ * <ul>
+ * <li>{@code revocation.buckets.enabled} - Whether closed buckets are rendered and served from
+ * {@code /revocations/buckets}. Default is {@code false};</li>
+ * <li>{@code revocation.buckets.directory} - Directory where buckets are rendered. Its previous buckets are deleted on
+ * startup. Default value is empty, meaning a temporary directory;</li>
+ * <li>{@code revocation.buckets.checkInterval} - Interval in seconds between two checks for buckets to render or
+ * delete. Default is {@code 60}.</li>
+ * </ul>
+ *
+ * @author <a href="mailto:team-greendale@zalando.de">Team Greendale</a>
+ */
+@ConfigurationProperties(prefix = "revocation.buckets")
+public class RevocationBucketProperties {
+
+    private boolean enabled = false;
+
+    private Optional<String> directory = Optional.empty();
+
+    private int checkInterval = 60;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public Optional<String> getDirectory() {
+        return directory;
+    }
+
+    public void setDirectory(Optional<String> directory) {
+        this.directory = directory;
+    }
+
+    public int getCheckInterval() {
+        return checkInterval;
+    }
+
+    public void setCheckInterval(int checkInterval) {
+        this.checkInterval = checkInterval;
+    }
+}
@@ -0,0 +1,92 @@
+package org.zalando.planb.revocation.config.properties;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Properties used to configure the indexes backing revocation checks and filtered revocation lists.
+ * <p>
+ * <p>The following properties are used and can be defined through <a
+ * href="https://docs.spring.io/spring-boot/docs/current/reference/html/boot-features-external-config.html">Spring
+ * Configuration</a>:</p>
+ * <p>
+ * <ul>
+ * <li>{@code revocation.check.enabled} - If tokens can be checked with {@code POST /revocations/check}. The index is
+ * built from the store on startup, and then kept on the heap. Default is {@code false};</li>
+ * <li>{@code revocation.check.maxChecks} - Maximum number of tokens checked by one {@code POST /revocations/check}
+ * request. Larger batches are rejected with {@code 400 Bad Request}. Default is {@code 100};</li>
+ * <li>{@code revocation.check.filterEnabled} - If filtered {@code GET /revocations} requests are answered from in
+ * memory indexes, built from the store on startup. Otherwise revocations are read from the store and filtered one by
+ * one. Default is {@code false};</li>
+ * <li>{@code revocation.check.expectedEntries} - Number of revoked tokens the index is initially sized for. It grows
+ * beyond as needed. Default is {@code 65536};</li>
+ * <li>{@code revocation.check.pollInterval} - Interval in milliseconds between two polls of the store for new
+ * revocations. Default is {@code 5000};</li>
+ * <li>{@code revocation.check.rebuildInterval} - Interval in milliseconds between two rebuilds of the index, dropping
+ * expired revocations. Default is {@code 3600000}.</li>
+ * </ul>
+ *
+ * @author <a href="mailto:team-greendale@zalando.de">Team Greendale</a>
+ */
+@ConfigurationProperties(prefix = "revocation.check")
+public class RevocationCheckProperties {
+
+    private boolean enabled = false;
+
+    private int maxChecks = 100;
+
+    private boolean filterEnabled = false;
+
+    private int expectedEntries = 65536;
+
+    private long pollInterval = 5000;
+
+    private long rebuildInterval = 3600000;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getMaxChecks() {
+        return maxChecks;
+    }
+
+    public void setMaxChecks(int maxChecks) {
+        this.maxChecks = maxChecks;
+    }
+
+    public boolean isFilterEnabled() {
+        return filterEnabled;
+    }
+
+    public void setFilterEnabled(boolean filterEnabled) {
+        this.filterEnabled = filterEnabled;
+    }
+
+    public int getExpectedEntries() {
+        return expectedEntries;
+    }
+
+    public void setExpectedEntries(int expectedEntries) {
+        this.expectedEntries = expectedEntries;
+    }
+
+    public long getPollInterval() {
+        return pollInterval;
+    }
+
+    public void setPollInterval(long pollInterval) {
+        this.pollInterval = pollInterval;
+    }
+
+    public long getRebuildInterval() {
+        return rebuildInterval;
+    }
+
+    public void setRebuildInterval(long rebuildInterval) {
+        this.rebuildInterval = rebuildInterval;
+    }
+}
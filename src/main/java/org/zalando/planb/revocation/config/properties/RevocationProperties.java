@@ -12,7 +12,21 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
  * <ul>
  * <li>{@code revocation.timestampThreshold} - A value in seconds used to give a threshold for {@code issued_before}
  * values when posting revocations. Default value is 5 seconds. This means that a revocation will be accepted if
- * {@code issued_before} is equal to the current
+ * {@code issued_before} is equal to the current;</li>
+ * <li>{@code revocation.requestTimeout} - Deadline of {@code GET} requests, in milliseconds. Clients can shorten it
+ * with the {@code X-Request-Timeout} header. Default value is {@code 10000}. {@code 0} for no deadline;</li>
+ * <li>{@code revocation.partialResults} - Whether the revocations read before the deadline are returned, with the
+ * {@code NEXT_FROM} meta information telling from when to get the remaining ones. Otherwise, or if nothing could be
+ * read, requests fail with {@code 503 Service Unavailable}. Only enable once all clients follow {@code NEXT_FROM},
+ * as others would skip the remaining revocations. Default value is {@code false};</li>
+ * <li>{@code revocation.pruneSuperseded} - Whether revocations superseded by others of the same response, like token
+ * revocations older than a global one, are left out of {@code GET} responses. Default value is {@code false};</li>
+ * <li>{@code revocation.maxTokenLifetime} - Maximum lifetime of the tokens issued, in seconds. Claim and global
+ * revocations are left out of {@code GET} responses once all tokens they revoke have expired, as are token revocations
+ * once their JWT has expired. Default value is {@code 0}, meaning that only token revocations of JWTs expire;</li>
+ * <li>{@code revocation.responseCacheSize} - Maximum size in bytes of the {@code GET} responses of ranges ending before
+ * the current bucket kept rendered, so that requests for the same range are answered without reading and serializing
+ * the revocations again. Default value is {@code 67108864} (64 MB). {@code 0} to render every response.</li>
  * </ul>
  *
  * @author <a href="mailto:rodrigo.reis@zalando.de">Rodrigo Reis</a>
@@ -22,6 +36,16 @@ public class RevocationProperties {
 
     private int timestampThreshold = 5;
 
+    private long requestTimeout = 10000;
+
+    private boolean partialResults = false;
+
+    private boolean pruneSuperseded = false;
+
+    private int maxTokenLifetime = 0;
+
+    private long responseCacheSize = 64 * 1024 * 1024;
+
     public int getTimestampThreshold() {
         return timestampThreshold;
     }
@@ -29,4 +53,44 @@ public class RevocationProperties {
     public void setTimestampThreshold(int timestampThreshold) {
         this.timestampThreshold = timestampThreshold;
     }
+
+    public long getRequestTimeout() {
+        return requestTimeout;
+    }
+
+    public void setRequestTimeout(long requestTimeout) {
+        this.requestTimeout = requestTimeout;
+    }
+
+    public boolean isPartialResults() {
+        return partialResults;
+    }
+
+    public void setPartialResults(boolean partialResults) {
+        this.partialResults = partialResults;
+    }
+
+    public boolean isPruneSuperseded() {
+        return pruneSuperseded;
+    }
+
+    public void setPruneSuperseded(boolean pruneSuperseded) {
+        this.pruneSuperseded = pruneSuperseded;
+    }
+
+    public int getMaxTokenLifetime() {
+        return maxTokenLifetime;
+    }
+
+    public void setMaxTokenLifetime(int maxTokenLifetime) {
+        this.maxTokenLifetime = maxTokenLifetime;
+    }
+
+    public long getResponseCacheSize() {
+        return responseCacheSize;
+    }
+
+    public void setResponseCacheSize(long responseCacheSize) {
+        this.responseCacheSize = responseCacheSize;
+    }
 }
@@ -0,0 +1,70 @@
+package org.zalando.planb.revocation.config.properties;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.zalando.planb.revocation.api.impl.RevocationResourceImpl;
+
+/**
+ * Properties used to configure the snapshots new clients bootstrap from.
+ * <p>
+ * <p>The following properties are used and can be defined through <a
+ * href="https://docs.spring.io/spring-boot/docs/current/reference/html/boot-features-external-config.html">Spring
+ * Configuration</a>:</p>
+ * <p>
+ * <ul>
+ * <li>{@code revocation.snapshot.enabled} - Whether snapshots are built. Default is {@code false};</li>
+ * <li>{@code revocation.snapshot.interval} - Interval in seconds between two snapshots. Snapshots are taken when a
+ * multiple of the interval is reached, so that with the default value of {@code 28800} they cover whole Cassandra
+ * buckets;</li>
+ * <li>{@code revocation.snapshot.settleDelay} - Time in seconds waited after the end of an interval before taking its
+ * snapshot, so that revocations written in the meantime are included. It must be at least
+ * {@link RevocationResourceImpl#CLOCK_SKEW_MARGIN}, the time instances with a clock behind may still write to an ended
+ * bucket, or snapshots miss their late revocations. Default is {@code 300};</li>
+ * <li>{@code revocation.snapshot.retained} - Number of snapshots kept, so that clients that just got the previous one
+ * can still get it by version. Default is {@code 2}.</li>
+ * </ul>
+ *
+ * @author <a href="mailto:team-greendale@zalando.de">Team Greendale</a>
+ */
+@ConfigurationProperties(prefix = "revocation.snapshot")
+public class RevocationSnapshotProperties {
+
+    private boolean enabled = false;
+
+    private int interval = 28800;
+
+    private int settleDelay = RevocationResourceImpl.CLOCK_SKEW_MARGIN;
+
+    private int retained = 2;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getInterval() {
+        return interval;
+    }
+
+    public void setInterval(int interval) {
+        this.interval = interval;
+    }
+
+    public int getSettleDelay() {
+        return settleDelay;
+    }
+
+    public void setSettleDelay(int settleDelay) {
+        this.settleDelay = settleDelay;
+    }
+
+    public int getRetained() {
+        return retained;
+    }
+
+    public void setRetained(int retained) {
+        this.retained = retained;
+    }
+}
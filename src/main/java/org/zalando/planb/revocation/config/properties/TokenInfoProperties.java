@@ -0,0 +1,193 @@
+package org.zalando.planb.revocation.config.properties;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.Optional;
+
+/**
+ * Properties used to configure how access tokens are validated against the configured token info endpoints.
+ * <p>
+ * <p>The following properties are used and can be defined through <a
+ * href="https://docs.spring.io/spring-boot/docs/current/reference/html/boot-features-external-config.html">Spring
+ * Configuration</a>:</p>
+ * <p>
+ * <ul>
+ * <li>{@code tokeninfo.hedgingEnabled} - If a request to the next endpoint should be sent when the current one takes
+ * longer than usual. Default value is {@code false};</li>
+ * <li>{@code tokeninfo.maxHedgingThreads} - Maximum number of threads sending hedged requests. Requests are sent from
+ * the calling thread when all are busy. Default value is {@code 50};</li>
+ * <li>{@code tokeninfo.hedgePercentile} - Latency percentile of an endpoint after which a hedged request is sent to the
+ * next endpoint. Default value is {@code 0.95};</li>
+ * <li>{@code tokeninfo.minHedgeDelay} - Minimum time to wait before sending a hedged request, in milliseconds. Default
+ * value is {@code 50};</li>
+ * <li>{@code tokeninfo.failureThreshold} - Number of consecutive failures after which the circuit of an endpoint is
+ * opened and the endpoint is skipped. Default value is {@code 5};</li>
+ * <li>{@code tokeninfo.openCircuitDuration} - Time an endpoint is skipped after its circuit was opened, in
+ * milliseconds. Default value is {@code 30000};</li>
+ * <li>{@code tokeninfo.jwksLocation} - Location of a JWKS document ({@code file:}, {@code classpath:} or
+ * {@code http(s):}). When set, signed JWTs are validated locally against its keys and only opaque tokens are sent to
+ * the token info endpoints. Default value is empty, meaning all tokens are validated remotely;</li>
+ * <li>{@code tokeninfo.jwksRefreshInterval} - Interval used to reload the JWKS document, in milliseconds. Default value
+ * is {@code 300000};</li>
+ * <li>{@code tokeninfo.maxConnections} - Maximum number of pooled connections to all token info endpoints. Default
+ * value is {@code 100};</li>
+ * <li>{@code tokeninfo.maxConnectionsPerEndpoint} - Maximum number of pooled connections to a single token info
+ * endpoint. Default value is {@code 50};</li>
+ * <li>{@code tokeninfo.keepAlive} - Time an idle connection is kept alive when the endpoint doesn't specify it, in
+ * milliseconds. Default value is {@code 30000};</li>
+ * <li>{@code tokeninfo.connectTimeout} - Timeout to establish a connection to an endpoint, in milliseconds. Default
+ * value is {@code 1000};</li>
+ * <li>{@code tokeninfo.readTimeout} - Timeout waiting for data from an endpoint, in milliseconds. Default value is
+ * {@code 5000};</li>
+ * <li>{@code tokeninfo.idleEvictionInterval} - Connections idle for longer than this are closed in the background, in
+ * milliseconds. Default value is {@code 60000};</li>
+ * </ul>
+ *
+ * @author <a href="mailto:team-greendale@zalando.de">Team Greendale</a>
+ */
+@ConfigurationProperties(prefix = "tokeninfo")
+public class TokenInfoProperties {
+
+    private boolean hedgingEnabled = false;
+
+    private int maxHedgingThreads = 50;
+
+    private double hedgePercentile = 0.95;
+
+    private long minHedgeDelay = 50;
+
+    private int failureThreshold = 5;
+
+    private long openCircuitDuration = 30000;
+
+    private Optional<String> jwksLocation = Optional.empty();
+
+    private long jwksRefreshInterval = 300000;
+
+    private int maxConnections = 100;
+
+    private int maxConnectionsPerEndpoint = 50;
+
+    private long keepAlive = 30000;
+
+    private int connectTimeout = 1000;
+
+    private int readTimeout = 5000;
+
+    private long idleEvictionInterval = 60000;
+
+    public boolean isHedgingEnabled() {
+        return hedgingEnabled;
+    }
+
+    public void setHedgingEnabled(boolean hedgingEnabled) {
+        this.hedgingEnabled = hedgingEnabled;
+    }
+
+    public int getMaxHedgingThreads() {
+        return maxHedgingThreads;
+    }
+
+    public void setMaxHedgingThreads(int maxHedgingThreads) {
+        this.maxHedgingThreads = maxHedgingThreads;
+    }
+
+    public double getHedgePercentile() {
+        return hedgePercentile;
+    }
+
+    public void setHedgePercentile(double hedgePercentile) {
+        if (hedgePercentile <= 0 || hedgePercentile > 1) {
+            throw new IllegalArgumentException("'tokeninfo.hedgePercentile' must be in ]0, 1]");
+        }
+        this.hedgePercentile = hedgePercentile;
+    }
+
+    public long getMinHedgeDelay() {
+        return minHedgeDelay;
+    }
+
+    public void setMinHedgeDelay(long minHedgeDelay) {
+        this.minHedgeDelay = minHedgeDelay;
+    }
+
+    public int getFailureThreshold() {
+        return failureThreshold;
+    }
+
+    public void setFailureThreshold(int failureThreshold) {
+        this.failureThreshold = failureThreshold;
+    }
+
+    public long getOpenCircuitDuration() {
+        return openCircuitDuration;
+    }
+
+    public void setOpenCircuitDuration(long openCircuitDuration) {
+        this.openCircuitDuration = openCircuitDuration;
+    }
+
+    public Optional<String> getJwksLocation() {
+        return jwksLocation;
+    }
+
+    public void setJwksLocation(Optional<String> jwksLocation) {
+        this.jwksLocation = jwksLocation;
+    }
+
+    public long getJwksRefreshInterval() {
+        return jwksRefreshInterval;
+    }
+
+    public void setJwksRefreshInterval(long jwksRefreshInterval) {
+        this.jwksRefreshInterval = jwksRefreshInterval;
+    }
+
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    public void setMaxConnections(int maxConnections) {
+        this.maxConnections = maxConnections;
+    }
+
+    public int getMaxConnectionsPerEndpoint() {
+        return maxConnectionsPerEndpoint;
+    }
+
+    public void setMaxConnectionsPerEndpoint(int maxConnectionsPerEndpoint) {
+        this.maxConnectionsPerEndpoint = maxConnectionsPerEndpoint;
+    }
+
+    public long getKeepAlive() {
+        return keepAlive;
+    }
+
+    public void setKeepAlive(long keepAlive) {
+        this.keepAlive = keepAlive;
+    }
+
+    public int getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    public void setConnectTimeout(int connectTimeout) {
+        this.connectTimeout = connectTimeout;
+    }
+
+    public int getReadTimeout() {
+        return readTimeout;
+    }
+
+    public void setReadTimeout(int readTimeout) {
+        this.readTimeout = readTimeout;
+    }
+
+    public long getIdleEvictionInterval() {
+        return idleEvictionInterval;
+    }
+
+    public void setIdleEvictionInterval(long idleEvictionInterval) {
+        this.idleEvictionInterval = idleEvictionInterval;
+    }
+}
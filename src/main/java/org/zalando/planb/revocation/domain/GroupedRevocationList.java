@@ -0,0 +1,33 @@
+package org.zalando.planb.revocation.domain;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.immutables.value.Value;
+
+/**
+ * Holds a list of revocations in {@link RevocationGroup groups}, as a more compact alternative to a
+ * {@link RevocationList}.
+ *
+ * @author <a href="mailto:team-greendale@zalando.de">Team Greendale</a>
+ */
+@Value.Immutable
+@JsonSerialize
+@JsonDeserialize(as = ImmutableGroupedRevocationList.class)
+public interface GroupedRevocationList {
+
+    /**
+     * Returns a map with meta information related to the revocation service, like in a {@link RevocationList}.
+     *
+     * @return the aforementioned map
+     */
+    ImmutableMap<NotificationType, Object> meta();
+
+    /**
+     * Returns the groups of revocations, in the order their first revocation was revoked.
+     *
+     * @return the groups
+     */
+    ImmutableList<RevocationGroup> groups();
+}
@@ -20,7 +20,17 @@ public enum NotificationType {
     /**
      * UNIX Timestamp (UTC) informing clients when {@link NotificationType#REFRESH_FROM} was set.
      */
-    REFRESH_TIMESTAMP(false);
+    REFRESH_TIMESTAMP(false),
+    /**
+     * Set to {@code true} while revocations are read or written below the configured consistency level, because of a
+     * partial outage of the store. Revocations returned may then be incomplete.
+     */
+    DEGRADED_CONSISTENCY(false),
+    /**
+     * UNIX Timestamp (UTC) set when only part of the revocations could be read before the deadline of the request.
+     * Returned revocations are complete up to this instant, the remaining ones are to be requested from it.
+     */
+    NEXT_FROM(false);
 
     private final Boolean isSettable;
 
@@ -0,0 +1,27 @@
+package org.zalando.planb.revocation.domain;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import org.immutables.value.Value;
+
+/**
+ * Notifies peer instances that revocations were written, so that they update their caches without waiting for their
+ * next refresh.
+ *
+ * @author <a href="mailto:team-greendale@zalando.de">Team Greendale</a>
+ */
+@Value.Immutable
+@JsonSerialize
+@JsonDeserialize(as = ImmutablePeerNotification.class)
+public interface PeerNotification {
+
+    /**
+     * Returns the instant the revocations were written at, or the instant to refresh from.
+     * <p>
+     * <p>Peers poll their store when notified, but never read further back than their usual poll: this instant
+     * only tells them that something was written.</p>
+     *
+     * @return the instant the revocations were written at, in UTC UNIX timestamp
+     */
+    int revokedAt();
+}
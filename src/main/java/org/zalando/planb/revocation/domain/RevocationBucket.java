@@ -0,0 +1,72 @@
+package org.zalando.planb.revocation.domain;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import org.immutables.value.Value;
+
+/**
+ * A closed time bucket of revocations, rendered once to a compressed file.
+ * <p>
+ * <p>Buckets are the ones revocations are stored in, and hold the revocations {@code GET /revocations} returns for
+ * their range.</p>
+ *
+ * @author <a href="mailto:team-greendale@zalando.de">Team Greendale</a>
+ */
+@Value.Immutable
+@JsonSerialize
+@JsonDeserialize(as = ImmutableRevocationBucket.class)
+public interface RevocationBucket {
+
+    /**
+     * Returns the UTC date of the bucket.
+     *
+     * @return the date, as {@code yyyy-MM-dd}
+     */
+    String date();
+
+    /**
+     * Returns the interval of the bucket in its day.
+     *
+     * @return the interval, from {@code 0} to {@code 2}
+     */
+    int interval();
+
+    /**
+     * Returns the start of the range of the bucket, as given in {@code from} to {@code GET /revocations}.
+     * <p>
+     * <p>Serialized as {@code from}, but named apart from the {@code from} method of the builder.</p>
+     *
+     * @return the instant before the bucket starts, in UTC UNIX timestamp
+     */
+    @JsonProperty("from")
+    int after();
+
+    /**
+     * Returns the end of the range of the bucket, as given in {@code to} to {@code GET /revocations}.
+     *
+     * @return the instant the bucket ends at, in UTC UNIX timestamp
+     */
+    int to();
+
+    /**
+     * Returns the number of revocations in the bucket.
+     *
+     * @return the number of revocations
+     */
+    int revocations();
+
+    /**
+     * Returns the SHA-256 digest of the bucket, uncompressed.
+     *
+     * @return the digest, in Base64 encoding
+     */
+    String checksum();
+
+    /**
+     * Returns the size of the bucket, compressed.
+     *
+     * @return the size, in bytes
+     */
+    long size();
+}
@@ -0,0 +1,24 @@
+package org.zalando.planb.revocation.domain;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.google.common.collect.ImmutableList;
+import org.immutables.value.Value;
+
+/**
+ * Holds the {@link RevocationBucket buckets} rendered, from the oldest one.
+ *
+ * @author <a href="mailto:team-greendale@zalando.de">Team Greendale</a>
+ */
+@Value.Immutable
+@JsonSerialize
+@JsonDeserialize(as = ImmutableRevocationBucketList.class)
+public interface RevocationBucketList {
+
+    /**
+     * Returns the buckets rendered.
+     *
+     * @return the buckets, from the oldest one
+     */
+    ImmutableList<RevocationBucket> buckets();
+}
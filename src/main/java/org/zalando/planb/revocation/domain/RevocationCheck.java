@@ -0,0 +1,56 @@
+package org.zalando.planb.revocation.domain;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.google.common.collect.ImmutableMap;
+import org.immutables.value.Value;
+
+import javax.annotation.Nullable;
+
+/**
+ * A single item of a {@link RevocationCheckRequest}, identifying a token to check for revocation.
+ * <p>
+ * <p>A token is identified either by its value, or by its hash as published in {@link RevokedTokenInfo#tokenHash()},
+ * and optionally by its claims. When {@link RevocationCheck#issuedAt()} is not set, it is read from the token if it
+ * is a JWT.</p>
+ *
+ * @author <a href="mailto:team-greendale@zalando.de">Team Greendale</a>
+ */
+@Value.Immutable
+@JsonSerialize
+@JsonDeserialize(as = ImmutableRevocationCheck.class)
+public interface RevocationCheck {
+
+    /**
+     * Returns the token to check.
+     *
+     * @return the token, {@code null} if identified by its hash or claims only
+     */
+    @Nullable
+    String token();
+
+    /**
+     * Returns the hash of the token to check, in URL Base64 encoding.
+     *
+     * @return the hash of the token, {@code null} if not set
+     */
+    @Nullable
+    String tokenHash();
+
+    /**
+     * Returns the claims of the token to check.
+     * <p>
+     * <p>Defaults to an empty map.</p>
+     *
+     * @return a map of claims and their correspondent values
+     */
+    ImmutableMap<String, String> claims();
+
+    /**
+     * Returns the instant when the token was issued.
+     *
+     * @return the instant when the token was issued, in UTC UNIX timestamp, {@code null} if not set
+     */
+    @Nullable
+    Integer issuedAt();
+}
@@ -0,0 +1,24 @@
+package org.zalando.planb.revocation.domain;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.google.common.collect.ImmutableList;
+import org.immutables.value.Value;
+
+/**
+ * Holds the outcomes of a {@link RevocationCheckRequest}, in the order of its checks.
+ *
+ * @author <a href="mailto:team-greendale@zalando.de">Team Greendale</a>
+ */
+@Value.Immutable
+@JsonSerialize
+@JsonDeserialize(as = ImmutableRevocationCheckList.class)
+public interface RevocationCheckList {
+
+    /**
+     * Returns the outcome of each check.
+     *
+     * @return the outcome of each check
+     */
+    ImmutableList<RevocationCheckResult> results();
+}
@@ -0,0 +1,24 @@
+package org.zalando.planb.revocation.domain;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.google.common.collect.ImmutableList;
+import org.immutables.value.Value;
+
+/**
+ * Holds a batch of tokens to check for revocation.
+ *
+ * @author <a href="mailto:team-greendale@zalando.de">Team Greendale</a>
+ */
+@Value.Immutable
+@JsonSerialize
+@JsonDeserialize(as = ImmutableRevocationCheckRequest.class)
+public interface RevocationCheckRequest {
+
+    /**
+     * Returns the tokens to check.
+     *
+     * @return the tokens to check
+     */
+    ImmutableList<RevocationCheck> checks();
+}
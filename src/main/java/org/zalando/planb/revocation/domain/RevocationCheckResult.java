@@ -0,0 +1,37 @@
+package org.zalando.planb.revocation.domain;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import org.immutables.value.Value;
+
+import javax.annotation.Nullable;
+
+/**
+ * Holds the outcome of a single {@link RevocationCheck}.
+ *
+ * @author <a href="mailto:team-greendale@zalando.de">Team Greendale</a>
+ */
+@Value.Immutable
+@JsonSerialize
+@JsonDeserialize(as = ImmutableRevocationCheckResult.class)
+public interface RevocationCheckResult {
+
+    /**
+     * Returns whether the token is revoked.
+     * <p>
+     * <p>When the instant the token was issued is unknown, the token is considered revoked if any revocation applies
+     * to it.</p>
+     *
+     * @return {@code true} if the token is revoked
+     */
+    boolean revoked();
+
+    /**
+     * Returns the latest UNIX Timestamp (UTC) of the revocations applying to the token, indicating that it is revoked
+     * if issued before it.
+     * <p>
+     * @return the UNIX Timestamp (UTC), {@code null} when no revocation applies to the token
+     */
+    @Nullable
+    Integer issuedBefore();
+}
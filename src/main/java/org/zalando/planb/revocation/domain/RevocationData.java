@@ -1,10 +1,13 @@
 package org.zalando.planb.revocation.domain;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import org.immutables.value.Value;
 import org.zalando.planb.revocation.util.UnixTimestamp;
 
+import javax.annotation.Nullable;
+
 /**
  * Holds data about a newly submitted revocation to be stored.
  *
@@ -33,4 +36,14 @@ public abstract class RevocationData {
     public Integer revokedAt() {
         return UnixTimestamp.now();
     }
+
+    /**
+     * Returns the instant after which the revocation can't match any live token anymore, because all the tokens it
+     * revokes have expired.
+     *
+     * @return the instant in UTC Unix Timestamp format, or {@code null} if unknown
+     */
+    @Nullable
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public abstract Integer expiresAt();
 }
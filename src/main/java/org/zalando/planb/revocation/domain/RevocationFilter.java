@@ -0,0 +1,68 @@
+package org.zalando.planb.revocation.domain;
+
+import com.google.common.collect.ImmutableSet;
+import org.immutables.value.Value;
+import org.zalando.planb.revocation.util.HashPrefix;
+
+import javax.annotation.Nullable;
+
+/**
+ * Narrows the revocations returned to the ones a client can act on.
+ * <p>
+ * <p>Each criterion left unset matches all revocations:</p>
+ * <p>
+ * <ul>
+ * <li>{@link #types()} - Only revocations of these types match;</li>
+ * <li>{@link #claimNames()} - Only {@code CLAIM} revocations on a subset of these claims match. Other types are not
+ * affected;</li>
+ * <li>{@link #issuer()} - Only revocations that can revoke tokens of this issuer match. {@code GLOBAL} revocations,
+ * revocations of tokens that are not JWTs or have no {@code iss} claim, and {@code CLAIM} revocations not on
+ * {@code iss} revoke tokens of any issuer;</li>
+ * <li>{@link #hashPrefix()} - Only {@code TOKEN} revocations whose token hash starts with this prefix match. Other
+ * types are not affected.</li>
+ * </ul>
+ *
+ * @author <a href="mailto:team-greendale@zalando.de">Team Greendale</a>
+ */
+@Value.Immutable
+public interface RevocationFilter {
+
+    /**
+     * Returns the types of the revocations matching.
+     *
+     * @return the types, empty for all types
+     */
+    ImmutableSet<RevocationType> types();
+
+    /**
+     * Returns the names of the claims that {@code CLAIM} revocations may be on.
+     *
+     * @return the claim names, empty for all claims
+     */
+    ImmutableSet<String> claimNames();
+
+    /**
+     * Returns the issuer of the tokens that revocations must be able to revoke.
+     *
+     * @return the issuer, {@code null} for all issuers
+     */
+    @Nullable
+    String issuer();
+
+    /**
+     * Returns the prefix of the hashes of the tokens revoked by {@code TOKEN} revocations.
+     *
+     * @return the prefix, {@code null} for all hashes
+     */
+    @Nullable
+    HashPrefix hashPrefix();
+
+    /**
+     * Returns whether all revocations match.
+     *
+     * @return {@code true} if no criterion is set
+     */
+    default boolean isEmpty() {
+        return types().isEmpty() && claimNames().isEmpty() && issuer() == null && hashPrefix() == null;
+    }
+}
@@ -0,0 +1,65 @@
+package org.zalando.planb.revocation.domain;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.google.common.collect.ImmutableList;
+import org.immutables.value.Value;
+
+import javax.annotation.Nullable;
+
+/**
+ * Holds revocations sharing their type, claim names, hashing algorithm and separator, which are only given once.
+ *
+ * @author <a href="mailto:team-greendale@zalando.de">Team Greendale</a>
+ */
+@Value.Immutable
+@JsonSerialize
+@JsonDeserialize(as = ImmutableRevocationGroup.class)
+public interface RevocationGroup {
+
+    /**
+     * Returns the type of the revocations.
+     *
+     * @return the type
+     */
+    RevocationType type();
+
+    /**
+     * Returns the claim names of {@code CLAIM} revocations.
+     *
+     * @return the claim names, or {@code null} for other types
+     */
+    @Nullable
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    ImmutableList<String> names();
+
+    /**
+     * Returns the algorithm used for hashing tokens or claim values.
+     *
+     * @return the hashing algorithm, or {@code null} for {@code GLOBAL} revocations
+     */
+    @Nullable
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    String hashAlgorithm();
+
+    /**
+     * Returns the character claim values are concatenated with before hashing.
+     *
+     * @return the separator, or {@code null} for other types than {@code CLAIM}
+     */
+    @Nullable
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    Character separator();
+
+    /**
+     * Returns the revocations, sorted by the instant they were revoked at.
+     * <p>
+     * <p>Each revocation is an array of {@code revoked_at}, {@code issued_before} and, for {@code TOKEN} and {@code
+     * CLAIM} revocations, the token hash or value hash. {@code revoked_at} is the number of seconds since the previous
+     * revocation of the group, or the UTC UNIX timestamp for the first one.</p>
+     *
+     * @return the revocations
+     */
+    ImmutableList<ImmutableList<Object>> revocations();
+}
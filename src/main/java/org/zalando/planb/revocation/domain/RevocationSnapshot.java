@@ -0,0 +1,41 @@
+package org.zalando.planb.revocation.domain;
+
+import org.immutables.value.Value;
+
+/**
+ * An immutable copy of all the revocations up to an instant, rendered once for all the clients bootstrapping from it.
+ *
+ * @author <a href="mailto:team-greendale@zalando.de">Team Greendale</a>
+ */
+@Value.Immutable
+public abstract class RevocationSnapshot {
+
+    /**
+     * Returns the instant up to which revocations are included, also identifying the snapshot. Clients get the
+     * revocations written since from {@code /revocations?from=<version>}.
+     *
+     * @return the instant, in UTC UNIX timestamp
+     */
+    public abstract int version();
+
+    /**
+     * Returns the snapshot, as returned to clients.
+     *
+     * @return a {@link RevocationList} in JSON
+     */
+    public abstract byte[] content();
+
+    /**
+     * Returns the SHA-256 digest of {@link #content()}.
+     *
+     * @return the digest, in Base64 encoding
+     */
+    public abstract String checksum();
+
+    /**
+     * Returns the number of revocations in the snapshot.
+     *
+     * @return the number of revocations
+     */
+    public abstract int revocations();
+}
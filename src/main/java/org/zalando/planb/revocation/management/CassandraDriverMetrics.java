@@ -0,0 +1,119 @@
+package org.zalando.planb.revocation.management;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.datastax.driver.core.Cluster;
+import com.datastax.driver.core.Host;
+import com.datastax.driver.core.LatencyTracker;
+import com.datastax.driver.core.Session;
+import com.datastax.driver.core.Statement;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToIntBiFunction;
+
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * Exposes what the Cassandra driver is doing in the application {@link MetricRegistry}, and from there to ZMON.
+ * <p>
+ * <p>The following metrics are registered:</p>
+ * <p>
+ * <ul>
+ * <li>{@code planb.cassandra.driver.*} - The metrics of the driver itself: requests, errors, retries, speculative
+ * executions, connected hosts and executor queues;</li>
+ * <li>{@code planb.cassandra.speculative.fired} - Speculative executions started;</li>
+ * <li>{@code planb.cassandra.pool.in-flight} - Requests in flight on all hosts;</li>
+ * <li>{@code planb.cassandra.pool.open-connections} - Connections open to all hosts;</li>
+ * <li>{@code planb.cassandra.pool.utilization} - Requests in flight relative to what the open connections can carry,
+ * in percent. Requests are queued by the driver when reaching {@code 100};</li>
+ * <li>{@code planb.cassandra.hosts.<address>.latency} - Latency of the requests sent to each host;</li>
+ * <li>{@code planb.cassandra.hosts.<address>.errors} - Failed requests sent to each host.</li>
+ * </ul>
+ *
+ * @author <a href="mailto:team-greendale@zalando.de">Team Greendale</a>
+ */
+public class CassandraDriverMetrics implements LatencyTracker {
+
+    static final String DRIVER_PREFIX = "planb.cassandra.driver";
+
+    static final String POOL_PREFIX = "planb.cassandra.pool";
+
+    static final String HOSTS_PREFIX = "planb.cassandra.hosts";
+
+    private final MetricRegistry metricRegistry;
+
+    private final int maxRequestsPerConnection;
+
+    /**
+     * Constructs a new instance.
+     *
+     * @param metricRegistry           registry the metrics are registered in
+     * @param maxRequestsPerConnection maximum number of requests in flight on each connection
+     */
+    public CassandraDriverMetrics(final MetricRegistry metricRegistry, final int maxRequestsPerConnection) {
+        this.metricRegistry = metricRegistry;
+        this.maxRequestsPerConnection = maxRequestsPerConnection;
+    }
+
+    /**
+     * Registers the metrics of the driver, and tracks the latency of each host of the cluster.
+     *
+     * @param cluster the cluster, built with metrics enabled and initialized
+     * @throws IllegalStateException if the cluster is not initialized yet, and has no metrics
+     */
+    public void bind(final Cluster cluster) {
+        checkState(cluster.getMetrics() != null, "Cluster must be initialized before binding its metrics");
+        metricRegistry.removeMatching((name, metric) -> name.startsWith(DRIVER_PREFIX + ".")
+                || name.startsWith(HOSTS_PREFIX + "."));
+        cluster.getMetrics().getRegistry().getMetrics()
+                .forEach((name, metric) -> metricRegistry.register(MetricRegistry.name(DRIVER_PREFIX, name), metric));
+        register("planb.cassandra.speculative.fired",
+                () -> cluster.getMetrics().getErrorMetrics().getSpeculativeExecutions().getCount());
+
+        cluster.register(this);
+    }
+
+    /**
+     * Registers the metrics of the connection pools of the session.
+     *
+     * @param session the session
+     */
+    public void bind(final Session session) {
+        register(MetricRegistry.name(POOL_PREFIX, "in-flight"),
+                () -> sum(session, Session.State::getInFlightQueries));
+        register(MetricRegistry.name(POOL_PREFIX, "open-connections"),
+                () -> sum(session, Session.State::getOpenConnections));
+        register(MetricRegistry.name(POOL_PREFIX, "utilization"), () -> {
+            final int capacity = sum(session, Session.State::getOpenConnections) * maxRequestsPerConnection;
+            return capacity == 0 ? 0 : sum(session, Session.State::getInFlightQueries) * 100 / capacity;
+        });
+    }
+
+    private static int sum(final Session session, final ToIntBiFunction<Session.State, Host> value) {
+        final Session.State state = session.getState();
+        return state.getConnectedHosts().stream().mapToInt(host -> value.applyAsInt(state, host)).sum();
+    }
+
+    private <T> void register(final String name, final Gauge<T> gauge) {
+        metricRegistry.remove(name);
+        metricRegistry.register(name, gauge);
+    }
+
+    @Override
+    public void update(final Host host, final Statement statement, final Exception exception,
+                       final long newLatencyNanos) {
+        final String prefix = MetricRegistry.name(HOSTS_PREFIX, host.getAddress().getHostAddress().replace('.', '-'));
+        metricRegistry.timer(MetricRegistry.name(prefix, "latency")).update(newLatencyNanos, TimeUnit.NANOSECONDS);
+        if (exception != null) {
+            metricRegistry.counter(MetricRegistry.name(prefix, "errors")).inc();
+        }
+    }
+
+    @Override
+    public void onRegister(final Cluster cluster) {
+    }
+
+    @Override
+    public void onUnregister(final Cluster cluster) {
+    }
+}
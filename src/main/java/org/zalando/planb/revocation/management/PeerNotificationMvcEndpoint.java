@@ -0,0 +1,77 @@
+package org.zalando.planb.revocation.management;
+
+import org.springframework.boot.actuate.endpoint.Endpoint;
+import org.springframework.boot.actuate.endpoint.mvc.MvcEndpoint;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.zalando.planb.revocation.domain.PeerNotification;
+import org.zalando.planb.revocation.service.PeerNotificationService;
+import org.zalando.planb.revocation.service.impl.HttpPeerNotificationService;
+import org.zalando.planb.revocation.util.PeerNotificationSigner;
+
+import java.util.Base64;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Receives notifications sent by peers through {@link HttpPeerNotificationService}.
+ * <p>
+ * <p>Notifications make this instance poll its store, so only the ones {@link PeerNotificationSigner signed} with the
+ * shared secret are accepted, others are answered with {@code 403}. The endpoint is also marked sensitive, so that
+ * it is protected whenever management security is enabled.</p>
+ *
+ * @author <a href="mailto:team-greendale@zalando.de">Team Greendale</a>
+ */
+public class PeerNotificationMvcEndpoint implements MvcEndpoint {
+
+    private final PeerNotificationService peerNotificationService;
+
+    private final PeerNotificationSigner signer;
+
+    public PeerNotificationMvcEndpoint(final PeerNotificationService peerNotificationService,
+                                       final PeerNotificationSigner signer) {
+        this.peerNotificationService = checkNotNull(peerNotificationService,
+                "Peer notification service must not be null");
+        this.signer = checkNotNull(signer, "Peer notification signer must not be null");
+    }
+
+    @RequestMapping(method = RequestMethod.POST, consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<Void> post(@RequestBody final PeerNotification notification,
+            @RequestHeader(value = HttpPeerNotificationService.SIGNATURE_HEADER, required = false)
+            final String signature) {
+        if (signature == null || !signer.verify(notification, decode(signature))) {
+            return new ResponseEntity<>(HttpStatus.FORBIDDEN);
+        }
+        peerNotificationService.receive(notification);
+        return new ResponseEntity<>(HttpStatus.ACCEPTED);
+    }
+
+    private static byte[] decode(final String signature) {
+        try {
+            return Base64.getDecoder().decode(signature);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public String getPath() {
+        return HttpPeerNotificationService.PATH;
+    }
+
+    @Override
+    public boolean isSensitive() {
+        return true;
+    }
+
+    @Override
+    @SuppressWarnings("rawtypes")
+    public Class<? extends Endpoint> getEndpointType() {
+        return null;
+    }
+}
@@ -0,0 +1,76 @@
+package org.zalando.planb.revocation.management;
+
+import com.google.common.collect.ImmutableMap;
+import org.springframework.boot.actuate.endpoint.Endpoint;
+import org.springframework.boot.actuate.endpoint.mvc.MvcEndpoint;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.zalando.planb.revocation.persistence.SlowQueryLog;
+
+import java.util.Map;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Shows and changes the settings of the {@link SlowQueryLog} at runtime.
+ * <p>
+ * <p>Settings are changed with a {@code POST} of the {@code enabled}, {@code threshold} or {@code sample_rate}
+ * parameters, and are lost on restart. Sampled entries log partition keys, so the endpoint is sensitive.</p>
+ *
+ * @author <a href="mailto:team-greendale@zalando.de">Team Greendale</a>
+ */
+public class SlowQueryLogMvcEndpoint implements MvcEndpoint {
+
+    public static final String PATH = "/slow-queries";
+
+    private final SlowQueryLog slowQueryLog;
+
+    public SlowQueryLogMvcEndpoint(final SlowQueryLog slowQueryLog) {
+        this.slowQueryLog = checkNotNull(slowQueryLog, "Slow query log must not be null");
+    }
+
+    @RequestMapping(method = RequestMethod.GET, produces = MediaType.APPLICATION_JSON_VALUE)
+    @ResponseBody
+    public Map<String, Object> get() {
+        return ImmutableMap.of(
+                "enabled", slowQueryLog.isEnabled(),
+                "threshold", slowQueryLog.getThreshold(),
+                "sample_rate", slowQueryLog.getSampleRate());
+    }
+
+    @RequestMapping(method = RequestMethod.POST, produces = MediaType.APPLICATION_JSON_VALUE)
+    @ResponseBody
+    public Map<String, Object> post(@RequestParam(value = "enabled", required = false) final Boolean enabled,
+                                    @RequestParam(value = "threshold", required = false) final Long threshold,
+                                    @RequestParam(value = "sample_rate", required = false) final Double sampleRate) {
+        if (threshold != null) {
+            slowQueryLog.setThreshold(threshold);
+        }
+        if (sampleRate != null) {
+            slowQueryLog.setSampleRate(sampleRate);
+        }
+        if (enabled != null) {
+            slowQueryLog.setEnabled(enabled);
+        }
+        return get();
+    }
+
+    @Override
+    public String getPath() {
+        return PATH;
+    }
+
+    @Override
+    public boolean isSensitive() {
+        return true;
+    }
+
+    @Override
+    @SuppressWarnings("rawtypes")
+    public Class<? extends Endpoint> getEndpointType() {
+        return null;
+    }
+}
@@ -0,0 +1,41 @@
+package org.zalando.planb.revocation.management;
+
+import com.google.common.collect.ImmutableMap;
+import org.springframework.boot.actuate.health.AbstractHealthIndicator;
+import org.springframework.boot.actuate.health.Health;
+import org.zalando.planb.revocation.config.FallbackTokenInfoRequestExecutor;
+import org.zalando.planb.revocation.config.TokenInfoEndpoint;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Reports the state of each configured token info endpoint.
+ * <p>
+ * <p>The indicator is "up" as long as at least one endpoint is available.</p>
+ */
+public class TokenInfoHealthIndicator extends AbstractHealthIndicator {
+
+    private final FallbackTokenInfoRequestExecutor executor;
+
+    public TokenInfoHealthIndicator(final FallbackTokenInfoRequestExecutor executor) {
+        this.executor = checkNotNull(executor, "Token info executor must not be null");
+    }
+
+    @Override
+    protected void doHealthCheck(Health.Builder builder) throws Exception {
+        boolean anyAvailable = false;
+        for (TokenInfoEndpoint endpoint : executor.getEndpoints()) {
+            anyAvailable |= endpoint.isAvailable();
+            builder.withDetail(endpoint.url(), ImmutableMap.of(
+                    "state", endpoint.state(),
+                    "consecutiveFailures", endpoint.consecutiveFailures(),
+                    "percentileLatency", endpoint.percentileLatency()));
+        }
+
+        if (anyAvailable) {
+            builder.up();
+        } else {
+            builder.down();
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package org.zalando.planb.revocation.persistence;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.MetricRegistry;
+import com.datastax.driver.core.ConsistencyLevel;
+import com.datastax.driver.core.ResultSet;
+import com.datastax.driver.core.ResultSetFuture;
+import com.datastax.driver.core.Session;
+import com.datastax.driver.core.Statement;
+import com.datastax.driver.core.exceptions.OperationTimedOutException;
+import com.datastax.driver.core.exceptions.QueryConsistencyException;
+import com.datastax.driver.core.exceptions.UnavailableException;
+import com.datastax.driver.core.exceptions.WriteTimeoutException;
+import com.google.common.collect.ImmutableList;
+import org.slf4j.Logger;
+import org.zalando.planb.revocation.util.Deadline;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.datastax.driver.core.ConsistencyLevel.ALL;
+import static com.datastax.driver.core.ConsistencyLevel.ANY;
+import static com.datastax.driver.core.ConsistencyLevel.EACH_QUORUM;
+import static com.datastax.driver.core.ConsistencyLevel.LOCAL_ONE;
+import static com.datastax.driver.core.ConsistencyLevel.LOCAL_QUORUM;
+import static com.datastax.driver.core.ConsistencyLevel.ONE;
+import static com.datastax.driver.core.ConsistencyLevel.QUORUM;
+import static com.datastax.driver.core.ConsistencyLevel.THREE;
+import static com.datastax.driver.core.ConsistencyLevel.TWO;
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Executes statements at a configured consistency level, degrading to weaker levels while the configured one can't be
+ * met.
+ * <p>
+ * <p>When a statement fails because too few replicas are alive or answered in time, it is retried at the next weaker
+ * level, and following statements start at that level. Writes that timed out may have been applied, so they are only
+ * retried if the statement is {@link Statement#isIdempotent() idempotent}. {@link AdaptiveConsistency#upgrade()} is
+ * called periodically in the background to try the next stronger level again, so requests never wait for more than one
+ * failed attempt per upgrade interval.</p>
+ * <p>
+ * <p>Degradations are visible in the {@code planb.cassandra.consistency.<name>.degraded} counter, counting statements
+ * executed below the configured level, and in the {@code .downgrades} and {@code .upgrades} counters.</p>
+ *
+ * @author <a href="mailto:team-greendale@zalando.de">Team Greendale</a>
+ */
+public class AdaptiveConsistency {
+
+    private static final Logger LOG = getLogger(AdaptiveConsistency.class);
+
+    // Levels by decreasing strength
+    private static final List<ConsistencyLevel> STRENGTH = ImmutableList.of(ALL, EACH_QUORUM, QUORUM, LOCAL_QUORUM,
+            THREE, TWO, ONE, LOCAL_ONE, ANY);
+
+    private final String name;
+
+    private final List<ConsistencyLevel> levels;
+
+    private final AtomicInteger current = new AtomicInteger();
+
+    private final Counter degraded;
+
+    private final Counter downgrades;
+
+    private final Counter upgrades;
+
+    /**
+     * Constructs a new instance starting at the configured level.
+     *
+     * @param name           name of the operations, like {@code read}, used in metric names
+     * @param configured     the configured consistency level
+     * @param fallbacks      levels to degrade to. Levels not weaker than {@code configured} are ignored
+     * @param metricRegistry registry of the degradation counters
+     */
+    public AdaptiveConsistency(final String name, final ConsistencyLevel configured,
+                               final List<ConsistencyLevel> fallbacks, final MetricRegistry metricRegistry) {
+        this.name = name;
+        final ImmutableList.Builder<ConsistencyLevel> builder = ImmutableList.<ConsistencyLevel>builder()
+                .add(configured);
+        STRENGTH.stream()
+                .filter(fallbacks::contains)
+                .filter(level -> STRENGTH.indexOf(level) > STRENGTH.indexOf(configured))
+                .forEach(builder::add);
+        this.levels = builder.build();
+
+        final String prefix = MetricRegistry.name("planb.cassandra.consistency", name);
+        this.degraded = metricRegistry.counter(MetricRegistry.name(prefix, "degraded"));
+        this.downgrades = metricRegistry.counter(MetricRegistry.name(prefix, "downgrades"));
+        this.upgrades = metricRegistry.counter(MetricRegistry.name(prefix, "upgrades"));
+    }
+
+    /**
+     * Executes the statement at the current level, degrading if needed.
+     *
+     * @param session   session used to execute the statement
+     * @param statement the statement to execute. Its consistency level is overwritten
+     * @return the result of the statement
+     * @throws UnavailableException      if the weakest level can't be met either
+     * @throws QueryConsistencyException if the weakest level can't be met either, or a write that is not idempotent
+     *                                   timed out
+     */
+    public ResultSet execute(final Session session, final Statement statement) {
+        return execute(session, statement, Deadline.none());
+    }
+
+    /**
+     * Executes the statement at the current level, degrading if needed, and waits for its result until the deadline
+     * at most.
+     * <p>
+     * <p>Once the deadline passed, the execution is cancelled, so that the driver neither retries it on other hosts
+     * nor keeps executing it speculatively.</p>
+     *
+     * @param session   session used to execute the statement
+     * @param statement the statement to execute. Its consistency level is overwritten
+     * @param deadline  deadline of the request
+     * @return the result of the statement
+     * @throws OperationTimedOutException if the deadline passed before the result was received
+     * @throws UnavailableException       if the weakest level can't be met either
+     * @throws QueryConsistencyException  if the weakest level can't be met either, or a write that is not idempotent
+     *                                    timed out
+     */
+    public ResultSet execute(final Session session, final Statement statement, final Deadline deadline) {
+        final int start = current.get();
+        int index = start;
+        while (true) {
+            statement.setConsistencyLevel(levels.get(index));
+            try {
+                final ResultSet resultSet = deadline.isBounded() ? await(session.executeAsync(statement), deadline)
+                        : session.execute(statement);
+                if (index > 0) {
+                    degraded.inc();
+                }
+                if (index > start && current.compareAndSet(start, index)) {
+                    downgrades.inc();
+                    LOG.warn("Degraded {} consistency to {}", name, levels.get(index));
+                }
+                return resultSet;
+            } catch (UnavailableException | QueryConsistencyException e) {
+                if (index + 1 >= levels.size() || e instanceof WriteTimeoutException && !isIdempotent(statement)) {
+                    throw e;
+                }
+                LOG.debug("Could not {} at {}: {}", name, levels.get(index), e.getMessage());
+                index++;
+            }
+        }
+    }
+
+    private static boolean isIdempotent(final Statement statement) {
+        return Boolean.TRUE.equals(statement.isIdempotent());
+    }
+
+    private static ResultSet await(final ResultSetFuture future, final Deadline deadline) {
+        try {
+            return future.getUninterruptibly(deadline.remainingNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new OperationTimedOutException(null, "Deadline passed before a response was received");
+        }
+    }
+
+    /**
+     * Moves back to the next stronger level, if degraded. The next statement tries that level first.
+     */
+    public void upgrade() {
+        final int index = current.get();
+        if (index > 0 && current.compareAndSet(index, index - 1)) {
+            upgrades.inc();
+            LOG.info("Trying to upgrade {} consistency to {}", name, levels.get(index - 1));
+        }
+    }
+
+    /**
+     * Returns whether statements are currently executed below the configured level.
+     *
+     * @return {@code true} if degraded
+     */
+    public boolean isDegraded() {
+        return current.get() > 0;
+    }
+
+    /**
+     * Returns the level statements are currently executed at first.
+     *
+     * @return the current consistency level
+     */
+    public ConsistencyLevel currentLevel() {
+        return levels.get(current.get());
+    }
+}
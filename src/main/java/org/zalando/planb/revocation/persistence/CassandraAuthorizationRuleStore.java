@@ -36,6 +36,8 @@ public class CassandraAuthorizationRuleStore implements AuthorizationRulesStore.
 
     private final PreparedStatement insertRule;
 
+    private final SlowQueryLog slowQueryLog;
+
     private static final String AUTHORIZATION_TABLE = "authorization_rule";
     private static final String REQUIRED_USER_CLAIMS = "required_user_claims";
     private static final String ALLOWED_REVOCATION_CLAIMS = "allowed_revocation_claims";
@@ -56,7 +58,13 @@ public class CassandraAuthorizationRuleStore implements AuthorizationRulesStore.
     private static final RegularStatement CLEANUP_AUTHORIZATION = QueryBuilder.truncate(AUTHORIZATION_TABLE);
 
     public CassandraAuthorizationRuleStore(final Session session, final ConsistencyLevel read, final ConsistencyLevel write) {
+        this(session, read, write, SlowQueryLog.disabled());
+    }
+
+    public CassandraAuthorizationRuleStore(final Session session, final ConsistencyLevel read,
+                                           final ConsistencyLevel write, final SlowQueryLog slowQueryLog) {
         this.session = session;
+        this.slowQueryLog = slowQueryLog;
         getRules = session.prepare(SELECT_AUTHORIZATION).setConsistencyLevel(read);
         insertRule = session.prepare(INSERT_AUTHORIZATION).setConsistencyLevel(write);
     }
@@ -70,7 +78,8 @@ public class CassandraAuthorizationRuleStore implements AuthorizationRulesStore.
     @Scheduled(fixedDelayString = "${revocation.authorization.reloadInMilliseconds}", initialDelayString = "${revocation.authorization.reloadInMilliseconds}")
     private void loadAuthorizationRuleStore() {
         inMemoryRuleStore = Optional.ofNullable(getRules.bind())
-                .map(session::execute)
+                .map(statement -> slowQueryLog.execute("getRules", null, statement,
+                        () -> session.execute(statement)))
                 .map(ResultSet::all)
                 .map(this::toAuthorizationRules)
                 .orElse(Collections.emptyList());
@@ -88,7 +97,7 @@ public class CassandraAuthorizationRuleStore implements AuthorizationRulesStore.
                 .setMap(ALLOWED_REVOCATION_CLAIMS, authorizationRule.allowedRevocationClaims())
                 .setString(CREATED_BY, null)
                 .setString(LAST_MODIFIED_BY, null);
-        session.execute(insert);
+        slowQueryLog.execute("insertRule", null, insert, () -> session.execute(insert));
         loadAuthorizationRuleStore();
     }
 
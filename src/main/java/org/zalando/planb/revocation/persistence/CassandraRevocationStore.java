@@ -1,16 +1,27 @@
 package org.zalando.planb.revocation.persistence;
 
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
 import com.datastax.driver.core.BoundStatement;
 import com.datastax.driver.core.ConsistencyLevel;
+import com.datastax.driver.core.ExecutionInfo;
 import com.datastax.driver.core.PreparedStatement;
 import com.datastax.driver.core.RegularStatement;
 import com.datastax.driver.core.ResultSet;
 import com.datastax.driver.core.Row;
 import com.datastax.driver.core.Session;
+import com.datastax.driver.core.exceptions.NoHostAvailableException;
+import com.datastax.driver.core.exceptions.OperationTimedOutException;
 import com.datastax.driver.core.querybuilder.QueryBuilder;
+import com.datastax.driver.core.utils.UUIDs;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import org.slf4j.Logger;
+import org.zalando.planb.revocation.api.exception.DeadlineExceededException;
 import org.zalando.planb.revocation.api.exception.SerializationException;
 import org.zalando.planb.revocation.domain.CurrentUser;
 import org.zalando.planb.revocation.domain.ImmutableRefresh;
@@ -22,7 +33,9 @@ import org.zalando.planb.revocation.domain.RevocationRequest;
 import org.zalando.planb.revocation.domain.RevocationType;
 import org.zalando.planb.revocation.domain.RevokedClaimsData;
 import org.zalando.planb.revocation.domain.RevokedData;
+import org.zalando.planb.revocation.domain.RevokedGlobal;
 import org.zalando.planb.revocation.domain.RevokedTokenData;
+import org.zalando.planb.revocation.util.Deadline;
 import org.zalando.planb.revocation.util.LocalDateFormatter;
 import org.zalando.planb.revocation.util.UnixTimestamp;
 
@@ -31,20 +44,35 @@ import java.time.LocalDate;
 import java.time.ZoneId;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
 import java.util.EnumMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import static com.datastax.driver.core.querybuilder.QueryBuilder.bindMarker;
 import static com.datastax.driver.core.querybuilder.QueryBuilder.eq;
 import static com.datastax.driver.core.querybuilder.QueryBuilder.gt;
-import static com.datastax.driver.core.querybuilder.QueryBuilder.now;
+import static com.datastax.driver.core.querybuilder.QueryBuilder.lt;
+import static com.datastax.driver.core.querybuilder.QueryBuilder.ttl;
 import static org.slf4j.LoggerFactory.getLogger;
 
 /**
  * Interface to Cassandra cluster.
+ * <p>
+ * <p>Reads and writes are executed through {@link AdaptiveConsistency} policies, degrading to weaker consistency
+ * levels during partial outages and periodically trying to upgrade back in the background.</p>
+ * <p>
+ * <p>SELECT queries are idempotent, so that the driver may execute them speculatively on other replicas when the
+ * queried one is slow. Responses not coming from the first replica tried are counted in the
+ * {@code planb.cassandra.speculative.won} counter, which includes retries on other replicas.</p>
+ * <p>
+ * <p>Each statement is timed in {@code planb.cassandra.statements.<statement>}, and the rows returned per bucket are
+ * recorded in the {@code planb.cassandra.statements.getFrom.rows} histogram.</p>
  *
  * @author <a href="mailto:rodrigo.reis@zalando.de">Rodrigo Reis</a>
  */
@@ -62,11 +90,22 @@ public class CassandraRevocationStore implements RevocationStore {
     private static final RegularStatement SELECT_REVOCATION = QueryBuilder.select().column("revocation_type")
             .column("revocation_data")
             .column("revoked_by").column("revoked_at")
+            .column("expires_at")
             .column("bucket_uuid").from(REVOCATION_TABLE)
             .where(eq("bucket_date", bindMarker()))
             .and(eq("bucket_interval", bindMarker())).and(
                     gt("revoked_at", bindMarker()));
 
+    private static final RegularStatement SELECT_REVOCATION_RANGE = QueryBuilder.select().column("revocation_type")
+            .column("revocation_data")
+            .column("revoked_by").column("revoked_at")
+            .column("expires_at")
+            .column("bucket_uuid").from(REVOCATION_TABLE)
+            .where(eq("bucket_date", bindMarker()))
+            .and(eq("bucket_interval", bindMarker()))
+            .and(gt("revoked_at", bindMarker()))
+            .and(lt("revoked_at", bindMarker()));
+
     private static final RegularStatement INSERT_REVOCATION = QueryBuilder.insertInto(REVOCATION_TABLE)
             .value("bucket_date", bindMarker())
             .value("bucket_interval", bindMarker())
@@ -74,7 +113,9 @@ public class CassandraRevocationStore implements RevocationStore {
             .value("revocation_data", bindMarker())
             .value("revoked_by", bindMarker())
             .value("revoked_at", bindMarker())
-            .value("bucket_uuid", now());
+            .value("expires_at", bindMarker())
+            .value("bucket_uuid", bindMarker())
+            .using(ttl(bindMarker()));
 
     private static final RegularStatement INSERT_REFRESH = QueryBuilder.insertInto(REFRESH_TABLE)
             .value("refresh_year", bindMarker())
@@ -94,6 +135,8 @@ public class CassandraRevocationStore implements RevocationStore {
 
     private final PreparedStatement getFrom;
 
+    private final PreparedStatement getRange;
+
     private final PreparedStatement insertRevocation;
 
     private final PreparedStatement getRefresh;
@@ -106,8 +149,34 @@ public class CassandraRevocationStore implements RevocationStore {
 
     private final ObjectMapper objectMapper;
 
+    private final AdaptiveConsistency readConsistency;
+
+    private final AdaptiveConsistency writeConsistency;
+
+    private final SlowQueryLog slowQueryLog;
+
+    private final boolean expiryTtl;
+
+    private final Counter speculativeWon;
+
+    private final Timer getFromTimer;
+
+    private final Timer getRangeTimer;
+
+    private final Histogram getFromRows;
+
+    private final Timer insertRevocationTimer;
+
+    private final Timer getRefreshTimer;
+
+    private final Timer storeRefreshTimer;
+
+    private final ScheduledExecutorService upgrades = Executors.newSingleThreadScheduledExecutor(
+            new ThreadFactoryBuilder().setNameFormat("cassandra-consistency-upgrade-%d").setDaemon(true).build());
+
     /**
-     * Constructs a new instance configured with the provided {@code session} and {@code maxTimeDelta}.
+     * Constructs a new instance configured with the provided {@code session} and {@code maxTimeDelta}, always using
+     * the specified consistency levels.
      *  @param session      session configured to a Cassandra cluster
      * @param read         consistency level for SELECT queries
      * @param write        consistency level for INSERT queries
@@ -117,15 +186,60 @@ public class CassandraRevocationStore implements RevocationStore {
      */
     public CassandraRevocationStore(final Session session, final ConsistencyLevel read, final ConsistencyLevel write,
                                     final int maxTimeDelta, final CurrentUser currentUser, final ObjectMapper objectMapper) {
+        this(session, read, write, ImmutableList.of(), 0, maxTimeDelta, currentUser, objectMapper,
+                new MetricRegistry(), SlowQueryLog.disabled(), false);
+    }
+
+    /**
+     * Constructs a new instance configured with the provided {@code session} and {@code maxTimeDelta}, degrading to
+     * the fallback consistency levels when the configured ones can't be met.
+     *
+     * @param session            session configured to a Cassandra cluster
+     * @param read               consistency level for SELECT queries
+     * @param write              consistency level for INSERT queries
+     * @param fallbacks          weaker consistency levels to degrade to
+     * @param upgradeInterval    interval between two attempts to upgrade a degraded level, in milliseconds
+     * @param maxTimeDelta       maximum time span limit to get revocations, in seconds
+     * @param currentUser        currentUser supplier
+     * @param objectMapper       the object mapper
+     * @param metricRegistry     registry of the degradation counters
+     * @param slowQueryLog       log of slow statements
+     * @param expiryTtl          whether revocations are stored with a TTL matching their expiry
+     */
+    public CassandraRevocationStore(final Session session, final ConsistencyLevel read, final ConsistencyLevel write,
+                                    final List<ConsistencyLevel> fallbacks, final long upgradeInterval,
+                                    final int maxTimeDelta, final CurrentUser currentUser,
+                                    final ObjectMapper objectMapper, final MetricRegistry metricRegistry,
+                                    final SlowQueryLog slowQueryLog, final boolean expiryTtl) {
         this.session = session;
         this.maxTimeDelta = maxTimeDelta;
         this.currentUser = currentUser;
         this.objectMapper = objectMapper;
-
-        getFrom = session.prepare(SELECT_REVOCATION).setConsistencyLevel(read);
-        insertRevocation = session.prepare(INSERT_REVOCATION).setConsistencyLevel(write);
-        getRefresh = session.prepare(SELECT_REFRESH).setConsistencyLevel(read);
-        storeRefresh = session.prepare(INSERT_REFRESH).setConsistencyLevel(write);
+        this.slowQueryLog = slowQueryLog;
+        this.expiryTtl = expiryTtl;
+        this.readConsistency = new AdaptiveConsistency("read", read, fallbacks, metricRegistry);
+        this.writeConsistency = new AdaptiveConsistency("write", write, fallbacks, metricRegistry);
+        this.speculativeWon = metricRegistry.counter("planb.cassandra.speculative.won");
+        this.getFromTimer = metricRegistry.timer("planb.cassandra.statements.getFrom");
+        this.getRangeTimer = metricRegistry.timer("planb.cassandra.statements.getRange");
+        this.getFromRows = metricRegistry.histogram("planb.cassandra.statements.getFrom.rows");
+        this.insertRevocationTimer = metricRegistry.timer("planb.cassandra.statements.insertRevocation");
+        this.getRefreshTimer = metricRegistry.timer("planb.cassandra.statements.getRefresh");
+        this.storeRefreshTimer = metricRegistry.timer("planb.cassandra.statements.storeRefresh");
+
+        getFrom = session.prepare(SELECT_REVOCATION).setConsistencyLevel(read).setIdempotent(true);
+        getRange = session.prepare(SELECT_REVOCATION_RANGE).setConsistencyLevel(read).setIdempotent(true);
+        // Inserts bind all their values, bucket_uuid included, so that executing them again writes the same rows
+        insertRevocation = session.prepare(INSERT_REVOCATION).setConsistencyLevel(write).setIdempotent(true);
+        getRefresh = session.prepare(SELECT_REFRESH).setConsistencyLevel(read).setIdempotent(true);
+        storeRefresh = session.prepare(INSERT_REFRESH).setConsistencyLevel(write).setIdempotent(true);
+
+        if (upgradeInterval > 0) {
+            upgrades.scheduleWithFixedDelay(() -> {
+                readConsistency.upgrade();
+                writeConsistency.upgrade();
+            }, upgradeInterval, upgradeInterval, TimeUnit.MILLISECONDS);
+        }
     }
 
     static class Bucket {
@@ -138,7 +252,11 @@ public class CassandraRevocationStore implements RevocationStore {
         }
     }
 
-    private static final int BUCKET_LENGTH = 8 * 60 * 60; // 8 Hours per bucket/row
+    /**
+     * Length of the time buckets revocations are stored in, in seconds. Revocations are only written to the current
+     * one, so earlier buckets never change.
+     */
+    public static final int BUCKET_LENGTH = 8 * 60 * 60; // 8 Hours per bucket/row
 
     protected static List<Bucket> getBuckets(int from, final int currentTime) {
         List<Bucket> buckets = new ArrayList<>();
@@ -161,6 +279,45 @@ public class CassandraRevocationStore implements RevocationStore {
 
     @Override
     public Collection<RevocationData> getRevocations(final int from) {
+        return getRevocations(from, Deadline.none());
+    }
+
+    /**
+     * Returns the revocations since the specified timestamp, bucket by bucket.
+     * <p>
+     * <p>Each bucket query is given the time left until the deadline as read timeout, is executed asynchronously and
+     * is cancelled once the deadline passed, so that retries on other hosts never overshoot it. Pages are not fetched
+     * anymore once the deadline passed either. Revocations of the buckets read completely are then returned in the
+     * thrown exception.</p>
+     *
+     * @param from     UTC UNIX timestamp from when revocations are returned
+     * @param deadline deadline of the request
+     * @return the revocations since {@code from}
+     * @throws DeadlineExceededException if the deadline passed before all buckets were read
+     */
+    @Override
+    public Collection<RevocationData> getRevocations(final int from, final Deadline deadline) {
+        return getRevocations(from, null, deadline);
+    }
+
+    /**
+     * Returns the revocations since the specified timestamp and before another one, bucket by bucket.
+     * <p>
+     * <p>Only the buckets up to the one of {@code to} are read, and each of them only up to {@code to}. Reads give up
+     * at the deadline like {@link #getRevocations(int, Deadline)}.</p>
+     *
+     * @param from     UTC UNIX timestamp from when revocations are returned
+     * @param to       UTC UNIX timestamp before which revocations are returned
+     * @param deadline deadline of the request
+     * @return the revocations since {@code from} and before {@code to}
+     * @throws DeadlineExceededException if the deadline passed before all buckets were read
+     */
+    @Override
+    public Collection<RevocationData> getRevocations(final int from, final int to, final Deadline deadline) {
+        return getRevocations(from, (Integer) to, deadline);
+    }
+
+    private Collection<RevocationData> getRevocations(final int from, final Integer to, final Deadline deadline) {
 
         Collection<RevocationData> revocations = new LinkedList<>();
 
@@ -171,10 +328,39 @@ public class CassandraRevocationStore implements RevocationStore {
             throw new IllegalArgumentException("'from' timestamp is too old!");
         }
 
-        for (Bucket b : getBuckets(from, currentTime)) {
+        // The last revocation before 'to' is in the bucket of 'to' - 1
+        final List<Bucket> buckets = getBuckets(from, to == null ? currentTime : Math.min(currentTime, to - 1));
+        for (int i = 0; i < buckets.size(); i++) {
+            final Bucket b = buckets.get(i);
+            if (deadline.isExpired()) {
+                throw deadlineExceeded(revocations, from, i);
+            }
 
-            ResultSet rs = session.execute(getFrom.bind(b.date, b.interval, from));
-            List<Row> rows = rs.all();
+            final BoundStatement statement = to == null ? getFrom.bind(b.date, b.interval, from)
+                    : getRange.bind(b.date, b.interval, from, to);
+            if (deadline.isBounded()) {
+                statement.setReadTimeoutMillis((int) Math.max(1, Math.min(deadline.remainingMillis(), readTimeout())));
+            }
+
+            final List<Row> rows = new ArrayList<>();
+            try {
+                final ResultSet rs = to == null
+                        ? read("getFrom", b.date + ":" + b.interval, statement, deadline, getFromTimer)
+                        : read("getRange", b.date + ":" + b.interval, statement, deadline, getRangeTimer);
+                for (Row row : rs) {
+                    rows.add(row);
+                    if (rs.getAvailableWithoutFetching() == 0 && !rs.isFullyFetched() && deadline.isExpired()) {
+                        throw deadlineExceeded(revocations, from, i);
+                    }
+                }
+            } catch (OperationTimedOutException | NoHostAvailableException e) {
+                // Hosts may all have timed out on the read timeout set from the deadline
+                if (deadline.isExpired()) {
+                    throw deadlineExceeded(revocations, from, i);
+                }
+                throw e;
+            }
+            getFromRows.update(rows.size());
 
             for (Row r : rows) {
                 try {
@@ -190,7 +376,7 @@ public class CassandraRevocationStore implements RevocationStore {
                             data = objectMapper.readValue(unmappedData, RevokedClaimsData.class);
                             break;
                         case GLOBAL:
-                            data = objectMapper.readValue(unmappedData, RevokedTokenData.class);
+                            data = objectMapper.readValue(unmappedData, RevokedGlobal.class);
                             break;
                     }
 
@@ -200,6 +386,7 @@ public class CassandraRevocationStore implements RevocationStore {
                                     .data(data)
                                     .build())
                             .revokedAt(r.getInt("revoked_at"))
+                            .expiresAt(r.isNull("expires_at") ? null : r.getInt("expires_at"))
                             .build();
 
                     revocations.add(revocationData);
@@ -212,13 +399,62 @@ public class CassandraRevocationStore implements RevocationStore {
         return revocations;
     }
 
+    private int readTimeout() {
+        return session.getCluster().getConfiguration().getSocketOptions().getReadTimeoutMillis();
+    }
+
+    /*
+     * Revocations of the buckets before the failed one are complete, so clients can carry on from its start. Nothing
+     * was read if the first bucket failed.
+     */
+    static DeadlineExceededException deadlineExceeded(final Collection<RevocationData> revocations,
+                                                       final int from, final int failedBucket) {
+        if (failedBucket == 0) {
+            return new DeadlineExceededException(Collections.emptyList(), null);
+        }
+        final int bucketStart = (from + failedBucket * BUCKET_LENGTH) / BUCKET_LENGTH * BUCKET_LENGTH;
+        return new DeadlineExceededException(revocations, bucketStart - 1);
+    }
+
+    private ResultSet read(final String name, final Object partitionKey, final BoundStatement statement,
+                           final Timer timer) {
+        return read(name, partitionKey, statement, Deadline.none(), timer);
+    }
+
+    private ResultSet read(final String name, final Object partitionKey, final BoundStatement statement,
+                           final Deadline deadline, final Timer timer) {
+        final ResultSet resultSet = execute(name, partitionKey, readConsistency, statement, deadline, timer);
+        final ExecutionInfo info = resultSet.getExecutionInfo();
+        if (info != null && info.getTriedHosts().size() > 1
+                && !info.getTriedHosts().get(0).equals(info.getQueriedHost())) {
+            speculativeWon.inc();
+        }
+        return resultSet;
+    }
+
+    private ResultSet execute(final String name, final Object partitionKey, final AdaptiveConsistency consistency,
+                              final BoundStatement statement, final Timer timer) {
+        return execute(name, partitionKey, consistency, statement, Deadline.none(), timer);
+    }
+
+    private ResultSet execute(final String name, final Object partitionKey, final AdaptiveConsistency consistency,
+                              final BoundStatement statement, final Deadline deadline, final Timer timer) {
+        final Timer.Context context = timer.time();
+        try {
+            return slowQueryLog.execute(name, partitionKey, statement,
+                    () -> consistency.execute(session, statement, deadline));
+        } finally {
+            context.stop();
+        }
+    }
+
     protected static int getInterval(final int timestamp) {
         int hours = timestamp / (60 * 60);
         return (hours % 24) / 8;
     }
 
     @Override
-    public void storeRevocation(final RevocationRequest revocation) {
+    public void storeRevocation(final RevocationRequest revocation, final Integer expiresAt) {
         final Integer revokedAt = UnixTimestamp.now();
         final String date = LocalDateFormatter.get().format(new Date(((long) revokedAt) * 1000));
 
@@ -227,10 +463,12 @@ public class CassandraRevocationStore implements RevocationStore {
             String data = objectMapper.writeValueAsString(revocation.data());
             LOG.debug("Storing in bucket: {} {} {}", date, interval, data);
 
+            // A TTL of 0 keeps rows until they are deleted
+            final int ttl = expiryTtl && expiresAt != null ? Math.max(1, expiresAt - revokedAt) : 0;
             final BoundStatement bs = insertRevocation.bind(date, interval, revocation.type().name(), data,
-                    currentUser.get(), revokedAt);
+                    currentUser.get(), revokedAt, expiresAt, UUIDs.timeBased(), ttl);
 
-            session.execute(bs);
+            execute("insertRevocation", date + ":" + interval, writeConsistency, bs, insertRevocationTimer);
         } catch (JsonProcessingException ex) {
             throw new SerializationException();
         }
@@ -241,7 +479,7 @@ public class CassandraRevocationStore implements RevocationStore {
         int yearBucket = LocalDate.now(ZoneId.of("UTC")).getYear();
 
         // TODO Include the case when it's the beginning of the year (2 buckets needed)
-        ResultSet rs = session.execute(getRefresh.bind(yearBucket));
+        ResultSet rs = read("getRefresh", yearBucket, getRefresh.bind(yearBucket), getRefreshTimer);
 
         // No refreshes returns null
         if (rs.isExhausted()) {
@@ -264,6 +502,40 @@ public class CassandraRevocationStore implements RevocationStore {
         LOG.debug("Store refresh in Cassandra yearBucket={} from={}", yearBucket, from);
 
         BoundStatement statement = storeRefresh.bind(yearBucket, UnixTimestamp.now(), from, currentUser.get());
-        session.execute(statement);
+        execute("storeRefresh", yearBucket, writeConsistency, statement, storeRefreshTimer);
+    }
+
+    /**
+     * Returns the consistency policy of reads.
+     *
+     * @return the consistency policy of reads
+     */
+    public AdaptiveConsistency readConsistency() {
+        return readConsistency;
+    }
+
+    /**
+     * Returns the consistency policy of writes.
+     *
+     * @return the consistency policy of writes
+     */
+    public AdaptiveConsistency writeConsistency() {
+        return writeConsistency;
+    }
+
+    /**
+     * Returns whether reads or writes are currently executed below their configured consistency level.
+     *
+     * @return {@code true} if degraded
+     */
+    public boolean isDegraded() {
+        return readConsistency.isDegraded() || writeConsistency.isDegraded();
+    }
+
+    /**
+     * Stops upgrading degraded consistency levels.
+     */
+    public void shutdown() {
+        upgrades.shutdownNow();
     }
 }
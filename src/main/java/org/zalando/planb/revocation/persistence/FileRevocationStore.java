@@ -0,0 +1,400 @@
+package org.zalando.planb.revocation.persistence;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.slf4j.Logger;
+import org.zalando.planb.revocation.api.exception.SerializationException;
+import org.zalando.planb.revocation.domain.ImmutableRefresh;
+import org.zalando.planb.revocation.domain.ImmutableRevocationData;
+import org.zalando.planb.revocation.domain.Refresh;
+import org.zalando.planb.revocation.domain.RevocationData;
+import org.zalando.planb.revocation.domain.RevocationRequest;
+import org.zalando.planb.revocation.util.UnixTimestamp;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Revocation store keeping revocations in local, append-only segment files.
+ * <p>
+ * <p>Like in Cassandra, revocations are split in buckets of 8 hours, each stored in its own segment file (See
+ * {@link RevocationSegment}). A single writer thread appends revocations: when several are stored concurrently, they
+ * are written together and synced to disk once (group commit). A revocation is only acknowledged, and visible to
+ * readers, once it was synced. If the writer thread dies, further revocations are rejected.</p>
+ * <p>
+ * <p>Segments falling out of {@code maxTimeDelta} are deleted. The latest refresh notification is kept in its own
+ * file. Everything is reloaded from the directory on startup.</p>
+ *
+ * @author <a href="mailto:team-greendale@zalando.de">Team Greendale</a>
+ */
+public class FileRevocationStore implements RevocationStore {
+
+    private static final Logger LOG = getLogger(FileRevocationStore.class);
+
+    static final int BUCKET_LENGTH = 8 * 60 * 60; // 8 Hours per bucket/segment
+
+    private static final String SEGMENT_PREFIX = "revocations-";
+
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    private static final String REFRESH_FILE = "refresh.json";
+
+    private final Path directory;
+
+    private final int maxTimeDelta;
+
+    private final int maxBatchSize;
+
+    private final int indexInterval;
+
+    private final long writeTimeout;
+
+    private final ObjectMapper objectMapper;
+
+    private final ConcurrentNavigableMap<Integer, RevocationSegment> segments = new ConcurrentSkipListMap<>();
+
+    private final BlockingQueue<PendingRevocation> pending = new LinkedBlockingQueue<>();
+
+    private final ExecutorService writer;
+
+    private volatile boolean running = true;
+
+    private volatile Refresh refresh;
+
+    // Set when the writer died, after which revocations are rejected
+    private volatile Throwable writerFailure;
+
+    // Only accessed by the writer
+    private int lastRevokedAt = Integer.MIN_VALUE;
+
+    /**
+     * Constructs a new instance storing revocations in the specified directory, loading the revocations already
+     * stored there.
+     *
+     * @param directory     directory of the segment files, created if needed
+     * @param maxTimeDelta  maximum time span limit to get revocations, in seconds
+     * @param maxBatchSize  maximum number of revocations synced to disk at once
+     * @param indexInterval number of revocations between two index entries of a segment
+     * @param writeTimeout  maximum time waited for a revocation to be written, in milliseconds
+     * @param objectMapper  the object mapper
+     * @throws IOException if the directory or the files in it can't be read
+     */
+    public FileRevocationStore(final Path directory, final int maxTimeDelta, final int maxBatchSize,
+                               final int indexInterval, final long writeTimeout, final ObjectMapper objectMapper)
+            throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.maxTimeDelta = maxTimeDelta;
+        this.maxBatchSize = maxBatchSize;
+        this.indexInterval = indexInterval;
+        this.writeTimeout = writeTimeout;
+        this.objectMapper = objectMapper;
+
+        load();
+        evictExpiredSegments();
+
+        this.writer = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder()
+                .setNameFormat("revocation-writer-%d")
+                .setDaemon(true)
+                .build());
+        writer.execute(this::writeLoop);
+    }
+
+    private void load() throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory,
+                SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path file : files) {
+                final String name = file.getFileName().toString();
+                final int bucketStart;
+                try {
+                    bucketStart = Integer.parseInt(name.substring(SEGMENT_PREFIX.length(),
+                            name.length() - SEGMENT_SUFFIX.length()));
+                } catch (NumberFormatException e) {
+                    LOG.warn("Ignoring unexpected file {}", file);
+                    continue;
+                }
+
+                final RevocationSegment segment = RevocationSegment.open(file, bucketStart, indexInterval);
+                segments.put(bucketStart, segment);
+                lastRevokedAt = Math.max(lastRevokedAt, segment.lastRevokedAt());
+            }
+        }
+        LOG.info("Loaded {} revocation segments from {}", segments.size(), directory);
+
+        final Path refreshFile = directory.resolve(REFRESH_FILE);
+        if (Files.exists(refreshFile)) {
+            refresh = objectMapper.readValue(refreshFile.toFile(), Refresh.class);
+        }
+    }
+
+    @Override
+    public Collection<RevocationData> getRevocations(final int from) {
+        if ((UnixTimestamp.now() - from) > maxTimeDelta) {
+
+            // avoid erroneous reads of too many segments
+            throw new IllegalArgumentException("'from' timestamp is too old!");
+        }
+
+        final List<RevocationData> revocations = new ArrayList<>();
+        for (RevocationSegment segment : segments.tailMap(bucketOf(from), true).values()) {
+            try {
+                for (byte[] payload : segment.readSince(from)) {
+                    revocations.add(objectMapper.readValue(payload, RevocationData.class));
+                }
+            } catch (IOException e) {
+                // The segment might have been deleted meanwhile
+                LOG.error("Failed to read revocations from segment {}", segment.bucketStart(), e);
+            }
+        }
+        return revocations;
+    }
+
+    @Override
+    public void storeRevocation(final RevocationRequest revocation, final Integer expiresAt) {
+        final PendingRevocation pendingRevocation = new PendingRevocation(revocation, expiresAt);
+        if (!running) {
+            throw new IllegalStateException("Revocation store is shut down");
+        }
+        checkWriter();
+        pending.add(pendingRevocation);
+        if (writerFailure != null) {
+            // The writer died meanwhile, and might not have seen this revocation
+            failPending(writerFailure);
+        }
+
+        try {
+            pendingRevocation.stored.get(writeTimeout, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while storing revocation", e);
+        } catch (TimeoutException e) {
+            throw new IllegalStateException("Timed out storing revocation", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            } else if (e.getCause() instanceof IOException) {
+                throw new UncheckedIOException("Failed to store revocation", (IOException) e.getCause());
+            }
+            throw new IllegalStateException("Failed to store revocation", e.getCause());
+        }
+    }
+
+    private void checkWriter() {
+        if (writerFailure != null) {
+            throw new IllegalStateException("Revocation writer failed", writerFailure);
+        }
+    }
+
+    private void failPending(final Throwable cause) {
+        final List<PendingRevocation> unwritten = new ArrayList<>();
+        pending.drainTo(unwritten);
+        unwritten.forEach(revocation -> revocation.stored.completeExceptionally(cause));
+    }
+
+    private void writeLoop() {
+        final List<PendingRevocation> batch = new ArrayList<>(maxBatchSize);
+        while (running || !pending.isEmpty()) {
+            try {
+                final PendingRevocation first = pending.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                pending.drainTo(batch, maxBatchSize - 1);
+                write(batch);
+            } catch (InterruptedException e) {
+                // Shutting down, pending revocations are still written
+                running = false;
+            } catch (RuntimeException e) {
+                LOG.error("Unexpected error writing revocations", e);
+                batch.forEach(revocation -> revocation.stored.completeExceptionally(e));
+            } catch (Throwable e) {
+                // Not recoverable: nothing is written anymore, and waiting writes fail instead of hanging
+                LOG.error("Revocation writer failed, revocations are rejected from now on", e);
+                writerFailure = e;
+                batch.forEach(revocation -> revocation.stored.completeExceptionally(e));
+                failPending(e);
+                throw e;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /*
+     * Appends all revocations of the batch and syncs the touched segments once.
+     */
+    private void write(final List<PendingRevocation> batch) {
+        final Set<RevocationSegment> touched = new LinkedHashSet<>();
+        final List<PendingRevocation> written = new ArrayList<>(batch.size());
+        try {
+            for (PendingRevocation revocation : batch) {
+                // Keeps segments ordered by revokedAt, even if the clock goes back
+                final int revokedAt = Math.max(UnixTimestamp.now(), lastRevokedAt);
+                final byte[] payload;
+                try {
+                    payload = objectMapper.writeValueAsBytes(ImmutableRevocationData.builder()
+                            .revocationRequest(revocation.request)
+                            .revokedAt(revokedAt)
+                            .expiresAt(revocation.expiresAt)
+                            .build());
+                } catch (JsonProcessingException e) {
+                    revocation.stored.completeExceptionally(new SerializationException());
+                    continue;
+                }
+
+                final RevocationSegment segment = segmentFor(revokedAt);
+                // Touched before appending, so that a partially appended record is rolled back too
+                touched.add(segment);
+                segment.append(revokedAt, payload);
+                written.add(revocation);
+                lastRevokedAt = revokedAt;
+            }
+            for (RevocationSegment segment : touched) {
+                segment.commit();
+            }
+            written.forEach(revocation -> revocation.stored.complete(null));
+        } catch (IOException e) {
+            LOG.error("Failed to write revocations", e);
+            rollback(touched);
+            written.forEach(revocation -> revocation.stored.completeExceptionally(e));
+        } catch (RuntimeException | Error e) {
+            // Failed by the write loop
+            rollback(touched);
+            throw e;
+        }
+
+        evictExpiredSegments();
+    }
+
+    private static void rollback(final Set<RevocationSegment> touched) {
+        for (RevocationSegment segment : touched) {
+            try {
+                segment.rollback();
+            } catch (IOException rollbackException) {
+                LOG.error("Failed to roll back segment {}", segment.bucketStart(), rollbackException);
+            }
+        }
+    }
+
+    private RevocationSegment segmentFor(final int revokedAt) throws IOException {
+        final int bucketStart = bucketOf(revokedAt);
+        RevocationSegment segment = segments.get(bucketStart);
+        if (segment == null) {
+            segment = RevocationSegment.open(directory.resolve(SEGMENT_PREFIX + bucketStart + SEGMENT_SUFFIX),
+                    bucketStart, indexInterval);
+            segments.put(bucketStart, segment);
+        }
+        return segment;
+    }
+
+    private void evictExpiredSegments() {
+        final int oldestBucket = bucketOf(UnixTimestamp.now() - maxTimeDelta);
+        final Iterator<RevocationSegment> expired = segments.headMap(oldestBucket).values().iterator();
+        while (expired.hasNext()) {
+            final RevocationSegment segment = expired.next();
+            expired.remove();
+            try {
+                segment.delete();
+                LOG.info("Deleted expired revocation segment {}", segment.bucketStart());
+            } catch (IOException e) {
+                LOG.error("Failed to delete expired revocation segment {}", segment.bucketStart(), e);
+            }
+        }
+    }
+
+    static int bucketOf(final int timestamp) {
+        return Math.floorDiv(timestamp, BUCKET_LENGTH) * BUCKET_LENGTH;
+    }
+
+    @Override
+    public Refresh getRefresh() {
+        return refresh;
+    }
+
+    /**
+     * Stores the specified timestamp as a refresh notification, replacing the refresh file atomically.
+     *
+     * @param from UTC UNIX timestamp from when to refresh revocations.
+     */
+    @Override
+    public synchronized void storeRefresh(final int from) {
+        final Refresh refreshNotification = ImmutableRefresh.builder().refreshFrom(from).build();
+        final Path temporary = directory.resolve(REFRESH_FILE + ".tmp");
+        try {
+            Files.write(temporary, objectMapper.writeValueAsBytes(refreshNotification));
+            try (FileChannel channel = FileChannel.open(temporary, WRITE)) {
+                channel.force(true);
+            }
+            Files.move(temporary, directory.resolve(REFRESH_FILE), ATOMIC_MOVE, REPLACE_EXISTING);
+        } catch (JsonProcessingException e) {
+            throw new SerializationException();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to store refresh", e);
+        }
+        refresh = refreshNotification;
+    }
+
+    /**
+     * Writes the pending revocations and closes all segment files.
+     */
+    public void shutdown() {
+        running = false;
+        writer.shutdown();
+        try {
+            if (!writer.awaitTermination(10, TimeUnit.SECONDS)) {
+                LOG.warn("Revocation writer did not terminate in time");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        failPending(new IllegalStateException("Revocation store is shut down"));
+
+        for (RevocationSegment segment : segments.values()) {
+            try {
+                segment.close();
+            } catch (IOException e) {
+                LOG.warn("Failed to close revocation segment {}", segment.bucketStart(), e);
+            }
+        }
+    }
+
+    private static final class PendingRevocation {
+
+        private final RevocationRequest request;
+
+        private final Integer expiresAt;
+
+        private final CompletableFuture<Void> stored = new CompletableFuture<>();
+
+        PendingRevocation(final RevocationRequest request, final Integer expiresAt) {
+            this.request = request;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -6,44 +6,109 @@ import org.zalando.planb.revocation.domain.ImmutableRevocationData;
 import org.zalando.planb.revocation.domain.Refresh;
 import org.zalando.planb.revocation.domain.RevocationData;
 import org.zalando.planb.revocation.domain.RevocationRequest;
+import org.zalando.planb.revocation.util.UnixTimestamp;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.LinkedList;
-import java.util.List;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.slf4j.LoggerFactory.getLogger;
 
+/**
+ * Revocation store keeping revocations in memory, ordered by the time they were revoked.
+ * <p>
+ * <p>Revocations are kept in a {@link ConcurrentSkipListMap}, so that stores and reads can happen concurrently without
+ * locking, and getting revocations since a given instant only visits the matching ones. Revocations older than
+ * {@code maxTimeDelta} are never returned, and are evicted when new revocations are stored.</p>
+ *
+ * @author <a href="mailto:team-greendale@zalando.de">Team Greendale</a>
+ */
 public class InMemoryRevocationStore implements RevocationStore {
 
     private final Logger log = getLogger(getClass());
 
-    private final List<RevocationData> revocations = new ArrayList<>();
+    /*
+     * Keyed by revokedAt in the upper 32 bits and a sequence number in the lower ones, as several revocations can
+     * happen in the same second.
+     */
+    private final ConcurrentNavigableMap<Long, RevocationData> revocations = new ConcurrentSkipListMap<>();
 
-    private final LinkedList<Refresh> refreshNotifications = new LinkedList<>();
+    private final AtomicInteger sequence = new AtomicInteger();
+
+    private final int maxTimeDelta;
+
+    private volatile Refresh refresh;
+
+    /**
+     * Constructs a new store keeping revocations for 31 days.
+     */
+    public InMemoryRevocationStore() {
+        this((int) Duration.ofDays(31).getSeconds());
+    }
+
+    /**
+     * Constructs a new store keeping revocations for the specified time.
+     *
+     * @param maxTimeDelta the time revocations are kept, in seconds
+     */
+    public InMemoryRevocationStore(final int maxTimeDelta) {
+        this.maxTimeDelta = maxTimeDelta;
+    }
 
     @Override
     public Collection<RevocationData> getRevocations(final int from) {
-        return revocations.stream().filter(x -> x.revokedAt() > from).collect(Collectors.toList());
+        final int since = Math.max(from, UnixTimestamp.now() - maxTimeDelta);
+        return new ArrayList<>(revocations.tailMap(firstKeyOf(since + 1L)).values());
     }
 
     @Override
-    public void storeRevocation(final RevocationRequest revocation) {
-        final RevocationData revocationData = ImmutableRevocationData.builder().revocationRequest(revocation).build();
+    public void storeRevocation(final RevocationRequest revocation, final Integer expiresAt) {
+        store(ImmutableRevocationData.builder().revocationRequest(revocation).expiresAt(expiresAt).build());
+    }
+
+    void store(final RevocationData revocationData) {
         log.debug("Store revocation in memory: {}", revocationData);
-        revocations.add(revocationData);
+        revocations.put(firstKeyOf(revocationData.revokedAt()) | sequence.getAndIncrement() & 0xFFFFFFFFL,
+                revocationData);
+        evict();
+    }
+
+    /*
+     * Clearing the head map only removes the expired revocations, the others are never visited.
+     */
+    private void evict() {
+        final ConcurrentNavigableMap<Long, RevocationData> expired =
+                revocations.headMap(firstKeyOf(UnixTimestamp.now() - maxTimeDelta + 1L));
+        if (!expired.isEmpty()) {
+            expired.clear();
+        }
+    }
+
+    private static long firstKeyOf(final long revokedAt) {
+        return revokedAt << 32;
+    }
+
+    /**
+     * Returns the number of revocations currently kept, expired ones not yet evicted included.
+     *
+     * @return the number of revocations kept
+     */
+    public int size() {
+        return revocations.size();
     }
 
     @Override
     public Refresh getRefresh() {
-        return refreshNotifications.peekLast();
+        return refresh;
     }
 
     @Override
     public void storeRefresh(final int from) {
         final Refresh refreshNotification = ImmutableRefresh.builder().refreshFrom(from).build();
         log.debug("Store refresh in memory: {}", refreshNotification);
-        refreshNotifications.offer(refreshNotification);
+        refresh = refreshNotification;
     }
 }
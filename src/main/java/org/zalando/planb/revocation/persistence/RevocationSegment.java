@@ -0,0 +1,287 @@
+package org.zalando.planb.revocation.persistence;
+
+import org.slf4j.Logger;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.zip.CRC32;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * An append-only file holding the revocations of a single bucket, in the order they were revoked.
+ * <p>
+ * <p>Each record is made of its payload length, its {@code revokedAt} timestamp and a CRC32 checksum of the payload,
+ * followed by the payload itself. Records are appended by a single writer and only become visible to readers once
+ * they were synced to disk by {@link RevocationSegment#commit()}. Readers access the file through a read-only memory
+ * mapping, which is only remapped when the file grew.</p>
+ * <p>
+ * <p>A sparse index maps the {@code revokedAt} timestamp of every {@code indexInterval}-th record to its position,
+ * so that reading revocations since an instant skips the older records without decoding them.</p>
+ *
+ * @author <a href="mailto:team-greendale@zalando.de">Team Greendale</a>
+ */
+class RevocationSegment implements Closeable {
+
+    private static final Logger LOG = getLogger(RevocationSegment.class);
+
+    static final int HEADER_LENGTH = 12;
+
+    private final int bucketStart;
+
+    private final Path path;
+
+    private final FileChannel channel;
+
+    private final int indexInterval;
+
+    private final ConcurrentNavigableMap<Integer, Long> index = new ConcurrentSkipListMap<>();
+
+    private final CRC32 checksum = new CRC32();
+
+    private final ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH);
+
+    private volatile long committedSize;
+
+    private volatile MappedByteBuffer mapped;
+
+    // Only accessed by the writer
+    private long writePosition;
+
+    private int unindexedRecords;
+
+    private int lastRevokedAt = Integer.MIN_VALUE;
+
+    // Indexing state as of the last commit, restored on rollback
+    private int committedUnindexedRecords;
+
+    private int committedLastRevokedAt = Integer.MIN_VALUE;
+
+    private RevocationSegment(final int bucketStart, final Path path, final FileChannel channel,
+                              final int indexInterval) {
+        this.bucketStart = bucketStart;
+        this.path = path;
+        this.channel = channel;
+        this.indexInterval = indexInterval;
+    }
+
+    /**
+     * Opens the segment file at the specified path, creating it if needed.
+     * <p>
+     * <p>Existing records are verified and indexed. A partially written record at the end of the file, left by a crash
+     * while writing, is truncated.</p>
+     *
+     * @param path          the segment file
+     * @param bucketStart   start of the bucket of this segment, in UTC UNIX timestamp
+     * @param indexInterval number of records between two index entries
+     * @return the opened segment
+     * @throws IOException if the file can't be opened or read
+     */
+    static RevocationSegment open(final Path path, final int bucketStart, final int indexInterval)
+            throws IOException {
+        final RevocationSegment segment = new RevocationSegment(bucketStart, path,
+                FileChannel.open(path, CREATE, READ, WRITE), indexInterval);
+        try {
+            segment.recover();
+        } catch (IOException | RuntimeException e) {
+            segment.close();
+            throw e;
+        }
+        return segment;
+    }
+
+    private void recover() throws IOException {
+        final long fileSize = channel.size();
+        final ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize);
+
+        int position = 0;
+        while (position + HEADER_LENGTH <= fileSize) {
+            final int length = buffer.getInt(position);
+            final int revokedAt = buffer.getInt(position + 4);
+            if (length <= 0 || position + HEADER_LENGTH + (long) length > fileSize) {
+                break;
+            }
+
+            final ByteBuffer payload = buffer.duplicate();
+            payload.limit(position + HEADER_LENGTH + length).position(position + HEADER_LENGTH);
+            checksum.reset();
+            checksum.update(payload);
+            if ((int) checksum.getValue() != buffer.getInt(position + 8)) {
+                break;
+            }
+
+            indexRecord(revokedAt, position);
+            position += HEADER_LENGTH + length;
+        }
+
+        if (position < fileSize) {
+            LOG.warn("Truncating {} after {} bytes, the last record is incomplete", path, position);
+            channel.truncate(position);
+            channel.force(true);
+        }
+        writePosition = position;
+        committedSize = position;
+        committedUnindexedRecords = unindexedRecords;
+        committedLastRevokedAt = lastRevokedAt;
+    }
+
+    private void indexRecord(final int revokedAt, final long position) {
+        if (lastRevokedAt != revokedAt && (index.isEmpty() || unindexedRecords >= indexInterval)) {
+            index.putIfAbsent(revokedAt, position);
+            unindexedRecords = 0;
+        }
+        unindexedRecords++;
+        lastRevokedAt = revokedAt;
+    }
+
+    /**
+     * Appends a record to this segment. The record is not visible to readers until {@link RevocationSegment#commit()}
+     * is called.
+     *
+     * @param revokedAt timestamp of the revocation, which must not be before the one of the previous record
+     * @param payload   the serialized revocation
+     * @throws IOException if writing fails
+     */
+    void append(final int revokedAt, final byte[] payload) throws IOException {
+        checksum.reset();
+        checksum.update(payload);
+        header.clear();
+        header.putInt(payload.length).putInt(revokedAt).putInt((int) checksum.getValue()).flip();
+
+        long position = writePosition;
+        final ByteBuffer[] record = {header, ByteBuffer.wrap(payload)};
+        channel.position(position);
+        while (record[1].hasRemaining()) {
+            position += channel.write(record);
+        }
+
+        indexRecord(revokedAt, writePosition);
+        writePosition = position;
+    }
+
+    /**
+     * Syncs appended records to disk and makes them visible to readers.
+     *
+     * @throws IOException if syncing fails
+     */
+    void commit() throws IOException {
+        if (writePosition != committedSize) {
+            channel.force(false);
+            committedSize = writePosition;
+        }
+        committedUnindexedRecords = unindexedRecords;
+        committedLastRevokedAt = lastRevokedAt;
+    }
+
+    /**
+     * Discards the records appended since the last commit, along with their index entries.
+     *
+     * @throws IOException if the file can't be truncated
+     */
+    void rollback() throws IOException {
+        final long size = committedSize;
+        index.values().removeIf(position -> position >= size);
+        unindexedRecords = committedUnindexedRecords;
+        lastRevokedAt = committedLastRevokedAt;
+        writePosition = size;
+        channel.truncate(size);
+    }
+
+    /**
+     * Returns the payloads of the committed records revoked after the specified instant, in order.
+     *
+     * @param from UTC UNIX timestamp after which revocations are returned
+     * @return the payloads of the matching records
+     * @throws IOException if the file can't be mapped
+     */
+    List<byte[]> readSince(final int from) throws IOException {
+        final ByteBuffer buffer = committedView();
+
+        // Entries of records appended but not committed yet are skipped
+        int position = 0;
+        for (Long indexed : index.headMap(from, true).descendingMap().values()) {
+            if (indexed < buffer.limit()) {
+                position = indexed.intValue();
+                break;
+            }
+        }
+
+        final List<byte[]> payloads = new ArrayList<>();
+        while (position < buffer.limit()) {
+            final int length = buffer.getInt(position);
+            if (buffer.getInt(position + 4) > from) {
+                final byte[] payload = new byte[length];
+                buffer.position(position + HEADER_LENGTH);
+                buffer.get(payload);
+                payloads.add(payload);
+            }
+            position += HEADER_LENGTH + length;
+        }
+        return payloads;
+    }
+
+    private ByteBuffer committedView() throws IOException {
+        final long size = committedSize;
+        MappedByteBuffer current = mapped;
+        if (current == null || current.capacity() < size) {
+            synchronized (this) {
+                current = mapped;
+                if (current == null || current.capacity() < size) {
+                    if (size > Integer.MAX_VALUE) {
+                        throw new IOException("Segment " + path + " is too large to be mapped");
+                    }
+                    current = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+                    mapped = current;
+                }
+            }
+        }
+        final ByteBuffer view = current.duplicate();
+        view.limit((int) size);
+        return view;
+    }
+
+    /**
+     * Returns the start of the bucket of this segment.
+     *
+     * @return the start of the bucket, in UTC UNIX timestamp
+     */
+    int bucketStart() {
+        return bucketStart;
+    }
+
+    /**
+     * Returns the timestamp of the last record of this segment.
+     *
+     * @return the timestamp of the last record, {@link Integer#MIN_VALUE} if the segment is empty
+     */
+    int lastRevokedAt() {
+        return lastRevokedAt;
+    }
+
+    /**
+     * Closes and deletes the segment file.
+     *
+     * @throws IOException if the file can't be deleted
+     */
+    void delete() throws IOException {
+        close();
+        Files.deleteIfExists(path);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -1,11 +1,14 @@
 package org.zalando.planb.revocation.persistence;
 
+import org.zalando.planb.revocation.api.exception.DeadlineExceededException;
 import org.zalando.planb.revocation.domain.Refresh;
 import org.zalando.planb.revocation.domain.RevocationData;
 import org.zalando.planb.revocation.domain.RevocationInfo;
 import org.zalando.planb.revocation.domain.RevocationRequest;
+import org.zalando.planb.revocation.util.Deadline;
 
 import java.util.Collection;
+import java.util.stream.Collectors;
 
 /**
  * Created by jmussler on 11.02.16.
@@ -14,12 +17,60 @@ public interface RevocationStore {
 
     Collection<RevocationData> getRevocations(int from);
 
+    /**
+     * Returns the revocations since the specified timestamp, giving up once the deadline passes.
+     * <p>
+     * <p>Stores reading locally ignore the deadline by default.</p>
+     *
+     * @param from     UTC UNIX timestamp from when revocations are returned
+     * @param deadline deadline of the request
+     * @return the revocations since {@code from}
+     * @throws DeadlineExceededException if the deadline passed, with the revocations read until then
+     */
+    default Collection<RevocationData> getRevocations(final int from, final Deadline deadline) {
+        return getRevocations(from);
+    }
+
+    /**
+     * Returns the revocations since the specified timestamp and before another one, giving up once the deadline
+     * passes.
+     * <p>
+     * <p>Stores reading locally filter the revocations since {@code from} by default.</p>
+     *
+     * @param from     UTC UNIX timestamp from when revocations are returned
+     * @param to       UTC UNIX timestamp before which revocations are returned
+     * @param deadline deadline of the request
+     * @return the revocations since {@code from} and before {@code to}
+     * @throws DeadlineExceededException if the deadline passed, with the revocations read until then
+     */
+    default Collection<RevocationData> getRevocations(final int from, final int to, final Deadline deadline) {
+        try {
+            return getRevocations(from, deadline).stream().filter(revocation -> revocation.revokedAt() < to)
+                    .collect(Collectors.toList());
+        } catch (DeadlineExceededException e) {
+            throw new DeadlineExceededException(e.revocations().stream()
+                    .filter(revocation -> revocation.revokedAt() < to)
+                    .collect(Collectors.toList()), e.nextFrom());
+        }
+    }
+
+    /**
+     * Stores the specified revocation data into the store, without expiry.
+     *
+     * @param revocation the revocation to store
+     */
+    default void storeRevocation(final RevocationRequest revocation) {
+        storeRevocation(revocation, null);
+    }
+
     /**
      * Stores the specified revocation data into the store.
      *
      * @param revocation the revocation to store
+     * @param expiresAt  UTC UNIX timestamp after which the revocation can't match any live token, or {@code null} if
+     *                   unknown. See {@link RevocationData#expiresAt()}
      */
-    void storeRevocation(RevocationRequest revocation);
+    void storeRevocation(RevocationRequest revocation, Integer expiresAt);
 
     /**
      * Returns the latest refresh notification.
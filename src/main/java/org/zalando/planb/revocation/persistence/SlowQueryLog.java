@@ -0,0 +1,135 @@
+package org.zalando.planb.revocation.persistence;
+
+import com.datastax.driver.core.ConsistencyLevel;
+import com.datastax.driver.core.ExecutionInfo;
+import com.datastax.driver.core.ResultSet;
+import com.datastax.driver.core.Statement;
+import org.slf4j.Logger;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Logs Cassandra statements slower than a threshold, and a sample of the others.
+ * <p>
+ * <p>Each entry holds the name of the statement, its bound partition key, the rows fetched, the coordinator that
+ * answered, the consistency level and the latency, so that slow partitions and replicas can be spotted without
+ * tracing. Slow statements are logged as warnings, sampled ones as information. Failed statements, timeouts
+ * included, are always logged as warnings, with the class of the failure instead of the rows and coordinator.</p>
+ * <p>
+ * <p>Settings can be changed at runtime. While disabled, statements are executed without any overhead.</p>
+ *
+ * @author <a href="mailto:team-greendale@zalando.de">Team Greendale</a>
+ */
+public class SlowQueryLog {
+
+    private static final Logger LOG = getLogger(SlowQueryLog.class);
+
+    private volatile boolean enabled;
+
+    private volatile long threshold;
+
+    private volatile double sampleRate;
+
+    /**
+     * Constructs a new log.
+     *
+     * @param enabled    whether statements are logged
+     * @param threshold  latency above which statements are logged, in milliseconds
+     * @param sampleRate fraction of the statements faster than {@code threshold} logged, between {@code 0} and
+     *                   {@code 1}
+     */
+    public SlowQueryLog(final boolean enabled, final long threshold, final double sampleRate) {
+        this.enabled = enabled;
+        setThreshold(threshold);
+        setSampleRate(sampleRate);
+    }
+
+    /**
+     * Returns a log that is disabled until enabled at runtime.
+     *
+     * @return a disabled log
+     */
+    public static SlowQueryLog disabled() {
+        return new SlowQueryLog(false, 500, 0);
+    }
+
+    /**
+     * Runs the execution of a statement, logging it if slow or sampled.
+     *
+     * @param name         name of the statement
+     * @param partitionKey partition key bound to the statement, or {@code null} if it spans partitions
+     * @param statement    the statement executed
+     * @param execution    executes the statement
+     * @return the result of the execution
+     */
+    public ResultSet execute(final String name, final Object partitionKey, final Statement statement,
+                             final Supplier<ResultSet> execution) {
+        if (!enabled) {
+            return execution.get();
+        }
+
+        final long start = System.nanoTime();
+        final ResultSet resultSet;
+        try {
+            resultSet = execution.get();
+        } catch (RuntimeException | Error e) {
+            LOG.warn("Failed statement {} partition={} consistency={} latency={}ms error={}", name,
+                    partitionKey == null ? "-" : partitionKey, statement.getConsistencyLevel(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), e.getClass().getName());
+            throw e;
+        }
+        final long latency = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        if (latency >= threshold) {
+            LOG.warn("Slow statement {}", describe(name, partitionKey, statement, resultSet, latency));
+        } else if (sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate) {
+            LOG.info("Sampled statement {}", describe(name, partitionKey, statement, resultSet, latency));
+        }
+        return resultSet;
+    }
+
+    private static String describe(final String name, final Object partitionKey, final Statement statement,
+                                   final ResultSet resultSet, final long latency) {
+        final ExecutionInfo info = resultSet.getExecutionInfo();
+        final ConsistencyLevel consistency = info != null && info.getAchievedConsistencyLevel() != null
+                ? info.getAchievedConsistencyLevel() : statement.getConsistencyLevel();
+        return String.format("%s partition=%s rows=%d coordinator=%s consistency=%s latency=%dms", name,
+                partitionKey == null ? "-" : partitionKey, resultSet.getAvailableWithoutFetching(),
+                info == null || info.getQueriedHost() == null ? "-" : info.getQueriedHost().getAddress(),
+                consistency, latency);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(final boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public long getThreshold() {
+        return threshold;
+    }
+
+    public void setThreshold(final long threshold) {
+        if (threshold < 0) {
+            throw new IllegalArgumentException("'threshold' must not be negative");
+        }
+        this.threshold = threshold;
+    }
+
+    public double getSampleRate() {
+        return sampleRate;
+    }
+
+    public void setSampleRate(final double sampleRate) {
+        if (sampleRate < 0 || sampleRate > 1) {
+            throw new IllegalArgumentException("'sampleRate' must be between 0 and 1");
+        }
+        this.sampleRate = sampleRate;
+    }
+}
@@ -0,0 +1,38 @@
+package org.zalando.planb.revocation.service;
+
+import org.zalando.planb.revocation.domain.PeerNotification;
+
+import java.util.function.Consumer;
+
+/**
+ * Exchanges {@link PeerNotification notifications} between the instances of the service, so that revocations written
+ * to one instance are promptly visible in the caches of the others.
+ *
+ * @author <a href="mailto:team-greendale@zalando.de">Team Greendale</a>
+ */
+public interface PeerNotificationService {
+
+    /**
+     * Notifies this instance and its peers that revocations were written at the specified instant.
+     * <p>
+     * <p>Peers are notified asynchronously, on a best effort basis: a lost notification only delays propagation to the
+     * next refresh.</p>
+     *
+     * @param revokedAt the instant revocations were written at, in UTC UNIX timestamp
+     */
+    void publish(int revokedAt);
+
+    /**
+     * Handles a notification received from a peer, passing it to the listeners of this instance.
+     *
+     * @param notification the notification received
+     */
+    void receive(PeerNotification notification);
+
+    /**
+     * Registers a listener called with the notifications published by this instance and received from peers.
+     *
+     * @param listener the listener to register
+     */
+    void addListener(Consumer<PeerNotification> listener);
+}
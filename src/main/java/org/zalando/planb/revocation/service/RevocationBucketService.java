@@ -0,0 +1,40 @@
+package org.zalando.planb.revocation.service;
+
+import org.zalando.planb.revocation.domain.RevocationBucket;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Provides closed {@link RevocationBucket buckets} of revocations rendered to gzip compressed files, so that they are
+ * sent to clients as they are, without reading, serializing nor compressing revocations again.
+ *
+ * @author <a href="mailto:team-greendale@zalando.de">Team Greendale</a>
+ */
+public interface RevocationBucketService {
+
+    /**
+     * Returns the buckets rendered.
+     *
+     * @return the buckets, from the oldest one
+     */
+    List<RevocationBucket> buckets();
+
+    /**
+     * Returns the specified bucket.
+     *
+     * @param date     the UTC date of the bucket, as {@code yyyy-MM-dd}
+     * @param interval the interval of the bucket in its day
+     * @return the bucket, empty if not rendered
+     */
+    Optional<RevocationBucket> get(String date, int interval);
+
+    /**
+     * Returns the file the specified bucket is rendered to.
+     *
+     * @param bucket the bucket
+     * @return the file, holding a gzip compressed {@link org.zalando.planb.revocation.domain.RevocationList} in JSON
+     */
+    Path file(RevocationBucket bucket);
+}
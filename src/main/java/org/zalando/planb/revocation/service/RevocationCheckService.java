@@ -0,0 +1,21 @@
+package org.zalando.planb.revocation.service;
+
+import org.zalando.planb.revocation.domain.RevocationCheck;
+import org.zalando.planb.revocation.domain.RevocationCheckResult;
+
+/**
+ * Checks whether tokens are revoked, without clients having to keep a copy of all revocations.
+ *
+ * @author <a href="mailto:team-greendale@zalando.de">Team Greendale</a>
+ */
+public interface RevocationCheckService {
+
+    /**
+     * Checks whether the specified token is revoked.
+     *
+     * @param check the token to check
+     * @return the outcome of the check
+     * @throws IllegalArgumentException if the check identifies no token, or the token hash is not valid
+     */
+    RevocationCheckResult check(RevocationCheck check);
+}
@@ -0,0 +1,42 @@
+package org.zalando.planb.revocation.service;
+
+import org.zalando.planb.revocation.api.exception.DeadlineExceededException;
+import org.zalando.planb.revocation.domain.RevocationData;
+import org.zalando.planb.revocation.domain.RevocationFilter;
+import org.zalando.planb.revocation.util.Deadline;
+
+import java.util.Collection;
+
+/**
+ * Returns the revocations matching a {@link RevocationFilter}, so that clients interested in some revocations only
+ * don't have to download all of them.
+ *
+ * @author <a href="mailto:team-greendale@zalando.de">Team Greendale</a>
+ */
+public interface RevocationFilterService {
+
+    /**
+     * Returns the revocations since the specified timestamp matching the specified filter, ordered by the instant
+     * they were revoked at.
+     *
+     * @param from     instant from when tokens were revoked, in UTC UNIX timestamp
+     * @param filter   the filter revocations must match
+     * @param deadline instant after which reading is given up
+     * @return the matching revocations
+     * @throws DeadlineExceededException if the deadline passed before all revocations were read
+     */
+    Collection<RevocationData> getRevocations(int from, RevocationFilter filter, Deadline deadline);
+
+    /**
+     * Returns the revocations since the specified timestamp and before another one matching the specified filter,
+     * ordered by the instant they were revoked at.
+     *
+     * @param from     instant from when tokens were revoked, in UTC UNIX timestamp
+     * @param to       instant before which tokens were revoked, in UTC UNIX timestamp
+     * @param filter   the filter revocations must match
+     * @param deadline instant after which reading is given up
+     * @return the matching revocations
+     * @throws DeadlineExceededException if the deadline passed before all revocations were read
+     */
+    Collection<RevocationData> getRevocations(int from, int to, RevocationFilter filter, Deadline deadline);
+}
@@ -0,0 +1,38 @@
+package org.zalando.planb.revocation.service;
+
+import org.zalando.planb.revocation.domain.RevocationSnapshot;
+
+import java.util.Optional;
+
+/**
+ * Provides {@link RevocationSnapshot snapshots} of all revocations, so that new clients bootstrap from a copy built
+ * once instead of each reading all revocations from the store.
+ * <p>
+ * <p>Clients get the latest snapshot, then the revocations written since its version.</p>
+ *
+ * @author <a href="mailto:team-greendale@zalando.de">Team Greendale</a>
+ */
+public interface RevocationSnapshotService {
+
+    /**
+     * Returns the latest snapshot.
+     *
+     * @return the latest snapshot, empty if none was built yet
+     */
+    Optional<RevocationSnapshot> latest();
+
+    /**
+     * Returns the snapshot of the specified version.
+     *
+     * @param version the version of the snapshot
+     * @return the snapshot, empty if unknown or not retained anymore
+     */
+    Optional<RevocationSnapshot> get(int version);
+
+    /**
+     * Returns when the next snapshot is due, until which the latest one is current.
+     *
+     * @return the instant, in UTC UNIX timestamp
+     */
+    int nextSnapshotAt();
+}
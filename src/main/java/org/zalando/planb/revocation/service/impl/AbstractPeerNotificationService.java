@@ -0,0 +1,105 @@
+package org.zalando.planb.revocation.service.impl;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.MetricRegistry;
+import org.slf4j.Logger;
+import org.zalando.planb.revocation.domain.ImmutablePeerNotification;
+import org.zalando.planb.revocation.domain.PeerNotification;
+import org.zalando.planb.revocation.service.PeerNotificationService;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Base for {@link PeerNotificationService} implementations, delivering notifications to local listeners and leaving
+ * the transport to peers to subclasses.
+ * <p>
+ * <p>Counts notifications in the {@code planb.peers.notifications.sent}, {@code .received} and {@code .failed}
+ * counters.</p>
+ *
+ * @author <a href="mailto:team-greendale@zalando.de">Team Greendale</a>
+ */
+public abstract class AbstractPeerNotificationService implements PeerNotificationService {
+
+    private static final Logger LOG = getLogger(AbstractPeerNotificationService.class);
+
+    private final List<Consumer<PeerNotification>> listeners = new CopyOnWriteArrayList<>();
+
+    private final Counter sent;
+
+    private final Counter received;
+
+    private final Counter failed;
+
+    protected AbstractPeerNotificationService(final MetricRegistry metricRegistry) {
+        this.sent = metricRegistry.counter("planb.peers.notifications.sent");
+        this.received = metricRegistry.counter("planb.peers.notifications.received");
+        this.failed = metricRegistry.counter("planb.peers.notifications.failed");
+    }
+
+    @Override
+    public void publish(final int revokedAt) {
+        final PeerNotification notification = ImmutablePeerNotification.builder()
+                .revokedAt(revokedAt)
+                .build();
+        deliver(notification);
+        send(notification);
+    }
+
+    @Override
+    public void receive(final PeerNotification notification) {
+        received.inc();
+        deliver(notification);
+    }
+
+    @Override
+    public void addListener(final Consumer<PeerNotification> listener) {
+        listeners.add(listener);
+    }
+
+    private void deliver(final PeerNotification notification) {
+        for (Consumer<PeerNotification> listener : listeners) {
+            try {
+                listener.accept(notification);
+            } catch (RuntimeException e) {
+                LOG.warn("Peer notification listener failed: {}", e.getMessage());
+                LOG.debug("Error details: ", e);
+            }
+        }
+    }
+
+    /**
+     * Sends the specified notification to the peers, without blocking the caller.
+     *
+     * @param notification the notification to send
+     */
+    protected abstract void send(PeerNotification notification);
+
+    /**
+     * Records a notification sent to a peer.
+     */
+    protected void sent() {
+        sent.inc();
+    }
+
+    /**
+     * Records a notification that could not be sent to a peer.
+     *
+     * @param peer the peer
+     * @param e    the failure
+     */
+    protected void failed(final String peer, final Exception e) {
+        failed.inc();
+        LOG.warn("Could not notify peer {}: {}", peer, e.getMessage());
+        LOG.debug("Error details: ", e);
+    }
+
+    /**
+     * Releases the resources of the transport.
+     */
+    public void shutdown() {
+    }
+}
@@ -0,0 +1,234 @@
+package org.zalando.planb.revocation.service.impl;
+
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.slf4j.Logger;
+import org.zalando.planb.revocation.api.impl.RevocationResourceImpl;
+import org.zalando.planb.revocation.domain.ImmutableRevocationBucket;
+import org.zalando.planb.revocation.domain.ImmutableRevocationList;
+import org.zalando.planb.revocation.domain.NotificationType;
+import org.zalando.planb.revocation.domain.RevocationBucket;
+import org.zalando.planb.revocation.domain.RevocationData;
+import org.zalando.planb.revocation.persistence.RevocationStore;
+import org.zalando.planb.revocation.service.RevocationBucketService;
+import org.zalando.planb.revocation.util.LocalDateFormatter;
+import org.zalando.planb.revocation.util.RevocationInfoConverter;
+import org.zalando.planb.revocation.util.RevocationPruner;
+import org.zalando.planb.revocation.util.UnixTimestamp;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+import static org.slf4j.LoggerFactory.getLogger;
+import static org.zalando.planb.revocation.persistence.CassandraRevocationStore.BUCKET_LENGTH;
+
+/**
+ * Renders each closed bucket of the last {@code maxTimeDelta} seconds to a gzip compressed file, in the background.
+ * <p>
+ * <p>A bucket holds the revocations {@code GET /revocations} returns for its range, with
+ * {@link NotificationType#NEXT_FROM} set to the {@code from} of the next bucket. Buckets are rendered a minute after
+ * they closed, so that revocations written in the meantime are included, and deleted once they leave the window of
+ * revocations kept.</p>
+ * <p>
+ * <p>Expired revocations are kept in buckets, so that a bucket renders to the same bytes, and has the same checksum, on
+ * every instance and after every restart. Clients caching a bucket by its checksum never download it twice.</p>
+ *
+ * @author <a href="mailto:team-greendale@zalando.de">Team Greendale</a>
+ */
+public class FileRevocationBucketService implements RevocationBucketService {
+
+    private static final Logger LOG = getLogger(FileRevocationBucketService.class);
+
+    /**
+     * Time waited after a bucket closed before rendering it, in seconds. Instances with a clock behind may still write
+     * to the bucket until then.
+     */
+    private static final int SETTLE_DELAY = RevocationResourceImpl.CLOCK_SKEW_MARGIN;
+
+    private static final String SUFFIX = ".json.gz";
+
+    private final RevocationStore storage;
+
+    private final RevocationInfoConverter converter;
+
+    private final RevocationPruner pruner;
+
+    private final ObjectMapper objectMapper;
+
+    private final int maxTimeDelta;
+
+    private final Path directory;
+
+    private final Timer renderTimer;
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(
+            new ThreadFactoryBuilder().setNameFormat("revocation-buckets-%d").setDaemon(true).build());
+
+    /*
+     * Buckets rendered, by the instant they start at.
+     */
+    private final ConcurrentNavigableMap<Integer, RevocationBucket> buckets = new ConcurrentSkipListMap<>();
+
+    /**
+     * Constructs a new service, deletes the buckets previously rendered to the specified directory, and starts
+     * rendering buckets.
+     *
+     * @param storage        the store holding revocations
+     * @param converter      converts revocations to the ones published
+     * @param pruner         drops superseded revocations, or {@code null} to keep them
+     * @param objectMapper   renders buckets
+     * @param metricRegistry registry of the rendering metrics
+     * @param maxTimeDelta   maximum age of the revocations, in seconds
+     * @param directory      directory buckets are rendered to
+     * @param checkInterval  interval between two checks for buckets to render or delete, in seconds
+     * @throws IOException if {@code directory} cannot be created or cleared
+     */
+    public FileRevocationBucketService(final RevocationStore storage, final RevocationInfoConverter converter,
+                                       final RevocationPruner pruner, final ObjectMapper objectMapper,
+                                       final MetricRegistry metricRegistry, final int maxTimeDelta,
+                                       final Path directory, final int checkInterval) throws IOException {
+        this.storage = storage;
+        this.converter = converter;
+        this.pruner = pruner;
+        this.objectMapper = objectMapper;
+        this.maxTimeDelta = maxTimeDelta;
+        this.directory = Files.createDirectories(directory);
+        this.renderTimer = metricRegistry.timer("planb.buckets.render");
+
+        try (DirectoryStream<Path> previous = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+            for (Path file : previous) {
+                Files.delete(file);
+            }
+        }
+        executor.scheduleWithFixedDelay(this::update, 0, checkInterval, TimeUnit.SECONDS);
+    }
+
+    @Override
+    public List<RevocationBucket> buckets() {
+        return new ArrayList<>(buckets.values());
+    }
+
+    @Override
+    public Optional<RevocationBucket> get(final String date, final int interval) {
+        return buckets.values().stream()
+                .filter(bucket -> bucket.date().equals(date) && bucket.interval() == interval)
+                .findFirst();
+    }
+
+    @Override
+    public Path file(final RevocationBucket bucket) {
+        return directory.resolve(bucket.date() + "-" + bucket.interval() + SUFFIX);
+    }
+
+    /**
+     * Renders the closed buckets not rendered yet, and deletes the ones that left the window of revocations kept.
+     */
+    synchronized void update() {
+        final int now = UnixTimestamp.now();
+        final int oldest = (now - maxTimeDelta + BUCKET_LENGTH - 1) / BUCKET_LENGTH * BUCKET_LENGTH;
+        final int closed = (now - SETTLE_DELAY) / BUCKET_LENGTH * BUCKET_LENGTH;
+        try {
+            for (RevocationBucket expired : buckets.headMap(oldest).values()) {
+                Files.deleteIfExists(file(expired));
+                buckets.remove(expired.after() + 1);
+            }
+
+            final List<Integer> missing = new ArrayList<>();
+            for (int start = oldest; start < closed; start += BUCKET_LENGTH) {
+                if (!buckets.containsKey(start)) {
+                    missing.add(start);
+                }
+            }
+            if (missing.isEmpty()) {
+                return;
+            }
+
+            // All missing buckets are rendered from a single read of the store
+            final TreeMap<Integer, List<RevocationData>> revocations = new TreeMap<>();
+            for (RevocationData revocation : storage.getRevocations(Math.max(missing.get(0) - 1,
+                    now - maxTimeDelta + 1))) {
+                revocations.computeIfAbsent(revocation.revokedAt() / BUCKET_LENGTH * BUCKET_LENGTH,
+                        start -> new ArrayList<>()).add(revocation);
+            }
+            for (Integer start : missing) {
+                final RevocationBucket bucket = render(start, revocations.getOrDefault(start, new ArrayList<>()));
+                buckets.put(start, bucket);
+                LOG.info("Rendered revocation bucket {}-{} with {} revocations ({} bytes)", bucket.date(),
+                        bucket.interval(), bucket.revocations(), bucket.size());
+            }
+        } catch (IOException | RuntimeException e) {
+            LOG.warn("Could not render revocation buckets: {}", e.getMessage());
+            LOG.debug("Error details: ", e);
+        }
+    }
+
+    private RevocationBucket render(final int start, final List<RevocationData> bucketRevocations)
+            throws IOException {
+        try (Timer.Context ignored = renderTimer.time()) {
+            List<RevocationData> revocations = bucketRevocations;
+            if (pruner != null) {
+                revocations = pruner.prune(revocations);
+            }
+
+            final int end = start + BUCKET_LENGTH;
+            final Map<NotificationType, Object> meta = new EnumMap<>(NotificationType.class);
+            meta.put(NotificationType.MAX_TIME_DELTA, maxTimeDelta);
+            meta.put(NotificationType.NEXT_FROM, end - 1);
+            final byte[] content = objectMapper.writeValueAsBytes(ImmutableRevocationList.builder()
+                    .meta(meta)
+                    .revocations(converter.convert(revocations))
+                    .build());
+
+            final RevocationBucket bucket = ImmutableRevocationBucket.builder()
+                    .date(LocalDateFormatter.get().format(new Date(((long) start) * 1000)))
+                    .interval(start % (24 * 60 * 60) / BUCKET_LENGTH)
+                    .after(start - 1)
+                    .to(end)
+                    .revocations(revocations.size())
+                    .checksum(Base64.getEncoder().encodeToString(MessageDigest.getInstance("SHA-256")
+                            .digest(content)))
+                    .size(0)
+                    .build();
+
+            // Written aside first, so that a bucket being served is never seen half written
+            final Path file = file(bucket);
+            final Path temporary = Files.createTempFile(directory, "bucket", ".tmp");
+            try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(temporary))) {
+                out.write(content);
+            }
+            Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            return ImmutableRevocationBucket.copyOf(bucket).withSize(Files.size(file));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Stops rendering buckets.
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,122 @@
+package org.zalando.planb.revocation.service.impl;
+
+import com.codahale.metrics.MetricRegistry;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+import org.zalando.planb.revocation.domain.PeerNotification;
+import org.zalando.planb.revocation.util.PeerNotificationSigner;
+
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Notifies peers by {@code POST}ing notifications to their {@code /peer-notifications} management endpoint.
+ * <p>
+ * <p>Each notification carries its {@link PeerNotificationSigner signature}, Base64 encoded, in the
+ * {@code X-Peer-Signature} header. Notifications are sent from a single background thread. When peers are slow and notifications pile up, the
+ * oldest ones are dropped: later notifications make peers read the same revocations anyway.</p>
+ *
+ * @author <a href="mailto:team-greendale@zalando.de">Team Greendale</a>
+ */
+public class HttpPeerNotificationService extends AbstractPeerNotificationService {
+
+    /**
+     * Path of the endpoint receiving notifications, relative to the management base URL of peers.
+     */
+    public static final String PATH = "/peer-notifications";
+
+    /**
+     * Header carrying the signature of a notification.
+     */
+    public static final String SIGNATURE_HEADER = "X-Peer-Signature";
+
+    private static final int MAX_PENDING_NOTIFICATIONS = 1000;
+
+    private final List<String> peers;
+
+    private final ObjectMapper objectMapper;
+
+    private final PeerNotificationSigner signer;
+
+    private final HttpComponentsClientHttpRequestFactory requestFactory;
+
+    private final RestTemplate restTemplate;
+
+    private final ExecutorService executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(MAX_PENDING_NOTIFICATIONS),
+            new ThreadFactoryBuilder().setNameFormat("peer-notifications-%d").setDaemon(true).build(),
+            new ThreadPoolExecutor.DiscardOldestPolicy());
+
+    /**
+     * Constructs a new service notifying the specified peers.
+     *
+     * @param peers          management base URLs of the peers, like {@code http://10.0.0.2:7979}
+     * @param connectTimeout timeout to connect to a peer, in milliseconds
+     * @param readTimeout    timeout to wait for the response of a peer, in milliseconds
+     * @param objectMapper   serializes notifications
+     * @param signer         signs notifications
+     * @param metricRegistry registry of the notification counters
+     */
+    public HttpPeerNotificationService(final List<String> peers, final int connectTimeout, final int readTimeout,
+                                       final ObjectMapper objectMapper, final PeerNotificationSigner signer,
+                                       final MetricRegistry metricRegistry) {
+        super(metricRegistry);
+        this.peers = ImmutableList.copyOf(peers);
+        this.objectMapper = objectMapper;
+        this.signer = signer;
+        this.requestFactory = new HttpComponentsClientHttpRequestFactory();
+        this.requestFactory.setConnectTimeout(connectTimeout);
+        this.requestFactory.setReadTimeout(readTimeout);
+        this.restTemplate = new RestTemplate(requestFactory);
+    }
+
+    @Override
+    protected void send(final PeerNotification notification) {
+        if (!peers.isEmpty()) {
+            executor.execute(() -> post(notification));
+        }
+    }
+
+    private void post(final PeerNotification notification) {
+        final HttpEntity<String> request;
+        try {
+            final HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaType.APPLICATION_JSON);
+            headers.set(SIGNATURE_HEADER, Base64.getEncoder().encodeToString(signer.sign(notification)));
+            request = new HttpEntity<>(objectMapper.writeValueAsString(notification), headers);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+
+        for (String peer : peers) {
+            try {
+                restTemplate.postForEntity(peer + PATH, request, Void.class);
+                sent();
+            } catch (RestClientException e) {
+                failed(peer, e);
+            }
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        executor.shutdownNow();
+        try {
+            requestFactory.destroy();
+        } catch (Exception e) {
+            // Shutting down anyway
+        }
+    }
+}
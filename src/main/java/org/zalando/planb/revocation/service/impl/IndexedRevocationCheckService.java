@@ -0,0 +1,312 @@
+package org.zalando.planb.revocation.service.impl;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.nimbusds.jwt.JWTParser;
+import org.slf4j.Logger;
+import org.zalando.planb.revocation.api.exception.RevocationIndexUnavailableException;
+import org.zalando.planb.revocation.domain.ImmutableRevocationCheckResult;
+import org.zalando.planb.revocation.domain.PeerNotification;
+import org.zalando.planb.revocation.domain.RevocationCheck;
+import org.zalando.planb.revocation.domain.RevocationCheckResult;
+import org.zalando.planb.revocation.domain.RevocationData;
+import org.zalando.planb.revocation.domain.RevocationType;
+import org.zalando.planb.revocation.domain.RevokedClaimsData;
+import org.zalando.planb.revocation.domain.RevokedData;
+import org.zalando.planb.revocation.domain.RevokedGlobal;
+import org.zalando.planb.revocation.domain.RevokedTokenData;
+import org.zalando.planb.revocation.persistence.RevocationStore;
+import org.zalando.planb.revocation.service.RevocationCheckService;
+import org.zalando.planb.revocation.util.MessageHasher;
+import org.zalando.planb.revocation.util.OffHeapHashIndex;
+import org.zalando.planb.revocation.util.UnixTimestamp;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Checks tokens against an index of the revocations of the last {@code maxTimeDelta} seconds.
+ * <p>
+ * <p>Token hashes and claim value hashes are kept in {@link OffHeapHashIndex off heap tables}, each with the latest
+ * {@code issued_before} revoking them. The index is updated by polling the {@link RevocationStore} for new
+ * revocations, and periodically rebuilt from scratch to drop expired ones. {@link PeerNotification Notifications}
+ * trigger an immediate poll, so that the poll interval can be long without delaying propagation.</p>
+ *
+ * @author <a href="mailto:team-greendale@zalando.de">Team Greendale</a>
+ */
+public class IndexedRevocationCheckService implements RevocationCheckService {
+
+    private static final Logger LOG = getLogger(IndexedRevocationCheckService.class);
+
+    /**
+     * Revocations polled again on each update, in seconds, so that revocations stored late are not missed.
+     */
+    static final int POLL_OVERLAP = 60;
+
+    private static final int NOT_REVOKED = Integer.MIN_VALUE;
+
+    private final RevocationStore storage;
+
+    private final MessageHasher messageHasher;
+
+    private final int maxTimeDelta;
+
+    private final int expectedEntries;
+
+    private final long rebuildInterval;
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(
+            new ThreadFactoryBuilder().setNameFormat("revocation-index-%d").setDaemon(true).build());
+
+    private final AtomicBoolean updateQueued = new AtomicBoolean();
+
+    private volatile Index index;
+
+    // Only accessed by the executor
+    private long lastRebuild;
+
+    /**
+     * Constructs a new service indexing the revocations of the specified store, and starts updating the index.
+     *
+     * @param storage         the store holding revocations
+     * @param messageHasher   hashes tokens and claim values
+     * @param maxTimeDelta    maximum age of the revocations, in seconds
+     * @param expectedEntries number of tokens and claim sets expected to be revoked
+     * @param pollInterval    interval between two polls of the store, in milliseconds
+     * @param rebuildInterval interval between two rebuilds of the index, in milliseconds
+     */
+    public IndexedRevocationCheckService(final RevocationStore storage, final MessageHasher messageHasher,
+                                         final int maxTimeDelta, final int expectedEntries, final long pollInterval,
+                                         final long rebuildInterval) {
+        this.storage = storage;
+        this.messageHasher = messageHasher;
+        this.maxTimeDelta = maxTimeDelta;
+        this.expectedEntries = expectedEntries;
+        this.rebuildInterval = rebuildInterval;
+
+        executor.scheduleWithFixedDelay(this::update, 0, pollInterval, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public RevocationCheckResult check(final RevocationCheck check) {
+        if (check.token() == null && check.tokenHash() == null && check.claims().isEmpty()) {
+            throw new IllegalArgumentException("One of 'token', 'token_hash' or 'claims' must be set.");
+        }
+        final Index current = index;
+        if (current == null) {
+            throw new RevocationIndexUnavailableException();
+        }
+
+        int issuedBefore = current.globalIssuedBefore;
+        if (check.token() != null) {
+            issuedBefore = Math.max(issuedBefore,
+                    current.tokens.get(tokenKey(check.token(), false), 0, NOT_REVOKED));
+        } else if (check.tokenHash() != null) {
+            issuedBefore = Math.max(issuedBefore, current.tokens.get(key(check.tokenHash()), 0, NOT_REVOKED));
+        }
+
+        for (List<String> names : current.claimNames) {
+            if (check.claims().keySet().containsAll(names)) {
+                issuedBefore = Math.max(issuedBefore,
+                        current.claims.get(claimsKey(names, check.claims(), false), 0, NOT_REVOKED));
+            }
+        }
+
+        if (issuedBefore == NOT_REVOKED) {
+            return ImmutableRevocationCheckResult.builder().revoked(false).build();
+        }
+        final Integer issuedAt = check.issuedAt() != null ? check.issuedAt() : issuedAt(check.token());
+        return ImmutableRevocationCheckResult.builder()
+                .revoked(issuedAt == null || issuedAt < issuedBefore)
+                .issuedBefore(issuedBefore)
+                .build();
+    }
+
+    private static Integer issuedAt(final String token) {
+        if (token == null) {
+            return null;
+        }
+        try {
+            final Date issueTime = JWTParser.parse(token).getJWTClaimsSet().getIssueTime();
+            return issueTime == null ? null : UnixTimestamp.of(issueTime);
+        } catch (ParseException e) {
+            // Not a JWT
+            return null;
+        }
+    }
+
+    /*
+     * Only the hashes of stored revocations are cached: checked tokens are sent by clients, and would evict them.
+     */
+    private byte[] tokenKey(final String token, final boolean cached) {
+        return key(hash(RevocationType.TOKEN, cached, token));
+    }
+
+    /*
+     * Claim names are sorted, so that the claims of a revocation and of a check produce the same key regardless of
+     * their order.
+     */
+    private byte[] claimsKey(final List<String> sortedNames, final Map<String, String> claims,
+                             final boolean cached) {
+        final List<String> messages = new ArrayList<>(sortedNames.size() * 2);
+        messages.addAll(sortedNames);
+        for (String name : sortedNames) {
+            messages.add(claims.get(name));
+        }
+        return key(hash(RevocationType.CLAIM, cached, messages.toArray(new String[messages.size()])));
+    }
+
+    private String hash(final RevocationType type, final boolean cached, final String... messages) {
+        return cached ? messageHasher.hashAndEncode(type, messages)
+                : messageHasher.hashAndEncodeUncached(type, messages);
+    }
+
+    /*
+     * Hashes are used as keys as is, unless the configured algorithm doesn't produce keys of the expected length.
+     */
+    private static byte[] key(final String encodedHash) {
+        final byte[] hash = Base64.getUrlDecoder().decode(encodedHash);
+        if (hash.length == OffHeapHashIndex.KEY_LENGTH) {
+            return hash;
+        }
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Polls the store without waiting for the next poll.
+     * <p>
+     * <p>The poll reads the same tail as a scheduled one, whatever the notified instant, and notifications received
+     * while a poll is queued share it.</p>
+     *
+     * @param notification notification of revocations written to this instance or a peer
+     */
+    public void onNotification(final PeerNotification notification) {
+        if (updateQueued.compareAndSet(false, true)) {
+            executor.execute(() -> {
+                updateQueued.set(false);
+                update();
+            });
+        }
+    }
+
+    private void update() {
+        try {
+            final Index current = index;
+            if (current == null || System.currentTimeMillis() - lastRebuild >= rebuildInterval) {
+                final Index rebuilt = new Index(expectedEntries);
+                add(rebuilt, storage.getRevocations(oldestIndexed()));
+                index = rebuilt;
+                lastRebuild = System.currentTimeMillis();
+                LOG.debug("Rebuilt revocation index with {} tokens and {} claim sets", rebuilt.tokens.size(),
+                        rebuilt.claims.size());
+            } else {
+                add(current, storage.getRevocations(Math.max(current.lastRevokedAt - POLL_OVERLAP,
+                        oldestIndexed())));
+            }
+        } catch (RuntimeException e) {
+            LOG.warn("Could not update revocation index: {}", e.getMessage());
+            LOG.debug("Error details: ", e);
+        }
+    }
+
+    private int oldestIndexed() {
+        return UnixTimestamp.now() - maxTimeDelta + 1;
+    }
+
+    private void add(final Index target, final Collection<RevocationData> revocations) {
+        for (RevocationData revocation : revocations) {
+            final RevokedData data = revocation.revocationRequest().data();
+            if (data instanceof RevokedGlobal) {
+                target.globalIssuedBefore = Math.max(target.globalIssuedBefore,
+                        ((RevokedGlobal) data).issuedBefore());
+
+            } else if (data instanceof RevokedClaimsData) {
+                final Map<String, String> claims = ((RevokedClaimsData) data).claims();
+                final List<String> names = ImmutableList.copyOf(claims.keySet().stream().sorted().iterator());
+                target.claims.putMax(claimsKey(names, claims, true), 0, ((RevokedClaimsData) data).issuedBefore());
+                target.claimNames.add(names);
+
+            } else if (data instanceof RevokedTokenData) {
+                target.tokens.putMax(tokenKey(((RevokedTokenData) data).token(), true), 0,
+                        ((RevokedTokenData) data).issuedBefore());
+            }
+            target.lastRevokedAt = Math.max(target.lastRevokedAt, revocation.revokedAt());
+        }
+    }
+
+    /**
+     * Returns the number of indexed tokens.
+     *
+     * @return the number of indexed tokens
+     */
+    public int indexedTokens() {
+        final Index current = index;
+        return current == null ? 0 : current.tokens.size();
+    }
+
+    /**
+     * Returns the number of indexed claim sets.
+     *
+     * @return the number of indexed claim sets
+     */
+    public int indexedClaims() {
+        final Index current = index;
+        return current == null ? 0 : current.claims.size();
+    }
+
+    /**
+     * Returns the off heap memory used by the index, in bytes.
+     *
+     * @return the memory used, in bytes
+     */
+    public long memoryUsage() {
+        final Index current = index;
+        return current == null ? 0 : current.tokens.memoryUsage() + current.claims.memoryUsage();
+    }
+
+    /**
+     * Stops updating the index.
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private static final class Index {
+
+        private final OffHeapHashIndex tokens;
+
+        private final OffHeapHashIndex claims;
+
+        // Sorted names of the revoked claim sets
+        private final Set<List<String>> claimNames = ConcurrentHashMap.newKeySet();
+
+        private volatile int globalIssuedBefore = NOT_REVOKED;
+
+        // Only accessed by the executor
+        private int lastRevokedAt = Integer.MIN_VALUE + POLL_OVERLAP;
+
+        private Index(final int expectedEntries) {
+            this.tokens = new OffHeapHashIndex(expectedEntries);
+            this.claims = new OffHeapHashIndex(Math.max(16, expectedEntries / 16));
+        }
+    }
+}
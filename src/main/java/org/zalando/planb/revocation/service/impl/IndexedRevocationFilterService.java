@@ -0,0 +1,288 @@
+package org.zalando.planb.revocation.service.impl;
+
+import com.google.common.primitives.UnsignedBytes;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.slf4j.Logger;
+import org.zalando.planb.revocation.api.exception.DeadlineExceededException;
+import org.zalando.planb.revocation.domain.PeerNotification;
+import org.zalando.planb.revocation.domain.RevocationData;
+import org.zalando.planb.revocation.domain.RevocationFilter;
+import org.zalando.planb.revocation.domain.RevocationType;
+import org.zalando.planb.revocation.domain.RevokedData;
+import org.zalando.planb.revocation.domain.RevokedTokenData;
+import org.zalando.planb.revocation.persistence.RevocationStore;
+import org.zalando.planb.revocation.util.Deadline;
+import org.zalando.planb.revocation.util.HashPrefix;
+import org.zalando.planb.revocation.util.MessageHasher;
+import org.zalando.planb.revocation.util.UnixTimestamp;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Filters revocations using in memory indexes of the revocations of the last {@code maxTimeDelta} seconds.
+ * <p>
+ * <p>Revocations are partitioned by what filters can tell apart: their type, the names of the claims of {@code CLAIM}
+ * revocations, and the issuer of the tokens they revoke. Each partition holds its revocations by the instant they were
+ * revoked at. A filtered read only goes through the partitions matching the filter, from the requested instant on, so
+ * that its cost is proportional to the revocations returned rather than to all revocations.</p>
+ * <p>
+ * <p>{@code TOKEN} revocations are also held sorted by token hash, so that the ones with a {@link HashPrefix} are a
+ * slice of the index.</p>
+ * <p>
+ * <p>Like {@link IndexedRevocationCheckService}, the indexes are updated by polling the {@link RevocationStore}, on
+ * {@link PeerNotification notifications} and periodically rebuilt. Revocations written since the last poll, minus
+ * the poll overlap, are not complete in the indexes yet: they are read from the store and filtered one by one, so
+ * that filtered reads never miss revocations an unfiltered read returns. Until first built, all revocations are read
+ * from the store.</p>
+ *
+ * @author <a href="mailto:team-greendale@zalando.de">Team Greendale</a>
+ */
+public class IndexedRevocationFilterService extends ScanningRevocationFilterService {
+
+    private static final Logger LOG = getLogger(IndexedRevocationFilterService.class);
+
+    private final RevocationStore storage;
+
+    private final int maxTimeDelta;
+
+    private final long rebuildInterval;
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(
+            new ThreadFactoryBuilder().setNameFormat("revocation-filter-index-%d").setDaemon(true).build());
+
+    private final AtomicBoolean updateQueued = new AtomicBoolean();
+
+    private volatile Index index;
+
+    // Only accessed by the executor
+    private long lastRebuild;
+
+    /**
+     * Constructs a new service indexing the revocations of the specified store, and starts updating the indexes.
+     *
+     * @param storage         the store holding revocations
+     * @param messageHasher   hashes tokens
+     * @param maxTimeDelta    maximum age of the revocations, in seconds
+     * @param pollInterval    interval between two polls of the store, in milliseconds
+     * @param rebuildInterval interval between two rebuilds of the indexes, in milliseconds
+     */
+    public IndexedRevocationFilterService(final RevocationStore storage, final MessageHasher messageHasher,
+                                          final int maxTimeDelta, final long pollInterval,
+                                          final long rebuildInterval) {
+        super(storage, messageHasher);
+        this.storage = storage;
+        this.maxTimeDelta = maxTimeDelta;
+        this.rebuildInterval = rebuildInterval;
+
+        executor.scheduleWithFixedDelay(this::update, 0, pollInterval, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public Collection<RevocationData> getRevocations(final int from, final RevocationFilter filter,
+                                                     final Deadline deadline) {
+        return getRevocations(from, null, filter, deadline);
+    }
+
+    @Override
+    public Collection<RevocationData> getRevocations(final int from, final int to, final RevocationFilter filter,
+                                                     final Deadline deadline) {
+        return getRevocations(from, (Integer) to, filter, deadline);
+    }
+
+    private Collection<RevocationData> getRevocations(final int from, final Integer to, final RevocationFilter filter,
+                                                      final Deadline deadline) {
+        final Index current = index;
+        if (current == null) {
+            return to == null ? super.getRevocations(from, filter, deadline)
+                    : super.getRevocations(from, to, filter, deadline);
+        }
+        if (UnixTimestamp.now() - from > maxTimeDelta) {
+            throw new IllegalArgumentException("'from' timestamp is too old!");
+        }
+
+        final int after = Math.max(from, oldestIndexed() - 1);
+        final int tailFrom = Math.max(after, current.polledAt - IndexedRevocationCheckService.POLL_OVERLAP);
+        // Indexed revocations are the ones up to the tail, or up to the end of the range if it ends before
+        final int indexedTo = to == null ? tailFrom : Math.max(after, Math.min(tailFrom, to - 1));
+        final HashPrefix hashPrefix = filter.hashPrefix();
+        final List<RevocationData> revocations = new ArrayList<>();
+        current.partitions.forEach((partition, revokedAt) -> {
+            if (partition.matches(filter) && (hashPrefix == null || partition.type != RevocationType.TOKEN)) {
+                revokedAt.subMap(after, false, indexedTo, true).values().forEach(revocations::addAll);
+            }
+        });
+
+        if (hashPrefix != null && (filter.types().isEmpty() || filter.types().contains(RevocationType.TOKEN))) {
+            final byte[] upperBound = hashPrefix.upperBound();
+            final NavigableMap<byte[], NavigableMap<Integer, List<RevocationData>>> slice = upperBound == null
+                    ? current.tokenHashes.tailMap(hashPrefix.lowerBound(), true)
+                    : current.tokenHashes.subMap(hashPrefix.lowerBound(), true, upperBound, false);
+            slice.values().forEach(revokedAt -> revokedAt.subMap(after, false, indexedTo, true).values()
+                    .forEach(list -> list.stream()
+                            .filter(revocation -> Partition.of(revocation).matches(filter))
+                            .forEach(revocations::add)));
+        }
+
+        try {
+            if (to == null) {
+                revocations.addAll(super.getRevocations(tailFrom, filter, deadline));
+            } else if (tailFrom < to - 1) {
+                revocations.addAll(super.getRevocations(tailFrom, to, filter, deadline));
+            }
+        } catch (DeadlineExceededException e) {
+            if (tailFrom == after) {
+                throw e;
+            }
+            // The indexed revocations are complete up to the tail
+            revocations.addAll(e.revocations());
+            revocations.sort(Comparator.comparing(RevocationData::revokedAt));
+            throw new DeadlineExceededException(revocations, e.nextFrom() != null ? e.nextFrom() : tailFrom);
+        }
+        revocations.sort(Comparator.comparing(RevocationData::revokedAt));
+        return revocations;
+    }
+
+    /**
+     * Polls the store without waiting for the next poll.
+     * <p>
+     * <p>The poll reads the same tail as a scheduled one, whatever the notified instant, and notifications received
+     * while a poll is queued share it.</p>
+     *
+     * @param notification notification of revocations written to this instance or a peer
+     */
+    public void onNotification(final PeerNotification notification) {
+        if (updateQueued.compareAndSet(false, true)) {
+            executor.execute(() -> {
+                updateQueued.set(false);
+                update();
+            });
+        }
+    }
+
+    private void update() {
+        try {
+            final Index current = index;
+            final int polledAt = UnixTimestamp.now();
+            if (current == null || System.currentTimeMillis() - lastRebuild >= rebuildInterval) {
+                final Index rebuilt = new Index();
+                add(rebuilt, storage.getRevocations(oldestIndexed()));
+                rebuilt.polledAt = polledAt;
+                index = rebuilt;
+                lastRebuild = System.currentTimeMillis();
+                LOG.debug("Rebuilt revocation filter index with {} partitions", rebuilt.partitions.size());
+            } else {
+                add(current, storage.getRevocations(Math.max(
+                        current.lastRevokedAt - IndexedRevocationCheckService.POLL_OVERLAP, oldestIndexed())));
+                current.polledAt = polledAt;
+                evict(current, oldestIndexed());
+            }
+        } catch (RuntimeException e) {
+            LOG.warn("Could not update revocation filter index: {}", e.getMessage());
+            LOG.debug("Error details: ", e);
+        }
+    }
+
+    private int oldestIndexed() {
+        return UnixTimestamp.now() - maxTimeDelta + 1;
+    }
+
+    /*
+     * The store returns all revocations after the instant polled from, so the revocations of each instant polled
+     * replace the ones indexed before, without duplicating the ones polled again.
+     */
+    private void add(final Index target, final Collection<RevocationData> revocations) {
+        final Map<Partition, Map<Integer, List<RevocationData>>> polled = new HashMap<>();
+        final Map<byte[], Map<Integer, List<RevocationData>>> polledHashes =
+                new TreeMap<>(UnsignedBytes.lexicographicalComparator());
+        for (RevocationData revocation : revocations) {
+            polled.computeIfAbsent(Partition.of(revocation), partition -> new HashMap<>())
+                    .computeIfAbsent(revocation.revokedAt(), revokedAt -> new ArrayList<>(1))
+                    .add(revocation);
+            final RevokedData data = revocation.revocationRequest().data();
+            if (data instanceof RevokedTokenData) {
+                polledHashes.computeIfAbsent(tokenHash(((RevokedTokenData) data).token()), hash -> new HashMap<>())
+                        .computeIfAbsent(revocation.revokedAt(), revokedAt -> new ArrayList<>(1))
+                        .add(revocation);
+            }
+            target.lastRevokedAt = Math.max(target.lastRevokedAt, revocation.revokedAt());
+        }
+        polled.forEach((partition, revokedAt) -> put(target.partitions.computeIfAbsent(partition,
+                p -> new ConcurrentSkipListMap<>()), revokedAt));
+        polledHashes.forEach((hash, revokedAt) -> put(target.tokenHashes.computeIfAbsent(hash,
+                h -> new ConcurrentSkipListMap<>()), revokedAt));
+    }
+
+    private static void put(final NavigableMap<Integer, List<RevocationData>> indexed,
+                            final Map<Integer, List<RevocationData>> polled) {
+        polled.forEach((revokedAt, list) -> indexed.put(revokedAt, Collections.unmodifiableList(list)));
+    }
+
+    /*
+     * Token hashes are only evicted when rebuilding, as reads skip the revocations older than the window anyway.
+     */
+    private static void evict(final Index target, final int oldest) {
+        target.partitions.values().forEach(revokedAt -> revokedAt.headMap(oldest, false).clear());
+    }
+
+    /**
+     * Returns the number of partitions of the indexes.
+     *
+     * @return the number of partitions
+     */
+    public int indexedPartitions() {
+        final Index current = index;
+        return current == null ? 0 : current.partitions.size();
+    }
+
+    /**
+     * Returns the number of indexed revocations.
+     *
+     * @return the number of indexed revocations
+     */
+    public int indexedRevocations() {
+        final Index current = index;
+        return current == null ? 0 : current.partitions.values().stream()
+                .flatMap(revokedAt -> revokedAt.values().stream())
+                .mapToInt(List::size)
+                .sum();
+    }
+
+    /**
+     * Stops updating the indexes.
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private static final class Index {
+
+        private final Map<Partition, NavigableMap<Integer, List<RevocationData>>> partitions =
+                new ConcurrentHashMap<>();
+
+        private final ConcurrentNavigableMap<byte[], NavigableMap<Integer, List<RevocationData>>> tokenHashes =
+                new ConcurrentSkipListMap<>(UnsignedBytes.lexicographicalComparator());
+
+        // Only accessed by the executor
+        private int lastRevokedAt = Integer.MIN_VALUE + IndexedRevocationCheckService.POLL_OVERLAP;
+
+        // Instant of the last poll. Revocations up to it minus the poll overlap are complete
+        private volatile int polledAt = Integer.MIN_VALUE + IndexedRevocationCheckService.POLL_OVERLAP;
+    }
+}
@@ -0,0 +1,42 @@
+package org.zalando.planb.revocation.service.impl;
+
+import com.codahale.metrics.MetricRegistry;
+import org.zalando.planb.revocation.domain.PeerNotification;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * In-process stand-in for the network transports: peers are other instances of this class in the same JVM.
+ * <p>
+ * <p>Without connected peers, notifications are only delivered to local listeners, which is what a single instance
+ * deployment needs.</p>
+ *
+ * @author <a href="mailto:team-greendale@zalando.de">Team Greendale</a>
+ */
+public class LocalPeerNotificationService extends AbstractPeerNotificationService {
+
+    private final List<LocalPeerNotificationService> peers = new CopyOnWriteArrayList<>();
+
+    public LocalPeerNotificationService(final MetricRegistry metricRegistry) {
+        super(metricRegistry);
+    }
+
+    /**
+     * Connects this instance and the specified one as peers of each other.
+     *
+     * @param peer the peer to connect
+     */
+    public void connect(final LocalPeerNotificationService peer) {
+        peers.add(peer);
+        peer.peers.add(this);
+    }
+
+    @Override
+    protected void send(final PeerNotification notification) {
+        for (LocalPeerNotificationService peer : peers) {
+            peer.receive(notification);
+            sent();
+        }
+    }
+}
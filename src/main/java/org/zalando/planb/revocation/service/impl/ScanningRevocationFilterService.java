@@ -0,0 +1,159 @@
+package org.zalando.planb.revocation.service.impl;
+
+import com.google.common.collect.ImmutableList;
+import com.nimbusds.jwt.JWTParser;
+import org.zalando.planb.revocation.api.exception.DeadlineExceededException;
+import org.zalando.planb.revocation.domain.RevocationData;
+import org.zalando.planb.revocation.domain.RevocationFilter;
+import org.zalando.planb.revocation.domain.RevocationType;
+import org.zalando.planb.revocation.domain.RevokedClaimsData;
+import org.zalando.planb.revocation.domain.RevokedData;
+import org.zalando.planb.revocation.domain.RevokedTokenData;
+import org.zalando.planb.revocation.persistence.RevocationStore;
+import org.zalando.planb.revocation.service.RevocationFilterService;
+import org.zalando.planb.revocation.util.Deadline;
+import org.zalando.planb.revocation.util.HashPrefix;
+import org.zalando.planb.revocation.util.MessageHasher;
+
+import java.text.ParseException;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * Filters revocations read from the {@link RevocationStore} one by one.
+ * <p>
+ * <p>Costs as much as reading all revocations, but always reflects the store. {@link IndexedRevocationFilterService}
+ * answers from in memory indexes instead.</p>
+ *
+ * @author <a href="mailto:team-greendale@zalando.de">Team Greendale</a>
+ */
+public class ScanningRevocationFilterService implements RevocationFilterService {
+
+    private static final String ISSUER_CLAIM = "iss";
+
+    private final RevocationStore storage;
+
+    private final MessageHasher messageHasher;
+
+    /**
+     * Constructs a new service filtering the revocations of the specified store.
+     *
+     * @param storage       the store holding revocations
+     * @param messageHasher hashes tokens
+     */
+    public ScanningRevocationFilterService(final RevocationStore storage, final MessageHasher messageHasher) {
+        this.storage = storage;
+        this.messageHasher = messageHasher;
+    }
+
+    @Override
+    public Collection<RevocationData> getRevocations(final int from, final RevocationFilter filter,
+                                                     final Deadline deadline) {
+        try {
+            return filter(storage.getRevocations(from, deadline), filter);
+        } catch (DeadlineExceededException e) {
+            throw new DeadlineExceededException(filter(e.revocations(), filter), e.nextFrom());
+        }
+    }
+
+    @Override
+    public Collection<RevocationData> getRevocations(final int from, final int to, final RevocationFilter filter,
+                                                     final Deadline deadline) {
+        try {
+            return filter(storage.getRevocations(from, to, deadline), filter);
+        } catch (DeadlineExceededException e) {
+            throw new DeadlineExceededException(filter(e.revocations(), filter), e.nextFrom());
+        }
+    }
+
+    private List<RevocationData> filter(final Collection<RevocationData> revocations, final RevocationFilter filter) {
+        return revocations.stream()
+                .filter(revocation -> Partition.of(revocation).matches(filter) && matchesHashPrefix(revocation,
+                        filter.hashPrefix()))
+                .collect(Collectors.toList());
+    }
+
+    private boolean matchesHashPrefix(final RevocationData revocation, final HashPrefix hashPrefix) {
+        final RevokedData data = revocation.revocationRequest().data();
+        return hashPrefix == null || !(data instanceof RevokedTokenData)
+                || hashPrefix.matches(tokenHash(((RevokedTokenData) data).token()));
+    }
+
+    byte[] tokenHash(final String token) {
+        return Base64.getUrlDecoder().decode(messageHasher.hashAndEncode(RevocationType.TOKEN, token));
+    }
+
+    /*
+     * Revocations that all filters either match or not. Claim names are sorted, and the issuer is null when tokens of
+     * any issuer are revoked.
+     */
+    static final class Partition {
+
+        final RevocationType type;
+
+        private final List<String> claimNames;
+
+        private final String issuer;
+
+        private Partition(final RevocationType type, final List<String> claimNames, final String issuer) {
+            this.type = type;
+            this.claimNames = claimNames;
+            this.issuer = issuer;
+        }
+
+        static Partition of(final RevocationData revocation) {
+            final RevokedData data = revocation.revocationRequest().data();
+            if (data instanceof RevokedClaimsData) {
+                final Map<String, String> claims = ((RevokedClaimsData) data).claims();
+                return new Partition(RevocationType.CLAIM,
+                        ImmutableList.copyOf(claims.keySet().stream().sorted().iterator()), claims.get(ISSUER_CLAIM));
+            } else if (data instanceof RevokedTokenData) {
+                return new Partition(RevocationType.TOKEN, ImmutableList.of(),
+                        issuer(((RevokedTokenData) data).token()));
+            }
+            return new Partition(revocation.revocationRequest().type(), ImmutableList.of(), null);
+        }
+
+        private static String issuer(final String token) {
+            try {
+                return JWTParser.parse(token).getJWTClaimsSet().getIssuer();
+            } catch (ParseException e) {
+                // Not a JWT
+                return null;
+            }
+        }
+
+        boolean matches(final RevocationFilter filter) {
+            if (!filter.types().isEmpty() && !filter.types().contains(type)) {
+                return false;
+            }
+            if (type == RevocationType.CLAIM && !filter.claimNames().isEmpty()
+                    && !filter.claimNames().containsAll(claimNames)) {
+                return false;
+            }
+            return filter.issuer() == null || issuer == null || filter.issuer().equals(issuer);
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            final Partition partition = (Partition) o;
+            return type == partition.type && claimNames.equals(partition.claimNames)
+                    && Objects.equals(issuer, partition.issuer);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(type, claimNames, issuer);
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package org.zalando.planb.revocation.service.impl;
+
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.slf4j.Logger;
+import org.zalando.planb.revocation.api.impl.RevocationResourceImpl;
+import org.zalando.planb.revocation.domain.ImmutableRevocationList;
+import org.zalando.planb.revocation.domain.ImmutableRevocationSnapshot;
+import org.zalando.planb.revocation.domain.NotificationType;
+import org.zalando.planb.revocation.domain.Refresh;
+import org.zalando.planb.revocation.domain.RevocationData;
+import org.zalando.planb.revocation.domain.RevocationSnapshot;
+import org.zalando.planb.revocation.persistence.RevocationStore;
+import org.zalando.planb.revocation.service.RevocationSnapshotService;
+import org.zalando.planb.revocation.util.RevocationExpiry;
+import org.zalando.planb.revocation.util.RevocationInfoConverter;
+import org.zalando.planb.revocation.util.RevocationPruner;
+import org.zalando.planb.revocation.util.UnixTimestamp;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Builds a {@link RevocationSnapshot snapshot} of the revocations of the last {@code maxTimeDelta} seconds each time
+ * an interval ends, in the background.
+ * <p>
+ * <p>Snapshots are versioned by the end of their interval, and include the revocations up to it. They are rendered
+ * like a response to {@code GET /revocations}, with {@link NotificationType#NEXT_FROM} set to their version, and kept
+ * in memory until replaced.</p>
+ * <p>
+ * <p>Failed builds are retried after a delay that doubles with each consecutive failure, up to the interval between
+ * two snapshots, so that an unavailable store is not read in full every {@link #CHECK_INTERVAL} seconds.</p>
+ *
+ * @author <a href="mailto:team-greendale@zalando.de">Team Greendale</a>
+ */
+public class ScheduledRevocationSnapshotService implements RevocationSnapshotService {
+
+    private static final Logger LOG = getLogger(ScheduledRevocationSnapshotService.class);
+
+    /**
+     * Interval between two checks whether a snapshot is due, in seconds.
+     */
+    private static final int CHECK_INTERVAL = 30;
+
+    private final RevocationStore storage;
+
+    private final RevocationInfoConverter converter;
+
+    private final RevocationPruner pruner;
+
+    private final ObjectMapper objectMapper;
+
+    private final MetricRegistry metricRegistry;
+
+    private final int maxTimeDelta;
+
+    private final int interval;
+
+    private final int settleDelay;
+
+    private final int retained;
+
+    private final Timer buildTimer;
+
+    private int failures;
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(
+            new ThreadFactoryBuilder().setNameFormat("revocation-snapshot-%d").setDaemon(true).build());
+
+    private final ConcurrentNavigableMap<Integer, RevocationSnapshot> snapshots = new ConcurrentSkipListMap<>();
+
+    /**
+     * Constructs a new service, and starts building snapshots.
+     *
+     * @param storage        the store holding revocations
+     * @param converter      converts revocations to the ones published
+     * @param pruner         drops superseded revocations, or {@code null} to keep them
+     * @param objectMapper   renders snapshots
+     * @param metricRegistry registry of the build metrics
+     * @param maxTimeDelta   maximum age of the revocations, in seconds
+     * @param interval       interval between two snapshots, in seconds
+     * @param settleDelay    time waited after the end of an interval before taking its snapshot, in seconds. At
+     *                       least {@link RevocationResourceImpl#CLOCK_SKEW_MARGIN}, as instances with a clock behind
+     *                       may still write revocations before the end of the interval until then
+     * @param retained       number of snapshots kept
+     */
+    public ScheduledRevocationSnapshotService(final RevocationStore storage, final RevocationInfoConverter converter,
+                                              final RevocationPruner pruner, final ObjectMapper objectMapper,
+                                              final MetricRegistry metricRegistry, final int maxTimeDelta,
+                                              final int interval, final int settleDelay, final int retained) {
+        if (interval <= 0 || retained <= 0) {
+            throw new IllegalArgumentException("'interval' and 'retained' must be positive");
+        }
+        this.storage = storage;
+        this.converter = converter;
+        this.pruner = pruner;
+        this.objectMapper = objectMapper;
+        this.metricRegistry = metricRegistry;
+        this.maxTimeDelta = maxTimeDelta;
+        this.interval = interval;
+        this.settleDelay = settleDelay;
+        this.retained = retained;
+        this.buildTimer = metricRegistry.timer("planb.snapshot.build");
+
+        executor.execute(this::update);
+    }
+
+    @Override
+    public Optional<RevocationSnapshot> latest() {
+        return Optional.ofNullable(snapshots.lastEntry()).map(Map.Entry::getValue);
+    }
+
+    @Override
+    public Optional<RevocationSnapshot> get(final int version) {
+        return Optional.ofNullable(snapshots.get(version));
+    }
+
+    @Override
+    public int nextSnapshotAt() {
+        return dueVersion() + interval + settleDelay;
+    }
+
+    private int dueVersion() {
+        return (UnixTimestamp.now() - settleDelay) / interval * interval;
+    }
+
+    /*
+     * Delay before retrying a build after the specified number of consecutive failures, in seconds.
+     */
+    static int retryDelay(final int failures, final int interval) {
+        final long delay = (long) CHECK_INTERVAL << Math.min(failures - 1, 30);
+        return (int) Math.min(delay, Math.max(CHECK_INTERVAL, interval));
+    }
+
+    private void update() {
+        final int version = dueVersion();
+        if (!snapshots.containsKey(version)) {
+            failures = build(version, failures);
+        }
+        final int delay = failures == 0 ? CHECK_INTERVAL : retryDelay(failures, interval);
+        try {
+            executor.schedule(this::update, delay, TimeUnit.SECONDS);
+        } catch (RejectedExecutionException e) {
+            // Shut down
+        }
+    }
+
+    /*
+     * Builds and keeps the snapshot of the specified version, returning the number of consecutive failures after.
+     */
+    private int build(final int version, final int failures) {
+        try {
+            final RevocationSnapshot snapshot = build(version);
+            snapshots.put(version, snapshot);
+            while (snapshots.size() > retained) {
+                snapshots.pollFirstEntry();
+            }
+            LOG.info("Built revocation snapshot {} with {} revocations ({} bytes)", version, snapshot.revocations(),
+                    snapshot.content().length);
+            return 0;
+        } catch (RuntimeException e) {
+            LOG.warn("Could not build revocation snapshot {}, retrying in {}s: {}", version,
+                    retryDelay(failures + 1, interval), e.getMessage());
+            LOG.debug("Error details: ", e);
+            return failures + 1;
+        }
+    }
+
+    RevocationSnapshot build(final int version) {
+        try (Timer.Context ignored = buildTimer.time()) {
+            final int now = UnixTimestamp.now();
+            List<RevocationData> revocations = storage.getRevocations(now - maxTimeDelta + 1).stream()
+                    .filter(revocation -> revocation.revokedAt() <= version)
+                    .collect(Collectors.toList());
+            revocations = RevocationExpiry.unexpired(revocations, now,
+                    metricRegistry.counter("planb.revocations.expired"));
+            if (pruner != null) {
+                revocations = pruner.prune(revocations);
+            }
+
+            final EnumMap<NotificationType, Object> meta = new EnumMap<>(NotificationType.class);
+            meta.put(NotificationType.MAX_TIME_DELTA, maxTimeDelta);
+            meta.put(NotificationType.NEXT_FROM, version);
+            final Refresh refresh = storage.getRefresh();
+            if (refresh != null) {
+                meta.put(NotificationType.REFRESH_FROM, refresh.refreshFrom());
+                meta.put(NotificationType.REFRESH_TIMESTAMP, refresh.refreshTimestamp());
+            }
+
+            final byte[] content = objectMapper.writeValueAsBytes(ImmutableRevocationList.builder()
+                    .meta(meta)
+                    .revocations(converter.convert(revocations))
+                    .build());
+            return ImmutableRevocationSnapshot.builder()
+                    .version(version)
+                    .content(content)
+                    .checksum(Base64.getEncoder().encodeToString(MessageDigest.getInstance("SHA-256").digest(content)))
+                    .revocations(revocations.size())
+                    .build();
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Stops building snapshots.
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,136 @@
+package org.zalando.planb.revocation.service.impl;
+
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.collect.ImmutableList;
+import com.google.common.net.HostAndPort;
+import org.slf4j.Logger;
+import org.zalando.planb.revocation.domain.ImmutablePeerNotification;
+import org.zalando.planb.revocation.domain.PeerNotification;
+import org.zalando.planb.revocation.util.PeerNotificationSigner;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.DatagramChannel;
+import java.util.List;
+
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Notifies peers with UDP datagrams.
+ * <p>
+ * <p>Each datagram holds a magic number and the {@code revokedAt} timestamp of the notification, as big-endian
+ * integers, followed by its {@link PeerNotificationSigner signature}. Datagrams that are not signed with the shared
+ * secret are dropped. Datagrams may be lost, which only delays propagation to the next refresh of the peer.</p>
+ *
+ * @author <a href="mailto:team-greendale@zalando.de">Team Greendale</a>
+ */
+public class UdpPeerNotificationService extends AbstractPeerNotificationService {
+
+    private static final Logger LOG = getLogger(UdpPeerNotificationService.class);
+
+    // "PLNB"
+    static final int MAGIC = 0x504C4E42;
+
+    static final int DATAGRAM_LENGTH = 8 + PeerNotificationSigner.SIGNATURE_LENGTH;
+
+    private final List<HostAndPort> peers;
+
+    private final PeerNotificationSigner signer;
+
+    private final DatagramChannel channel;
+
+    private final Thread receiver;
+
+    /**
+     * Constructs a new service notifying the specified peers, and starts receiving notifications.
+     *
+     * @param peers          addresses of the peers, like {@code 10.0.0.2:7980}
+     * @param port           port to receive notifications on, {@code 0} for an ephemeral port
+     * @param signer         signs sent notifications and verifies received ones
+     * @param metricRegistry registry of the notification counters
+     * @throws IOException if the port can't be bound
+     */
+    public UdpPeerNotificationService(final List<String> peers, final int port, final PeerNotificationSigner signer,
+                                      final MetricRegistry metricRegistry) throws IOException {
+        super(metricRegistry);
+        final ImmutableList.Builder<HostAndPort> addresses = ImmutableList.builder();
+        for (String peer : peers) {
+            addresses.add(HostAndPort.fromString(peer).withDefaultPort(port));
+        }
+        this.peers = addresses.build();
+        this.signer = signer;
+        this.channel = DatagramChannel.open().bind(new InetSocketAddress(port));
+        this.receiver = new Thread(this::receiveLoop, "peer-notifications-receiver");
+        this.receiver.setDaemon(true);
+        this.receiver.start();
+    }
+
+    @Override
+    protected void send(final PeerNotification notification) {
+        final byte[] signature = signer.sign(notification);
+        final ByteBuffer datagram = ByteBuffer.allocate(DATAGRAM_LENGTH);
+        for (HostAndPort peer : peers) {
+            datagram.clear();
+            datagram.putInt(MAGIC).putInt(notification.revokedAt()).put(signature).flip();
+            try {
+                channel.send(datagram, new InetSocketAddress(peer.getHostText(), peer.getPort()));
+                sent();
+            } catch (IOException e) {
+                failed(peer.toString(), e);
+            }
+        }
+    }
+
+    private void receiveLoop() {
+        final ByteBuffer datagram = ByteBuffer.allocate(DATAGRAM_LENGTH + 1);
+        final byte[] signature = new byte[PeerNotificationSigner.SIGNATURE_LENGTH];
+        while (channel.isOpen()) {
+            try {
+                datagram.clear();
+                channel.receive(datagram);
+                datagram.flip();
+                if (datagram.remaining() != DATAGRAM_LENGTH || datagram.getInt() != MAGIC) {
+                    LOG.debug("Ignoring invalid peer notification datagram");
+                    continue;
+                }
+                final PeerNotification notification = ImmutablePeerNotification.builder()
+                        .revokedAt(datagram.getInt())
+                        .build();
+                datagram.get(signature);
+                if (!signer.verify(notification, signature)) {
+                    LOG.debug("Ignoring unsigned peer notification datagram");
+                    continue;
+                }
+                receive(notification);
+            } catch (ClosedChannelException e) {
+                return;
+            } catch (IOException e) {
+                LOG.warn("Could not receive peer notification: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Returns the port notifications are received on.
+     *
+     * @return the local port
+     * @throws IOException if the channel is closed
+     */
+    public int port() throws IOException {
+        return ((InetSocketAddress) channel.getLocalAddress()).getPort();
+    }
+
+    @Override
+    public void shutdown() {
+        try {
+            channel.close();
+            receiver.join(1000);
+        } catch (IOException e) {
+            LOG.warn("Could not close peer notification channel: {}", e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
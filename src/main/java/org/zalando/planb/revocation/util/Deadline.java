@@ -0,0 +1,85 @@
+package org.zalando.planb.revocation.util;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Instant after which the result of a request is of no use to its client anymore.
+ * <p>
+ * <p>Carried along a request, so that work can stop once the client has given up.</p>
+ *
+ * @author <a href="mailto:team-greendale@zalando.de">Team Greendale</a>
+ */
+public final class Deadline {
+
+    private static final Deadline NONE = new Deadline(Long.MAX_VALUE);
+
+    private final long expiresAt;
+
+    private Deadline(final long expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+
+    /**
+     * Returns a deadline that never expires.
+     *
+     * @return a deadline that never expires
+     */
+    public static Deadline none() {
+        return NONE;
+    }
+
+    /**
+     * Returns a deadline expiring after the specified time.
+     *
+     * @param millis time until the deadline expires, in milliseconds. {@code 0} or less for no deadline
+     * @return the deadline
+     */
+    public static Deadline after(final long millis) {
+        if (millis <= 0) {
+            return NONE;
+        }
+        return new Deadline(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+
+    /**
+     * Returns whether this deadline can expire.
+     *
+     * @return {@code false} for {@link Deadline#none()}
+     */
+    public boolean isBounded() {
+        return this != NONE;
+    }
+
+    /**
+     * Returns whether this deadline has passed.
+     *
+     * @return {@code true} if passed
+     */
+    public boolean isExpired() {
+        return isBounded() && System.nanoTime() - expiresAt >= 0;
+    }
+
+    /**
+     * Returns the time left until this deadline passes.
+     *
+     * @return the time left in milliseconds, {@code 0} if passed, or {@link Long#MAX_VALUE} if unbounded
+     */
+    public long remainingMillis() {
+        if (!isBounded()) {
+            return Long.MAX_VALUE;
+        }
+        return Math.max(0, TimeUnit.NANOSECONDS.toMillis(expiresAt - System.nanoTime()));
+    }
+
+    /**
+     * Returns the time left until this deadline passes, to wait for exactly that long.
+     *
+     * @return the time left in nanoseconds, {@code 0} if passed, or {@link Long#MAX_VALUE} if unbounded
+     */
+    public long remainingNanos() {
+        if (!isBounded()) {
+            return Long.MAX_VALUE;
+        }
+        return Math.max(0, expiresAt - System.nanoTime());
+    }
+}
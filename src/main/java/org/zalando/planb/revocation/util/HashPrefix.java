@@ -0,0 +1,135 @@
+package org.zalando.planb.revocation.util;
+
+import com.google.common.io.BaseEncoding;
+
+import java.util.Arrays;
+
+/**
+ * The leading bits shared by a range of hashes, as used by validators sharded by token hash.
+ * <p>
+ * <p>Hashes are compared as unsigned big endian numbers, so that the hashes with a prefix form a contiguous range,
+ * starting at {@link #lowerBound()} and ending before {@link #upperBound()}.</p>
+ *
+ * @author <a href="mailto:team-greendale@zalando.de">Team Greendale</a>
+ */
+public final class HashPrefix {
+
+    private final byte[] lowerBound;
+
+    private final byte[] upperBound;
+
+    private final int bits;
+
+    private HashPrefix(final byte[] lowerBound, final int bits) {
+        this.lowerBound = lowerBound;
+        this.bits = bits;
+        this.upperBound = increment(lowerBound, bits);
+    }
+
+    /**
+     * Parses a prefix.
+     *
+     * @param hex  the prefix, in hexadecimal
+     * @param bits number of leading bits of {@code hex} making the prefix, or {@code null} for all of them
+     * @return the prefix
+     * @throws IllegalArgumentException if {@code hex} is not hexadecimal, or {@code bits} is out of its range
+     */
+    public static HashPrefix parse(final String hex, final Integer bits) {
+        if (hex == null || hex.isEmpty() || !hex.matches("[0-9a-fA-F]+")) {
+            throw new IllegalArgumentException("'hash_prefix' must be hexadecimal");
+        }
+        final int prefixBits = bits != null ? bits : hex.length() * 4;
+        if (prefixBits < 1 || prefixBits > hex.length() * 4) {
+            throw new IllegalArgumentException("'prefix_bits' must be between 1 and " + hex.length() * 4);
+        }
+
+        final byte[] bytes = BaseEncoding.base16().decode((hex.length() % 2 == 0 ? hex : hex + "0").toUpperCase());
+        final byte[] lowerBound = Arrays.copyOf(bytes, (prefixBits + 7) / 8);
+        if (prefixBits % 8 != 0) {
+            lowerBound[lowerBound.length - 1] &= (byte) (0xff << (8 - prefixBits % 8));
+        }
+        return new HashPrefix(lowerBound, prefixBits);
+    }
+
+    /*
+     * Adds one at the last bit of the prefix, or returns null if the prefix has all its bits set.
+     */
+    private static byte[] increment(final byte[] lowerBound, final int bits) {
+        final byte[] next = lowerBound.clone();
+        int carry = 1 << (lowerBound.length * 8 - bits);
+        for (int i = next.length - 1; i >= 0 && carry != 0; i--) {
+            final int sum = (next[i] & 0xff) + carry;
+            next[i] = (byte) sum;
+            carry = sum >> 8;
+        }
+        return carry != 0 ? null : next;
+    }
+
+    /**
+     * Returns whether the specified hash starts with this prefix.
+     *
+     * @param hash the hash
+     * @return {@code true} if the leading bits of {@code hash} are the ones of this prefix
+     */
+    public boolean matches(final byte[] hash) {
+        if (hash.length < lowerBound.length) {
+            return false;
+        }
+        for (int i = 0; i < lowerBound.length; i++) {
+            final int mask = i < bits / 8 ? 0xff : (0xff << (8 - bits % 8)) & 0xff;
+            if ((hash[i] & mask) != (lowerBound[i] & 0xff)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the lowest hash with this prefix.
+     *
+     * @return the prefix, followed by zeros
+     */
+    public byte[] lowerBound() {
+        return lowerBound.clone();
+    }
+
+    /**
+     * Returns the lowest hash above the ones with this prefix.
+     *
+     * @return the next prefix, or {@code null} if all bits of this prefix are set
+     */
+    public byte[] upperBound() {
+        return upperBound == null ? null : upperBound.clone();
+    }
+
+    /**
+     * Returns the number of bits of the prefix.
+     *
+     * @return the number of bits
+     */
+    public int bits() {
+        return bits;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        final HashPrefix that = (HashPrefix) o;
+        return bits == that.bits && Arrays.equals(lowerBound, that.lowerBound);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(lowerBound) + bits;
+    }
+
+    @Override
+    public String toString() {
+        return BaseEncoding.base16().lowerCase().encode(lowerBound) + "/" + bits;
+    }
+}
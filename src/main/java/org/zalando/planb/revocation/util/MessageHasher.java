@@ -1,21 +1,42 @@
 package org.zalando.planb.revocation.util;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
 import org.immutables.value.Value;
 import org.zalando.planb.revocation.domain.RevocationType;
 
+import java.nio.charset.StandardCharsets;
+import java.security.DigestException;
 import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Arrays;
 import java.util.Base64;
 import java.util.Collection;
+import java.util.EnumMap;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Utility class to hash messages.
+ * <p>
+ * <p>Instances are thread safe: each hash is computed on a clone of a digest already updated with the salt, using per
+ * thread buffers.</p>
+ * <p>
+ * <p>When {@link MessageHasher#cacheMaximumSize()} is positive, computed hashes are memoized. The cache belongs to the
+ * instance, so a hasher built with a different salt or algorithms never sees hashes cached by another one.</p>
  *
  * @author <a href="mailto:rodrigo.reis@zalando.de">Rodrigo Reis</a>
  */
 @Value.Immutable
 public abstract class MessageHasher {
 
+    private static final Base64.Encoder BASE64 = Base64.getUrlEncoder();
+
+    private static final ThreadLocal<Buffers> BUFFERS = ThreadLocal.withInitial(Buffers::new);
+
     /**
      * Returns a map containing hashers for each revocation type.
      * <p>
@@ -44,35 +65,147 @@ public abstract class MessageHasher {
      */
     public abstract Character separator();
 
+    /**
+     * Returns the maximum number of hashes kept in memory.
+     * <p>
+     * <p>Defaults to {@code 0}, meaning hashes are not cached.</p>
+     *
+     * @return the maximum number of cached hashes
+     */
+    @Value.Default
+    public long cacheMaximumSize() {
+        return 0;
+    }
+
+    /**
+     * Returns the time a hash is cached after being computed.
+     * <p>
+     * <p>Defaults to 31 days.</p>
+     *
+     * @return the time to live of cached hashes
+     */
+    @Value.Default
+    public Duration cacheTtl() {
+        return Duration.ofDays(31);
+    }
+
+    /**
+     * Returns the cache of computed hashes, if caching is enabled.
+     *
+     * @return the cache of computed hashes
+     */
+    @Value.Lazy
+    protected Optional<Cache<CacheKey, String>> cache() {
+        if (cacheMaximumSize() <= 0) {
+            return Optional.empty();
+        }
+        return Optional.of(CacheBuilder.newBuilder()
+                .maximumSize(cacheMaximumSize())
+                .expireAfterWrite(cacheTtl().toMillis(), TimeUnit.MILLISECONDS)
+                .recordStats()
+                .build());
+    }
+
+    /**
+     * Returns statistics of the cache of computed hashes, if caching is enabled.
+     *
+     * @return the cache statistics
+     */
+    public Optional<CacheStats> cacheStats() {
+        return cache().map(Cache::stats);
+    }
+
+    /**
+     * Returns the number of cached hashes.
+     *
+     * @return the number of cached hashes, {@code 0} if caching is disabled
+     */
+    public long cachedHashes() {
+        return cache().map(Cache::size).orElse(0L);
+    }
+
+    /**
+     * Returns digests for each revocation type, already updated with the salt.
+     * <p>
+     * <p>These are never updated, only cloned, so that they can be shared between threads.</p>
+     *
+     * @return the salted digests
+     */
+    @Value.Lazy
+    protected Map<RevocationType, MessageDigest> saltedDigests() {
+        final byte[] salt = salt().getBytes(StandardCharsets.UTF_8);
+        final Map<RevocationType, MessageDigest> digests = new EnumMap<>(RevocationType.class);
+        for (Map.Entry<RevocationType, MessageDigest> entry : hashingAlgorithms().entrySet()) {
+            try {
+                final MessageDigest digest = MessageDigest.getInstance(entry.getValue().getAlgorithm(),
+                        entry.getValue().getProvider());
+                digest.update(salt);
+                digests.put(entry.getKey(), digest);
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        return digests;
+    }
+
     /**
      * Hashes the specified messages using the algorithm specified by the <code>RevocationType</code> parameter. Returns
      * a Base64 URL encoding of the Hash.
      * <p>
      * <p>If there are multiples messages, they are concatenated using the provided separator, prior to hashing.</p>
+     * <p>
+     * <p>Messages are encoded as UTF-8. This method is thread safe.</p>
      *
      * @param type     algorithm to use
      * @param messages the messages to hash.
      * @return a Base64 URL encoded version of the hash.
      */
     public String hashAndEncode(final RevocationType type, final String... messages) {
-
-        StringBuilder messageConcatenated = new StringBuilder();
-        for (String message : messages) {
-            messageConcatenated.append(message);
-            messageConcatenated.append(separator());
+        final Optional<Cache<CacheKey, String>> cache = cache();
+        if (!cache.isPresent()) {
+            return hash(type, messages);
         }
 
-        String message = messageConcatenated.substring(0, messageConcatenated.length() - 1);
-
-        byte[] hashed = message.getBytes();
+        final CacheKey key = new CacheKey(type, messages);
+        String hash = cache.get().getIfPresent(key);
+        if (hash == null) {
+            hash = hash(type, messages);
+            // The key keeps its own copy, as callers may reuse their array
+            cache.get().put(new CacheKey(type, messages.clone()), hash);
+        }
+        return hash;
+    }
 
-        if (hashingAlgorithms().containsKey(type)) {
+    /**
+     * Hashes the specified messages like {@link MessageHasher#hashAndEncode(RevocationType, String...)}, without
+     * looking up or filling the cache.
+     * <p>
+     * <p>Used for messages sent by clients, which would otherwise evict the hashes of stored revocations.</p>
+     *
+     * @param type     algorithm to use
+     * @param messages the messages to hash.
+     * @return a Base64 URL encoded version of the hash.
+     */
+    public String hashAndEncodeUncached(final RevocationType type, final String... messages) {
+        return hash(type, messages);
+    }
 
-            hashingAlgorithms().get(type).update((salt() + message).getBytes());
-            hashed = hashingAlgorithms().get(type).digest();
+    private String hash(final RevocationType type, final String... messages) {
+        final MessageDigest salted = saltedDigests().get(type);
+        if (salted == null) {
+            return BASE64.encodeToString(String.join(String.valueOf(separator()), messages)
+                    .getBytes(StandardCharsets.UTF_8));
         }
 
-        return Base64.getUrlEncoder().encodeToString(hashed);
+        final Buffers buffers = BUFFERS.get();
+        final MessageDigest digest = buffers.digest(salted);
+        for (int i = 0; i < messages.length; i++) {
+            if (i > 0) {
+                buffers.update(digest, separator());
+            }
+            buffers.update(digest, messages[i]);
+        }
+        return buffers.digestAndEncode(digest);
     }
 
     /**
@@ -88,4 +221,139 @@ public abstract class MessageHasher {
     public String hashAndEncode(final RevocationType type, final Collection<String> messages) {
         return hashAndEncode(type, messages.toArray(new String[]{}));
     }
+
+    /**
+     * Key of a cached hash, i.e. the revocation type and the hashed messages.
+     */
+    protected static final class CacheKey {
+
+        private final RevocationType type;
+
+        private final String[] messages;
+
+        private final int hashCode;
+
+        CacheKey(final RevocationType type, final String[] messages) {
+            this.type = type;
+            this.messages = messages;
+            this.hashCode = 31 * type.hashCode() + Arrays.hashCode(messages);
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof CacheKey)) {
+                return false;
+            }
+            final CacheKey other = (CacheKey) o;
+            return type == other.type && Arrays.equals(messages, other.messages);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
+    /*
+     * Per thread scratch space, so that hashing only allocates the cloned digest and the resulting string.
+     */
+    private static final class Buffers {
+
+        private static final byte[] ALPHABET = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_"
+                .getBytes(StandardCharsets.US_ASCII);
+
+        private static final int MAX_DIGEST_LENGTH = 64;
+
+        private final byte[] encoded = new byte[1024];
+
+        private final byte[] hash = new byte[MAX_DIGEST_LENGTH];
+
+        private final byte[] base64 = new byte[(MAX_DIGEST_LENGTH + 2) / 3 * 4];
+
+        /*
+         * Cloning copies the internal state of the salted digest, which is never updated itself.
+         */
+        MessageDigest digest(final MessageDigest salted) {
+            try {
+                return (MessageDigest) salted.clone();
+            } catch (CloneNotSupportedException e) {
+                throw new IllegalStateException("Digest " + salted.getAlgorithm() + " can't be cloned", e);
+            }
+        }
+
+        void update(final MessageDigest digest, final char separator) {
+            if (separator < 0x80) {
+                digest.update((byte) separator);
+            } else {
+                update(digest, String.valueOf(separator));
+            }
+        }
+
+        void update(final MessageDigest digest, final String message) {
+            int length = 0;
+            for (int i = 0; i < message.length(); i++) {
+                if (length > encoded.length - 4) {
+                    digest.update(encoded, 0, length);
+                    length = 0;
+                }
+                final char c = message.charAt(i);
+                if (c < 0x80) {
+                    encoded[length++] = (byte) c;
+                } else if (c < 0x800) {
+                    encoded[length++] = (byte) (0xC0 | c >> 6);
+                    encoded[length++] = (byte) (0x80 | c & 0x3F);
+                } else if (Character.isSurrogate(c)) {
+                    final int codePoint = Character.codePointAt(message, i);
+                    if (Character.isSupplementaryCodePoint(codePoint)) {
+                        encoded[length++] = (byte) (0xF0 | codePoint >> 18);
+                        encoded[length++] = (byte) (0x80 | codePoint >> 12 & 0x3F);
+                        encoded[length++] = (byte) (0x80 | codePoint >> 6 & 0x3F);
+                        encoded[length++] = (byte) (0x80 | codePoint & 0x3F);
+                        i++;
+                    } else {
+                        // Unpaired surrogate, replaced like String.getBytes(UTF_8) does
+                        encoded[length++] = '?';
+                    }
+                } else {
+                    encoded[length++] = (byte) (0xE0 | c >> 12);
+                    encoded[length++] = (byte) (0x80 | c >> 6 & 0x3F);
+                    encoded[length++] = (byte) (0x80 | c & 0x3F);
+                }
+            }
+            digest.update(encoded, 0, length);
+        }
+
+        /*
+         * Same output as Base64.getUrlEncoder(), padding included.
+         */
+        String digestAndEncode(final MessageDigest digest) {
+            final int hashLength;
+            try {
+                hashLength = digest.digest(hash, 0, hash.length);
+            } catch (DigestException e) {
+                throw new IllegalStateException(e);
+            }
+
+            int length = 0;
+            int i = 0;
+            for (; i + 2 < hashLength; i += 3) {
+                final int bits = (hash[i] & 0xFF) << 16 | (hash[i + 1] & 0xFF) << 8 | hash[i + 2] & 0xFF;
+                base64[length++] = ALPHABET[bits >>> 18 & 0x3F];
+                base64[length++] = ALPHABET[bits >>> 12 & 0x3F];
+                base64[length++] = ALPHABET[bits >>> 6 & 0x3F];
+                base64[length++] = ALPHABET[bits & 0x3F];
+            }
+            if (i < hashLength) {
+                final int bits = (hash[i] & 0xFF) << 16 | (i + 1 < hashLength ? (hash[i + 1] & 0xFF) << 8 : 0);
+                base64[length++] = ALPHABET[bits >>> 18 & 0x3F];
+                base64[length++] = ALPHABET[bits >>> 12 & 0x3F];
+                base64[length++] = i + 1 < hashLength ? ALPHABET[bits >>> 6 & 0x3F] : (byte) '=';
+                base64[length++] = '=';
+            }
+            return new String(base64, 0, length, StandardCharsets.US_ASCII);
+        }
+    }
 }
@@ -0,0 +1,198 @@
+package org.zalando.planb.revocation.util;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Open addressing hash table mapping 32 byte keys, like SHA-256 hashes, to the maximum {@code int} value stored for
+ * them.
+ * <p>
+ * <p>Slots are kept in a direct {@link ByteBuffer}, outside of the heap, so that millions of entries don't weigh on
+ * garbage collection. Collisions are resolved by linear probing, and the table doubles once half full. Entries are
+ * never removed: to drop entries, a new table is built.</p>
+ * <p>
+ * <p>Writers are serialized. Readers never block nor allocate: they read optimistically and only retry under a read
+ * lock if a write happened meanwhile.</p>
+ *
+ * @author <a href="mailto:team-greendale@zalando.de">Team Greendale</a>
+ */
+public class OffHeapHashIndex {
+
+    /**
+     * Length of the keys, in bytes.
+     */
+    public static final int KEY_LENGTH = 32;
+
+    // Key, value and a flag marking the slot as used
+    private static final int SLOT_LENGTH = KEY_LENGTH + 8;
+
+    private static final int VALUE_OFFSET = KEY_LENGTH;
+
+    private static final int USED_OFFSET = KEY_LENGTH + 4;
+
+    private static final int MAX_CAPACITY = Integer.MAX_VALUE / SLOT_LENGTH;
+
+    private final StampedLock lock = new StampedLock();
+
+    private ByteBuffer slots;
+
+    private int capacity;
+
+    private int size;
+
+    /**
+     * Constructs a new table sized for the specified number of entries.
+     *
+     * @param expectedEntries number of entries expected to be stored
+     */
+    public OffHeapHashIndex(final int expectedEntries) {
+        this.capacity = Integer.highestOneBit(Math.max(16, Math.min(expectedEntries, MAX_CAPACITY / 2) * 2 - 1)) << 1;
+        this.slots = ByteBuffer.allocateDirect(capacity * SLOT_LENGTH);
+    }
+
+    /**
+     * Stores the specified value for the key, unless a greater value is already stored.
+     *
+     * @param key    array holding the key
+     * @param offset position of the key in {@code key}
+     * @param value  the value to store
+     */
+    public void putMax(final byte[] key, final int offset, final int value) {
+        final long stamp = lock.writeLock();
+        try {
+            if ((size + 1) * 2 > capacity) {
+                resize();
+            }
+            final int slot = find(slots, capacity, key, offset);
+            if (slots.getInt(slot + USED_OFFSET) == 0) {
+                slots.position(slot);
+                slots.put(key, offset, KEY_LENGTH);
+                slots.putInt(slot + VALUE_OFFSET, value);
+                slots.putInt(slot + USED_OFFSET, 1);
+                size++;
+            } else if (slots.getInt(slot + VALUE_OFFSET) < value) {
+                slots.putInt(slot + VALUE_OFFSET, value);
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Returns the value stored for the specified key.
+     *
+     * @param key     array holding the key
+     * @param offset  position of the key in {@code key}
+     * @param missing value returned if the key is not stored
+     * @return the value stored for the key, or {@code missing}
+     */
+    public int get(final byte[] key, final int offset, final int missing) {
+        long stamp = lock.tryOptimisticRead();
+        int value = get(slots, capacity, key, offset, missing);
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                value = get(slots, capacity, key, offset, missing);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return value;
+    }
+
+    private static int get(final ByteBuffer slots, final int capacity, final byte[] key, final int offset,
+                           final int missing) {
+        if (slots.capacity() < capacity * SLOT_LENGTH) {
+            // Inconsistent snapshot of a concurrent resize, validation will fail
+            return missing;
+        }
+        final int slot = find(slots, capacity, key, offset);
+        return slot < 0 || slots.getInt(slot + USED_OFFSET) == 0 ? missing : slots.getInt(slot + VALUE_OFFSET);
+    }
+
+    /*
+     * Returns the slot holding the key, or the free slot where it belongs. Probing is bounded, so that an optimistic
+     * read of a table being modified terminates, returning -1.
+     */
+    private static int find(final ByteBuffer slots, final int capacity, final byte[] key, final int offset) {
+        final int mask = capacity - 1;
+        int index = mix(key, offset) & mask;
+        for (int probes = 0; probes < capacity; probes++) {
+            final int slot = index * SLOT_LENGTH;
+            if (slots.getInt(slot + USED_OFFSET) == 0 || keyEquals(slots, slot, key, offset)) {
+                return slot;
+            }
+            index = (index + 1) & mask;
+        }
+        return -1;
+    }
+
+    private static boolean keyEquals(final ByteBuffer slots, final int slot, final byte[] key, final int offset) {
+        for (int i = 0; i < KEY_LENGTH; i++) {
+            if (slots.get(slot + i) != key[offset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /*
+     * Keys are hashes already, their first bytes are mixed only to be safe with weaker ones.
+     */
+    private static int mix(final byte[] key, final int offset) {
+        final int h = (key[offset] & 0xFF) << 24 | (key[offset + 1] & 0xFF) << 16 | (key[offset + 2] & 0xFF) << 8
+                | key[offset + 3] & 0xFF;
+        final int x = h * 0x9E3779B9;
+        return x ^ x >>> 16;
+    }
+
+    private void resize() {
+        if (capacity >= MAX_CAPACITY / 2) {
+            throw new IllegalStateException("Index can't hold more than " + size + " entries");
+        }
+        final int newCapacity = capacity << 1;
+        final ByteBuffer newSlots = ByteBuffer.allocateDirect(newCapacity * SLOT_LENGTH);
+        final byte[] key = new byte[KEY_LENGTH];
+        for (int slot = 0; slot < capacity * SLOT_LENGTH; slot += SLOT_LENGTH) {
+            if (slots.getInt(slot + USED_OFFSET) != 0) {
+                slots.position(slot);
+                slots.get(key);
+                final int target = find(newSlots, newCapacity, key, 0);
+                newSlots.position(target);
+                newSlots.put(key);
+                newSlots.putInt(target + VALUE_OFFSET, slots.getInt(slot + VALUE_OFFSET));
+                newSlots.putInt(target + USED_OFFSET, 1);
+            }
+        }
+        slots = newSlots;
+        capacity = newCapacity;
+    }
+
+    /**
+     * Returns the number of entries.
+     *
+     * @return the number of entries
+     */
+    public int size() {
+        final long stamp = lock.readLock();
+        try {
+            return size;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Returns the off heap memory used by the table, in bytes.
+     *
+     * @return the memory used, in bytes
+     */
+    public long memoryUsage() {
+        final long stamp = lock.readLock();
+        try {
+            return (long) capacity * SLOT_LENGTH;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+}
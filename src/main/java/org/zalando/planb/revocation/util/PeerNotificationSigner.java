@@ -0,0 +1,82 @@
+package org.zalando.planb.revocation.util;
+
+import org.zalando.planb.revocation.domain.PeerNotification;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.InvalidKeyException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Signs {@link PeerNotification peer notifications} with a secret shared by all instances, so that only peers can
+ * trigger reads of the store.
+ * <p>
+ * <p>Signatures are the HMAC-SHA256 of the {@code revokedAt} timestamp, as a big-endian integer. Without a secret,
+ * nothing can be signed and every signature is rejected.</p>
+ *
+ * @author <a href="mailto:team-greendale@zalando.de">Team Greendale</a>
+ */
+public final class PeerNotificationSigner {
+
+    private static final String ALGORITHM = "HmacSHA256";
+
+    /**
+     * Length of a signature, in bytes.
+     */
+    public static final int SIGNATURE_LENGTH = 32;
+
+    private final SecretKeySpec key;
+
+    /**
+     * Constructs a new signer.
+     *
+     * @param secret the secret shared by all peers, or {@code null} or empty if none is configured
+     */
+    public PeerNotificationSigner(final String secret) {
+        this.key = secret == null || secret.isEmpty() ? null
+                : new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM);
+    }
+
+    /**
+     * Returns whether a secret is configured.
+     *
+     * @return {@code true} if notifications can be signed and verified
+     */
+    public boolean hasSecret() {
+        return key != null;
+    }
+
+    /**
+     * Signs the specified notification.
+     *
+     * @param notification the notification
+     * @return the signature, {@link #SIGNATURE_LENGTH} bytes long
+     * @throws IllegalStateException if no secret is configured
+     */
+    public byte[] sign(final PeerNotification notification) {
+        if (key == null) {
+            throw new IllegalStateException("No secret to sign peer notifications with");
+        }
+        try {
+            final Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac.doFinal(ByteBuffer.allocate(4).putInt(notification.revokedAt()).array());
+        } catch (NoSuchAlgorithmException | InvalidKeyException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Returns whether the specified signature is the one of the specified notification.
+     *
+     * @param notification the notification
+     * @param signature    the signature received with it, or {@code null}
+     * @return {@code true} if a secret is configured and the signature matches
+     */
+    public boolean verify(final PeerNotification notification, final byte[] signature) {
+        return key != null && signature != null && MessageDigest.isEqual(sign(notification), signature);
+    }
+}
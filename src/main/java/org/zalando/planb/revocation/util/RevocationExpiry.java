@@ -0,0 +1,104 @@
+package org.zalando.planb.revocation.util;
+
+import com.codahale.metrics.Counter;
+import com.nimbusds.jwt.JWTParser;
+import org.zalando.planb.revocation.domain.RevocationData;
+import org.zalando.planb.revocation.domain.RevocationRequest;
+import org.zalando.planb.revocation.domain.RevokedClaimsData;
+import org.zalando.planb.revocation.domain.RevokedData;
+import org.zalando.planb.revocation.domain.RevokedGlobal;
+import org.zalando.planb.revocation.domain.RevokedTokenData;
+
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Tells when a revocation can no longer match a live token, so that it can be left out of responses.
+ * <p>
+ * <p>A {@code TOKEN} revocation expires with its token, as given by the {@code exp} claim of a JWT. Other revocations
+ * only revoke tokens issued before their {@code issued_before}, which have all expired once the maximum lifetime of a
+ * token has passed. Without a known maximum lifetime, they never expire.</p>
+ *
+ * @author <a href="mailto:team-greendale@zalando.de">Team Greendale</a>
+ */
+public class RevocationExpiry {
+
+    private final int maxTokenLifetime;
+
+    /**
+     * Constructs a new instance.
+     *
+     * @param maxTokenLifetime maximum lifetime of a token, in seconds. {@code 0} if unknown
+     */
+    public RevocationExpiry(final int maxTokenLifetime) {
+        if (maxTokenLifetime < 0) {
+            throw new IllegalArgumentException("'maxTokenLifetime' must not be negative");
+        }
+        this.maxTokenLifetime = maxTokenLifetime;
+    }
+
+    /**
+     * Returns when the specified revocation expires.
+     *
+     * @param revocation the revocation
+     * @return the UTC UNIX timestamp after which no live token matches the revocation, or {@code null} if unknown
+     */
+    public Integer expiresAt(final RevocationRequest revocation) {
+        final RevokedData data = revocation.data();
+        if (data instanceof RevokedTokenData) {
+            final Integer exp = exp(((RevokedTokenData) data).token());
+            if (exp != null) {
+                return exp;
+            }
+        }
+        final Integer issuedBefore = issuedBefore(data);
+        if (maxTokenLifetime == 0 || issuedBefore == null) {
+            return null;
+        }
+        return issuedBefore + maxTokenLifetime;
+    }
+
+    /**
+     * Returns the revocations that did not expire yet.
+     *
+     * @param revocations the revocations
+     * @param now         the current instant, in UTC UNIX timestamp
+     * @param expired     counts the revocations left out
+     * @return the revocations not expired, in order
+     */
+    public static List<RevocationData> unexpired(final Collection<RevocationData> revocations, final int now,
+                                                 final Counter expired) {
+        final List<RevocationData> unexpired = new ArrayList<>(revocations.size());
+        for (RevocationData revocation : revocations) {
+            if (revocation.expiresAt() == null || revocation.expiresAt() > now) {
+                unexpired.add(revocation);
+            }
+        }
+        expired.inc(revocations.size() - unexpired.size());
+        return unexpired;
+    }
+
+    private static Integer issuedBefore(final RevokedData data) {
+        if (data instanceof RevokedTokenData) {
+            return ((RevokedTokenData) data).issuedBefore();
+        } else if (data instanceof RevokedClaimsData) {
+            return ((RevokedClaimsData) data).issuedBefore();
+        } else if (data instanceof RevokedGlobal) {
+            return ((RevokedGlobal) data).issuedBefore();
+        }
+        return null;
+    }
+
+    private static Integer exp(final String token) {
+        try {
+            final Date expirationTime = JWTParser.parse(token).getJWTClaimsSet().getExpirationTime();
+            return expirationTime == null ? null : UnixTimestamp.of(expirationTime);
+        } catch (ParseException e) {
+            // Not a JWT
+            return null;
+        }
+    }
+}
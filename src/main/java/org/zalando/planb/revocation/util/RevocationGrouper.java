@@ -0,0 +1,85 @@
+package org.zalando.planb.revocation.util;
+
+import com.google.common.collect.ImmutableList;
+import org.zalando.planb.revocation.domain.GroupedRevocationList;
+import org.zalando.planb.revocation.domain.ImmutableGroupedRevocationList;
+import org.zalando.planb.revocation.domain.ImmutableRevocationGroup;
+import org.zalando.planb.revocation.domain.RevocationGroup;
+import org.zalando.planb.revocation.domain.RevocationInfo;
+import org.zalando.planb.revocation.domain.RevocationList;
+import org.zalando.planb.revocation.domain.RevokedClaimsInfo;
+import org.zalando.planb.revocation.domain.RevokedGlobal;
+import org.zalando.planb.revocation.domain.RevokedInfo;
+import org.zalando.planb.revocation.domain.RevokedTokenInfo;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Groups the revocations of a {@link RevocationList} by type, claim names, hashing algorithm and separator.
+ *
+ * @author <a href="mailto:team-greendale@zalando.de">Team Greendale</a>
+ */
+public final class RevocationGrouper {
+
+    private RevocationGrouper() {
+    }
+
+    /**
+     * Groups the revocations of the specified list.
+     *
+     * @param list the list
+     * @return the same revocations and meta information, grouped
+     */
+    public static GroupedRevocationList group(final RevocationList list) {
+        final Map<RevocationGroup, List<RevocationInfo>> groups = new LinkedHashMap<>();
+        final List<RevocationInfo> revocations = new ArrayList<>(list.revocations());
+        revocations.sort(Comparator.comparing(RevocationInfo::revokedAt));
+        for (RevocationInfo revocation : revocations) {
+            groups.computeIfAbsent(header(revocation), group -> new ArrayList<>()).add(revocation);
+        }
+
+        final ImmutableGroupedRevocationList.Builder grouped = ImmutableGroupedRevocationList.builder()
+                .meta(list.meta());
+        for (Map.Entry<RevocationGroup, List<RevocationInfo>> group : groups.entrySet()) {
+            final ImmutableRevocationGroup.Builder builder = ImmutableRevocationGroup.builder().from(group.getKey());
+            int previous = 0;
+            for (RevocationInfo revocation : group.getValue()) {
+                builder.addRevocations(tuple(revocation.revokedAt() - previous, revocation.data()));
+                previous = revocation.revokedAt();
+            }
+            grouped.addGroups(builder.build());
+        }
+        return grouped.build();
+    }
+
+    /*
+     * A group without revocations, holding what its revocations share.
+     */
+    private static RevocationGroup header(final RevocationInfo revocation) {
+        final ImmutableRevocationGroup.Builder group = ImmutableRevocationGroup.builder().type(revocation.type());
+        final RevokedInfo data = revocation.data();
+        if (data instanceof RevokedClaimsInfo) {
+            group.names(ImmutableList.copyOf(((RevokedClaimsInfo) data).names()))
+                    .hashAlgorithm(((RevokedClaimsInfo) data).hashAlgorithm())
+                    .separator(((RevokedClaimsInfo) data).separator());
+        } else if (data instanceof RevokedTokenInfo) {
+            group.hashAlgorithm(((RevokedTokenInfo) data).hashAlgorithm());
+        }
+        return group.build();
+    }
+
+    private static ImmutableList<Object> tuple(final int revokedAt, final RevokedInfo data) {
+        if (data instanceof RevokedClaimsInfo) {
+            return ImmutableList.of(revokedAt, ((RevokedClaimsInfo) data).issuedBefore(),
+                    ((RevokedClaimsInfo) data).valueHash());
+        } else if (data instanceof RevokedTokenInfo) {
+            return ImmutableList.of(revokedAt, ((RevokedTokenInfo) data).issuedBefore(),
+                    ((RevokedTokenInfo) data).tokenHash());
+        }
+        return ImmutableList.of(revokedAt, ((RevokedGlobal) data).issuedBefore());
+    }
+}
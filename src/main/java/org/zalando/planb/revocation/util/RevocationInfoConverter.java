@@ -0,0 +1,119 @@
+package org.zalando.planb.revocation.util;
+
+import org.zalando.planb.revocation.domain.ImmutableRevocationInfo;
+import org.zalando.planb.revocation.domain.ImmutableRevokedClaimsInfo;
+import org.zalando.planb.revocation.domain.ImmutableRevokedTokenInfo;
+import org.zalando.planb.revocation.domain.NotificationType;
+import org.zalando.planb.revocation.domain.RevocationData;
+import org.zalando.planb.revocation.domain.RevocationInfo;
+import org.zalando.planb.revocation.domain.RevocationType;
+import org.zalando.planb.revocation.domain.RevokedClaimsData;
+import org.zalando.planb.revocation.domain.RevokedData;
+import org.zalando.planb.revocation.domain.RevokedGlobal;
+import org.zalando.planb.revocation.domain.RevokedInfo;
+import org.zalando.planb.revocation.domain.RevokedTokenData;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Converts stored revocations to the revocations published to clients, with tokens and claim values hashed.
+ *
+ * @author <a href="mailto:team-greendale@zalando.de">Team Greendale</a>
+ */
+public class RevocationInfoConverter {
+
+    private final MessageHasher messageHasher;
+
+    /**
+     * Constructs a new converter.
+     *
+     * @param messageHasher hashes tokens and claim values
+     */
+    public RevocationInfoConverter(final MessageHasher messageHasher) {
+        this.messageHasher = messageHasher;
+    }
+
+    /**
+     * Converts the specified revocations.
+     *
+     * @param revocations the stored revocations
+     * @return the revocations to publish, in order
+     */
+    public List<RevocationInfo> convert(final Collection<RevocationData> revocations) {
+        final List<RevocationInfo> converted = new ArrayList<>(revocations.size());
+        for (RevocationData revocation : revocations) {
+            converted.add(convert(revocation));
+        }
+        return converted;
+    }
+
+    /**
+     * Converts the specified revocation.
+     *
+     * @param stored the stored revocation
+     * @return the revocation to publish
+     */
+    public RevocationInfo convert(final RevocationData stored) {
+        final RevokedData data = stored.revocationRequest().data();
+
+        RevokedInfo revokedInfo = null;
+        if (data instanceof RevokedGlobal) {
+            // No transformation necessary
+            revokedInfo = (RevokedInfo) data;
+
+        } else if (data instanceof RevokedClaimsData) {
+            revokedInfo = ImmutableRevokedClaimsInfo.builder()
+                    .names(((RevokedClaimsData) data).claims().keySet())
+                    .valueHash(valueHash((RevokedClaimsData) data))
+                    .hashAlgorithm(hashAlgorithm(RevocationType.CLAIM))
+                    .issuedBefore(((RevokedClaimsData) data).issuedBefore())
+                    .separator(separator())
+                    .build();
+
+        } else if (data instanceof RevokedTokenData) {
+            revokedInfo = ImmutableRevokedTokenInfo.builder()
+                    .tokenHash(tokenHash((RevokedTokenData) data))
+                    .hashAlgorithm(hashAlgorithm(RevocationType.TOKEN))
+                    .issuedBefore(((RevokedTokenData) data).issuedBefore())
+                    .build();
+        }
+
+        return ImmutableRevocationInfo.builder()
+                .type(stored.revocationRequest().type())
+                .revokedAt(stored.revokedAt())
+                .data(revokedInfo)
+                .build();
+    }
+
+    /**
+     * Returns the specified revocations and meta information as a body written straight to JSON, without converting
+     * each revocation first.
+     *
+     * @param meta        the meta information
+     * @param revocations the stored revocations
+     * @return the body, serialized as the equivalent {@link org.zalando.planb.revocation.domain.RevocationList}
+     */
+    public StreamedRevocationList stream(final Map<NotificationType, Object> meta,
+                                         final Collection<RevocationData> revocations) {
+        return new StreamedRevocationList(meta, revocations, this);
+    }
+
+    String valueHash(final RevokedClaimsData data) {
+        return messageHasher.hashAndEncode(RevocationType.CLAIM, data.claims().values());
+    }
+
+    String tokenHash(final RevokedTokenData data) {
+        return messageHasher.hashAndEncode(RevocationType.TOKEN, data.token());
+    }
+
+    String hashAlgorithm(final RevocationType type) {
+        return messageHasher.hashingAlgorithms().get(type).getAlgorithm();
+    }
+
+    Character separator() {
+        return messageHasher.separator();
+    }
+}
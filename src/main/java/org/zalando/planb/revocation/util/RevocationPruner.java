@@ -0,0 +1,110 @@
+package org.zalando.planb.revocation.util;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.MetricRegistry;
+import org.zalando.planb.revocation.domain.RevocationData;
+import org.zalando.planb.revocation.domain.RevokedClaimsData;
+import org.zalando.planb.revocation.domain.RevokedData;
+import org.zalando.planb.revocation.domain.RevokedGlobal;
+import org.zalando.planb.revocation.domain.RevokedTokenData;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Drops revocations superseded by others of the same list, without changing which tokens the list revokes.
+ * <p>
+ * <p>A revocation is superseded when another one revokes at least the same tokens:</p>
+ * <p>
+ * <ul>
+ * <li>a {@code GLOBAL} revocation supersedes all revocations with an {@code issued_before} not after its own;</li>
+ * <li>a {@code TOKEN} or {@code CLAIM} revocation supersedes the ones of the same token or claim set with an
+ * {@code issued_before} not after its own.</li>
+ * </ul>
+ * <p>Of equivalent revocations, the first one is kept. Kept revocations stay in order. Since clients only act on the
+ * revocations they receive, only revocations superseded within the same list are dropped.</p>
+ * <p>
+ * <p>Dropped revocations are counted in {@code planb.revocations.pruned.<type>}.</p>
+ *
+ * @author <a href="mailto:team-greendale@zalando.de">Team Greendale</a>
+ */
+public class RevocationPruner {
+
+    private final Counter prunedGlobal;
+
+    private final Counter prunedTokens;
+
+    private final Counter prunedClaims;
+
+    /**
+     * Constructs a new pruner.
+     *
+     * @param metricRegistry registry of the pruned revocation counters
+     */
+    public RevocationPruner(final MetricRegistry metricRegistry) {
+        this.prunedGlobal = metricRegistry.counter("planb.revocations.pruned.global");
+        this.prunedTokens = metricRegistry.counter("planb.revocations.pruned.token");
+        this.prunedClaims = metricRegistry.counter("planb.revocations.pruned.claim");
+    }
+
+    /**
+     * Returns the revocations not superseded by others of the list.
+     *
+     * @param revocations the revocations to prune
+     * @return the revocations kept, in order
+     */
+    public List<RevocationData> prune(final Collection<RevocationData> revocations) {
+        int global = Integer.MIN_VALUE;
+        final Map<String, Integer> tokens = new HashMap<>();
+        final Map<Map<String, String>, Integer> claims = new HashMap<>();
+        for (RevocationData revocation : revocations) {
+            final RevokedData data = revocation.revocationRequest().data();
+            if (data instanceof RevokedGlobal) {
+                global = Math.max(global, ((RevokedGlobal) data).issuedBefore());
+            } else if (data instanceof RevokedTokenData) {
+                tokens.merge(((RevokedTokenData) data).token(), ((RevokedTokenData) data).issuedBefore(), Math::max);
+            } else if (data instanceof RevokedClaimsData) {
+                claims.merge(((RevokedClaimsData) data).claims(), ((RevokedClaimsData) data).issuedBefore(),
+                        Math::max);
+            }
+        }
+
+        final List<RevocationData> kept = new ArrayList<>(revocations.size());
+        boolean globalKept = false;
+        final Set<String> tokensKept = new HashSet<>();
+        final Set<Map<String, String>> claimsKept = new HashSet<>();
+        for (RevocationData revocation : revocations) {
+            final RevokedData data = revocation.revocationRequest().data();
+            if (data instanceof RevokedGlobal) {
+                if (globalKept || ((RevokedGlobal) data).issuedBefore() < global) {
+                    prunedGlobal.inc();
+                    continue;
+                }
+                globalKept = true;
+
+            } else if (data instanceof RevokedTokenData) {
+                final RevokedTokenData token = (RevokedTokenData) data;
+                if (token.issuedBefore() <= global || token.issuedBefore() < tokens.get(token.token())
+                        || !tokensKept.add(token.token())) {
+                    prunedTokens.inc();
+                    continue;
+                }
+
+            } else if (data instanceof RevokedClaimsData) {
+                final RevokedClaimsData claim = (RevokedClaimsData) data;
+                if (claim.issuedBefore() <= global || claim.issuedBefore() < claims.get(claim.claims())
+                        || !claimsKept.add(claim.claims())) {
+                    prunedClaims.inc();
+                    continue;
+                }
+            }
+            kept.add(revocation);
+        }
+        return kept;
+    }
+}
@@ -0,0 +1,231 @@
+package org.zalando.planb.revocation.util;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.PropertyNamingStrategy;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import org.zalando.planb.revocation.domain.ImmutableRevocationList;
+import org.zalando.planb.revocation.domain.NotificationType;
+import org.zalando.planb.revocation.domain.RevocationData;
+import org.zalando.planb.revocation.domain.RevocationList;
+import org.zalando.planb.revocation.domain.RevocationType;
+import org.zalando.planb.revocation.domain.RevokedClaimsData;
+import org.zalando.planb.revocation.domain.RevokedData;
+import org.zalando.planb.revocation.domain.RevokedGlobal;
+import org.zalando.planb.revocation.domain.RevokedTokenData;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Stored revocations, serialized to the same JSON as the {@link RevocationList} converted from them.
+ * <p>
+ * <p>Revocations are written to the {@link JsonGenerator} as they are read, instead of being converted to
+ * {@link org.zalando.planb.revocation.domain.RevocationInfo} and introspected by Jackson first, so that serializing a
+ * list allocates little beyond the hashes. Property names are translated once per naming strategy, and written
+ * pre-encoded. Under a naming strategy that does not translate names by themselves, or that renames {@code type},
+ * the list is converted and serialized as a {@link RevocationList}.</p>
+ *
+ * @author <a href="mailto:team-greendale@zalando.de">Team Greendale</a>
+ */
+@JsonSerialize(using = StreamedRevocationList.Serializer.class)
+public final class StreamedRevocationList {
+
+    private final Map<NotificationType, Object> meta;
+
+    private final Collection<RevocationData> revocations;
+
+    private final RevocationInfoConverter converter;
+
+    StreamedRevocationList(final Map<NotificationType, Object> meta, final Collection<RevocationData> revocations,
+                           final RevocationInfoConverter converter) {
+        this.meta = meta;
+        this.revocations = revocations;
+        this.converter = converter;
+    }
+
+    /**
+     * Returns the meta information.
+     *
+     * @return the meta information
+     */
+    public Map<NotificationType, Object> meta() {
+        return meta;
+    }
+
+    /**
+     * Returns the stored revocations.
+     *
+     * @return the stored revocations, in order
+     */
+    public Collection<RevocationData> revocations() {
+        return revocations;
+    }
+
+    /**
+     * Converts this list to the {@link RevocationList} it is serialized as.
+     *
+     * @return the converted list
+     */
+    public RevocationList toRevocationList() {
+        return ImmutableRevocationList.builder()
+                .meta(meta)
+                .revocations(converter.convert(revocations))
+                .build();
+    }
+
+    /**
+     * Writes a {@link StreamedRevocationList} property by property.
+     */
+    public static final class Serializer extends StdSerializer<StreamedRevocationList> {
+
+        /*
+         * Property the type id of the data is written to, as declared by RevocationInfo#data().
+         */
+        private static final String TYPE_ID = "type";
+
+        /*
+         * Names of the last naming strategy used. Mappers rarely change strategies, so one entry is enough.
+         */
+        private volatile Names names;
+
+        public Serializer() {
+            super(StreamedRevocationList.class);
+        }
+
+        @Override
+        public void serialize(final StreamedRevocationList list, final JsonGenerator gen,
+                              final SerializerProvider provider) throws IOException {
+            final PropertyNamingStrategy strategy = provider.getConfig().getPropertyNamingStrategy();
+            if (strategy != null && !(strategy instanceof PropertyNamingStrategy.PropertyNamingStrategyBase)) {
+                provider.defaultSerializeValue(list.toRevocationList(), gen);
+                return;
+            }
+            Names names = this.names;
+            if (names == null || names.strategy != strategy) {
+                names = new Names((PropertyNamingStrategy.PropertyNamingStrategyBase) strategy);
+                this.names = names;
+            }
+            if (!TYPE_ID.equals(names.type.getValue())) {
+                // Jackson then writes the type id of the data apart from the type
+                provider.defaultSerializeValue(list.toRevocationList(), gen);
+                return;
+            }
+
+            gen.writeStartObject();
+            gen.writeFieldName(names.meta);
+            provider.defaultSerializeValue(list.meta, gen);
+            gen.writeFieldName(names.revocations);
+            gen.writeStartArray();
+            String separator = null;
+            for (RevocationData revocation : list.revocations) {
+                gen.writeStartObject();
+                gen.writeFieldName(names.type);
+                provider.defaultSerializeValue(revocation.revocationRequest().type(), gen);
+                gen.writeFieldName(names.revokedAt);
+                gen.writeNumber(revocation.revokedAt());
+                gen.writeFieldName(names.data);
+
+                final RevokedData data = revocation.revocationRequest().data();
+                if (data instanceof RevokedGlobal) {
+                    gen.writeStartObject();
+                    gen.writeFieldName(names.issuedBefore);
+                    gen.writeNumber(((RevokedGlobal) data).issuedBefore());
+                    gen.writeEndObject();
+
+                } else if (data instanceof RevokedClaimsData) {
+                    final RevokedClaimsData claims = (RevokedClaimsData) data;
+                    if (separator == null) {
+                        separator = String.valueOf(list.converter.separator());
+                    }
+                    gen.writeStartObject();
+                    gen.writeFieldName(names.names);
+                    gen.writeStartArray();
+                    for (String name : claims.claims().keySet()) {
+                        gen.writeString(name);
+                    }
+                    gen.writeEndArray();
+                    gen.writeFieldName(names.valueHash);
+                    gen.writeString(list.converter.valueHash(claims));
+                    gen.writeFieldName(names.hashAlgorithm);
+                    gen.writeString(list.converter.hashAlgorithm(RevocationType.CLAIM));
+                    gen.writeFieldName(names.separator);
+                    gen.writeString(separator);
+                    gen.writeFieldName(names.issuedBefore);
+                    gen.writeNumber(claims.issuedBefore());
+                    gen.writeEndObject();
+
+                } else if (data instanceof RevokedTokenData) {
+                    final RevokedTokenData token = (RevokedTokenData) data;
+                    gen.writeStartObject();
+                    gen.writeFieldName(names.tokenHash);
+                    gen.writeString(list.converter.tokenHash(token));
+                    gen.writeFieldName(names.hashAlgorithm);
+                    gen.writeString(list.converter.hashAlgorithm(RevocationType.TOKEN));
+                    gen.writeFieldName(names.issuedBefore);
+                    gen.writeNumber(token.issuedBefore());
+                    gen.writeEndObject();
+
+                } else {
+                    gen.writeNull();
+                }
+                gen.writeEndObject();
+            }
+            gen.writeEndArray();
+            gen.writeEndObject();
+        }
+    }
+
+    /*
+     * Property names, as translated by a naming strategy.
+     */
+    private static final class Names {
+
+        private final PropertyNamingStrategy strategy;
+
+        private final SerializedString meta;
+
+        private final SerializedString revocations;
+
+        private final SerializedString type;
+
+        private final SerializedString revokedAt;
+
+        private final SerializedString data;
+
+        private final SerializedString names;
+
+        private final SerializedString valueHash;
+
+        private final SerializedString tokenHash;
+
+        private final SerializedString hashAlgorithm;
+
+        private final SerializedString separator;
+
+        private final SerializedString issuedBefore;
+
+        private Names(final PropertyNamingStrategy.PropertyNamingStrategyBase strategy) {
+            this.strategy = strategy;
+            this.meta = name(strategy, "meta");
+            this.revocations = name(strategy, "revocations");
+            this.type = name(strategy, "type");
+            this.revokedAt = name(strategy, "revokedAt");
+            this.data = name(strategy, "data");
+            this.names = name(strategy, "names");
+            this.valueHash = name(strategy, "valueHash");
+            this.tokenHash = name(strategy, "tokenHash");
+            this.hashAlgorithm = name(strategy, "hashAlgorithm");
+            this.separator = name(strategy, "separator");
+            this.issuedBefore = name(strategy, "issuedBefore");
+        }
+
+        private static SerializedString name(final PropertyNamingStrategy.PropertyNamingStrategyBase strategy,
+                                             final String name) {
+            return new SerializedString(strategy == null ? name : strategy.translate(name));
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package org.zalando.planb.revocation.web;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.springframework.http.HttpHeaders;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Enumeration;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Gzip compressed bodies of the responses recently sent, by the {@code Digest} header of the uncompressed body.
+ * <p>
+ * <p>Clients polling the same window get byte identical responses, which are compressed once instead of by the
+ * container for every request. Filters buffering the body write it through this cache, so that it is buffered once
+ * whatever else they do with it.</p>
+ *
+ * @author <a href="mailto:team-greendale@zalando.de">Team Greendale</a>
+ */
+public class CompressedResponseCache {
+
+    private static final String GZIP = "gzip";
+
+    private final Cache<String, Compressed> cache;
+
+    private final int minResponseSize;
+
+    private final Meter hits;
+
+    private final Meter misses;
+
+    private final Histogram ratio;
+
+    private final Counter cpuSaved;
+
+    /**
+     * Constructs a new cache.
+     *
+     * @param metricRegistry  registry of the compression metrics
+     * @param maximumSize     maximum size of the compressed bodies cached, in bytes
+     * @param minResponseSize minimum size of the bodies compressed, in bytes
+     */
+    public CompressedResponseCache(final MetricRegistry metricRegistry, final long maximumSize,
+                                   final int minResponseSize) {
+        this.cache = CacheBuilder.newBuilder()
+                .maximumWeight(maximumSize)
+                .weigher((String digest, Compressed compressed) -> compressed.content.length)
+                .build();
+        this.minResponseSize = minResponseSize;
+        this.hits = metricRegistry.meter("planb.compression.cache.hits");
+        this.misses = metricRegistry.meter("planb.compression.cache.misses");
+        this.ratio = metricRegistry.histogram("planb.compression.ratio");
+        this.cpuSaved = metricRegistry.counter("planb.compression.cpu.saved");
+    }
+
+    /**
+     * Writes the specified body gzip compressed to the response, if the client accepts it and the body is worth it.
+     * <p>
+     * <p>The response gets a {@code Content-Encoding} header, so that the container does not compress it again. The
+     * body is only compressed if it is not cached yet.</p>
+     *
+     * @param request  the request
+     * @param response the response, not written to yet
+     * @param digest   the {@code Digest} header of the body
+     * @param body     the uncompressed body
+     * @return {@code true} if the compressed body was written, {@code false} if nothing was
+     * @throws IOException if the body cannot be written
+     */
+    public boolean write(final HttpServletRequest request, final HttpServletResponse response, final String digest,
+                         final byte[] body) throws IOException {
+        if (!acceptsGzip(request) || body.length < minResponseSize
+                || response.containsHeader(HttpHeaders.CONTENT_ENCODING)) {
+            return false;
+        }
+
+        Compressed compressed = cache.getIfPresent(digest);
+        if (compressed != null) {
+            hits.mark();
+            cpuSaved.inc(TimeUnit.NANOSECONDS.toMicros(compressed.nanos));
+        } else {
+            misses.mark();
+            compressed = compress(body);
+            cache.put(digest, compressed);
+            ratio.update(compressed.content.length * 100L / body.length);
+        }
+
+        response.setHeader(HttpHeaders.CONTENT_ENCODING, GZIP);
+        response.setContentLength(compressed.content.length);
+        response.getOutputStream().write(compressed.content);
+        return true;
+    }
+
+    /**
+     * Returns the size of the compressed bodies cached.
+     *
+     * @return the size, in bytes
+     */
+    public long cachedBytes() {
+        long bytes = 0;
+        for (Compressed compressed : cache.asMap().values()) {
+            bytes += compressed.content.length;
+        }
+        return bytes;
+    }
+
+    private static Compressed compress(final byte[] body) throws IOException {
+        final long start = System.nanoTime();
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream(body.length / 4);
+        try (OutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(body);
+        }
+        return new Compressed(bytes.toByteArray(), System.nanoTime() - start);
+    }
+
+    /**
+     * Returns whether the specified request accepts gzip compressed responses.
+     *
+     * @param request the request
+     * @return {@code true} if {@code gzip} is in {@code Accept-Encoding} with a non zero quality
+     */
+    public static boolean acceptsGzip(final HttpServletRequest request) {
+        final Enumeration<String> values = request.getHeaders(HttpHeaders.ACCEPT_ENCODING);
+        while (values != null && values.hasMoreElements()) {
+            for (String coding : values.nextElement().split(",")) {
+                final String[] parts = coding.trim().split(";");
+                if (parts[0].trim().equalsIgnoreCase(GZIP)) {
+                    return parts.length == 1 || !parts[1].replace(" ", "").matches("q=0(\\.0*)?");
+                }
+            }
+        }
+        return false;
+    }
+
+    /*
+     * A compressed body, with the time it took to compress it.
+     */
+    private static final class Compressed {
+
+        private final byte[] content;
+
+        private final long nanos;
+
+        private Compressed(final byte[] content, final long nanos) {
+            this.content = content;
+            this.nanos = nanos;
+        }
+    }
+}
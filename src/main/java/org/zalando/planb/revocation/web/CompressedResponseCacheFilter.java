@@ -0,0 +1,59 @@
+package org.zalando.planb.revocation.web;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Gzip compresses successful responses for clients accepting it, reusing the compressed bodies of the responses
+ * recently sent.
+ * <p>
+ * <p>Compressed bodies are cached in a {@link CompressedResponseCache} by the {@code Digest} header of the body, as set
+ * by the handler, or computed otherwise. Responses already buffered by a {@link DigestHeaderFilter} are compressed by
+ * it instead, from the same buffer.</p>
+ *
+ * @author <a href="mailto:team-greendale@zalando.de">Team Greendale</a>
+ */
+public class CompressedResponseCacheFilter extends OncePerRequestFilter {
+
+    private final CompressedResponseCache cache;
+
+    /**
+     * Constructs a new filter.
+     *
+     * @param cache the compressed bodies recently sent
+     */
+    public CompressedResponseCacheFilter(final CompressedResponseCache cache) {
+        this.cache = cache;
+    }
+
+    @Override
+    protected void doFilterInternal(final HttpServletRequest request, final HttpServletResponse response,
+                                    final FilterChain filterChain) throws ServletException, IOException {
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (!CompressedResponseCache.acceptsGzip(request)) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        final ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        filterChain.doFilter(request, wrapper);
+        if (wrapper.getStatusCode() != HttpServletResponse.SC_OK || response.isCommitted()) {
+            wrapper.copyBodyToResponse();
+            return;
+        }
+
+        final byte[] body = wrapper.getContentAsByteArray();
+        final String digest = response.containsHeader(DigestHeaderFilter.DIGEST_HEADER)
+                ? response.getHeader(DigestHeaderFilter.DIGEST_HEADER) : DigestHeaderFilter.digest(body);
+        if (!cache.write(request, response, digest, body)) {
+            wrapper.copyBodyToResponse();
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package org.zalando.planb.revocation.web;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+
+/**
+ * Adds the SHA-256 checksum of successful response bodies in a {@code Digest} header (RFC 3230), so that clients can
+ * verify what they received, and tags them with an {@code ETag} derived from the same checksum.
+ * <p>
+ * <p>{@code GET} requests sending the {@code ETag} back in {@code If-None-Match} get {@code 304 Not Modified}, without
+ * a body. The body is buffered and hashed once for both headers, and compressed from the same buffer when a
+ * {@link CompressedResponseCache} is given, so that responses are buffered once on their way out.</p>
+ * <p>
+ * <p>When a {@link RenderedResponseCache} is given, immutable responses are kept rendered, and answered again without
+ * calling the handler.</p>
+ *
+ * @author <a href="mailto:team-greendale@zalando.de">Team Greendale</a>
+ */
+public class DigestHeaderFilter extends OncePerRequestFilter {
+
+    public static final String DIGEST_HEADER = "Digest";
+
+    private final CompressedResponseCache compression;
+
+    private final RenderedResponseCache rendered;
+
+    /**
+     * Constructs a new filter leaving responses uncompressed.
+     */
+    public DigestHeaderFilter() {
+        this(null);
+    }
+
+    /**
+     * Constructs a new filter compressing responses for clients accepting it.
+     *
+     * @param compression the compressed bodies recently sent, or {@code null} to leave responses uncompressed
+     */
+    public DigestHeaderFilter(final CompressedResponseCache compression) {
+        this(compression, null);
+    }
+
+    /**
+     * Constructs a new filter compressing responses for clients accepting it, and answering requests for immutable
+     * responses from the ones recently rendered.
+     *
+     * @param compression the compressed bodies recently sent, or {@code null} to leave responses uncompressed
+     * @param rendered    the immutable responses recently sent, or {@code null} to always call the handler
+     */
+    public DigestHeaderFilter(final CompressedResponseCache compression, final RenderedResponseCache rendered) {
+        this.compression = compression;
+        this.rendered = rendered;
+    }
+
+    @Override
+    protected void doFilterInternal(final HttpServletRequest request, final HttpServletResponse response,
+                                    final FilterChain filterChain) throws ServletException, IOException {
+        if (compression != null) {
+            response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        }
+        final boolean get = HttpMethod.GET.matches(request.getMethod());
+        final RenderedResponseCache.Rendered cached = rendered != null && get ? rendered.get(request) : null;
+        if (cached != null) {
+            writeCached(request, response, cached);
+            return;
+        }
+
+        final ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        boolean compressed = false;
+        try {
+            filterChain.doFilter(request, wrapper);
+            if (wrapper.getStatusCode() == HttpServletResponse.SC_OK && !response.isCommitted()) {
+                final byte[] body = wrapper.getContentAsByteArray();
+                final byte[] hash = sha256(body);
+                final String etag = etag(hash);
+                final String digest = digestOf(hash);
+                response.setHeader(HttpHeaders.ETAG, etag);
+                if (rendered != null && get) {
+                    rendered.put(request, wrapper, body, etag, digest);
+                }
+                if (get && isNotModified(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+                    wrapper.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+                    wrapper.resetBuffer();
+                } else {
+                    response.setHeader(DIGEST_HEADER, digest);
+                    compressed = compression != null && compression.write(request, response, digest, body);
+                }
+            }
+        } finally {
+            if (!compressed) {
+                wrapper.copyBodyToResponse();
+            }
+        }
+    }
+
+    private void writeCached(final HttpServletRequest request, final HttpServletResponse response,
+                             final RenderedResponseCache.Rendered cached) throws IOException {
+        response.setContentType(cached.contentType());
+        response.setHeader(HttpHeaders.CACHE_CONTROL, cached.cacheControl());
+        response.setHeader(HttpHeaders.ETAG, cached.etag());
+        if (isNotModified(request.getHeader(HttpHeaders.IF_NONE_MATCH), cached.etag())) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+        response.setHeader(DIGEST_HEADER, cached.digest());
+        if (compression == null || !compression.write(request, response, cached.digest(), cached.body())) {
+            response.setContentLength(cached.body().length);
+            response.getOutputStream().write(cached.body());
+        }
+    }
+
+    private static boolean isNotModified(final String ifNoneMatch, final String etag) {
+        return ifNoneMatch != null && ("*".equals(ifNoneMatch.trim()) || ifNoneMatch.contains(etag));
+    }
+
+    /**
+     * Returns the value of the {@code Digest} header of the specified body.
+     *
+     * @param body the body
+     * @return the header value
+     */
+    public static String digest(final byte[] body) {
+        return digestOf(sha256(body));
+    }
+
+    private static String digestOf(final byte[] hash) {
+        return "SHA-256=" + Base64.getEncoder().encodeToString(hash);
+    }
+
+    private static String etag(final byte[] hash) {
+        return "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(hash) + "\"";
+    }
+
+    private static byte[] sha256(final byte[] body) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(body);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
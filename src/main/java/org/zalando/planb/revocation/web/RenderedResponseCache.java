@@ -0,0 +1,166 @@
+package org.zalando.planb.revocation.web;
+
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Rendered bodies of the immutable responses recently sent, by request URI and query string.
+ * <p>
+ * <p>Revocation lists of ranges ending before the current bucket never change, and are sent with a public {@code
+ * Cache-Control} header. Clients polling the same range, like validators of the same shard, get the body rendered for
+ * the first one, with its {@code ETag} and {@code Digest}, without the revocations being read, serialized, buffered
+ * and hashed again. Responses are kept for the {@code max-age} they were sent with at most, like by any shared cache
+ * between clients and this service.</p>
+ *
+ * @author <a href="mailto:team-greendale@zalando.de">Team Greendale</a>
+ */
+public class RenderedResponseCache {
+
+    private static final Pattern MAX_AGE = Pattern.compile("max-age=(\\d+)");
+
+    private final Cache<String, Rendered> cache;
+
+    private final Meter hits;
+
+    private final Meter misses;
+
+    /**
+     * Constructs a new cache.
+     *
+     * @param metricRegistry registry of the cache metrics
+     * @param maximumSize    maximum size of the bodies cached, in bytes
+     */
+    public RenderedResponseCache(final MetricRegistry metricRegistry, final long maximumSize) {
+        this.cache = CacheBuilder.newBuilder()
+                .maximumWeight(maximumSize)
+                .weigher((String key, Rendered rendered) -> rendered.body.length)
+                .build();
+        this.hits = metricRegistry.meter("planb.responses.cache.hits");
+        this.misses = metricRegistry.meter("planb.responses.cache.misses");
+    }
+
+    /**
+     * Returns the response rendered for the specified request, if it is cached and still fresh.
+     *
+     * @param request the request
+     * @return the rendered response, or {@code null} if there is none
+     */
+    public Rendered get(final HttpServletRequest request) {
+        final String key = key(request);
+        final Rendered rendered = cache.getIfPresent(key);
+        if (rendered == null || rendered.expiresAt <= System.currentTimeMillis()) {
+            if (rendered != null) {
+                cache.asMap().remove(key, rendered);
+            }
+            misses.mark();
+            return null;
+        }
+        hits.mark();
+        return rendered;
+    }
+
+    /**
+     * Caches the specified response to the request, if it is public and fresh for a while, as told by its {@code
+     * Cache-Control} header.
+     *
+     * @param request  the request
+     * @param response the successful response, with its headers set
+     * @param body     the uncompressed body
+     * @param etag     the {@code ETag} header of the body
+     * @param digest   the {@code Digest} header of the body
+     */
+    public void put(final HttpServletRequest request, final HttpServletResponse response, final byte[] body,
+                    final String etag, final String digest) {
+        final String cacheControl = response.getHeader(HttpHeaders.CACHE_CONTROL);
+        if (cacheControl == null || !cacheControl.contains("public") || cacheControl.contains("no-")
+                || response.containsHeader(HttpHeaders.CONTENT_ENCODING)) {
+            return;
+        }
+        final Matcher maxAge = MAX_AGE.matcher(cacheControl);
+        if (!maxAge.find()) {
+            return;
+        }
+        final long expiresAt = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(Long.parseLong(maxAge.group(1)));
+        cache.put(key(request), new Rendered(body, response.getContentType(), etag, digest, expiresAt));
+    }
+
+    /**
+     * Returns the size of the bodies cached.
+     *
+     * @return the size, in bytes
+     */
+    public long cachedBytes() {
+        long bytes = 0;
+        for (Rendered rendered : cache.asMap().values()) {
+            bytes += rendered.body.length;
+        }
+        return bytes;
+    }
+
+    private static String key(final HttpServletRequest request) {
+        return request.getQueryString() == null ? request.getRequestURI()
+                : request.getRequestURI() + '?' + request.getQueryString();
+    }
+
+    /**
+     * A rendered response, with the headers describing its body.
+     */
+    public static final class Rendered {
+
+        private final byte[] body;
+
+        private final String contentType;
+
+        private final String etag;
+
+        private final String digest;
+
+        private final long expiresAt;
+
+        private Rendered(final byte[] body, final String contentType, final String etag, final String digest,
+                         final long expiresAt) {
+            this.body = body;
+            this.contentType = contentType;
+            this.etag = etag;
+            this.digest = digest;
+            this.expiresAt = expiresAt;
+        }
+
+        public byte[] body() {
+            return body;
+        }
+
+        public String contentType() {
+            return contentType;
+        }
+
+        public String etag() {
+            return etag;
+        }
+
+        public String digest() {
+            return digest;
+        }
+
+        /**
+         * Returns the {@code Cache-Control} header of the response, with the time it remains fresh for.
+         *
+         * @return the header value
+         */
+        public String cacheControl() {
+            final long maxAge = Math.max(0, expiresAt - System.currentTimeMillis());
+            return CacheControl.maxAge(TimeUnit.MILLISECONDS.toSeconds(maxAge), TimeUnit.SECONDS).cachePublic()
+                    .getHeaderValue();
+        }
+    }
+}
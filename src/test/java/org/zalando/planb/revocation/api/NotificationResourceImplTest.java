@@ -14,42 +14,61 @@ import org.zalando.planb.revocation.api.exception.SerializationException;
 import org.zalando.planb.revocation.api.impl.NotificationResourceImpl;
 import org.zalando.planb.revocation.domain.NotificationType;
 import org.zalando.planb.revocation.persistence.RevocationStore;
+import org.zalando.planb.revocation.service.PeerNotificationService;
 
 public class NotificationResourceImplTest {
 
     private MockMvc mockMvc;
     private RevocationStore revocationStore;
+    private PeerNotificationService peerNotificationService;
 
     @Before
     public void setUp() {
         revocationStore = Mockito.mock(RevocationStore.class);
-        mockMvc = standaloneSetup(new NotificationResourceImpl(revocationStore))
+        peerNotificationService = Mockito.mock(PeerNotificationService.class);
+        mockMvc = standaloneSetup(new NotificationResourceImpl(revocationStore, peerNotificationService))
                 .setControllerAdvice(new ExceptionsResource())
                 .alwaysDo(print()).build();
     }
 
     @Test(expected = IllegalArgumentException.class)
     public void typeNotSettableThrowsException() {
-        NotificationResourceImpl resource = new NotificationResourceImpl(revocationStore);
+        NotificationResourceImpl resource = new NotificationResourceImpl(revocationStore, peerNotificationService);
         resource.post(NotificationType.REFRESH_TIMESTAMP, null);
     }
 
     @Test(expected = IllegalArgumentException.class)
     public void valueIsNullThrowsException() {
-        NotificationResourceImpl resource = new NotificationResourceImpl(revocationStore);
+        NotificationResourceImpl resource = new NotificationResourceImpl(revocationStore, peerNotificationService);
         resource.post(NotificationType.REFRESH_FROM, null);
     }
 
     @Test(expected = IllegalArgumentException.class)
     public void valueNotParseableIntegerThrowsException() {
-        NotificationResourceImpl resource = new NotificationResourceImpl(revocationStore);
+        NotificationResourceImpl resource = new NotificationResourceImpl(revocationStore, peerNotificationService);
         resource.post(NotificationType.REFRESH_FROM, "NotAnInteger");
     }
 
     @Test(expected = SerializationException.class)
     public void storageUnableToStoreFromThrowsException() {
-        NotificationResourceImpl resource = new NotificationResourceImpl(revocationStore);
+        NotificationResourceImpl resource = new NotificationResourceImpl(revocationStore, peerNotificationService);
         Mockito.doThrow(new SerializationException()).when(revocationStore).storeRefresh(12);
         resource.post(NotificationType.REFRESH_FROM, "12");
     }
+
+    @Test
+    public void storedRefreshIsPublishedToPeers() {
+        NotificationResourceImpl resource = new NotificationResourceImpl(revocationStore, peerNotificationService);
+        resource.post(NotificationType.REFRESH_FROM, "12");
+        Mockito.verify(peerNotificationService).publish(12);
+    }
+
+    @Test
+    public void failedRefreshIsNotPublishedToPeers() {
+        NotificationResourceImpl resource = new NotificationResourceImpl(revocationStore, peerNotificationService);
+        Mockito.doThrow(new SerializationException()).when(revocationStore).storeRefresh(12);
+        Assertions.assertThatThrownBy(() -> resource.post(NotificationType.REFRESH_FROM, "12"))
+                .isInstanceOf(SerializationException.class);
+        Mockito.verifyZeroInteractions(peerNotificationService);
+    }
 }
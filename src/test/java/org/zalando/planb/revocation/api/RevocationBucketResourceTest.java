@@ -0,0 +1,120 @@
+package org.zalando.planb.revocation.api;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.zalando.planb.revocation.api.impl.RevocationBucketResourceImpl;
+import org.zalando.planb.revocation.config.properties.CassandraProperties;
+import org.zalando.planb.revocation.domain.ImmutableRevocationBucket;
+import org.zalando.planb.revocation.domain.RevocationBucket;
+import org.zalando.planb.revocation.service.RevocationBucketService;
+import org.zalando.planb.revocation.util.UnixTimestamp;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Optional;
+import java.util.zip.GZIPOutputStream;
+
+import static org.hamcrest.Matchers.startsWith;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static org.springframework.test.web.servlet.setup.MockMvcBuilders.standaloneSetup;
+
+/**
+ * Tests {@code GET} requests on {@code /revocations/buckets}.
+ */
+public class RevocationBucketResourceTest {
+
+    private static final String CONTENT = "{\"meta\":{},\"revocations\":[]}";
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private final RevocationBucketService bucketService = mock(RevocationBucketService.class);
+
+    private byte[] compressed;
+
+    private MockMvc mvc;
+
+    @Before
+    public void setUp() throws Exception {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(CONTENT.getBytes(StandardCharsets.UTF_8));
+        }
+        compressed = bytes.toByteArray();
+        final Path file = folder.newFile("2016-03-15-1.json.gz").toPath();
+        Files.write(file, compressed);
+
+        final int from = UnixTimestamp.now() - 24 * 60 * 60;
+        final RevocationBucket bucket = ImmutableRevocationBucket.builder()
+                .date("2016-03-15")
+                .interval(1)
+                .after(from)
+                .to(from + 8 * 60 * 60 + 1)
+                .revocations(0)
+                .checksum("checksum")
+                .size(compressed.length)
+                .build();
+        when(bucketService.buckets()).thenReturn(Collections.singletonList(bucket));
+        when(bucketService.get("2016-03-15", 1)).thenReturn(Optional.of(bucket));
+        when(bucketService.file(bucket)).thenReturn(file);
+
+        mvc = standaloneSetup(new RevocationBucketResourceImpl(Optional.of(bucketService), new CassandraProperties()))
+                .build();
+    }
+
+    @Test
+    public void testIndex() throws Exception {
+        mvc.perform(get("/revocations/buckets"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.buckets[0].date").value("2016-03-15"))
+                .andExpect(jsonPath("$.buckets[0].from").exists())
+                .andExpect(jsonPath("$.buckets[0].checksum").value("checksum"));
+    }
+
+    @Test
+    public void testGzipSentAsRendered() throws Exception {
+        mvc.perform(get("/revocations/buckets/2016-03-15/1").header(HttpHeaders.ACCEPT_ENCODING, "deflate, gzip"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"checksum\""))
+                .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, startsWith("max-age=")))
+                .andExpect(content().bytes(compressed));
+    }
+
+    @Test
+    public void testUncompressedWhenGzipNotAccepted() throws Exception {
+        mvc.perform(get("/revocations/buckets/2016-03-15/1").header(HttpHeaders.ACCEPT_ENCODING, "gzip;q=0"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+                .andExpect(content().string(CONTENT));
+    }
+
+    @Test
+    public void testNotModified() throws Exception {
+        mvc.perform(get("/revocations/buckets/2016-03-15/1").header(HttpHeaders.IF_NONE_MATCH, "\"checksum\""))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    public void testNotFound() throws Exception {
+        when(bucketService.get("2016-03-15", 2)).thenReturn(Optional.empty());
+        mvc.perform(get("/revocations/buckets/2016-03-15/2")).andExpect(status().isNotFound());
+        standaloneSetup(new RevocationBucketResourceImpl(Optional.empty(), new CassandraProperties())).build()
+                .perform(get("/revocations/buckets")).andExpect(status().isNotFound());
+    }
+}
@@ -0,0 +1,142 @@
+package org.zalando.planb.revocation.api;
+
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.collect.ImmutableList;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.zalando.planb.revocation.api.exception.DeadlineExceededException;
+import org.zalando.planb.revocation.api.impl.RevocationResourceImpl;
+import org.zalando.planb.revocation.config.properties.CassandraProperties;
+import org.zalando.planb.revocation.config.properties.RevocationProperties;
+import org.zalando.planb.revocation.domain.ImmutableRevocationData;
+import org.zalando.planb.revocation.domain.ImmutableRevocationRequest;
+import org.zalando.planb.revocation.domain.ImmutableRevokedGlobal;
+import org.zalando.planb.revocation.domain.RevocationData;
+import org.zalando.planb.revocation.domain.RevocationType;
+import org.zalando.planb.revocation.persistence.RevocationStore;
+import org.zalando.planb.revocation.util.Deadline;
+import org.zalando.planb.revocation.util.MessageHasher;
+import org.zalando.planb.revocation.util.RevocationInfoConverter;
+import org.zalando.planb.revocation.util.UnixTimestamp;
+
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static org.springframework.test.web.servlet.setup.MockMvcBuilders.standaloneSetup;
+
+/**
+ * Tests deadlines and expiry of {@code GET} requests on {@code /revocations}.
+ */
+public class RevocationResourceDeadlineTest {
+
+    private static final RevocationData REVOCATION = ImmutableRevocationData.builder()
+            .revocationRequest(ImmutableRevocationRequest.builder()
+                    .type(RevocationType.GLOBAL)
+                    .data(ImmutableRevokedGlobal.builder().issuedBefore(1458000000).build())
+                    .build())
+            .revokedAt(1458000100)
+            .build();
+
+    private final RevocationStore storage = mock(RevocationStore.class);
+
+    private final RevocationProperties revocationProperties = new RevocationProperties();
+
+    private final MetricRegistry metricRegistry = new MetricRegistry();
+
+    private MockMvc mvc;
+
+    @Before
+    public void setUp() {
+        final RevocationResourceImpl resource = new RevocationResourceImpl();
+        ReflectionTestUtils.setField(resource, "storage", storage);
+        ReflectionTestUtils.setField(resource, "cassandraProperties", new CassandraProperties());
+        ReflectionTestUtils.setField(resource, "revocationProperties", revocationProperties);
+        ReflectionTestUtils.setField(resource, "metricRegistry", metricRegistry);
+        ReflectionTestUtils.setField(resource, "revocationInfoConverter",
+                new RevocationInfoConverter(mock(MessageHasher.class)));
+        mvc = standaloneSetup(resource).setControllerAdvice(new ExceptionsResource()).build();
+    }
+
+    @Test
+    public void testPartialResultWhenDeadlineExceeded() throws Exception {
+        revocationProperties.setPartialResults(true);
+        when(storage.getRevocations(anyInt(), any(Deadline.class)))
+                .thenThrow(new DeadlineExceededException(ImmutableList.of(REVOCATION), 1458028799));
+
+        mvc.perform(get("/revocations?from=1458000000"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.meta.NEXT_FROM").value(1458028799))
+                .andExpect(jsonPath("$.revocations[0].type").value("GLOBAL"));
+
+        assertThat(metricRegistry.counter("planb.revocations.deadline.exceeded").getCount()).isEqualTo(1);
+        assertThat(metricRegistry.counter("planb.revocations.deadline.partial").getCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void testServiceUnavailableWhenNothingWasRead() throws Exception {
+        revocationProperties.setPartialResults(true);
+        when(storage.getRevocations(anyInt(), any(Deadline.class)))
+                .thenThrow(new DeadlineExceededException(Collections.emptyList(), null));
+
+        mvc.perform(get("/revocations?from=1458000000")).andExpect(status().isServiceUnavailable());
+
+        assertThat(metricRegistry.counter("planb.revocations.deadline.exceeded").getCount()).isEqualTo(1);
+        assertThat(metricRegistry.counter("planb.revocations.deadline.partial").getCount()).isZero();
+    }
+
+    @Test
+    public void testServiceUnavailableWhenPartialResultsAreDisabled() throws Exception {
+        when(storage.getRevocations(anyInt(), any(Deadline.class)))
+                .thenThrow(new DeadlineExceededException(ImmutableList.of(REVOCATION), 1458028799));
+
+        mvc.perform(get("/revocations?from=1458000000")).andExpect(status().isServiceUnavailable());
+    }
+
+    @Test
+    public void testClientsCanOnlyShortenDeadline() throws Exception {
+        revocationProperties.setRequestTimeout(60000);
+        when(storage.getRevocations(anyInt(), any(Deadline.class))).thenReturn(Collections.emptyList());
+
+        mvc.perform(get("/revocations?from=1458000000").header(RevocationResourceImpl.TIMEOUT_HEADER, "1000"))
+                .andExpect(status().isOk());
+        mvc.perform(get("/revocations?from=1458000000").header(RevocationResourceImpl.TIMEOUT_HEADER, "600000"))
+                .andExpect(status().isOk());
+
+        final ArgumentCaptor<Deadline> deadlines = ArgumentCaptor.forClass(Deadline.class);
+        verify(storage, times(2)).getRevocations(eq(1458000000), deadlines.capture());
+        assertThat(deadlines.getAllValues().get(0).remainingMillis()).isLessThanOrEqualTo(1000);
+        assertThat(deadlines.getAllValues().get(1).remainingMillis()).isBetween(1000L, 60000L);
+    }
+
+    @Test
+    public void testExpiredRevocationsAreLeftOut() throws Exception {
+        final RevocationData expired = ImmutableRevocationData.copyOf(REVOCATION)
+                .withExpiresAt(UnixTimestamp.now() - 1);
+        final RevocationData live = ImmutableRevocationData.copyOf(REVOCATION)
+                .withRevokedAt(1458000200)
+                .withExpiresAt(UnixTimestamp.now() + 3600);
+        when(storage.getRevocations(anyInt(), any(Deadline.class)))
+                .thenReturn(ImmutableList.of(expired, live, REVOCATION));
+
+        mvc.perform(get("/revocations?from=1458000000"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.revocations[0].revokedAt").value(1458000200))
+                .andExpect(jsonPath("$.revocations[1].revokedAt").value(1458000100))
+                .andExpect(jsonPath("$.revocations[2]").doesNotExist());
+
+        assertThat(metricRegistry.counter("planb.revocations.expired").getCount()).isEqualTo(1);
+    }
+}
@@ -16,12 +16,23 @@ import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.web.context.WebApplicationContext;
 import org.zalando.planb.revocation.AbstractSpringTest;
 import org.zalando.planb.revocation.Main;
+import org.zalando.planb.revocation.api.impl.RevocationResourceImpl;
 import org.zalando.planb.revocation.config.properties.CassandraProperties;
+import org.zalando.planb.revocation.config.properties.RevocationCheckProperties;
 import org.zalando.planb.revocation.config.properties.RevocationProperties;
 import org.zalando.planb.revocation.domain.Problem;
+import org.zalando.planb.revocation.persistence.CassandraRevocationStore;
 import org.zalando.planb.revocation.util.ApiGuildCompliance;
 import org.zalando.planb.revocation.util.InstantTimestamp;
+import org.zalando.planb.revocation.util.UnixTimestamp;
 
+import java.util.Collections;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.startsWith;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 /**
@@ -47,6 +58,9 @@ public class RevocationResourceTest extends AbstractSpringTest {
     @Autowired
     private CassandraProperties cassandraProperties;
 
+    @Autowired
+    private RevocationCheckProperties revocationCheckProperties;
+
     private MockMvc mvc;
 
     @Before
@@ -117,6 +131,141 @@ public class RevocationResourceTest extends AbstractSpringTest {
         ApiGuildCompliance.isStandardProblem(result);
     }
 
+    /**
+     * Tests that when {@code GET}ing revocations filtered by an unknown type, a HTTP {@code BAD_REQUEST} is returned.
+     *
+     * <p>Furthermore asserts that a standard {@link Problem} is returned.</p>
+     */
+    @Test
+    public void testBadRequestWhenUnknownTypeOnGet() throws Exception {
+        ResultActions result = mvc.perform(MockMvcRequestBuilders.get("/revocations?from=" + InstantTimestamp
+                .ONE_HOUR_AGO.seconds() + "&types=SESSION").accept(MediaType.APPLICATION_JSON));
+
+        result.andExpect(status().isBadRequest());
+
+        ApiGuildCompliance.isStandardProblem(result);
+    }
+
+    /**
+     * Tests that when {@code GET}ing revocations with a hash prefix that is not hexadecimal, or prefix bits without a
+     * hash prefix, a HTTP {@code BAD_REQUEST} is returned.
+     *
+     * <p>Furthermore asserts that a standard {@link Problem} is returned.</p>
+     */
+    @Test
+    public void testBadRequestWhenInvalidHashPrefixOnGet() throws Exception {
+        ResultActions result = mvc.perform(MockMvcRequestBuilders.get("/revocations?from=" + InstantTimestamp
+                .ONE_HOUR_AGO.seconds() + "&hash_prefix=xy").accept(MediaType.APPLICATION_JSON));
+
+        result.andExpect(status().isBadRequest());
+        ApiGuildCompliance.isStandardProblem(result);
+
+        mvc.perform(MockMvcRequestBuilders.get("/revocations?from=" + InstantTimestamp.ONE_HOUR_AGO.seconds()
+                + "&prefix_bits=4").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+    }
+
+    /**
+     * Tests that when {@code GET}ing revocations filtered by type and claim names, only matching revocations are
+     * returned.
+     */
+    @Test
+    public void testFilteredGet() throws Exception {
+        String claimRevocation = "{ \"type\": \"CLAIM\", \"data\": {\"claims\":{\"uid\":\"3035729288\"}," +
+                "\"issued_before\":" + InstantTimestamp.NOW.seconds() + "} }";
+        mvc.perform(MockMvcRequestBuilders.post("/revocations").contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.AUTHORIZATION, VALID_ACCESS_TOKEN).content(claimRevocation))
+                .andExpect(status().isCreated());
+
+        // Filtered revocations are indexed asynchronously
+        final long deadline = System.currentTimeMillis() + 10000;
+        while (!mvc.perform(MockMvcRequestBuilders.get("/revocations?from=" + InstantTimestamp.ONE_HOUR_AGO.seconds()
+                + "&types=CLAIM&claim_names=uid,sub").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString().contains("\"CLAIM\"")) {
+            assertThat(System.currentTimeMillis()).isLessThan(deadline);
+            Thread.sleep(10);
+        }
+        mvc.perform(MockMvcRequestBuilders.get("/revocations?from=" + InstantTimestamp.ONE_HOUR_AGO.seconds()
+                + "&types=CLAIM&claim_names=sub").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.revocations[0]").doesNotExist());
+    }
+
+    /**
+     * Tests that when {@code GET}ing revocations with a range ending before it starts, or starting before the window of
+     * revocations kept, a HTTP {@code BAD_REQUEST} is returned.
+     *
+     * <p>Furthermore asserts that a standard {@link Problem} is returned.</p>
+     */
+    @Test
+    public void testBadRequestWhenInvalidRangeOnGet() throws Exception {
+        ResultActions result = mvc.perform(MockMvcRequestBuilders.get("/revocations?from=" + InstantTimestamp
+                .NOW.seconds() + "&to=" + InstantTimestamp.ONE_HOUR_AGO.seconds()).accept(MediaType.APPLICATION_JSON));
+
+        result.andExpect(status().isBadRequest());
+        ApiGuildCompliance.isStandardProblem(result);
+
+        mvc.perform(MockMvcRequestBuilders.get("/revocations?from=" + (InstantTimestamp.NOW.seconds()
+                - cassandraProperties.getMaxTimeDelta() - 60) + "&to=" + InstantTimestamp.ONE_HOUR_AGO.seconds())
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+    }
+
+    /**
+     * Tests that {@code GET}ing revocations in a range ending after now returns the latest ones, and that only ranges
+     * ending before the current bucket, by more than the clock skew margin, can be cached.
+     */
+    @Test
+    public void testRangeGet() throws Exception {
+        String claimRevocation = "{ \"type\": \"CLAIM\", \"data\": {\"claims\":{\"uid\":\"1234567890\"}," +
+                "\"issued_before\":" + InstantTimestamp.NOW.seconds() + "} }";
+        mvc.perform(MockMvcRequestBuilders.post("/revocations").contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.AUTHORIZATION, VALID_ACCESS_TOKEN).content(claimRevocation))
+                .andExpect(status().isCreated());
+
+        final int now = UnixTimestamp.now();
+        mvc.perform(MockMvcRequestBuilders.get("/revocations?from=" + InstantTimestamp.ONE_HOUR_AGO.seconds()
+                + "&to=" + (now + 10)).accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.CACHE_CONTROL))
+                .andExpect(jsonPath("$.revocations[0]").exists());
+
+        final int bucketStart = (now - RevocationResourceImpl.CLOCK_SKEW_MARGIN) / CassandraRevocationStore.BUCKET_LENGTH
+                * CassandraRevocationStore.BUCKET_LENGTH;
+        final int from = bucketStart - CassandraRevocationStore.BUCKET_LENGTH;
+        mvc.perform(MockMvcRequestBuilders.get("/revocations?from=" + from + "&to=" + bucketStart)
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, startsWith("max-age=")));
+    }
+
+    /**
+     * Tests that {@code GET}ing revocations in {@code grouped} format returns groups, and that other formats are a HTTP
+     * {@code BAD_REQUEST}.
+     */
+    @Test
+    public void testGroupedGet() throws Exception {
+        String claimRevocation = "{ \"type\": \"CLAIM\", \"data\": {\"claims\":{\"uid\":\"0987654321\"}," +
+                "\"issued_before\":" + InstantTimestamp.NOW.seconds() + "} }";
+        mvc.perform(MockMvcRequestBuilders.post("/revocations").contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.AUTHORIZATION, VALID_ACCESS_TOKEN).content(claimRevocation))
+                .andExpect(status().isCreated());
+
+        mvc.perform(MockMvcRequestBuilders.get("/revocations?from=" + InstantTimestamp.ONE_HOUR_AGO.seconds()
+                + "&format=grouped").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.meta.MAX_TIME_DELTA").exists())
+                .andExpect(jsonPath("$.groups[0].type").exists())
+                .andExpect(jsonPath("$.groups[0].revocations[0][0]").isNumber())
+                .andExpect(jsonPath("$.revocations").doesNotExist());
+
+        ResultActions result = mvc.perform(MockMvcRequestBuilders.get("/revocations?from=" + InstantTimestamp
+                .ONE_HOUR_AGO.seconds() + "&format=compact").accept(MediaType.APPLICATION_JSON));
+        result.andExpect(status().isBadRequest());
+        ApiGuildCompliance.isStandardProblem(result);
+    }
+
     /**
      * Tests that when {@code POST}ing revocations with a non-JSON body, a HTTP {@code BAD_REQUEST} is returned.
      *
@@ -220,4 +369,48 @@ public class RevocationResourceTest extends AbstractSpringTest {
 
         result.andExpect(status().isCreated());
     }
+
+    /**
+     * Tests that when {@code POST}ing revocation checks without authorization, the outcome of each check is returned.
+     */
+    @Test
+    public void testCheckWithoutAuthorization() throws Exception {
+        ResultActions result = mvc.perform(MockMvcRequestBuilders.post("/revocations/check").contentType(
+                MediaType.APPLICATION_JSON).content("{\"checks\": [{\"token\": \"never-revoked\"}]}"));
+
+        result.andExpect(status().isOk())
+                .andExpect(jsonPath("$.results[0].revoked").value(false));
+    }
+
+    /**
+     * Tests that when {@code POST}ing a revocation check identifying no token, a HTTP {@code BAD_REQUEST} is returned.
+     *
+     * <p>Furthermore asserts that a standard {@link Problem} is returned.</p>
+     */
+    @Test
+    public void testBadRequestWhenCheckIdentifiesNoToken() throws Exception {
+        ResultActions result = mvc.perform(MockMvcRequestBuilders.post("/revocations/check").contentType(
+                MediaType.APPLICATION_JSON).content("{\"checks\": [{\"issued_at\": 1}]}"));
+
+        result.andExpect(status().isBadRequest());
+
+        ApiGuildCompliance.isStandardProblem(result);
+    }
+
+    /**
+     * Tests that when {@code POST}ing more revocation checks than allowed at once, a HTTP {@code BAD_REQUEST} is
+     * returned.
+     */
+    @Test
+    public void testBadRequestWhenTooManyChecks() throws Exception {
+        String checks = Collections.nCopies(revocationCheckProperties.getMaxChecks() + 1, "{\"token\": \"t\"}")
+                .stream().collect(Collectors.joining(",", "{\"checks\": [", "]}"));
+
+        ResultActions result = mvc.perform(MockMvcRequestBuilders.post("/revocations/check").contentType(
+                MediaType.APPLICATION_JSON).content(checks));
+
+        result.andExpect(status().isBadRequest());
+
+        ApiGuildCompliance.isStandardProblem(result);
+    }
 }
@@ -1,11 +1,14 @@
 package org.zalando.planb.revocation.config;
 
+import com.codahale.metrics.MetricRegistry;
 import com.datastax.driver.core.Session;
 import com.datastax.driver.core.exceptions.AuthenticationException;
 import org.junit.Test;
 import org.springframework.beans.BeansException;
 import org.springframework.boot.builder.SpringApplicationBuilder;
 import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.failBecauseExceptionWasNotThrown;
@@ -27,6 +30,25 @@ public class CassandraConfigIT {
         applicationContext.close();
     }
 
+    @Test
+    public void testDriverMetricsAreBoundToConnectedCluster() throws Exception {
+        final ConfigurableApplicationContext applicationContext =
+                new SpringApplicationBuilder(CassandraConfig.class, MetricsConfig.class)
+                        .web(false)
+                        .bannerMode(OFF)
+                        .profiles("it")
+                        .run();
+        try {
+            final MetricRegistry metricRegistry = applicationContext.getBean(MetricRegistry.class);
+            assertThat(metricRegistry.getNames().stream().anyMatch(name -> name.startsWith("planb.cassandra.driver.")))
+                    .isTrue();
+            assertThat(metricRegistry.getGauges().get("planb.cassandra.pool.open-connections").getValue())
+                    .isNotEqualTo(0);
+        } finally {
+            applicationContext.close();
+        }
+    }
+
     @Test
     public void testCassandraConnectionWithBadCredentials() throws Exception {
         try {
@@ -71,4 +93,12 @@ public class CassandraConfigIT {
         }
     }
 
+    @Configuration
+    static class MetricsConfig {
+
+        @Bean
+        public MetricRegistry metricRegistry() {
+            return new MetricRegistry();
+        }
+    }
 }
@@ -0,0 +1,68 @@
+package org.zalando.planb.revocation.config;
+
+import com.datastax.driver.core.HostDistance;
+import com.datastax.driver.core.PoolingOptions;
+import com.datastax.driver.core.SocketOptions;
+import com.datastax.driver.core.policies.DCAwareRoundRobinPolicy;
+import com.datastax.driver.core.policies.TokenAwarePolicy;
+import org.junit.Test;
+import org.zalando.planb.revocation.config.properties.CassandraProperties;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CassandraConfigTest {
+
+    @Test
+    public void testLatencyIsTrackedForSpeculativeExecutions() {
+        assertThat(CassandraConfig.latencyTracker(new CassandraProperties())).isPresent();
+    }
+
+    @Test
+    public void testSpeculativeExecutionsCanBeDisabled() {
+        final CassandraProperties properties = new CassandraProperties();
+        properties.setMaxSpeculativeExecutions(0);
+
+        assertThat(CassandraConfig.latencyTracker(properties)).isEmpty();
+    }
+
+    @Test
+    public void testQueriesAreRoutedToLocalReplicas() {
+        final CassandraProperties properties = new CassandraProperties();
+        properties.setLocalDataCenter(Optional.of("eu-west"));
+
+        assertThat(CassandraConfig.loadBalancingPolicy(properties)).isInstanceOf(TokenAwarePolicy.class);
+        assertThat(((TokenAwarePolicy) CassandraConfig.loadBalancingPolicy(properties)).getChildPolicy())
+                .isInstanceOf(DCAwareRoundRobinPolicy.class);
+    }
+
+    @Test
+    public void testPoolIsSized() {
+        final CassandraProperties properties = new CassandraProperties();
+        properties.setCoreConnectionsPerHost(2);
+        properties.setMaxConnectionsPerHost(4);
+        properties.setMaxRequestsPerConnection(512);
+
+        final PoolingOptions options = CassandraConfig.poolingOptions(properties);
+
+        assertThat(options.getCoreConnectionsPerHost(HostDistance.LOCAL)).isEqualTo(2);
+        assertThat(options.getMaxConnectionsPerHost(HostDistance.LOCAL)).isEqualTo(4);
+        assertThat(options.getMaxRequestsPerConnection(HostDistance.LOCAL)).isEqualTo(512);
+    }
+
+    @Test
+    public void testSocketOptions() {
+        final CassandraProperties properties = new CassandraProperties();
+        properties.setConnectTimeout(1000);
+        properties.setReadTimeout(2000);
+        properties.setKeepAlive(false);
+
+        final SocketOptions options = CassandraConfig.socketOptions(properties);
+
+        assertThat(options.getConnectTimeoutMillis()).isEqualTo(1000);
+        assertThat(options.getReadTimeoutMillis()).isEqualTo(2000);
+        assertThat(options.getKeepAlive()).isFalse();
+        assertThat(options.getTcpNoDelay()).isTrue();
+    }
+}
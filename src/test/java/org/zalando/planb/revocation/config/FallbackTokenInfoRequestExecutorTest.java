@@ -1,14 +1,19 @@
 package org.zalando.planb.revocation.config;
 
+import com.codahale.metrics.MetricRegistry;
 import com.github.tomakehurst.wiremock.http.ContentTypeHeader;
 import com.github.tomakehurst.wiremock.junit.WireMockRule;
 import org.junit.Rule;
 import org.junit.Test;
+import org.springframework.boot.actuate.health.Status;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestClientException;
 import org.zalando.planb.revocation.AbstractOAuthTest;
+import org.zalando.planb.revocation.config.properties.TokenInfoProperties;
+import org.zalando.planb.revocation.management.TokenInfoHealthIndicator;
 
 import java.util.Map;
 import java.util.UUID;
@@ -16,6 +21,7 @@ import java.util.UUID;
 import static com.github.tomakehurst.wiremock.client.WireMock.*;
 import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 public class FallbackTokenInfoRequestExecutorTest extends AbstractOAuthTest {
 
@@ -36,6 +42,23 @@ public class FallbackTokenInfoRequestExecutorTest extends AbstractOAuthTest {
         assertThat(result).hasSize(7);
     }
 
+    @Test
+    public void testConnectionsArePooled() {
+        MetricRegistry metricRegistry = new MetricRegistry();
+        FallbackTokenInfoRequestExecutor executor =
+                new FallbackTokenInfoRequestExecutor(SECOND_TOKEN_INFO_URI, new TokenInfoProperties(), metricRegistry);
+        try {
+            executor.getMap(SAMPLE_TOKEN_2);
+            executor.getMap(SAMPLE_TOKEN_2);
+
+            assertThat(metricRegistry.getGauges().get("planb.tokeninfo.pool.leased").getValue()).isEqualTo(0);
+            assertThat(metricRegistry.getGauges().get("planb.tokeninfo.pool.available").getValue()).isEqualTo(1);
+            assertThat(metricRegistry.getGauges().get("planb.tokeninfo.pool.max").getValue()).isEqualTo(100);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
     @Test(expected = HttpClientErrorException.class)
     public void testSingleEndpointNotFound() {
         FallbackTokenInfoRequestExecutor executor =
@@ -88,4 +111,108 @@ public class FallbackTokenInfoRequestExecutorTest extends AbstractOAuthTest {
         Map<String, Object> result = executor.getMap(INVALID_TOKEN);
         assertThat(result).containsKey("error");
     }
+
+    @Test
+    public void testHedgedRequestToSecondEndpointWhenFirstIsSlow() {
+        secondServerMock.stubFor(get(urlEqualTo("/tokeninfo"))
+                .withHeader(HttpHeaders.AUTHORIZATION, equalTo(VALID_ACCESS_TOKEN))
+                .willReturn(aResponse()
+                        .withFixedDelay(3000)
+                        .withStatus(HttpStatus.OK.value())
+                        .withHeader(ContentTypeHeader.KEY, MediaType.APPLICATION_JSON_VALUE)
+                        .withBody(TOKENINFO_RESPONSE)));
+
+        TokenInfoProperties properties = new TokenInfoProperties();
+        properties.setHedgingEnabled(true);
+        FallbackTokenInfoRequestExecutor executor = new FallbackTokenInfoRequestExecutor(
+                FIRST_TOKEN_INFO_URI + "," + SECOND_TOKEN_INFO_URI, properties, new MetricRegistry());
+
+        long start = System.currentTimeMillis();
+        Map<String, Object> result = executor.getMap(SAMPLE_TOKEN_2);
+
+        assertThat(result).hasSize(7);
+        assertThat(System.currentTimeMillis() - start).isLessThan(3000);
+    }
+
+    @Test
+    public void testHedgedRequestFromCallingThreadWhenPoolIsExhausted() {
+        secondServerMock.stubFor(get(urlEqualTo("/tokeninfo"))
+                .withHeader(HttpHeaders.AUTHORIZATION, equalTo(VALID_ACCESS_TOKEN))
+                .willReturn(aResponse()
+                        .withFixedDelay(3000)
+                        .withStatus(HttpStatus.OK.value())
+                        .withHeader(ContentTypeHeader.KEY, MediaType.APPLICATION_JSON_VALUE)
+                        .withBody(TOKENINFO_RESPONSE)));
+
+        TokenInfoProperties properties = new TokenInfoProperties();
+        properties.setHedgingEnabled(true);
+        properties.setMaxHedgingThreads(1);
+        MetricRegistry metricRegistry = new MetricRegistry();
+        FallbackTokenInfoRequestExecutor executor = new FallbackTokenInfoRequestExecutor(
+                FIRST_TOKEN_INFO_URI + "," + SECOND_TOKEN_INFO_URI, properties, metricRegistry);
+        try {
+            long start = System.currentTimeMillis();
+            Map<String, Object> result = executor.getMap(SAMPLE_TOKEN_2);
+
+            assertThat(result).hasSize(7);
+            assertThat(System.currentTimeMillis() - start).isLessThan(3000);
+            assertThat(metricRegistry.meter("planb.tokeninfo.rejected").getCount()).isEqualTo(1);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testFailingEndpointIsTriedLast() {
+        TokenInfoProperties properties = new TokenInfoProperties();
+        properties.setHedgingEnabled(false);
+
+        FallbackTokenInfoRequestExecutor executor = new FallbackTokenInfoRequestExecutor(
+                INVALID_TOKEN_INFO_URI + "," + SECOND_TOKEN_INFO_URI, properties, new MetricRegistry());
+        TokenInfoEndpoint invalidEndpoint = executor.getEndpoints().get(0);
+
+        assertThat(executor.getMap(SAMPLE_TOKEN_2)).hasSize(7);
+        assertThat(invalidEndpoint.consecutiveFailures()).isEqualTo(1);
+        assertThat(invalidEndpoint.state()).isEqualTo(TokenInfoEndpoint.State.CLOSED);
+
+        // Healthy endpoint answers first now
+        assertThat(executor.getMap(SAMPLE_TOKEN_2)).hasSize(7);
+        assertThat(invalidEndpoint.consecutiveFailures()).isEqualTo(1);
+    }
+
+    @Test
+    public void testCircuitOpensAfterConsecutiveFailures() {
+        TokenInfoProperties properties = new TokenInfoProperties();
+        properties.setFailureThreshold(2);
+
+        FallbackTokenInfoRequestExecutor executor = new FallbackTokenInfoRequestExecutor(
+                INVALID_TOKEN_INFO_URI, properties, new MetricRegistry());
+        TokenInfoEndpoint invalidEndpoint = executor.getEndpoints().get(0);
+
+        assertThatThrownBy(() -> executor.getMap(SAMPLE_TOKEN_2)).isInstanceOf(RestClientException.class);
+        assertThat(invalidEndpoint.state()).isEqualTo(TokenInfoEndpoint.State.CLOSED);
+        assertThat(new TokenInfoHealthIndicator(executor).health().getStatus()).isEqualTo(Status.UP);
+
+        assertThatThrownBy(() -> executor.getMap(SAMPLE_TOKEN_2)).isInstanceOf(RestClientException.class);
+        assertThat(invalidEndpoint.state()).isEqualTo(TokenInfoEndpoint.State.OPEN);
+        assertThat(new TokenInfoHealthIndicator(executor).health().getStatus()).isEqualTo(Status.DOWN);
+    }
+
+    @Test
+    public void testHalfOpenCircuitAfterOpenDuration() throws InterruptedException {
+        TokenInfoProperties properties = new TokenInfoProperties();
+        properties.setFailureThreshold(1);
+        properties.setOpenCircuitDuration(100);
+
+        FallbackTokenInfoRequestExecutor executor = new FallbackTokenInfoRequestExecutor(
+                INVALID_TOKEN_INFO_URI, properties, new MetricRegistry());
+        TokenInfoEndpoint invalidEndpoint = executor.getEndpoints().get(0);
+
+        assertThatThrownBy(() -> executor.getMap(SAMPLE_TOKEN_2)).isInstanceOf(RestClientException.class);
+        assertThat(invalidEndpoint.state()).isEqualTo(TokenInfoEndpoint.State.OPEN);
+
+        Thread.sleep(150);
+        assertThat(invalidEndpoint.state()).isEqualTo(TokenInfoEndpoint.State.HALF_OPEN);
+        assertThat(invalidEndpoint.isAvailable()).isTrue();
+    }
 }
@@ -0,0 +1,47 @@
+package org.zalando.planb.revocation.config;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.SpringApplicationConfiguration;
+import org.springframework.boot.test.WebIntegrationTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.zalando.planb.revocation.AbstractSpringTest;
+import org.zalando.planb.revocation.Main;
+import org.zalando.planb.revocation.persistence.FileRevocationStore;
+import org.zalando.planb.revocation.persistence.RevocationStore;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringApplicationConfiguration(classes = Main.class)
+@WebIntegrationTest(value = "filestorage.directory=${" + FileStorageConfigTest.DIRECTORY_PROPERTY + "}",
+        randomPort = true)
+@ActiveProfiles("test")
+public class FileStorageConfigTest extends AbstractSpringTest {
+
+    static final String DIRECTORY_PROPERTY = "planb.test.fileStorageDirectory";
+
+    @ClassRule
+    public static final TemporaryFolder FOLDER = new TemporaryFolder();
+
+    @Autowired
+    private RevocationStore revocationStore;
+
+    @BeforeClass
+    public static void setUpDirectory() {
+        System.setProperty(DIRECTORY_PROPERTY, FOLDER.getRoot().getAbsolutePath());
+    }
+
+    @AfterClass
+    public static void clearDirectory() {
+        System.clearProperty(DIRECTORY_PROPERTY);
+    }
+
+    @Test
+    public void testFileStoreIsSelected() {
+        assertThat(revocationStore).isInstanceOf(FileRevocationStore.class);
+    }
+}
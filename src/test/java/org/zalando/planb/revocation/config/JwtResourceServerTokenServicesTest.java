@@ -0,0 +1,159 @@
+package org.zalando.planb.revocation.config;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.ECDSASigner;
+import com.nimbusds.jose.jwk.ECKey;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.security.oauth2.common.exceptions.InvalidTokenException;
+import org.springframework.security.oauth2.provider.OAuth2Authentication;
+import org.springframework.security.oauth2.provider.token.ResourceServerTokenServices;
+import org.zalando.stups.oauth2.spring.server.DefaultAuthenticationExtractor;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.interfaces.ECPrivateKey;
+import java.security.interfaces.ECPublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+
+public class JwtResourceServerTokenServicesTest {
+
+    private static final String KEY_ID = "testkey";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private ECKey signingKey;
+
+    private ECKey unknownKey;
+
+    private ResourceServerTokenServices fallback;
+
+    private JwtResourceServerTokenServices tokenServices;
+
+    @Before
+    public void setUp() throws Exception {
+        signingKey = generateKey(KEY_ID);
+        unknownKey = generateKey("otherkey");
+
+        final File jwks = folder.newFile("jwks.json");
+        Files.write(jwks.toPath(), new JWKSet(signingKey.toPublicJWK()).toString().getBytes(StandardCharsets.UTF_8));
+
+        fallback = mock(ResourceServerTokenServices.class);
+        tokenServices = new JwtResourceServerTokenServices("file:" + jwks.getAbsolutePath(), 60000,
+                new DefaultAuthenticationExtractor(), fallback);
+    }
+
+    @After
+    public void tearDown() {
+        tokenServices.shutdown();
+    }
+
+    @Test
+    public void testValidTokenIsValidatedLocally() throws Exception {
+        final String token = sign(signingKey, new Date(System.currentTimeMillis() + 60000));
+
+        final OAuth2Authentication authentication = tokenServices.loadAuthentication(token);
+
+        assertThat(authentication.getOAuth2Request().getScope()).containsOnly("uid", "tokens.read");
+        @SuppressWarnings("unchecked")
+        final Map<String, Object> details = (Map<String, Object>) authentication.getUserAuthentication().getDetails();
+        assertThat(details).containsEntry("realm", "/services")
+                .containsEntry("uid", "testapp")
+                .containsEntry("access_token", token);
+        verifyZeroInteractions(fallback);
+    }
+
+    @Test
+    public void testInvalidSignatureIsRejected() throws Exception {
+        final String token = sign(signingKey, new Date(System.currentTimeMillis() + 60000));
+        final String tampered = token.substring(0, token.lastIndexOf('.') + 1)
+                + sign(generateKey(KEY_ID), new Date()).substring(token.lastIndexOf('.') + 1);
+
+        assertThatThrownBy(() -> tokenServices.loadAuthentication(tampered))
+                .isInstanceOf(InvalidTokenException.class);
+        verifyZeroInteractions(fallback);
+    }
+
+    @Test
+    public void testExpiredTokenIsRejected() throws Exception {
+        final String token = sign(signingKey, new Date(System.currentTimeMillis() - 1000));
+
+        assertThatThrownBy(() -> tokenServices.loadAuthentication(token))
+                .isInstanceOf(InvalidTokenException.class);
+        verifyZeroInteractions(fallback);
+    }
+
+    @Test
+    public void testOpaqueTokenFallsBack() {
+        tokenServices.loadAuthentication("123456789");
+
+        verify(fallback).loadAuthentication("123456789");
+    }
+
+    @Test
+    public void testUnknownKeyFallsBack() throws Exception {
+        final String token = sign(unknownKey, new Date(System.currentTimeMillis() + 60000));
+
+        tokenServices.loadAuthentication(token);
+
+        verify(fallback).loadAuthentication(token);
+    }
+
+    @Test
+    public void testFailedRefreshKeepsKeys() throws Exception {
+        Files.write(folder.getRoot().toPath().resolve("jwks.json"), "not json".getBytes(StandardCharsets.UTF_8));
+        tokenServices.refresh();
+
+        final String token = sign(signingKey, new Date(System.currentTimeMillis() + 60000));
+        tokenServices.loadAuthentication(token);
+
+        verify(fallback, never()).loadAuthentication(token);
+    }
+
+    private static ECKey generateKey(final String keyId) throws Exception {
+        final KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+        generator.initialize(new ECGenParameterSpec("secp256r1"));
+        final KeyPair keyPair = generator.generateKeyPair();
+
+        return new ECKey.Builder(ECKey.Curve.P_256, (ECPublicKey) keyPair.getPublic())
+                .privateKey((ECPrivateKey) keyPair.getPrivate())
+                .keyID(keyId)
+                .build();
+    }
+
+    private static String sign(final ECKey key, final Date expiration) throws Exception {
+        final JWTClaimsSet claims = new JWTClaimsSet.Builder()
+                .subject("testapp")
+                .claim("realm", "/services")
+                .claim("scope", Arrays.asList("uid", "tokens.read"))
+                .issueTime(new Date())
+                .expirationTime(expiration)
+                .build();
+
+        final SignedJWT jwt = new SignedJWT(new JWSHeader.Builder(JWSAlgorithm.ES256).keyID(key.getKeyID()).build(),
+                claims);
+        jwt.sign(new ECDSASigner(key));
+        return jwt.serialize();
+    }
+}
@@ -27,6 +27,9 @@ public class CassandraPropertiesTest {
         String username = "test";
         String password = "c08audshcf087ahdc";
         int maxTimeDelta = 300;
+        int maxSpeculativeExecutions = 3;
+        double speculativeExecutionPercentile = 95.0;
+        long speculativeExecutionHighestLatency = 5000;
 
         properties.setKeyspace(keyspace);
         properties.setContactPoints(contactPoints);
@@ -37,6 +40,9 @@ public class CassandraPropertiesTest {
         properties.setUsername(Optional.of(username));
         properties.setPassword(Optional.of(password));
         properties.setMaxTimeDelta(maxTimeDelta);
+        properties.setMaxSpeculativeExecutions(maxSpeculativeExecutions);
+        properties.setSpeculativeExecutionPercentile(speculativeExecutionPercentile);
+        properties.setSpeculativeExecutionHighestLatency(speculativeExecutionHighestLatency);
 
         assertThat(properties.getKeyspace()).isEqualTo(keyspace);
         assertThat(properties.getContactPoints()).isEqualTo(contactPoints);
@@ -47,5 +53,8 @@ public class CassandraPropertiesTest {
         assertThat(properties.getUsername().get()).isEqualTo(username);
         assertThat(properties.getPassword().get()).isEqualTo(password);
         assertThat(properties.getMaxTimeDelta()).isEqualTo(maxTimeDelta);
+        assertThat(properties.getMaxSpeculativeExecutions()).isEqualTo(maxSpeculativeExecutions);
+        assertThat(properties.getSpeculativeExecutionPercentile()).isEqualTo(speculativeExecutionPercentile);
+        assertThat(properties.getSpeculativeExecutionHighestLatency()).isEqualTo(speculativeExecutionHighestLatency);
     }
 }
\ No newline at end of file
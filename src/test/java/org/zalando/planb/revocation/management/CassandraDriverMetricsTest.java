@@ -0,0 +1,102 @@
+package org.zalando.planb.revocation.management;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.datastax.driver.core.Cluster;
+import com.datastax.driver.core.Host;
+import com.datastax.driver.core.Metrics;
+import com.datastax.driver.core.Session;
+import com.datastax.driver.core.SimpleStatement;
+import com.google.common.collect.ImmutableList;
+import org.junit.Test;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link CassandraDriverMetrics}.
+ *
+ * @author <a href="mailto:team-greendale@zalando.de">Team Greendale</a>
+ */
+public class CassandraDriverMetricsTest {
+
+    private final MetricRegistry metricRegistry = new MetricRegistry();
+
+    private final CassandraDriverMetrics driverMetrics = new CassandraDriverMetrics(metricRegistry, 100);
+
+    private static Host host(final String address) throws UnknownHostException {
+        final Host host = mock(Host.class);
+        when(host.getAddress()).thenReturn(InetAddress.getByName(address));
+        return host;
+    }
+
+    @Test
+    public void testDriverMetricsAreBridged() {
+        final MetricRegistry driverRegistry = new MetricRegistry();
+        driverRegistry.counter("retries").inc(3);
+        final Cluster cluster = mock(Cluster.class, RETURNS_DEEP_STUBS);
+        final Metrics metrics = mock(Metrics.class, RETURNS_DEEP_STUBS);
+        when(cluster.getMetrics()).thenReturn(metrics);
+        when(metrics.getRegistry()).thenReturn(driverRegistry);
+        when(metrics.getErrorMetrics().getSpeculativeExecutions()).thenReturn(new Counter());
+
+        driverMetrics.bind(cluster);
+        driverMetrics.bind(cluster);
+
+        assertThat(metricRegistry.getCounters().get("planb.cassandra.driver.retries").getCount()).isEqualTo(3);
+        assertThat(metricRegistry.getGauges().get("planb.cassandra.speculative.fired").getValue()).isEqualTo(0L);
+        verify(cluster, times(2)).register(driverMetrics);
+    }
+
+    @Test
+    public void testUninitializedClusterIsRejected() {
+        final Cluster cluster = Cluster.builder().addContactPoint("127.0.0.1").build();
+        try {
+            assertThatThrownBy(() -> driverMetrics.bind(cluster)).isInstanceOf(IllegalStateException.class);
+            assertThat(metricRegistry.getMetrics()).isEmpty();
+        } finally {
+            cluster.close();
+        }
+    }
+
+    @Test
+    public void testPoolUtilization() throws UnknownHostException {
+        final Host first = host("10.0.0.1");
+        final Host second = host("10.0.0.2");
+        final Session session = mock(Session.class);
+        final Session.State state = mock(Session.State.class);
+        when(session.getState()).thenReturn(state);
+        when(state.getConnectedHosts()).thenReturn(ImmutableList.of(first, second));
+        when(state.getOpenConnections(first)).thenReturn(1);
+        when(state.getOpenConnections(second)).thenReturn(1);
+        when(state.getInFlightQueries(first)).thenReturn(90);
+        when(state.getInFlightQueries(second)).thenReturn(10);
+
+        driverMetrics.bind(session);
+
+        final Gauge<?> inFlight = metricRegistry.getGauges().get("planb.cassandra.pool.in-flight");
+        final Gauge<?> utilization = metricRegistry.getGauges().get("planb.cassandra.pool.utilization");
+        assertThat(inFlight.getValue()).isEqualTo(100);
+        assertThat(utilization.getValue()).isEqualTo(50);
+    }
+
+    @Test
+    public void testLatencyIsTrackedPerHost() throws UnknownHostException {
+        final Host host = host("10.0.0.1");
+
+        driverMetrics.update(host, new SimpleStatement("SELECT"), null, 1000000);
+        driverMetrics.update(host, new SimpleStatement("SELECT"), new RuntimeException(), 2000000);
+
+        assertThat(metricRegistry.timer("planb.cassandra.hosts.10-0-0-1.latency").getCount()).isEqualTo(2);
+        assertThat(metricRegistry.counter("planb.cassandra.hosts.10-0-0-1.errors").getCount()).isEqualTo(1);
+    }
+}
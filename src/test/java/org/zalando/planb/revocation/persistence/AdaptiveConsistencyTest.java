@@ -0,0 +1,176 @@
+package org.zalando.planb.revocation.persistence;
+
+import com.codahale.metrics.MetricRegistry;
+import com.datastax.driver.core.ConsistencyLevel;
+import com.datastax.driver.core.ResultSet;
+import com.datastax.driver.core.Session;
+import com.datastax.driver.core.SimpleStatement;
+import com.datastax.driver.core.Statement;
+import com.datastax.driver.core.WriteType;
+import com.datastax.driver.core.exceptions.ReadTimeoutException;
+import com.datastax.driver.core.exceptions.UnavailableException;
+import com.datastax.driver.core.exceptions.WriteTimeoutException;
+import com.google.common.collect.ImmutableList;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.datastax.driver.core.ConsistencyLevel.EACH_QUORUM;
+import static com.datastax.driver.core.ConsistencyLevel.LOCAL_QUORUM;
+import static com.datastax.driver.core.ConsistencyLevel.ONE;
+import static com.datastax.driver.core.ConsistencyLevel.QUORUM;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link AdaptiveConsistency}.
+ *
+ * @author <a href="mailto:team-greendale@zalando.de">Team Greendale</a>
+ */
+public class AdaptiveConsistencyTest {
+
+    private static final List<ConsistencyLevel> FALLBACKS = ImmutableList.of(LOCAL_QUORUM, ONE);
+
+    private final MetricRegistry metricRegistry = new MetricRegistry();
+
+    private final Session session = mock(Session.class);
+
+    private final ResultSet resultSet = mock(ResultSet.class);
+
+    // Levels statements were attempted at
+    private final List<ConsistencyLevel> attempts = new ArrayList<>();
+
+    private final List<ConsistencyLevel> unavailable = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        when(session.execute(any(Statement.class))).thenAnswer(invocation -> {
+            final ConsistencyLevel level = ((Statement) invocation.getArguments()[0]).getConsistencyLevel();
+            attempts.add(level);
+            if (unavailable.contains(level)) {
+                throw new UnavailableException(level, 2, 1);
+            }
+            return resultSet;
+        });
+    }
+
+    private long count(final String name) {
+        return metricRegistry.counter("planb.cassandra.consistency.write." + name).getCount();
+    }
+
+    @Test
+    public void testConfiguredLevelIsUsed() {
+        AdaptiveConsistency consistency = new AdaptiveConsistency("write", EACH_QUORUM, FALLBACKS, metricRegistry);
+
+        assertThat(consistency.execute(session, new SimpleStatement("INSERT"))).isSameAs(resultSet);
+
+        assertThat(attempts).containsExactly(EACH_QUORUM);
+        assertThat(consistency.isDegraded()).isFalse();
+        assertThat(count("degraded")).isZero();
+    }
+
+    @Test
+    public void testDegradesAndStaysDegraded() {
+        AdaptiveConsistency consistency = new AdaptiveConsistency("write", EACH_QUORUM, FALLBACKS, metricRegistry);
+        unavailable.add(EACH_QUORUM);
+
+        consistency.execute(session, new SimpleStatement("INSERT"));
+        consistency.execute(session, new SimpleStatement("INSERT"));
+
+        assertThat(attempts).containsExactly(EACH_QUORUM, LOCAL_QUORUM, LOCAL_QUORUM);
+        assertThat(consistency.isDegraded()).isTrue();
+        assertThat(consistency.currentLevel()).isEqualTo(LOCAL_QUORUM);
+        assertThat(count("degraded")).isEqualTo(2);
+        assertThat(count("downgrades")).isEqualTo(1);
+    }
+
+    @Test
+    public void testTimeoutsDegrade() {
+        AdaptiveConsistency consistency = new AdaptiveConsistency("write", EACH_QUORUM, FALLBACKS, metricRegistry);
+        doThrow(new WriteTimeoutException(EACH_QUORUM, WriteType.SIMPLE, 2, 1))
+                .doThrow(new ReadTimeoutException(LOCAL_QUORUM, 1, 2, false))
+                .doReturn(resultSet)
+                .when(session).execute(any(Statement.class));
+
+        assertThat(consistency.execute(session, new SimpleStatement("INSERT").setIdempotent(true)))
+                .isSameAs(resultSet);
+        assertThat(consistency.currentLevel()).isEqualTo(ONE);
+    }
+
+    @Test
+    public void testTimedOutWriteIsRetriedOnlyIfIdempotent() {
+        AdaptiveConsistency consistency = new AdaptiveConsistency("write", EACH_QUORUM, FALLBACKS, metricRegistry);
+        Statement statement = new SimpleStatement("INSERT");
+        doThrow(new WriteTimeoutException(EACH_QUORUM, WriteType.SIMPLE, 2, 1))
+                .doReturn(resultSet)
+                .when(session).execute(statement);
+
+        // The write may have been applied, a retry could apply it twice
+        assertThatThrownBy(() -> consistency.execute(session, statement))
+                .isInstanceOf(WriteTimeoutException.class);
+        assertThat(consistency.isDegraded()).isFalse();
+
+        doThrow(new WriteTimeoutException(EACH_QUORUM, WriteType.SIMPLE, 2, 1))
+                .doReturn(resultSet)
+                .when(session).execute(statement);
+        statement.setIdempotent(true);
+
+        assertThat(consistency.execute(session, statement)).isSameAs(resultSet);
+        assertThat(consistency.currentLevel()).isEqualTo(LOCAL_QUORUM);
+    }
+
+    @Test
+    public void testUnavailableWriteIsRetriedEvenIfNotIdempotent() {
+        AdaptiveConsistency consistency = new AdaptiveConsistency("write", EACH_QUORUM, FALLBACKS, metricRegistry);
+        unavailable.add(EACH_QUORUM);
+
+        assertThat(consistency.execute(session, new SimpleStatement("INSERT"))).isSameAs(resultSet);
+        assertThat(attempts).containsExactly(EACH_QUORUM, LOCAL_QUORUM);
+    }
+
+    @Test
+    public void testUpgradesInSteps() {
+        AdaptiveConsistency consistency = new AdaptiveConsistency("write", EACH_QUORUM, FALLBACKS, metricRegistry);
+        unavailable.add(EACH_QUORUM);
+        unavailable.add(LOCAL_QUORUM);
+        consistency.execute(session, new SimpleStatement("INSERT"));
+        assertThat(consistency.currentLevel()).isEqualTo(ONE);
+
+        unavailable.clear();
+        consistency.upgrade();
+        assertThat(consistency.currentLevel()).isEqualTo(LOCAL_QUORUM);
+        consistency.upgrade();
+        consistency.upgrade();
+
+        assertThat(consistency.currentLevel()).isEqualTo(EACH_QUORUM);
+        assertThat(consistency.isDegraded()).isFalse();
+        assertThat(count("upgrades")).isEqualTo(2);
+    }
+
+    @Test
+    public void testFailsWhenWeakestLevelIsUnavailable() {
+        AdaptiveConsistency consistency = new AdaptiveConsistency("write", EACH_QUORUM, FALLBACKS, metricRegistry);
+        unavailable.addAll(ImmutableList.of(EACH_QUORUM, LOCAL_QUORUM, ONE));
+
+        assertThatThrownBy(() -> consistency.execute(session, new SimpleStatement("INSERT")))
+                .isInstanceOf(UnavailableException.class);
+        assertThat(consistency.isDegraded()).isFalse();
+    }
+
+    @Test
+    public void testOnlyWeakerFallbacksAreUsed() {
+        AdaptiveConsistency consistency = new AdaptiveConsistency("write", ONE, ImmutableList.of(QUORUM),
+                metricRegistry);
+        unavailable.add(ONE);
+
+        assertThatThrownBy(() -> consistency.execute(session, new SimpleStatement("SELECT")))
+                .isInstanceOf(UnavailableException.class);
+        assertThat(attempts).containsExactly(ONE);
+    }
+}
@@ -1,16 +1,57 @@
 package org.zalando.planb.revocation.persistence;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyVararg;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.zalando.planb.revocation.AbstractOAuthTest.generateRevocation;
 
 import java.text.ParseException;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
+import com.codahale.metrics.MetricRegistry;
+import com.datastax.driver.core.BoundStatement;
+import com.datastax.driver.core.ConsistencyLevel;
+import com.datastax.driver.core.PreparedStatement;
+import com.datastax.driver.core.RegularStatement;
+import com.datastax.driver.core.ResultSet;
+import com.datastax.driver.core.ResultSetFuture;
+import com.datastax.driver.core.Row;
+import com.datastax.driver.core.Session;
+import com.datastax.driver.core.Statement;
+import com.datastax.driver.core.WriteType;
+import com.datastax.driver.core.exceptions.WriteTimeoutException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.AbstractFuture;
+import com.google.common.util.concurrent.Uninterruptibles;
 import org.junit.Test;
 
+import org.zalando.planb.revocation.api.exception.DeadlineExceededException;
+import org.zalando.planb.revocation.domain.CurrentUser;
+import org.zalando.planb.revocation.domain.RevocationData;
+import org.zalando.planb.revocation.domain.RevocationRequest;
+import org.zalando.planb.revocation.domain.RevocationType;
+import org.zalando.planb.revocation.util.Deadline;
 import org.zalando.planb.revocation.util.LocalTimeFormatter;
 import org.zalando.planb.revocation.util.UnixTimestamp;
 
@@ -95,4 +136,160 @@ public class CassandraRevocationStoreTest {
                     .isEqualTo((int) e.getValue());
         }
     }
+
+    @Test
+    public void testDeadlineExceededContinuesFromFailedBucket() throws ParseException {
+        int from = UnixTimestamp.of(LocalTimeFormatter.get().parse("2016-02-16 14:30:00.000+00"));
+        int secondBucket = UnixTimestamp.of(LocalTimeFormatter.get().parse("2016-02-16 16:00:00.000+00"));
+
+        assertThat(CassandraRevocationStore.deadlineExceeded(new ArrayList<>(), from, 0).nextFrom()).isNull();
+        assertThat(CassandraRevocationStore.deadlineExceeded(new ArrayList<>(), from, 1).nextFrom())
+                .isEqualTo(secondBucket - 1);
+    }
+
+    @Test
+    public void testSlowReadIsCancelledAtDeadline() {
+        final Session session = mock(Session.class, RETURNS_DEEP_STUBS);
+        final PreparedStatement prepared = mock(PreparedStatement.class);
+        when(session.prepare(any(RegularStatement.class))).thenReturn(prepared);
+        when(prepared.setConsistencyLevel(any(ConsistencyLevel.class))).thenReturn(prepared);
+        when(prepared.setIdempotent(anyBoolean())).thenReturn(prepared);
+        when(prepared.bind(anyVararg())).thenReturn(mock(BoundStatement.class));
+        when(session.getCluster().getConfiguration().getSocketOptions().getReadTimeoutMillis()).thenReturn(12000);
+
+        // The host answers long after the deadline, as when retried on another slow replica
+        final SlowResultSetFuture future = new SlowResultSetFuture();
+        when(session.executeAsync(any(Statement.class))).thenReturn(future);
+
+        final CassandraRevocationStore store = new CassandraRevocationStore(session, ConsistencyLevel.ONE,
+                ConsistencyLevel.ONE, ImmutableList.of(), 0, 86400, mock(CurrentUser.class), new ObjectMapper(),
+                new MetricRegistry(), SlowQueryLog.disabled(), false);
+
+        final long start = System.nanoTime();
+        assertThatThrownBy(() -> store.getRevocations(UnixTimestamp.now() - 60, Deadline.after(200)))
+                .isInstanceOf(DeadlineExceededException.class);
+
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(2000);
+        assertThat(future.isCancelled()).isTrue();
+    }
+
+    @Test
+    public void testRangeReadsBucketsUpToItsEnd() {
+        final Session session = mock(Session.class, RETURNS_DEEP_STUBS);
+        final PreparedStatement getFrom = prepared();
+        final PreparedStatement getRange = prepared();
+        final PreparedStatement others = prepared();
+        when(session.prepare(any(RegularStatement.class))).thenReturn(getFrom, getRange, others);
+        final ResultSet resultSet = mock(ResultSet.class);
+        when(resultSet.iterator()).thenReturn(Collections.emptyIterator());
+        when(session.execute(any(Statement.class))).thenReturn(resultSet);
+
+        final CassandraRevocationStore store = new CassandraRevocationStore(session, ConsistencyLevel.ONE,
+                ConsistencyLevel.ONE, ImmutableList.of(), 0, 86400, mock(CurrentUser.class), new ObjectMapper(),
+                new MetricRegistry(), SlowQueryLog.disabled(), false);
+
+        final int bucketStart = UnixTimestamp.now() / CassandraRevocationStore.BUCKET_LENGTH
+                * CassandraRevocationStore.BUCKET_LENGTH;
+        final int from = bucketStart - 2 * CassandraRevocationStore.BUCKET_LENGTH + 10;
+        final int to = bucketStart - CassandraRevocationStore.BUCKET_LENGTH + 10;
+        assertThat(store.getRevocations(from, to, Deadline.none())).isEmpty();
+
+        // The current bucket is not read
+        verify(getRange, times(2)).bind(any(), any(), eq(from), eq(to));
+        verify(getFrom, never()).bind(anyVararg());
+    }
+
+    @Test
+    public void testTimedOutInsertIsRetriedWithTheSameUuid() {
+        final Session session = mock(Session.class, RETURNS_DEEP_STUBS);
+        final PreparedStatement reads = prepared();
+        final PreparedStatement insertRevocation = prepared();
+        final PreparedStatement others = prepared();
+        when(session.prepare(any(RegularStatement.class))).thenReturn(reads, reads, insertRevocation, others);
+        // As bound from the idempotent prepared statement
+        final BoundStatement bound = mock(BoundStatement.class);
+        when(bound.isIdempotent()).thenReturn(true);
+        when(insertRevocation.bind(anyVararg())).thenReturn(bound);
+        when(session.execute(any(Statement.class)))
+                .thenThrow(new WriteTimeoutException(ConsistencyLevel.QUORUM, WriteType.SIMPLE, 1, 2))
+                .thenReturn(mock(ResultSet.class));
+
+        final CassandraRevocationStore store = new CassandraRevocationStore(session, ConsistencyLevel.ONE,
+                ConsistencyLevel.QUORUM, ImmutableList.of(ConsistencyLevel.ONE), 0, 86400, mock(CurrentUser.class),
+                new ObjectMapper(), new MetricRegistry(), SlowQueryLog.disabled(), false);
+
+        store.storeRevocation(generateRevocation(RevocationType.TOKEN), null);
+
+        // Bound once with a client side bucket_uuid, so that the retry writes the same row
+        verify(insertRevocation).setIdempotent(true);
+        verify(insertRevocation).bind(any(), any(), any(), any(), any(), any(), any(), any(UUID.class), any());
+        verify(session, times(2)).execute(bound);
+        assertThat(store.isDegraded()).isTrue();
+    }
+
+    @Test
+    public void testGlobalRevocationRoundTrip() {
+        final Session session = mock(Session.class, RETURNS_DEEP_STUBS);
+        final PreparedStatement getFrom = prepared();
+        final PreparedStatement getRange = prepared();
+        final PreparedStatement insertRevocation = prepared();
+        final PreparedStatement others = prepared();
+        when(session.prepare(any(RegularStatement.class))).thenReturn(getFrom, getRange, insertRevocation, others);
+        final ResultSet resultSet = mock(ResultSet.class);
+        when(session.execute(any(Statement.class))).thenReturn(resultSet);
+
+        final CassandraRevocationStore store = new CassandraRevocationStore(session, ConsistencyLevel.ONE,
+                ConsistencyLevel.ONE, ImmutableList.of(), 0, 86400, mock(CurrentUser.class), new ObjectMapper(),
+                new MetricRegistry(), SlowQueryLog.disabled(), false);
+
+        // Values bound to the insert: date, interval, type, data, revoked_by, revoked_at, ...
+        final List<Object> values = new ArrayList<>();
+        final BoundStatement bound = mock(BoundStatement.class);
+        when(insertRevocation.bind(anyVararg())).thenAnswer(invocation -> {
+            values.addAll(Arrays.asList(invocation.getArguments()));
+            return bound;
+        });
+
+        final RevocationRequest global = generateRevocation(RevocationType.GLOBAL);
+        store.storeRevocation(global, null);
+
+        final Row row = mock(Row.class);
+        when(row.getString("revocation_type")).thenReturn((String) values.get(2));
+        when(row.getString("revocation_data")).thenReturn((String) values.get(3));
+        when(row.getInt("revoked_at")).thenReturn((Integer) values.get(5));
+        when(row.isNull("expires_at")).thenReturn(true);
+        when(resultSet.iterator()).thenReturn(ImmutableList.of(row).iterator(), Collections.emptyIterator());
+
+        assertThat(store.getRevocations((Integer) values.get(5) - 1))
+                .extracting(RevocationData::revocationRequest)
+                .containsExactly(global);
+    }
+
+    private static PreparedStatement prepared() {
+        final PreparedStatement prepared = mock(PreparedStatement.class);
+        when(prepared.setConsistencyLevel(any(ConsistencyLevel.class))).thenReturn(prepared);
+        when(prepared.setIdempotent(anyBoolean())).thenReturn(prepared);
+        when(prepared.bind(anyVararg())).thenReturn(mock(BoundStatement.class));
+        return prepared;
+    }
+
+    /*
+     * Result of a statement that never arrives.
+     */
+    private static class SlowResultSetFuture extends AbstractFuture<ResultSet> implements ResultSetFuture {
+
+        @Override
+        public ResultSet getUninterruptibly() {
+            throw new UnsupportedOperationException("Waits forever");
+        }
+
+        @Override
+        public ResultSet getUninterruptibly(final long timeout, final TimeUnit unit) throws TimeoutException {
+            try {
+                return Uninterruptibles.getUninterruptibly(this, timeout, unit);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
 }
@@ -5,6 +5,8 @@ import org.junit.Ignore;
 import org.junit.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.test.context.ActiveProfiles;
+import org.zalando.planb.revocation.domain.RevocationData;
+import org.zalando.planb.revocation.domain.RevocationRequest;
 import org.zalando.planb.revocation.domain.RevocationType;
 import org.zalando.planb.revocation.util.InstantTimestamp;
 import org.zalando.planb.revocation.util.persistence.CassandraSupportStore;
@@ -60,6 +62,21 @@ public class CassandraStoreIT extends AbstractStoreTests {
         assertThat(revokedByValues.iterator().next()).isEqualTo("/services/test0");
     }
 
+    /**
+     * Tests that a global revocation is read back as it was stored.
+     */
+    @Test
+    @WithMockCustomUser
+    public void testGlobalRevocationIsReadBack() {
+        RevocationRequest global = generateRevocation(RevocationType.GLOBAL);
+
+        revocationStore.storeRevocation(global);
+
+        assertThat(revocationStore.getRevocations(InstantTimestamp.FIVE_MINUTES_AGO.seconds()))
+                .extracting(RevocationData::revocationRequest)
+                .containsExactly(global);
+    }
+
     /**
      * Cleans up Cassandra revocation keyspace between tests.
      *
@@ -0,0 +1,232 @@
+package org.zalando.planb.revocation.persistence;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.guava.GuavaModule;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.zalando.planb.revocation.domain.RevocationData;
+import org.zalando.planb.revocation.domain.RevocationRequest;
+import org.zalando.planb.revocation.domain.RevocationType;
+import org.zalando.planb.revocation.util.UnixTimestamp;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.zalando.planb.revocation.AbstractOAuthTest.generateRevocation;
+
+/**
+ * Tests for the file based revocation store.
+ *
+ * @author <a href="mailto:team-greendale@zalando.de">Team Greendale</a>
+ */
+public class FileRevocationStoreTest {
+
+    private static final int MAX_TIME_DELTA = (int) Duration.ofDays(31).getSeconds();
+
+    private static final long WRITE_TIMEOUT = 5000;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new GuavaModule());
+
+    private Path directory;
+
+    private FileRevocationStore store;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = folder.getRoot().toPath().resolve("revocations");
+        store = open();
+    }
+
+    @After
+    public void tearDown() {
+        store.shutdown();
+    }
+
+    private FileRevocationStore open() throws IOException {
+        return new FileRevocationStore(directory, MAX_TIME_DELTA, 16, 4, WRITE_TIMEOUT, objectMapper);
+    }
+
+    @Test
+    public void testStoreAndGetRevocations() {
+        int before = UnixTimestamp.now() - 1;
+        RevocationRequest token = generateRevocation(RevocationType.TOKEN);
+        RevocationRequest claim = generateRevocation(RevocationType.CLAIM);
+        RevocationRequest global = generateRevocation(RevocationType.GLOBAL);
+
+        store.storeRevocation(token);
+        store.storeRevocation(claim);
+        store.storeRevocation(global);
+
+        assertThat(store.getRevocations(before))
+                .extracting(RevocationData::revocationRequest)
+                .containsExactly(token, claim, global);
+        assertThat(store.getRevocations(UnixTimestamp.now() + 1)).isEmpty();
+    }
+
+    @Test
+    public void testTooOldFromIsRejected() {
+        assertThatThrownBy(() -> store.getRevocations(UnixTimestamp.now() - MAX_TIME_DELTA - 10))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void testRevocationsAndRefreshSurviveRestart() throws IOException {
+        int before = UnixTimestamp.now() - 1;
+        RevocationRequest token = generateRevocation(RevocationType.TOKEN);
+        store.storeRevocation(token);
+        store.storeRefresh(before);
+
+        store.shutdown();
+        store = open();
+
+        assertThat(store.getRevocations(before)).extracting(RevocationData::revocationRequest).containsExactly(token);
+        assertThat(store.getRefresh().refreshFrom()).isEqualTo(before);
+    }
+
+    @Test
+    public void testIncompleteRecordIsTruncatedOnRestart() throws IOException {
+        int before = UnixTimestamp.now() - 1;
+        store.storeRevocation(generateRevocation(RevocationType.TOKEN));
+        store.shutdown();
+
+        Path segment = Files.list(directory).filter(path -> path.toString().endsWith(".log")).findFirst().get();
+        long validSize = Files.size(segment);
+        Files.write(segment, new byte[]{0, 0, 1, 0, 0, 0}, StandardOpenOption.APPEND);
+
+        store = open();
+        assertThat(Files.size(segment)).isEqualTo(validSize);
+        store.storeRevocation(generateRevocation(RevocationType.CLAIM));
+
+        assertThat(store.getRevocations(before)).extracting(revocation -> revocation.revocationRequest().type())
+                .containsExactly(RevocationType.TOKEN, RevocationType.CLAIM);
+    }
+
+    @Test
+    public void testConcurrentStoresAreGroupCommitted() throws Exception {
+        int before = UnixTimestamp.now() - 1;
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> stores = new ArrayList<>();
+            for (int i = 0; i < 400; i++) {
+                stores.add(executor.submit(() -> store.storeRevocation(generateRevocation(RevocationType.TOKEN))));
+            }
+            for (Future<?> future : stores) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(store.getRevocations(before)).hasSize(400);
+    }
+
+    @Test
+    public void testExpiredSegmentsAreDeleted() throws IOException {
+        store.shutdown();
+        int expiredBucket = FileRevocationStore.bucketOf(UnixTimestamp.now() - MAX_TIME_DELTA)
+                - FileRevocationStore.BUCKET_LENGTH;
+        Path expired = directory.resolve("revocations-" + expiredBucket + ".log");
+        try (RevocationSegment segment = RevocationSegment.open(expired, expiredBucket, 4)) {
+            segment.append(expiredBucket, "{}".getBytes(StandardCharsets.UTF_8));
+            segment.commit();
+        }
+
+        store = open();
+
+        assertThat(Files.exists(expired)).isFalse();
+    }
+
+    @Test
+    public void testSegmentIndexSkipsOlderRecords() throws IOException {
+        Path path = folder.getRoot().toPath().resolve("segment.log");
+        try (RevocationSegment segment = RevocationSegment.open(path, 0, 4)) {
+            for (int revokedAt = 0; revokedAt < 100; revokedAt++) {
+                segment.append(revokedAt, String.valueOf(revokedAt).getBytes(StandardCharsets.UTF_8));
+                segment.append(revokedAt, String.valueOf(revokedAt).getBytes(StandardCharsets.UTF_8));
+            }
+
+            assertThat(segment.readSince(0)).isEmpty();
+
+            segment.commit();
+
+            assertThat(readSince(segment, 95)).containsExactly("96", "96", "97", "97", "98", "98", "99", "99");
+            assertThat(readSince(segment, -1)).hasSize(200);
+            assertThat(readSince(segment, 99)).isEmpty();
+        }
+
+        try (RevocationSegment reopened = RevocationSegment.open(path, 0, 4)) {
+            assertThat(readSince(reopened, 97)).containsExactly("98", "98", "99", "99");
+            assertThat(reopened.lastRevokedAt()).isEqualTo(99);
+        }
+    }
+
+    @Test
+    public void testRolledBackRecordsAreDroppedFromIndex() throws IOException {
+        Path path = folder.getRoot().toPath().resolve("segment.log");
+        try (RevocationSegment segment = RevocationSegment.open(path, 0, 1)) {
+            segment.append(10, "a".getBytes(StandardCharsets.UTF_8));
+            segment.commit();
+
+            segment.append(20, "b".getBytes(StandardCharsets.UTF_8));
+            segment.append(30, "c".getBytes(StandardCharsets.UTF_8));
+            segment.rollback();
+
+            assertThat(segment.lastRevokedAt()).isEqualTo(10);
+
+            segment.append(25, "dd".getBytes(StandardCharsets.UTF_8));
+            segment.commit();
+
+            assertThat(readSince(segment, 0)).containsExactly("a", "dd");
+            assertThat(readSince(segment, 20)).containsExactly("dd");
+            assertThat(readSince(segment, 29)).isEmpty();
+            assertThat(segment.lastRevokedAt()).isEqualTo(25);
+        }
+    }
+
+    private static List<String> readSince(RevocationSegment segment, int from) throws IOException {
+        return segment.readSince(from).stream()
+                .map(payload -> new String(payload, StandardCharsets.UTF_8))
+                .collect(Collectors.toList());
+    }
+
+    @Test
+    public void testRevocationsAreRejectedOnceWriterDied() throws IOException {
+        store.shutdown();
+        final ObjectMapper failingObjectMapper = new ObjectMapper() {
+            @Override
+            public byte[] writeValueAsBytes(final Object value) {
+                throw new AssertionError("Simulated writer failure");
+            }
+        }.registerModule(new GuavaModule());
+        store = new FileRevocationStore(directory, MAX_TIME_DELTA, 16, 4, WRITE_TIMEOUT, failingObjectMapper);
+
+        assertThatThrownBy(() -> store.storeRevocation(generateRevocation(RevocationType.TOKEN)))
+                .isInstanceOf(IllegalStateException.class)
+                .hasCauseInstanceOf(AssertionError.class);
+
+        final long start = System.currentTimeMillis();
+        assertThatThrownBy(() -> store.storeRevocation(generateRevocation(RevocationType.TOKEN)))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("writer failed");
+        assertThat(System.currentTimeMillis() - start).isLessThan(WRITE_TIMEOUT);
+    }
+}
@@ -0,0 +1,78 @@
+package org.zalando.planb.revocation.persistence;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.zalando.planb.revocation.domain.RevocationData;
+import org.zalando.planb.revocation.util.UnixTimestamp;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of {@link InMemoryRevocationStore} with concurrent readers polling recent revocations while writers store
+ * new ones.
+ * <p>
+ * <p>Run with {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=org.zalando.planb.revocation.persistence.InMemoryRevocationStoreBenchmark}, or from the IDE.</p>
+ *
+ * @author <a href="mailto:team-greendale@zalando.de">Team Greendale</a>
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InMemoryRevocationStoreBenchmark {
+
+    @Param({"10000", "100000"})
+    private int storedRevocations;
+
+    private InMemoryRevocationStore store;
+
+    private int now;
+
+    // Stored revocations pile up while measuring, so every iteration starts over
+    @Setup(Level.Iteration)
+    public void setUp() {
+        store = new InMemoryRevocationStore();
+        now = UnixTimestamp.now();
+        for (int i = 0; i < storedRevocations; i++) {
+            // Spread over the last day
+            store.store(InMemoryRevocationStoreTest.revocationAt(now - 86400 + i % 86400));
+        }
+    }
+
+    @Benchmark
+    @Group("pollAndStore")
+    @GroupThreads(6)
+    public Collection<RevocationData> pollLastMinute() {
+        return store.getRevocations(now - 60);
+    }
+
+    @Benchmark
+    @Group("pollAndStore")
+    @GroupThreads(2)
+    public void store() {
+        store.store(InMemoryRevocationStoreTest.revocationAt(now - 3600));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(InMemoryRevocationStoreBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -3,13 +3,22 @@ package org.zalando.planb.revocation.persistence;
 import org.junit.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.test.context.ActiveProfiles;
+import org.zalando.planb.revocation.domain.ImmutableRevocationData;
 import org.zalando.planb.revocation.domain.RevocationData;
 import org.zalando.planb.revocation.domain.RevocationType;
 import org.zalando.planb.revocation.util.UnixTimestamp;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
-import static org.assertj.core.api.AssertionsForInterfaceTypes.assertThat;
+import static org.assertj.core.api.Assertions.assertThat;
 
 /**
  * Implementation class for In Memory store tests.
@@ -31,4 +40,104 @@ public class InMemoryRevocationStoreTest extends AbstractStoreTests {
         Collection<RevocationData> revocations = revocationStore.getRevocations(timestamp-100);
         assertThat(revocations.size()).isNotZero();
     }
+
+    @Test
+    public void testRevocationsSinceAreSliced() {
+        InMemoryRevocationStore store = new InMemoryRevocationStore();
+        int now = UnixTimestamp.now();
+        for (int i = 0; i < 10; i++) {
+            store.store(revocationAt(now - 10 + i));
+            store.store(revocationAt(now - 10 + i));
+        }
+
+        assertThat(store.getRevocations(now - 4)).hasSize(6)
+                .extracting(RevocationData::revokedAt)
+                .containsExactly(now - 3, now - 3, now - 2, now - 2, now - 1, now - 1);
+        assertThat(store.getRevocations(now)).isEmpty();
+    }
+
+    @Test
+    public void testExpiredRevocationsAreEvicted() {
+        InMemoryRevocationStore store = new InMemoryRevocationStore(100);
+        int now = UnixTimestamp.now();
+
+        store.store(revocationAt(now - 1000));
+        assertThat(store.getRevocations(0)).isEmpty();
+
+        store.store(revocationAt(now - 50));
+        assertThat(store.size()).isEqualTo(1);
+        assertThat(store.getRevocations(0)).extracting(RevocationData::revokedAt).containsExactly(now - 50);
+    }
+
+    @Test
+    public void testConcurrentStoresAndReads() throws Exception {
+        InMemoryRevocationStore store = new InMemoryRevocationStore();
+        int writers = 4;
+        int revocationsPerWriter = 5000;
+        int now = UnixTimestamp.now();
+
+        ExecutorService executor = Executors.newFixedThreadPool(writers + 2);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean writing = new AtomicBoolean(true);
+        try {
+            List<Future<?>> tasks = new ArrayList<>();
+            for (int w = 0; w < writers; w++) {
+                tasks.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < revocationsPerWriter; i++) {
+                        store.store(revocationAt(now - 1000 + i % 1000));
+                    }
+                    return null;
+                }));
+            }
+            List<Future<?>> readers = new ArrayList<>();
+            for (int r = 0; r < 2; r++) {
+                readers.add(executor.submit(() -> {
+                    start.await();
+                    while (writing.get()) {
+                        Collection<RevocationData> revocations = store.getRevocations(now - 500);
+                        int previous = Integer.MIN_VALUE;
+                        for (RevocationData revocation : revocations) {
+                            assertThat(revocation.revokedAt()).isGreaterThan(now - 500)
+                                    .isGreaterThanOrEqualTo(previous);
+                            previous = revocation.revokedAt();
+                        }
+                    }
+                    return null;
+                }));
+            }
+
+            start.countDown();
+            for (Future<?> task : tasks) {
+                task.get(30, TimeUnit.SECONDS);
+            }
+            writing.set(false);
+            for (Future<?> reader : readers) {
+                reader.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(store.getRevocations(0)).hasSize(writers * revocationsPerWriter);
+        assertThat(store.getRevocations(now - 500)).hasSize(writers * revocationsPerWriter / 2 - writers * 5);
+    }
+
+    @Test
+    public void testLatestRefresh() {
+        InMemoryRevocationStore store = new InMemoryRevocationStore();
+        assertThat(store.getRefresh()).isNull();
+
+        store.storeRefresh(10);
+        store.storeRefresh(20);
+
+        assertThat(store.getRefresh().refreshFrom()).isEqualTo(20);
+    }
+
+    static RevocationData revocationAt(int revokedAt) {
+        return ImmutableRevocationData.builder()
+                .revocationRequest(generateRevocation(RevocationType.TOKEN))
+                .revokedAt(revokedAt)
+                .build();
+    }
 }
@@ -0,0 +1,132 @@
+package org.zalando.planb.revocation.persistence;
+
+import com.datastax.driver.core.ConsistencyLevel;
+import com.datastax.driver.core.ResultSet;
+import com.datastax.driver.core.SimpleStatement;
+import com.datastax.driver.core.Statement;
+import com.datastax.driver.core.exceptions.OperationTimedOutException;
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.Logger;
+import org.apache.logging.log4j.core.appender.AbstractAppender;
+import org.junit.Test;
+import org.zalando.planb.revocation.management.SlowQueryLogMvcEndpoint;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static org.springframework.test.web.servlet.setup.MockMvcBuilders.standaloneSetup;
+
+/**
+ * Unit tests for {@link SlowQueryLog} and {@link SlowQueryLogMvcEndpoint}.
+ *
+ * @author <a href="mailto:team-greendale@zalando.de">Team Greendale</a>
+ */
+public class SlowQueryLogTest {
+
+    private final Statement statement = new SimpleStatement("SELECT").setConsistencyLevel(ConsistencyLevel.ONE);
+
+    @Test
+    public void testDisabledLogOnlyExecutes() {
+        final ResultSet resultSet = mock(ResultSet.class);
+        final AtomicInteger executions = new AtomicInteger();
+
+        final ResultSet result = SlowQueryLog.disabled().execute("getFrom", "2016-03-15:1", statement, () -> {
+            executions.incrementAndGet();
+            return resultSet;
+        });
+
+        assertThat(result).isSameAs(resultSet);
+        assertThat(executions.get()).isEqualTo(1);
+        verifyZeroInteractions(resultSet);
+    }
+
+    @Test
+    public void testSlowStatementsAreDescribed() {
+        final ResultSet resultSet = mock(ResultSet.class);
+
+        final ResultSet result = new SlowQueryLog(true, 0, 0).execute("getFrom", "2016-03-15:1", statement,
+                () -> resultSet);
+
+        assertThat(result).isSameAs(resultSet);
+        verify(resultSet).getAvailableWithoutFetching();
+    }
+
+    @Test
+    public void testFastStatementsAreNotDescribed() {
+        final ResultSet resultSet = mock(ResultSet.class);
+
+        new SlowQueryLog(true, 60000, 0).execute("getFrom", null, statement, () -> resultSet);
+
+        verifyZeroInteractions(resultSet);
+    }
+
+    @Test
+    public void testFailedStatementsAreLogged() {
+        final List<LogEvent> events = new CopyOnWriteArrayList<>();
+        final AbstractAppender appender = new AbstractAppender("events", null, null) {
+            @Override
+            public void append(final LogEvent event) {
+                events.add(event);
+            }
+        };
+        appender.start();
+        final Logger logger = (Logger) LogManager.getLogger(SlowQueryLog.class);
+        logger.addAppender(appender);
+        try {
+            assertThatThrownBy(() -> new SlowQueryLog(true, 60000, 0).execute("getFrom", "2016-03-15:1", statement,
+                    () -> {
+                        throw new OperationTimedOutException(null);
+                    })).isInstanceOf(OperationTimedOutException.class);
+
+            assertThat(events).hasSize(1);
+            assertThat(events.get(0).getLevel()).isEqualTo(Level.WARN);
+            assertThat(events.get(0).getMessage().getFormattedMessage()).startsWith("Failed statement getFrom")
+                    .contains("partition=2016-03-15:1").contains("latency=")
+                    .endsWith("error=" + OperationTimedOutException.class.getName());
+        } finally {
+            logger.removeAppender(appender);
+        }
+    }
+
+    @Test
+    public void testInvalidSettingsAreRejected() {
+        final SlowQueryLog slowQueryLog = SlowQueryLog.disabled();
+
+        assertThatThrownBy(() -> slowQueryLog.setThreshold(-1)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> slowQueryLog.setSampleRate(1.5)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void testEndpointTogglesLog() throws Exception {
+        final SlowQueryLog slowQueryLog = SlowQueryLog.disabled();
+
+        standaloneSetup(new SlowQueryLogMvcEndpoint(slowQueryLog)).build()
+                .perform(post(SlowQueryLogMvcEndpoint.PATH).param("enabled", "true").param("threshold", "200")
+                        .param("sample_rate", "0.01"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.enabled").value(true))
+                .andExpect(jsonPath("$.threshold").value(200));
+
+        assertThat(new SlowQueryLogMvcEndpoint(slowQueryLog).isSensitive()).isTrue();
+        assertThat(slowQueryLog.isEnabled()).isTrue();
+        assertThat(slowQueryLog.getThreshold()).isEqualTo(200);
+        assertThat(slowQueryLog.getSampleRate()).isEqualTo(0.01);
+
+        standaloneSetup(new SlowQueryLogMvcEndpoint(slowQueryLog)).build()
+                .perform(get(SlowQueryLogMvcEndpoint.PATH))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.sample_rate").value(0.01));
+    }
+}
@@ -0,0 +1,142 @@
+package org.zalando.planb.revocation.service.impl;
+
+import com.codahale.metrics.MetricRegistry;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.util.StreamUtils;
+import org.zalando.planb.revocation.api.impl.RevocationResourceImpl;
+import org.zalando.planb.revocation.domain.ImmutableRevocationData;
+import org.zalando.planb.revocation.domain.ImmutableRevocationRequest;
+import org.zalando.planb.revocation.domain.ImmutableRevokedGlobal;
+import org.zalando.planb.revocation.domain.RevocationBucket;
+import org.zalando.planb.revocation.domain.RevocationData;
+import org.zalando.planb.revocation.domain.RevocationType;
+import org.zalando.planb.revocation.persistence.RevocationStore;
+import org.zalando.planb.revocation.util.MessageHasher;
+import org.zalando.planb.revocation.util.RevocationInfoConverter;
+import org.zalando.planb.revocation.util.UnixTimestamp;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.zalando.planb.revocation.persistence.CassandraRevocationStore.BUCKET_LENGTH;
+
+/**
+ * Unit tests for {@link FileRevocationBucketService}.
+ *
+ * @author <a href="mailto:team-greendale@zalando.de">Team Greendale</a>
+ */
+public class FileRevocationBucketServiceTest {
+
+    private static final int MAX_TIME_DELTA = (int) TimeUnit.DAYS.toSeconds(3);
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final RevocationStore storage = mock(RevocationStore.class);
+
+    private int lastClosed;
+
+    private FileRevocationBucketService service;
+
+    private static RevocationData revocation(final int revokedAt) {
+        return ImmutableRevocationData.builder()
+                .revocationRequest(ImmutableRevocationRequest.builder()
+                        .type(RevocationType.GLOBAL)
+                        .data(ImmutableRevokedGlobal.builder().issuedBefore(revokedAt - 10).build())
+                        .build())
+                .revokedAt(revokedAt)
+                .build();
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        final int now = UnixTimestamp.now();
+        lastClosed = (now - RevocationResourceImpl.CLOCK_SKEW_MARGIN) / BUCKET_LENGTH * BUCKET_LENGTH - BUCKET_LENGTH;
+        when(storage.getRevocations(anyInt())).thenReturn(Arrays.asList(
+                revocation(lastClosed - BUCKET_LENGTH + 10),
+                revocation(lastClosed + 10),
+                // Expired revocations are rendered too
+                ImmutableRevocationData.copyOf(revocation(lastClosed + 20)).withExpiresAt(now - 1),
+                revocation(now)));
+        Files.createFile(folder.getRoot().toPath().resolve("previous.json.gz"));
+
+        service = new FileRevocationBucketService(storage, new RevocationInfoConverter(mock(MessageHasher.class)),
+                null, objectMapper, new MetricRegistry(), MAX_TIME_DELTA, folder.getRoot().toPath(),
+                (int) TimeUnit.HOURS.toSeconds(1));
+        service.update();
+    }
+
+    @After
+    public void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    public void testClosedBucketsOfTheWindowAreRendered() {
+        // The oldest bucket of the window is only partly in it, unless it just closed
+        assertThat(service.buckets().size()).isBetween(MAX_TIME_DELTA / BUCKET_LENGTH - 2,
+                MAX_TIME_DELTA / BUCKET_LENGTH - 1);
+        assertThat(service.buckets()).extracting(RevocationBucket::to)
+                .contains(lastClosed + BUCKET_LENGTH)
+                .doesNotContain(lastClosed + 2 * BUCKET_LENGTH);
+        assertThat(folder.getRoot().toPath().resolve("previous.json.gz")).doesNotExist();
+    }
+
+    @Test
+    public void testBucketHoldsItsRevocations() throws Exception {
+        final RevocationBucket bucket = service.buckets().stream()
+                .filter(candidate -> candidate.after() == lastClosed - 1)
+                .findFirst().get();
+        assertThat(service.get(bucket.date(), bucket.interval())).contains(bucket);
+        assertThat(bucket.to()).isEqualTo(lastClosed + BUCKET_LENGTH);
+        assertThat(bucket.revocations()).isEqualTo(2);
+
+        final Path file = service.file(bucket);
+        assertThat(Files.size(file)).isEqualTo(bucket.size());
+        final byte[] content;
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(file))) {
+            content = StreamUtils.copyToByteArray(in);
+        }
+        assertThat(bucket.checksum()).isEqualTo(Base64.getEncoder()
+                .encodeToString(MessageDigest.getInstance("SHA-256").digest(content)));
+
+        final JsonNode list = objectMapper.readTree(content);
+        assertThat(list.get("revocations")).hasSize(2);
+        assertThat(list.get("meta").get("NEXT_FROM").asInt()).isEqualTo(lastClosed + BUCKET_LENGTH - 1);
+    }
+
+    @Test
+    public void testBucketsRenderTheSameAfterRestart() throws Exception {
+        final RevocationBucket bucket = service.buckets().stream()
+                .filter(candidate -> candidate.after() == lastClosed - 1)
+                .findFirst().get();
+
+        final FileRevocationBucketService restarted = new FileRevocationBucketService(storage,
+                new RevocationInfoConverter(mock(MessageHasher.class)), null, objectMapper, new MetricRegistry(),
+                MAX_TIME_DELTA, folder.getRoot().toPath(), (int) TimeUnit.HOURS.toSeconds(1));
+        try {
+            restarted.update();
+            assertThat(restarted.get(bucket.date(), bucket.interval())).contains(bucket);
+        } finally {
+            restarted.shutdown();
+        }
+    }
+}
@@ -0,0 +1,229 @@
+package org.zalando.planb.revocation.service.impl;
+
+import com.google.common.collect.ImmutableMap;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.PlainJWT;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.zalando.planb.revocation.domain.ImmutablePeerNotification;
+import org.zalando.planb.revocation.domain.ImmutableRevocationCheck;
+import org.zalando.planb.revocation.domain.ImmutableRevocationRequest;
+import org.zalando.planb.revocation.domain.ImmutableRevokedClaimsData;
+import org.zalando.planb.revocation.domain.ImmutableRevokedGlobal;
+import org.zalando.planb.revocation.domain.ImmutableRevokedTokenData;
+import org.zalando.planb.revocation.domain.RevocationCheckResult;
+import org.zalando.planb.revocation.domain.RevocationType;
+import org.zalando.planb.revocation.persistence.InMemoryRevocationStore;
+import org.zalando.planb.revocation.util.ImmutableMessageHasher;
+import org.zalando.planb.revocation.util.MessageHasher;
+import org.zalando.planb.revocation.util.UnixTimestamp;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for {@link IndexedRevocationCheckService}.
+ *
+ * @author <a href="mailto:team-greendale@zalando.de">Team Greendale</a>
+ */
+public class IndexedRevocationCheckServiceTest {
+
+    private static final int ISSUED_BEFORE = UnixTimestamp.now() - 100;
+
+    private InMemoryRevocationStore store;
+
+    private MessageHasher messageHasher;
+
+    private IndexedRevocationCheckService service;
+
+    @Before
+    public void setUp() throws NoSuchAlgorithmException {
+        store = new InMemoryRevocationStore();
+        messageHasher = ImmutableMessageHasher.builder()
+                .putHashingAlgorithms(RevocationType.TOKEN, MessageDigest.getInstance("SHA-256"))
+                .putHashingAlgorithms(RevocationType.CLAIM, MessageDigest.getInstance("SHA-256"))
+                .salt("salt")
+                .separator('|')
+                .build();
+
+        store.storeRevocation(ImmutableRevocationRequest.builder()
+                .type(RevocationType.TOKEN)
+                .data(ImmutableRevokedTokenData.builder().token("revoked-token").issuedBefore(ISSUED_BEFORE).build())
+                .build());
+        store.storeRevocation(ImmutableRevocationRequest.builder()
+                .type(RevocationType.CLAIM)
+                .data(ImmutableRevokedClaimsData.builder()
+                        .putClaims("uid", "rreis")
+                        .putClaims("realm", "/employees")
+                        .issuedBefore(ISSUED_BEFORE)
+                        .build())
+                .build());
+
+        service = new IndexedRevocationCheckService(store, messageHasher, (int) TimeUnit.DAYS.toSeconds(31), 16,
+                20, TimeUnit.HOURS.toMillis(1));
+        await(() -> service.indexedTokens() == 1);
+    }
+
+    @After
+    public void tearDown() {
+        service.shutdown();
+    }
+
+    private static void await(final BooleanSupplier condition) {
+        final long deadline = System.currentTimeMillis() + 10000;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.currentTimeMillis()).isLessThan(deadline);
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    @Test
+    public void testTokenIsRevoked() {
+        RevocationCheckResult result = service.check(ImmutableRevocationCheck.builder()
+                .token("revoked-token")
+                .issuedAt(ISSUED_BEFORE - 1)
+                .build());
+
+        assertThat(result.revoked()).isTrue();
+        assertThat(result.issuedBefore()).isEqualTo(ISSUED_BEFORE);
+    }
+
+    @Test
+    public void testTokenIssuedAfterRevocationIsNotRevoked() {
+        RevocationCheckResult result = service.check(ImmutableRevocationCheck.builder()
+                .token("revoked-token")
+                .issuedAt(ISSUED_BEFORE)
+                .build());
+
+        assertThat(result.revoked()).isFalse();
+        assertThat(result.issuedBefore()).isEqualTo(ISSUED_BEFORE);
+    }
+
+    @Test
+    public void testTokenHashIsRevoked() {
+        RevocationCheckResult result = service.check(ImmutableRevocationCheck.builder()
+                .tokenHash(messageHasher.hashAndEncode(RevocationType.TOKEN, "revoked-token"))
+                .build());
+
+        assertThat(result.revoked()).isTrue();
+    }
+
+    @Test
+    public void testUnknownTokenIsNotRevoked() {
+        RevocationCheckResult result = service.check(ImmutableRevocationCheck.builder().token("other-token").build());
+
+        assertThat(result.revoked()).isFalse();
+        assertThat(result.issuedBefore()).isNull();
+    }
+
+    @Test
+    public void testClaimsAreMatchedRegardlessOfOrderAndExtraClaims() {
+        RevocationCheckResult result = service.check(ImmutableRevocationCheck.builder()
+                .token("other-token")
+                .putClaims("sub", "abcd")
+                .putClaims("realm", "/employees")
+                .putClaims("uid", "rreis")
+                .build());
+
+        assertThat(result.revoked()).isTrue();
+        assertThat(service.check(ImmutableRevocationCheck.builder()
+                .putClaims("uid", "rreis")
+                .build()).revoked()).isFalse();
+    }
+
+    @Test
+    public void testIssuedAtIsReadFromJwt() {
+        String issuedLater = new PlainJWT(new JWTClaimsSet.Builder()
+                .issueTime(new Date(TimeUnit.SECONDS.toMillis(ISSUED_BEFORE + 10)))
+                .build()).serialize();
+        store.storeRevocation(ImmutableRevocationRequest.builder()
+                .type(RevocationType.TOKEN)
+                .data(ImmutableRevokedTokenData.builder().token(issuedLater).issuedBefore(ISSUED_BEFORE).build())
+                .build());
+        await(() -> service.indexedTokens() == 2);
+
+        RevocationCheckResult result = service.check(ImmutableRevocationCheck.builder().token(issuedLater).build());
+
+        assertThat(result.revoked()).isFalse();
+        assertThat(result.issuedBefore()).isEqualTo(ISSUED_BEFORE);
+    }
+
+    @Test
+    public void testGlobalRevocationAppliesToAllTokens() {
+        store.storeRevocation(ImmutableRevocationRequest.builder()
+                .type(RevocationType.GLOBAL)
+                .data(ImmutableRevokedGlobal.builder().issuedBefore(ISSUED_BEFORE + 50).build())
+                .build());
+        await(() -> service.check(ImmutableRevocationCheck.builder().token("any").build()).revoked());
+
+        RevocationCheckResult result = service.check(ImmutableRevocationCheck.builder()
+                .token("revoked-token")
+                .issuedAt(ISSUED_BEFORE + 10)
+                .build());
+
+        assertThat(result.revoked()).isTrue();
+        assertThat(result.issuedBefore()).isEqualTo(ISSUED_BEFORE + 50);
+    }
+
+    @Test
+    public void testCheckWithoutTokenIsRejected() {
+        assertThatThrownBy(() -> service.check(ImmutableRevocationCheck.builder().build()))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> service.check(ImmutableRevocationCheck.builder().tokenHash("not base64!").build()))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void testNotificationTriggersImmediateUpdate() {
+        IndexedRevocationCheckService slowPolling = new IndexedRevocationCheckService(store, messageHasher,
+                (int) TimeUnit.DAYS.toSeconds(31), 16, TimeUnit.HOURS.toMillis(1), TimeUnit.HOURS.toMillis(1));
+        try {
+            await(() -> slowPolling.indexedTokens() == 1);
+            store.storeRevocation(ImmutableRevocationRequest.builder()
+                    .type(RevocationType.TOKEN)
+                    .data(ImmutableRevokedTokenData.builder().token("new-token").issuedBefore(ISSUED_BEFORE).build())
+                    .build());
+
+            slowPolling.onNotification(ImmutablePeerNotification.builder()
+                    .revokedAt(UnixTimestamp.now())
+                    .build());
+
+            await(() -> slowPolling.indexedTokens() == 2);
+            assertThat(slowPolling.check(ImmutableRevocationCheck.builder().token("new-token").build()).revoked())
+                    .isTrue();
+        } finally {
+            slowPolling.shutdown();
+        }
+    }
+
+    @Test
+    public void testCheckedTokensAreNotCached() {
+        MessageHasher cachingHasher = ImmutableMessageHasher.copyOf(messageHasher).withCacheMaximumSize(1000);
+        IndexedRevocationCheckService caching = new IndexedRevocationCheckService(store, cachingHasher,
+                (int) TimeUnit.DAYS.toSeconds(31), 16, TimeUnit.HOURS.toMillis(1), TimeUnit.HOURS.toMillis(1));
+        try {
+            await(() -> caching.indexedTokens() == 1);
+            long cached = cachingHasher.cachedHashes();
+
+            assertThat(caching.check(ImmutableRevocationCheck.builder().token("revoked-token").build()).revoked())
+                    .isTrue();
+            assertThat(caching.check(ImmutableRevocationCheck.builder().token("other-token").build()).revoked())
+                    .isFalse();
+
+            assertThat(cachingHasher.cachedHashes()).isEqualTo(cached);
+        } finally {
+            caching.shutdown();
+        }
+    }
+}
@@ -0,0 +1,300 @@
+package org.zalando.planb.revocation.service.impl;
+
+import com.google.common.io.BaseEncoding;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.PlainJWT;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.zalando.planb.revocation.domain.ImmutablePeerNotification;
+import org.zalando.planb.revocation.domain.ImmutableRevocationFilter;
+import org.zalando.planb.revocation.domain.ImmutableRevocationRequest;
+import org.zalando.planb.revocation.domain.ImmutableRevokedClaimsData;
+import org.zalando.planb.revocation.domain.ImmutableRevokedGlobal;
+import org.zalando.planb.revocation.domain.ImmutableRevokedTokenData;
+import org.zalando.planb.revocation.domain.RevocationData;
+import org.zalando.planb.revocation.domain.RevocationFilter;
+import org.zalando.planb.revocation.domain.RevocationType;
+import org.zalando.planb.revocation.persistence.InMemoryRevocationStore;
+import org.zalando.planb.revocation.domain.RevokedTokenData;
+import org.zalando.planb.revocation.util.Deadline;
+import org.zalando.planb.revocation.util.HashPrefix;
+import org.zalando.planb.revocation.util.ImmutableMessageHasher;
+import org.zalando.planb.revocation.util.MessageHasher;
+import org.zalando.planb.revocation.util.UnixTimestamp;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for {@link IndexedRevocationFilterService}.
+ *
+ * @author <a href="mailto:team-greendale@zalando.de">Team Greendale</a>
+ */
+public class IndexedRevocationFilterServiceTest {
+
+    private static final int MAX_TIME_DELTA = (int) TimeUnit.DAYS.toSeconds(31);
+
+    private static final int ISSUED_BEFORE = UnixTimestamp.now() - 100;
+
+    private static final String EMPLOYEE_TOKEN = new PlainJWT(new JWTClaimsSet.Builder()
+            .issuer("https://identity.zalando.com")
+            .build()).serialize();
+
+    private static final String CUSTOMER_TOKEN = new PlainJWT(new JWTClaimsSet.Builder()
+            .issuer("https://customers.zalando.com")
+            .build()).serialize();
+
+    private InMemoryRevocationStore store;
+
+    private MessageHasher messageHasher;
+
+    private IndexedRevocationFilterService service;
+
+    @Before
+    public void setUp() throws NoSuchAlgorithmException {
+        store = new InMemoryRevocationStore();
+        messageHasher = ImmutableMessageHasher.builder()
+                .putHashingAlgorithms(RevocationType.TOKEN, MessageDigest.getInstance("SHA-256"))
+                .putHashingAlgorithms(RevocationType.CLAIM, MessageDigest.getInstance("SHA-256"))
+                .salt("salt")
+                .separator('|')
+                .build();
+        storeToken(EMPLOYEE_TOKEN);
+        storeToken(CUSTOMER_TOKEN);
+        storeToken("opaque-token");
+        storeClaims("sub", "jdoe");
+        storeClaims("uid", "rreis", "realm", "/employees");
+        storeClaims("sub", "jdoe", "iss", "https://customers.zalando.com");
+        store.storeRevocation(ImmutableRevocationRequest.builder()
+                .type(RevocationType.GLOBAL)
+                .data(ImmutableRevokedGlobal.builder().issuedBefore(ISSUED_BEFORE).build())
+                .build());
+
+        service = new IndexedRevocationFilterService(store, messageHasher, MAX_TIME_DELTA, 20, TimeUnit.HOURS.toMillis(1));
+        await(() -> service.indexedRevocations() == 7);
+    }
+
+    @After
+    public void tearDown() {
+        service.shutdown();
+    }
+
+    private void storeToken(final String token) {
+        store.storeRevocation(ImmutableRevocationRequest.builder()
+                .type(RevocationType.TOKEN)
+                .data(ImmutableRevokedTokenData.builder().token(token).issuedBefore(ISSUED_BEFORE).build())
+                .build());
+    }
+
+    private void storeClaims(final String... namesAndValues) {
+        final ImmutableRevokedClaimsData.Builder data = ImmutableRevokedClaimsData.builder()
+                .issuedBefore(ISSUED_BEFORE);
+        for (int i = 0; i < namesAndValues.length; i += 2) {
+            data.putClaims(namesAndValues[i], namesAndValues[i + 1]);
+        }
+        store.storeRevocation(ImmutableRevocationRequest.builder().type(RevocationType.CLAIM).data(data.build())
+                .build());
+    }
+
+    private static void await(final BooleanSupplier condition) {
+        final long deadline = System.currentTimeMillis() + 10000;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.currentTimeMillis()).isLessThan(deadline);
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    private Collection<RevocationData> get(final RevocationFilter filter) {
+        return service.getRevocations(ISSUED_BEFORE - 10, filter, Deadline.none());
+    }
+
+    @Test
+    public void testFilterByType() {
+        assertThat(get(ImmutableRevocationFilter.builder().addTypes(RevocationType.TOKEN).build()))
+                .hasSize(3)
+                .extracting(revocation -> revocation.revocationRequest().type())
+                .containsOnly(RevocationType.TOKEN);
+        assertThat(get(ImmutableRevocationFilter.builder()
+                .addTypes(RevocationType.CLAIM, RevocationType.GLOBAL)
+                .build())).hasSize(4);
+    }
+
+    @Test
+    public void testFilterByClaimNamesOnlyAffectsClaimRevocations() {
+        assertThat(get(ImmutableRevocationFilter.builder()
+                .addTypes(RevocationType.CLAIM)
+                .addClaimNames("sub", "iss")
+                .build())).hasSize(2);
+        assertThat(get(ImmutableRevocationFilter.builder()
+                .addTypes(RevocationType.CLAIM)
+                .addClaimNames("uid")
+                .build())).isEmpty();
+        assertThat(get(ImmutableRevocationFilter.builder().addClaimNames("sub").build())).hasSize(5);
+    }
+
+    @Test
+    public void testFilterByIssuerKeepsRevocationsOfAnyIssuer() {
+        final Collection<RevocationData> employees = get(ImmutableRevocationFilter.builder()
+                .issuer("https://identity.zalando.com")
+                .build());
+
+        // Every revocation but the ones of customer tokens
+        assertThat(employees).hasSize(5);
+        assertThat(employees).extracting(revocation -> revocation.revocationRequest().data())
+                .doesNotContain(ImmutableRevokedTokenData.builder().token(CUSTOMER_TOKEN).issuedBefore(ISSUED_BEFORE)
+                        .build());
+    }
+
+    @Test
+    public void testFilterByHashPrefixOnlyAffectsTokenRevocations() {
+        for (String token : new String[]{EMPLOYEE_TOKEN, CUSTOMER_TOKEN, "opaque-token"}) {
+            final String hash = tokenHash(token);
+            final Collection<RevocationData> shard = get(ImmutableRevocationFilter.builder()
+                    .hashPrefix(HashPrefix.parse(hash.substring(0, 4), 13))
+                    .build());
+
+            assertThat(shard).extracting(revocation -> revocation.revocationRequest().data())
+                    .contains(ImmutableRevokedTokenData.builder().token(token).issuedBefore(ISSUED_BEFORE).build());
+            assertThat(shard).filteredOn(revocation -> revocation.revocationRequest().type() != RevocationType.TOKEN)
+                    .hasSize(4);
+        }
+    }
+
+    @Test
+    public void testHashPrefixesPartitionTokenRevocations() {
+        final Collection<RevocationData> lower = get(ImmutableRevocationFilter.builder()
+                .addTypes(RevocationType.TOKEN)
+                .hashPrefix(HashPrefix.parse("0", 1))
+                .build());
+        final Collection<RevocationData> upper = get(ImmutableRevocationFilter.builder()
+                .addTypes(RevocationType.TOKEN)
+                .hashPrefix(HashPrefix.parse("8", 1))
+                .build());
+
+        assertThat(lower.size() + upper.size()).isEqualTo(3);
+        assertThat(lower).extracting(revocation -> tokenHash(
+                ((RevokedTokenData) revocation.revocationRequest().data()).token()).charAt(0))
+                .doesNotContain('8', '9', 'a', 'b', 'c', 'd', 'e', 'f');
+        assertThat(upper).extracting(revocation -> tokenHash(
+                ((RevokedTokenData) revocation.revocationRequest().data()).token()).charAt(0))
+                .doesNotContain('0', '1', '2', '3', '4', '5', '6', '7');
+    }
+
+    private String tokenHash(final String token) {
+        return BaseEncoding.base16().lowerCase().encode(Base64.getUrlDecoder().decode(
+                messageHasher.hashAndEncode(RevocationType.TOKEN, token)));
+    }
+
+    @Test
+    public void testNotificationTriggersImmediateUpdate() {
+        final IndexedRevocationFilterService slowPolling = new IndexedRevocationFilterService(store, messageHasher,
+                MAX_TIME_DELTA, TimeUnit.HOURS.toMillis(1), TimeUnit.HOURS.toMillis(1));
+        try {
+            await(() -> slowPolling.indexedRevocations() == 7);
+            storeToken("new-token");
+
+            slowPolling.onNotification(ImmutablePeerNotification.builder()
+                    .revokedAt(UnixTimestamp.now())
+                    .build());
+
+            await(() -> slowPolling.indexedRevocations() == 8);
+            assertThat(new ArrayList<>(slowPolling.getRevocations(ISSUED_BEFORE - 10,
+                    ImmutableRevocationFilter.builder().addTypes(RevocationType.TOKEN).build(), Deadline.none())))
+                    .hasSize(4)
+                    .isSortedAccordingTo((a, b) -> Integer.compare(a.revokedAt(), b.revokedAt()));
+        } finally {
+            slowPolling.shutdown();
+        }
+    }
+
+    @Test
+    public void testRevocationsSinceLastPollAreReadFromStore() {
+        final List<Integer> tailReads = new CopyOnWriteArrayList<>();
+        final InMemoryRevocationStore recording = new InMemoryRevocationStore() {
+            @Override
+            public Collection<RevocationData> getRevocations(final int from, final Deadline deadline) {
+                tailReads.add(from);
+                return super.getRevocations(from, deadline);
+            }
+        };
+        recording.storeRevocation(ImmutableRevocationRequest.builder()
+                .type(RevocationType.GLOBAL)
+                .data(ImmutableRevokedGlobal.builder().issuedBefore(ISSUED_BEFORE).build())
+                .build());
+        final IndexedRevocationFilterService slowPolling = new IndexedRevocationFilterService(recording,
+                messageHasher, MAX_TIME_DELTA, TimeUnit.HOURS.toMillis(1), TimeUnit.HOURS.toMillis(1));
+        try {
+            await(() -> slowPolling.indexedRevocations() == 1);
+            recording.storeRevocation(ImmutableRevocationRequest.builder()
+                    .type(RevocationType.TOKEN)
+                    .data(ImmutableRevokedTokenData.builder().token("new-token").issuedBefore(ISSUED_BEFORE).build())
+                    .build());
+
+            // Not polled yet, nor notified
+            assertThat(slowPolling.getRevocations(ISSUED_BEFORE - 10,
+                    ImmutableRevocationFilter.builder().addTypes(RevocationType.TOKEN).build(), Deadline.none()))
+                    .hasSize(1);
+            assertThat(slowPolling.indexedRevocations()).isEqualTo(1);
+            assertThat(tailReads).hasSize(1);
+            assertThat(tailReads.get(0))
+                    .isGreaterThanOrEqualTo(UnixTimestamp.now() - IndexedRevocationCheckService.POLL_OVERLAP - 10);
+        } finally {
+            slowPolling.shutdown();
+        }
+    }
+
+    @Test
+    public void testRangesEndingBeforeTheTailAreNotReadFromStore() {
+        final List<Integer> tailReads = new CopyOnWriteArrayList<>();
+        final InMemoryRevocationStore recording = new InMemoryRevocationStore() {
+            @Override
+            public Collection<RevocationData> getRevocations(final int from, final Deadline deadline) {
+                tailReads.add(from);
+                return super.getRevocations(from, deadline);
+            }
+        };
+        recording.storeRevocation(ImmutableRevocationRequest.builder()
+                .type(RevocationType.TOKEN)
+                .data(ImmutableRevokedTokenData.builder().token("token").issuedBefore(ISSUED_BEFORE).build())
+                .build());
+        final IndexedRevocationFilterService slowPolling = new IndexedRevocationFilterService(recording,
+                messageHasher, MAX_TIME_DELTA, TimeUnit.HOURS.toMillis(1), TimeUnit.HOURS.toMillis(1));
+        try {
+            await(() -> slowPolling.indexedRevocations() == 1);
+            tailReads.clear();
+
+            final RevocationFilter tokens = ImmutableRevocationFilter.builder().addTypes(RevocationType.TOKEN).build();
+            assertThat(slowPolling.getRevocations(ISSUED_BEFORE - 10, ISSUED_BEFORE, tokens, Deadline.none()))
+                    .isEmpty();
+            assertThat(tailReads).isEmpty();
+
+            assertThat(slowPolling.getRevocations(ISSUED_BEFORE - 10, UnixTimestamp.now() + 10, tokens,
+                    Deadline.none())).hasSize(1);
+            assertThat(tailReads).hasSize(1);
+        } finally {
+            slowPolling.shutdown();
+        }
+    }
+
+    @Test
+    public void testTooOldFromIsRejected() {
+        assertThatThrownBy(() -> service.getRevocations(UnixTimestamp.now() - MAX_TIME_DELTA - 10,
+                ImmutableRevocationFilter.builder().addTypes(RevocationType.TOKEN).build(), Deadline.none()))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,215 @@
+package org.zalando.planb.revocation.service.impl;
+
+import com.codahale.metrics.MetricRegistry;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.PropertyNamingStrategy;
+import com.github.tomakehurst.wiremock.junit.WireMockRule;
+import com.google.common.collect.ImmutableList;
+import org.junit.Rule;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+import org.zalando.planb.revocation.domain.ImmutablePeerNotification;
+import org.zalando.planb.revocation.domain.PeerNotification;
+import org.zalando.planb.revocation.management.PeerNotificationMvcEndpoint;
+import org.zalando.planb.revocation.util.PeerNotificationSigner;
+
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.equalTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.equalToJson;
+import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.postRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static org.springframework.test.web.servlet.setup.MockMvcBuilders.standaloneSetup;
+
+/**
+ * Unit tests for the {@link org.zalando.planb.revocation.service.PeerNotificationService} transports.
+ *
+ * @author <a href="mailto:team-greendale@zalando.de">Team Greendale</a>
+ */
+public class PeerNotificationServiceTest {
+
+    private static final int PEER_PORT = 10082;
+
+    private static final int REVOKED_AT = 1458001000;
+
+    private static final PeerNotification NOTIFICATION = ImmutablePeerNotification.builder()
+            .revokedAt(REVOKED_AT)
+            .build();
+
+    private static final PeerNotificationSigner SIGNER = new PeerNotificationSigner("secret");
+
+    private static final String SIGNATURE = Base64.getEncoder().encodeToString(SIGNER.sign(NOTIFICATION));
+
+    @Rule
+    public WireMockRule peerMock = new WireMockRule(PEER_PORT);
+
+    private static void await(final BooleanSupplier condition) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + 10000;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.currentTimeMillis()).isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    public void testLocalPeersAreNotified() {
+        LocalPeerNotificationService first = new LocalPeerNotificationService(new MetricRegistry());
+        LocalPeerNotificationService second = new LocalPeerNotificationService(new MetricRegistry());
+        first.connect(second);
+        List<PeerNotification> firstReceived = new CopyOnWriteArrayList<>();
+        List<PeerNotification> secondReceived = new CopyOnWriteArrayList<>();
+        first.addListener(firstReceived::add);
+        second.addListener(secondReceived::add);
+
+        first.publish(REVOKED_AT);
+
+        assertThat(firstReceived).containsExactly(NOTIFICATION);
+        assertThat(secondReceived).containsExactly(NOTIFICATION);
+    }
+
+    @Test
+    public void testFailingListenerDoesNotStopOthers() {
+        LocalPeerNotificationService service = new LocalPeerNotificationService(new MetricRegistry());
+        List<PeerNotification> received = new CopyOnWriteArrayList<>();
+        service.addListener(notification -> {
+            throw new IllegalStateException("Listener failure");
+        });
+        service.addListener(received::add);
+
+        service.publish(REVOKED_AT);
+
+        assertThat(received).containsExactly(NOTIFICATION);
+    }
+
+    @Test
+    public void testUdpPeersAreNotified() throws Exception {
+        MetricRegistry metricRegistry = new MetricRegistry();
+        UdpPeerNotificationService receiver = new UdpPeerNotificationService(ImmutableList.of(), 0, SIGNER,
+                metricRegistry);
+        UdpPeerNotificationService sender = new UdpPeerNotificationService(
+                ImmutableList.of("127.0.0.1:" + receiver.port()), 0, SIGNER, new MetricRegistry());
+        try {
+            List<PeerNotification> received = new CopyOnWriteArrayList<>();
+            receiver.addListener(received::add);
+
+            sender.publish(REVOKED_AT);
+
+            await(() -> !received.isEmpty());
+            assertThat(received).containsExactly(NOTIFICATION);
+            assertThat(metricRegistry.counter("planb.peers.notifications.received").getCount()).isEqualTo(1);
+        } finally {
+            sender.shutdown();
+            receiver.shutdown();
+        }
+    }
+
+    @Test
+    public void testUnsignedUdpDatagramsAreIgnored() throws Exception {
+        MetricRegistry metricRegistry = new MetricRegistry();
+        UdpPeerNotificationService receiver = new UdpPeerNotificationService(ImmutableList.of(), 0, SIGNER,
+                metricRegistry);
+        UdpPeerNotificationService sender = new UdpPeerNotificationService(
+                ImmutableList.of("127.0.0.1:" + receiver.port()), 0, new PeerNotificationSigner("other"),
+                new MetricRegistry());
+        try (DatagramChannel channel = DatagramChannel.open()) {
+            List<PeerNotification> received = new CopyOnWriteArrayList<>();
+            receiver.addListener(received::add);
+
+            sender.publish(REVOKED_AT);
+            final ByteBuffer unsigned = ByteBuffer.allocate(UdpPeerNotificationService.DATAGRAM_LENGTH);
+            unsigned.putInt(UdpPeerNotificationService.MAGIC).putInt(REVOKED_AT).position(unsigned.limit());
+            unsigned.flip();
+            channel.send(unsigned, new InetSocketAddress("127.0.0.1", receiver.port()));
+
+            // A signed notification sent afterwards is the only one received
+            UdpPeerNotificationService peer = new UdpPeerNotificationService(
+                    ImmutableList.of("127.0.0.1:" + receiver.port()), 0, SIGNER, new MetricRegistry());
+            try {
+                peer.publish(REVOKED_AT + 1);
+                await(() -> !received.isEmpty());
+            } finally {
+                peer.shutdown();
+            }
+            assertThat(received).extracting(PeerNotification::revokedAt).containsExactly(REVOKED_AT + 1);
+            assertThat(metricRegistry.counter("planb.peers.notifications.received").getCount()).isEqualTo(1);
+        } finally {
+            sender.shutdown();
+            receiver.shutdown();
+        }
+    }
+
+    @Test
+    public void testHttpPeersAreNotified() throws Exception {
+        peerMock.stubFor(post(urlEqualTo(HttpPeerNotificationService.PATH))
+                .willReturn(aResponse().withStatus(202)));
+        MetricRegistry metricRegistry = new MetricRegistry();
+        ObjectMapper objectMapper = new ObjectMapper()
+                .setPropertyNamingStrategy(PropertyNamingStrategy.CAMEL_CASE_TO_LOWER_CASE_WITH_UNDERSCORES);
+        HttpPeerNotificationService service = new HttpPeerNotificationService(
+                ImmutableList.of("http://localhost:" + PEER_PORT, "http://localhost:1"), 500, 500, objectMapper,
+                SIGNER, metricRegistry);
+        try {
+            service.publish(REVOKED_AT);
+
+            await(() -> metricRegistry.counter("planb.peers.notifications.failed").getCount() == 1);
+            assertThat(metricRegistry.counter("planb.peers.notifications.sent").getCount()).isEqualTo(1);
+            peerMock.verify(postRequestedFor(urlEqualTo(HttpPeerNotificationService.PATH))
+                    .withHeader(HttpPeerNotificationService.SIGNATURE_HEADER, equalTo(SIGNATURE))
+                    .withRequestBody(equalToJson("{\"revoked_at\": " + REVOKED_AT + "}")));
+        } finally {
+            service.shutdown();
+        }
+    }
+
+    @Test
+    public void testEndpointPassesNotificationsToListeners() throws Exception {
+        LocalPeerNotificationService service = new LocalPeerNotificationService(new MetricRegistry());
+        List<PeerNotification> received = new CopyOnWriteArrayList<>();
+        service.addListener(received::add);
+
+        standaloneSetup(new PeerNotificationMvcEndpoint(service, SIGNER)).build()
+                .perform(post(HttpPeerNotificationService.PATH).contentType(MediaType.APPLICATION_JSON)
+                        .header(HttpPeerNotificationService.SIGNATURE_HEADER, SIGNATURE)
+                        .content("{\"revokedAt\": " + REVOKED_AT + "}"))
+                .andExpect(status().isAccepted());
+
+        assertThat(received).containsExactly(NOTIFICATION);
+    }
+
+    @Test
+    public void testEndpointRejectsUnsignedNotifications() throws Exception {
+        LocalPeerNotificationService service = new LocalPeerNotificationService(new MetricRegistry());
+        List<PeerNotification> received = new CopyOnWriteArrayList<>();
+        service.addListener(received::add);
+        PeerNotificationMvcEndpoint endpoint = new PeerNotificationMvcEndpoint(service, SIGNER);
+
+        standaloneSetup(endpoint).build()
+                .perform(post(HttpPeerNotificationService.PATH).contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"revokedAt\": " + REVOKED_AT + "}"))
+                .andExpect(status().isForbidden());
+        standaloneSetup(endpoint).build()
+                .perform(post(HttpPeerNotificationService.PATH).contentType(MediaType.APPLICATION_JSON)
+                        .header(HttpPeerNotificationService.SIGNATURE_HEADER, SIGNATURE)
+                        .content("{\"revokedAt\": " + (REVOKED_AT + 1) + "}"))
+                .andExpect(status().isForbidden());
+        standaloneSetup(new PeerNotificationMvcEndpoint(service, new PeerNotificationSigner(null))).build()
+                .perform(post(HttpPeerNotificationService.PATH).contentType(MediaType.APPLICATION_JSON)
+                        .header(HttpPeerNotificationService.SIGNATURE_HEADER, SIGNATURE)
+                        .content("{\"revokedAt\": " + REVOKED_AT + "}"))
+                .andExpect(status().isForbidden());
+
+        assertThat(received).isEmpty();
+        assertThat(endpoint.isSensitive()).isTrue();
+    }
+}
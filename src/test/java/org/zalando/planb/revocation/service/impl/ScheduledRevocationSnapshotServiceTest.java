@@ -0,0 +1,109 @@
+package org.zalando.planb.revocation.service.impl;
+
+import com.codahale.metrics.MetricRegistry;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.zalando.planb.revocation.domain.ImmutableRevocationRequest;
+import org.zalando.planb.revocation.domain.ImmutableRevokedGlobal;
+import org.zalando.planb.revocation.domain.ImmutableRevokedTokenData;
+import org.zalando.planb.revocation.domain.RevocationSnapshot;
+import org.zalando.planb.revocation.domain.RevocationType;
+import org.zalando.planb.revocation.persistence.InMemoryRevocationStore;
+import org.zalando.planb.revocation.util.ImmutableMessageHasher;
+import org.zalando.planb.revocation.util.RevocationInfoConverter;
+import org.zalando.planb.revocation.util.UnixTimestamp;
+
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link ScheduledRevocationSnapshotService}.
+ *
+ * @author <a href="mailto:team-greendale@zalando.de">Team Greendale</a>
+ */
+public class ScheduledRevocationSnapshotServiceTest {
+
+    private static final int MAX_TIME_DELTA = (int) TimeUnit.DAYS.toSeconds(31);
+
+    private static final int INTERVAL = (int) TimeUnit.HOURS.toSeconds(8);
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private InMemoryRevocationStore store;
+
+    private ScheduledRevocationSnapshotService service;
+
+    @Before
+    public void setUp() throws Exception {
+        store = new InMemoryRevocationStore();
+        store.storeRevocation(ImmutableRevocationRequest.builder()
+                .type(RevocationType.TOKEN)
+                .data(ImmutableRevokedTokenData.builder().token("token").issuedBefore(UnixTimestamp.now()).build())
+                .build());
+        store.storeRevocation(ImmutableRevocationRequest.builder()
+                .type(RevocationType.GLOBAL)
+                .data(ImmutableRevokedGlobal.builder().issuedBefore(UnixTimestamp.now()).build())
+                .build());
+
+        service = new ScheduledRevocationSnapshotService(store, new RevocationInfoConverter(
+                ImmutableMessageHasher.builder()
+                        .putHashingAlgorithms(RevocationType.TOKEN, MessageDigest.getInstance("SHA-256"))
+                        .salt("salt")
+                        .separator('|')
+                        .build()), null, objectMapper, new MetricRegistry(), MAX_TIME_DELTA, INTERVAL, 60, 2);
+    }
+
+    @After
+    public void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    public void testSnapshotIncludesRevocationsUpToItsVersion() throws Exception {
+        final int now = UnixTimestamp.now();
+
+        final RevocationSnapshot current = service.build(now);
+        final JsonNode content = objectMapper.readTree(current.content());
+        assertThat(current.version()).isEqualTo(now);
+        assertThat(current.revocations()).isEqualTo(2);
+        assertThat(content.get("revocations")).hasSize(2);
+        assertThat(content.get("meta").get("NEXT_FROM").asInt()).isEqualTo(now);
+        assertThat(content.get("meta").get("MAX_TIME_DELTA").asInt()).isEqualTo(MAX_TIME_DELTA);
+
+        final RevocationSnapshot past = service.build(now - 100);
+        assertThat(past.revocations()).isZero();
+        assertThat(objectMapper.readTree(past.content()).get("revocations")).isEmpty();
+    }
+
+    @Test
+    public void testChecksumIsTheHashOfTheContent() throws Exception {
+        final RevocationSnapshot snapshot = service.build(UnixTimestamp.now());
+
+        assertThat(snapshot.checksum()).isEqualTo(Base64.getEncoder()
+                .encodeToString(MessageDigest.getInstance("SHA-256").digest(snapshot.content())));
+    }
+
+    @Test
+    public void testSnapshotsAreTakenAtIntervals() {
+        final int next = service.nextSnapshotAt();
+
+        assertThat((next - 60) % INTERVAL).isZero();
+        assertThat(next).isGreaterThan(UnixTimestamp.now());
+        assertThat(next).isLessThanOrEqualTo(UnixTimestamp.now() + INTERVAL + 60);
+    }
+
+    @Test
+    public void testFailedBuildsAreRetriedWithBackoff() {
+        assertThat(ScheduledRevocationSnapshotService.retryDelay(1, INTERVAL)).isEqualTo(30);
+        assertThat(ScheduledRevocationSnapshotService.retryDelay(2, INTERVAL)).isEqualTo(60);
+        assertThat(ScheduledRevocationSnapshotService.retryDelay(3, INTERVAL)).isEqualTo(120);
+        assertThat(ScheduledRevocationSnapshotService.retryDelay(100, INTERVAL)).isEqualTo(INTERVAL);
+        assertThat(ScheduledRevocationSnapshotService.retryDelay(3, 10)).isEqualTo(30);
+    }
+}
@@ -0,0 +1,28 @@
+package org.zalando.planb.revocation.util;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class DeadlineTest {
+
+    @Test
+    public void testNoDeadlineNeverExpires() {
+        assertThat(Deadline.none().isBounded()).isFalse();
+        assertThat(Deadline.none().isExpired()).isFalse();
+        assertThat(Deadline.none().remainingMillis()).isEqualTo(Long.MAX_VALUE);
+        assertThat(Deadline.after(0)).isSameAs(Deadline.none());
+    }
+
+    @Test
+    public void testDeadlineExpires() throws InterruptedException {
+        final Deadline deadline = Deadline.after(20);
+        assertThat(deadline.isBounded()).isTrue();
+        assertThat(deadline.remainingMillis()).isBetween(0L, 20L);
+
+        Thread.sleep(30);
+
+        assertThat(deadline.isExpired()).isTrue();
+        assertThat(deadline.remainingMillis()).isZero();
+    }
+}
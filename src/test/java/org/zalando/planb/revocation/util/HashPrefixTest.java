@@ -0,0 +1,67 @@
+package org.zalando.planb.revocation.util;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for {@link HashPrefix}.
+ */
+public class HashPrefixTest {
+
+    private static byte[] bytes(final int... values) {
+        final byte[] bytes = new byte[values.length];
+        for (int i = 0; i < values.length; i++) {
+            bytes[i] = (byte) values[i];
+        }
+        return bytes;
+    }
+
+    @Test
+    public void testWholeHexPrefix() {
+        final HashPrefix prefix = HashPrefix.parse("ab", null);
+
+        assertThat(prefix.bits()).isEqualTo(8);
+        assertThat(prefix.lowerBound()).isEqualTo(bytes(0xab));
+        assertThat(prefix.upperBound()).isEqualTo(bytes(0xac));
+        assertThat(prefix.matches(bytes(0xab, 0x00))).isTrue();
+        assertThat(prefix.matches(bytes(0xab, 0xff))).isTrue();
+        assertThat(prefix.matches(bytes(0xac, 0x00))).isFalse();
+    }
+
+    @Test
+    public void testPartialBitsIgnoreTrailingBits() {
+        final HashPrefix prefix = HashPrefix.parse("abf", 10);
+
+        assertThat(prefix.lowerBound()).isEqualTo(bytes(0xab, 0xc0));
+        assertThat(prefix.upperBound()).isEqualTo(bytes(0xac, 0x00));
+        assertThat(prefix.matches(bytes(0xab, 0xff))).isTrue();
+        assertThat(prefix.matches(bytes(0xab, 0x80))).isFalse();
+        assertThat(prefix).isEqualTo(HashPrefix.parse("abc", 10));
+    }
+
+    @Test
+    public void testOddHexLength() {
+        final HashPrefix prefix = HashPrefix.parse("7", null);
+
+        assertThat(prefix.bits()).isEqualTo(4);
+        assertThat(prefix.lowerBound()).isEqualTo(bytes(0x70));
+        assertThat(prefix.upperBound()).isEqualTo(bytes(0x80));
+    }
+
+    @Test
+    public void testHighestPrefixHasNoUpperBound() {
+        assertThat(HashPrefix.parse("ff", null).upperBound()).isNull();
+        assertThat(HashPrefix.parse("8", 1).upperBound()).isNull();
+        assertThat(HashPrefix.parse("0", 1).upperBound()).isEqualTo(bytes(0x80));
+    }
+
+    @Test
+    public void testInvalidPrefixesAreRejected() {
+        assertThatThrownBy(() -> HashPrefix.parse("xyz", null)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> HashPrefix.parse("", null)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> HashPrefix.parse("ab", 9)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> HashPrefix.parse("ab", 0)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -10,11 +10,22 @@ import org.zalando.planb.revocation.Main;
 import org.zalando.planb.revocation.config.properties.HashingProperties;
 import org.zalando.planb.revocation.domain.RevocationType;
 
+import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
 import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
 
 /**
  * Unit tests for message hashing.
@@ -84,6 +95,101 @@ public class MessageHashTest extends AbstractSpringTest {
                 nullHasher.hashAndEncode(RevocationType.TOKEN, MESSAGE));
     }
 
+    /**
+     * Asserts that non ASCII messages, long messages and all digest lengths are hashed like their UTF-8 encoding.
+     *
+     * @throws NoSuchAlgorithmException
+     */
+    @Test
+    public void testUtf8Hashing() throws NoSuchAlgorithmException {
+        String message = "Gr\u00fc\u00dfe \u20ac \ud83d\udd11 \ud800" + String.join("", Collections.nCopies(500, "\u00e9x"));
+
+        for (String algorithm : new String[]{"MD5", "SHA-1", "SHA-256", "SHA-512"}) {
+            MessageHasher hasher = ImmutableMessageHasher.builder()
+                    .putHashingAlgorithms(RevocationType.TOKEN, MessageDigest.getInstance(algorithm))
+                    .salt("s\u00e4lt")
+                    .separator('\u00a7')
+                    .build();
+
+            MessageDigest digest = MessageDigest.getInstance(algorithm);
+            digest.update(("s\u00e4lt" + message + '\u00a7' + MESSAGE).getBytes(StandardCharsets.UTF_8));
+
+            assertEquals(Base64.getUrlEncoder().encodeToString(digest.digest()),
+                    hasher.hashAndEncode(RevocationType.TOKEN, message, MESSAGE));
+        }
+    }
+
+    /**
+     * Asserts that concurrent hashing with a shared {@link MessageHasher} yields the same results as sequential hashing.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testConcurrentHashing() throws Exception {
+        List<String> messages = IntStream.range(0, 1000).mapToObj(i -> MESSAGE + i).collect(Collectors.toList());
+        List<String> expected = messages.stream()
+                .map(message -> messageHasher.hashAndEncode(RevocationType.TOKEN, message))
+                .collect(Collectors.toList());
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<List<String>>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(executor.submit(() -> messages.stream()
+                        .map(message -> messageHasher.hashAndEncode(RevocationType.TOKEN, message))
+                        .collect(Collectors.toList())));
+            }
+            for (Future<List<String>> result : results) {
+                assertEquals(expected, result.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Asserts that cached hashes are reused, and never shared between hashers with different salts.
+     *
+     * @throws NoSuchAlgorithmException
+     */
+    @Test
+    public void testCachedHashing() throws NoSuchAlgorithmException {
+        MessageHasher cachingHasher = ImmutableMessageHasher.builder()
+                .putHashingAlgorithms(RevocationType.CLAIM, MessageDigest.getInstance("SHA-256"))
+                .salt("salt")
+                .separator('|')
+                .cacheMaximumSize(10)
+                .build();
+        MessageHasher otherSaltHasher = ImmutableMessageHasher.copyOf(cachingHasher).withSalt("other");
+
+        String hashed = cachingHasher.hashAndEncode(RevocationType.CLAIM, MESSAGE, MESSAGE2);
+
+        assertEquals(hashed, cachingHasher.hashAndEncode(RevocationType.CLAIM, MESSAGE, MESSAGE2));
+        assertEquals(1, cachingHasher.cacheStats().get().hitCount());
+        assertEquals(1, cachingHasher.cachedHashes());
+        assertNotEquals(hashed, otherSaltHasher.hashAndEncode(RevocationType.CLAIM, MESSAGE, MESSAGE2));
+        assertNotEquals(hashed, cachingHasher.hashAndEncode(RevocationType.CLAIM, MESSAGE2, MESSAGE));
+        assertEquals(2, cachingHasher.cachedHashes());
+    }
+
+    /**
+     * Asserts that hashes are not cached when the cache is disabled.
+     *
+     * @throws NoSuchAlgorithmException
+     */
+    @Test
+    public void testCacheDisabled() throws NoSuchAlgorithmException {
+        MessageHasher hasher = ImmutableMessageHasher.builder()
+                .putHashingAlgorithms(RevocationType.TOKEN, MessageDigest.getInstance("SHA-256"))
+                .separator('|')
+                .build();
+
+        hasher.hashAndEncode(RevocationType.TOKEN, MESSAGE);
+
+        assertFalse(hasher.cacheStats().isPresent());
+        assertEquals(0, hasher.cachedHashes());
+    }
+
     /**
      * Tests default value properties for the MessageHasher.
      */
@@ -0,0 +1,100 @@
+package org.zalando.planb.revocation.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.zalando.planb.revocation.domain.RevocationType;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of {@link MessageHasher} under concurrency, compared to hashing with a single digest guarded by a lock.
+ * <p>
+ * <p>Run with {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=org.zalando.planb.revocation.util.MessageHasherBenchmark}, or from the IDE.</p>
+ *
+ * @author <a href="mailto:team-greendale@zalando.de">Team Greendale</a>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(8)
+public class MessageHasherBenchmark {
+
+    private static final String SALT = "salt";
+
+    private static final String TOKEN = "eyJraWQiOiJ0ZXN0a2V5LWVzMjU2IiwiYWxnIjoiRVMyNTYifQ.eyJzdWIiOiJ0ZXN0MiIsInNjb3BlIjpbImNuIl0"
+            + "sImlzcyI6IkIiLCJyZWFsbSI6Ii9zZXJ2aWNlcyIsImV4cCI6MTQ1NzMxOTgxNCwiaWF0IjoxNDU3MjkxMDE0fQ.KmDsVB09RAOYwT0Y6E"
+            + "_ZxT6kbZlsmAcOmOcdAr3ubtyWqG2U6vyKXhZr0dJtYxSDZQbg3bbWUGwfcpz4wVXHgw";
+
+    private MessageHasher messageHasher;
+
+    private MessageHasher cachingMessageHasher;
+
+    private MessageDigest lockedDigest;
+
+    @Setup
+    public void setUp() throws NoSuchAlgorithmException {
+        messageHasher = ImmutableMessageHasher.builder()
+                .putHashingAlgorithms(RevocationType.TOKEN, MessageDigest.getInstance("SHA-256"))
+                .putHashingAlgorithms(RevocationType.CLAIM, MessageDigest.getInstance("SHA-256"))
+                .salt(SALT)
+                .separator('|')
+                .build();
+        cachingMessageHasher = ImmutableMessageHasher.copyOf(messageHasher).withCacheMaximumSize(1000);
+        lockedDigest = MessageDigest.getInstance("SHA-256");
+
+        if (!messageHasher.hashAndEncode(RevocationType.TOKEN, TOKEN).equals(lockedHash(TOKEN))) {
+            throw new IllegalStateException("MessageHasher and reference hashing differ");
+        }
+    }
+
+    @Benchmark
+    public String hashToken() {
+        return messageHasher.hashAndEncode(RevocationType.TOKEN, TOKEN);
+    }
+
+    @Benchmark
+    public String hashClaims() {
+        return messageHasher.hashAndEncode(RevocationType.CLAIM, "test0", "/services", "realm");
+    }
+
+    @Benchmark
+    public String hashTokenCached() {
+        return cachingMessageHasher.hashAndEncode(RevocationType.TOKEN, TOKEN);
+    }
+
+    @Benchmark
+    public String hashTokenLocked() {
+        return lockedHash(TOKEN);
+    }
+
+    private String lockedHash(final String message) {
+        synchronized (lockedDigest) {
+            lockedDigest.update((SALT + message).getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().encodeToString(lockedDigest.digest());
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(MessageHasherBenchmark.class.getSimpleName()).build()).run();
+    }
+}
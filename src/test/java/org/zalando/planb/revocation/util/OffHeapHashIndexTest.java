@@ -0,0 +1,128 @@
+package org.zalando.planb.revocation.util;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link OffHeapHashIndex}.
+ *
+ * @author <a href="mailto:team-greendale@zalando.de">Team Greendale</a>
+ */
+public class OffHeapHashIndexTest {
+
+    private static final int MISSING = -1;
+
+    private static byte[] key(final int i) {
+        final ByteBuffer key = ByteBuffer.allocate(OffHeapHashIndex.KEY_LENGTH);
+        key.putInt(0, i);
+        key.putInt(OffHeapHashIndex.KEY_LENGTH - 4, i);
+        return key.array();
+    }
+
+    private static byte[] collidingKey(final int i) {
+        final ByteBuffer key = ByteBuffer.allocate(OffHeapHashIndex.KEY_LENGTH);
+        key.putInt(OffHeapHashIndex.KEY_LENGTH - 4, i);
+        return key.array();
+    }
+
+    @Test
+    public void testKeepsMaximumValue() {
+        OffHeapHashIndex index = new OffHeapHashIndex(16);
+
+        index.putMax(key(1), 0, 10);
+        index.putMax(key(1), 0, 5);
+        assertThat(index.get(key(1), 0, MISSING)).isEqualTo(10);
+
+        index.putMax(key(1), 0, 20);
+        assertThat(index.get(key(1), 0, MISSING)).isEqualTo(20);
+        assertThat(index.get(key(2), 0, MISSING)).isEqualTo(MISSING);
+        assertThat(index.size()).isEqualTo(1);
+    }
+
+    @Test
+    public void testKeyOffset() {
+        OffHeapHashIndex index = new OffHeapHashIndex(16);
+        byte[] padded = new byte[OffHeapHashIndex.KEY_LENGTH + 3];
+        System.arraycopy(key(7), 0, padded, 3, OffHeapHashIndex.KEY_LENGTH);
+
+        index.putMax(padded, 3, 42);
+
+        assertThat(index.get(key(7), 0, MISSING)).isEqualTo(42);
+    }
+
+    @Test
+    public void testCollidingKeys() {
+        OffHeapHashIndex index = new OffHeapHashIndex(16);
+
+        for (int i = 0; i < 100; i++) {
+            index.putMax(collidingKey(i), 0, i);
+        }
+
+        for (int i = 0; i < 100; i++) {
+            assertThat(index.get(collidingKey(i), 0, MISSING)).isEqualTo(i);
+        }
+        assertThat(index.get(collidingKey(100), 0, MISSING)).isEqualTo(MISSING);
+    }
+
+    @Test
+    public void testGrowsBeyondExpectedEntries() {
+        OffHeapHashIndex index = new OffHeapHashIndex(16);
+        long initialMemory = index.memoryUsage();
+
+        for (int i = 0; i < 10000; i++) {
+            index.putMax(key(i), 0, i);
+        }
+
+        assertThat(index.size()).isEqualTo(10000);
+        assertThat(index.memoryUsage()).isGreaterThan(initialMemory);
+        for (int i = 0; i < 10000; i++) {
+            assertThat(index.get(key(i), 0, MISSING)).isEqualTo(i);
+        }
+        assertThat(index.get(key(10000), 0, MISSING)).isEqualTo(MISSING);
+    }
+
+    @Test
+    public void testConcurrentReadsDuringWrites() throws Exception {
+        OffHeapHashIndex index = new OffHeapHashIndex(16);
+        for (int i = 0; i < 100; i++) {
+            index.putMax(key(i), 0, i);
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> readers = new ArrayList<>();
+            for (int r = 0; r < 3; r++) {
+                readers.add(executor.submit(() -> {
+                    for (int n = 0; n < 20; n++) {
+                        for (int i = 0; i < 100; i++) {
+                            assertThat(index.get(key(i), 0, MISSING)).isEqualTo(i);
+                        }
+                    }
+                }));
+            }
+            Future<?> writer = executor.submit(() -> {
+                for (int i = 100; i < 5000; i++) {
+                    index.putMax(key(i), 0, i);
+                }
+            });
+
+            writer.get(30, TimeUnit.SECONDS);
+            for (Future<?> reader : readers) {
+                reader.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(index.size()).isEqualTo(5000);
+    }
+}
@@ -0,0 +1,74 @@
+package org.zalando.planb.revocation.util;
+
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.PlainJWT;
+import org.junit.Test;
+import org.zalando.planb.revocation.domain.ImmutableRevocationRequest;
+import org.zalando.planb.revocation.domain.ImmutableRevokedClaimsData;
+import org.zalando.planb.revocation.domain.ImmutableRevokedGlobal;
+import org.zalando.planb.revocation.domain.ImmutableRevokedTokenData;
+import org.zalando.planb.revocation.domain.RevocationRequest;
+import org.zalando.planb.revocation.domain.RevocationType;
+import org.zalando.planb.revocation.domain.RevokedData;
+
+import java.util.Date;
+
+import static java.util.Collections.singletonMap;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for {@link RevocationExpiry}.
+ */
+public class RevocationExpiryTest {
+
+    private static final int ISSUED_BEFORE = 1458000000;
+
+    @Test
+    public void testTokenRevocationExpiresWithJwt() {
+        final String jwt = new PlainJWT(new JWTClaimsSet.Builder()
+                .expirationTime(new Date(1458003600 * 1000L))
+                .build()).serialize();
+
+        assertThat(new RevocationExpiry(0).expiresAt(token(jwt))).isEqualTo(1458003600);
+        assertThat(new RevocationExpiry(28800).expiresAt(token(jwt))).isEqualTo(1458003600);
+    }
+
+    @Test
+    public void testOpaqueTokenRevocationExpiresAfterMaxLifetime() {
+        assertThat(new RevocationExpiry(0).expiresAt(token("opaque"))).isNull();
+        assertThat(new RevocationExpiry(28800).expiresAt(token("opaque"))).isEqualTo(ISSUED_BEFORE + 28800);
+    }
+
+    @Test
+    public void testClaimAndGlobalRevocationsExpireAfterMaxLifetime() {
+        final RevocationRequest claim = request(RevocationType.CLAIM, ImmutableRevokedClaimsData.builder()
+                .claims(singletonMap("sub", "jdoe"))
+                .issuedBefore(ISSUED_BEFORE)
+                .build());
+        final RevocationRequest global = request(RevocationType.GLOBAL, ImmutableRevokedGlobal.builder()
+                .issuedBefore(ISSUED_BEFORE)
+                .build());
+
+        assertThat(new RevocationExpiry(0).expiresAt(claim)).isNull();
+        assertThat(new RevocationExpiry(0).expiresAt(global)).isNull();
+        assertThat(new RevocationExpiry(3600).expiresAt(claim)).isEqualTo(ISSUED_BEFORE + 3600);
+        assertThat(new RevocationExpiry(3600).expiresAt(global)).isEqualTo(ISSUED_BEFORE + 3600);
+    }
+
+    @Test
+    public void testNegativeMaxLifetimeIsRejected() {
+        assertThatThrownBy(() -> new RevocationExpiry(-1)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static RevocationRequest token(final String token) {
+        return request(RevocationType.TOKEN, ImmutableRevokedTokenData.builder()
+                .token(token)
+                .issuedBefore(ISSUED_BEFORE)
+                .build());
+    }
+
+    private static RevocationRequest request(final RevocationType type, final RevokedData data) {
+        return ImmutableRevocationRequest.builder().type(type).data(data).build();
+    }
+}
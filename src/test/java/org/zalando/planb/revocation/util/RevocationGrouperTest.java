@@ -0,0 +1,89 @@
+package org.zalando.planb.revocation.util;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.Test;
+import org.zalando.planb.revocation.domain.GroupedRevocationList;
+import org.zalando.planb.revocation.domain.ImmutableRevocationInfo;
+import org.zalando.planb.revocation.domain.ImmutableRevocationList;
+import org.zalando.planb.revocation.domain.ImmutableRevokedClaimsInfo;
+import org.zalando.planb.revocation.domain.ImmutableRevokedGlobal;
+import org.zalando.planb.revocation.domain.ImmutableRevokedTokenInfo;
+import org.zalando.planb.revocation.domain.NotificationType;
+import org.zalando.planb.revocation.domain.RevocationGroup;
+import org.zalando.planb.revocation.domain.RevocationInfo;
+import org.zalando.planb.revocation.domain.RevocationType;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link RevocationGrouper}.
+ *
+ * @author <a href="mailto:team-greendale@zalando.de">Team Greendale</a>
+ */
+public class RevocationGrouperTest {
+
+    private static RevocationInfo claims(final int revokedAt, final String valueHash, final String... names) {
+        return ImmutableRevocationInfo.builder()
+                .type(RevocationType.CLAIM)
+                .revokedAt(revokedAt)
+                .data(ImmutableRevokedClaimsInfo.builder()
+                        .addNames(names)
+                        .valueHash(valueHash)
+                        .hashAlgorithm("SHA-256")
+                        .separator('|')
+                        .issuedBefore(revokedAt - 10)
+                        .build())
+                .build();
+    }
+
+    private static RevocationInfo token(final int revokedAt, final String tokenHash) {
+        return ImmutableRevocationInfo.builder()
+                .type(RevocationType.TOKEN)
+                .revokedAt(revokedAt)
+                .data(ImmutableRevokedTokenInfo.builder()
+                        .tokenHash(tokenHash)
+                        .hashAlgorithm("SHA-256")
+                        .issuedBefore(revokedAt - 10)
+                        .build())
+                .build();
+    }
+
+    @Test
+    public void testRevocationsAreGroupedByWhatTheyShare() {
+        final GroupedRevocationList grouped = RevocationGrouper.group(ImmutableRevocationList.builder()
+                .putMeta(NotificationType.MAX_TIME_DELTA, 100)
+                .addRevocations(
+                        token(1000, "t1"),
+                        claims(1001, "c1", "uid"),
+                        claims(1003, "c2", "sub", "realm"),
+                        token(1005, "t2"),
+                        claims(1002, "c3", "uid"),
+                        ImmutableRevocationInfo.builder()
+                                .type(RevocationType.GLOBAL)
+                                .revokedAt(1004)
+                                .data(ImmutableRevokedGlobal.builder().issuedBefore(990).build())
+                                .build())
+                .build());
+
+        assertThat(grouped.meta()).containsEntry(NotificationType.MAX_TIME_DELTA, 100);
+        assertThat(grouped.groups()).extracting(RevocationGroup::type).containsExactly(RevocationType.TOKEN,
+                RevocationType.CLAIM, RevocationType.CLAIM, RevocationType.GLOBAL);
+
+        final RevocationGroup tokens = grouped.groups().get(0);
+        assertThat(tokens.hashAlgorithm()).isEqualTo("SHA-256");
+        assertThat(tokens.names()).isNull();
+        assertThat(tokens.separator()).isNull();
+        assertThat(tokens.revocations()).containsExactly(ImmutableList.of(1000, 990, "t1"),
+                ImmutableList.of(5, 995, "t2"));
+
+        final RevocationGroup uid = grouped.groups().get(1);
+        assertThat(uid.names()).containsExactly("uid");
+        assertThat(uid.separator()).isEqualTo('|');
+        assertThat(uid.revocations()).containsExactly(ImmutableList.of(1001, 991, "c1"),
+                ImmutableList.of(1, 992, "c3"));
+
+        assertThat(grouped.groups().get(2).names()).containsExactly("sub", "realm");
+        assertThat(grouped.groups().get(3).hashAlgorithm()).isNull();
+        assertThat(grouped.groups().get(3).revocations()).containsExactly(ImmutableList.of(1004, 990));
+    }
+}
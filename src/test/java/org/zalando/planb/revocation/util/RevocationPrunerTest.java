@@ -0,0 +1,175 @@
+package org.zalando.planb.revocation.util;
+
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.junit.Test;
+import org.zalando.planb.revocation.domain.ImmutableRevocationData;
+import org.zalando.planb.revocation.domain.ImmutableRevocationRequest;
+import org.zalando.planb.revocation.domain.ImmutableRevokedClaimsData;
+import org.zalando.planb.revocation.domain.ImmutableRevokedGlobal;
+import org.zalando.planb.revocation.domain.ImmutableRevokedTokenData;
+import org.zalando.planb.revocation.domain.RevocationData;
+import org.zalando.planb.revocation.domain.RevocationType;
+import org.zalando.planb.revocation.domain.RevokedClaimsData;
+import org.zalando.planb.revocation.domain.RevokedData;
+import org.zalando.planb.revocation.domain.RevokedGlobal;
+import org.zalando.planb.revocation.domain.RevokedTokenData;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link RevocationPruner}.
+ * <p>
+ * <p>Besides examples, checks on random revocation lists that pruning never changes whether a token is revoked, the
+ * way agents decide it: a token is revoked if it was issued before the {@code issued_before} of a global revocation,
+ * or of a revocation of the token itself or of a subset of its claims.</p>
+ *
+ * @author <a href="mailto:team-greendale@zalando.de">Team Greendale</a>
+ */
+public class RevocationPrunerTest {
+
+    private static final List<String> TOKENS = ImmutableList.of("token-a", "token-b", "token-c", "token-d");
+
+    private static final List<Map<String, String>> CLAIMS = ImmutableList.of(
+            ImmutableMap.of("uid", "alice"),
+            ImmutableMap.of("uid", "bob"),
+            ImmutableMap.of("uid", "alice", "realm", "/employees"),
+            ImmutableMap.of("realm", "/services"));
+
+    private final MetricRegistry metricRegistry = new MetricRegistry();
+
+    private final RevocationPruner pruner = new RevocationPruner(metricRegistry);
+
+    private static RevocationData revocation(final RevocationType type, final RevokedData data, final int revokedAt) {
+        return ImmutableRevocationData.builder()
+                .revocationRequest(ImmutableRevocationRequest.builder().type(type).data(data).build())
+                .revokedAt(revokedAt)
+                .build();
+    }
+
+    private static RevocationData global(final int issuedBefore) {
+        return revocation(RevocationType.GLOBAL, ImmutableRevokedGlobal.builder().issuedBefore(issuedBefore).build(),
+                issuedBefore);
+    }
+
+    private static RevocationData token(final String token, final int issuedBefore) {
+        return revocation(RevocationType.TOKEN,
+                ImmutableRevokedTokenData.builder().token(token).issuedBefore(issuedBefore).build(), issuedBefore);
+    }
+
+    private static RevocationData claims(final Map<String, String> claims, final int issuedBefore) {
+        return revocation(RevocationType.CLAIM,
+                ImmutableRevokedClaimsData.builder().claims(claims).issuedBefore(issuedBefore).build(), issuedBefore);
+    }
+
+    /*
+     * Decides whether a token is revoked the way agents do.
+     */
+    private static boolean isRevoked(final Collection<RevocationData> revocations, final String token,
+                                     final Map<String, String> tokenClaims, final int issuedAt) {
+        for (RevocationData revocation : revocations) {
+            final RevokedData data = revocation.revocationRequest().data();
+            if (data instanceof RevokedGlobal) {
+                if (issuedAt < ((RevokedGlobal) data).issuedBefore()) {
+                    return true;
+                }
+            } else if (data instanceof RevokedTokenData) {
+                if (token.equals(((RevokedTokenData) data).token())
+                        && issuedAt < ((RevokedTokenData) data).issuedBefore()) {
+                    return true;
+                }
+            } else if (data instanceof RevokedClaimsData) {
+                if (tokenClaims.entrySet().containsAll(((RevokedClaimsData) data).claims().entrySet())
+                        && issuedAt < ((RevokedClaimsData) data).issuedBefore()) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static List<RevocationData> randomRevocations(final Random random) {
+        final List<RevocationData> revocations = new ArrayList<>();
+        final int size = random.nextInt(30);
+        for (int i = 0; i < size; i++) {
+            final int issuedBefore = 1000 + random.nextInt(100);
+            switch (random.nextInt(7)) {
+                case 0:
+                    revocations.add(global(issuedBefore));
+                    break;
+                case 1:
+                case 2:
+                case 3:
+                    revocations.add(token(TOKENS.get(random.nextInt(TOKENS.size())), issuedBefore));
+                    break;
+                default:
+                    revocations.add(claims(CLAIMS.get(random.nextInt(CLAIMS.size())), issuedBefore));
+            }
+        }
+        return revocations;
+    }
+
+    @Test
+    public void testGlobalSupersedesOlderRevocations() {
+        final List<RevocationData> revocations = ImmutableList.of(token("token-a", 1000),
+                claims(CLAIMS.get(0), 1050), global(1050), token("token-b", 1100));
+
+        assertThat(pruner.prune(revocations)).containsExactly(global(1050), token("token-b", 1100));
+        assertThat(metricRegistry.counter("planb.revocations.pruned.token").getCount()).isEqualTo(1);
+        assertThat(metricRegistry.counter("planb.revocations.pruned.claim").getCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void testLatestRevocationOfSameClaimsIsKept() {
+        final List<RevocationData> revocations = ImmutableList.of(claims(CLAIMS.get(0), 1000),
+                claims(CLAIMS.get(1), 1000), claims(CLAIMS.get(0), 1080), claims(CLAIMS.get(0), 1080),
+                global(900), global(950));
+
+        assertThat(pruner.prune(revocations)).containsExactly(claims(CLAIMS.get(1), 1000),
+                claims(CLAIMS.get(0), 1080), global(950));
+        assertThat(metricRegistry.counter("planb.revocations.pruned.claim").getCount()).isEqualTo(2);
+        assertThat(metricRegistry.counter("planb.revocations.pruned.global").getCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void testPruningNeverChangesDecisions() {
+        for (long seed = 0; seed < 500; seed++) {
+            final Random random = new Random(seed);
+            final List<RevocationData> revocations = randomRevocations(random);
+
+            final List<RevocationData> pruned = pruner.prune(revocations);
+
+            assertThat(revocations).as("seed %d", seed).containsAll(pruned);
+            assertThat(pruned).as("seed %d", seed).doesNotHaveDuplicates();
+            for (int i = 0; i < 50; i++) {
+                final String token = TOKENS.get(random.nextInt(TOKENS.size()));
+                final Map<String, String> tokenClaims = new HashMap<>(CLAIMS.get(random.nextInt(CLAIMS.size())));
+                final int issuedAt = 990 + random.nextInt(120);
+
+                assertThat(isRevoked(pruned, token, tokenClaims, issuedAt))
+                        .as("seed %d, token %s %s issued at %d", seed, token, tokenClaims, issuedAt)
+                        .isEqualTo(isRevoked(revocations, token, tokenClaims, issuedAt));
+            }
+        }
+    }
+
+    @Test
+    public void testPruningIsIdempotentAndKeepsOrder() {
+        for (long seed = 0; seed < 200; seed++) {
+            final List<RevocationData> revocations = randomRevocations(new Random(seed));
+
+            final List<RevocationData> pruned = pruner.prune(revocations);
+
+            assertThat(pruner.prune(pruned)).as("seed %d", seed).isEqualTo(pruned);
+            assertThat(revocations).as("seed %d", seed).containsSubsequence(pruned.toArray(new RevocationData[0]));
+        }
+    }
+}
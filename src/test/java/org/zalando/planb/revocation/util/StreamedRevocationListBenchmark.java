@@ -0,0 +1,171 @@
+package org.zalando.planb.revocation.util;
+
+import com.codahale.metrics.MetricRegistry;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.PropertyNamingStrategy;
+import com.fasterxml.jackson.datatype.guava.GuavaModule;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.io.ByteStreams;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.zalando.planb.revocation.domain.ImmutableRevocationData;
+import org.zalando.planb.revocation.domain.ImmutableRevocationRequest;
+import org.zalando.planb.revocation.domain.ImmutableRevokedClaimsData;
+import org.zalando.planb.revocation.domain.ImmutableRevokedGlobal;
+import org.zalando.planb.revocation.domain.ImmutableRevokedTokenData;
+import org.zalando.planb.revocation.domain.NotificationType;
+import org.zalando.planb.revocation.domain.RevocationData;
+import org.zalando.planb.revocation.domain.RevocationType;
+import org.zalando.planb.revocation.web.CompressedResponseCache;
+import org.zalando.planb.revocation.web.DigestHeaderFilter;
+import org.zalando.planb.revocation.web.RenderedResponseCache;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Allocation rate of serializing a {@code GET /revocations} response, when converting stored revocations first, and
+ * when writing them straight with a {@link StreamedRevocationList}, by itself and through the {@link DigestHeaderFilter}
+ * that tags, checksums and compresses responses. Responses of closed ranges are sent again from the
+ * {@link RenderedResponseCache} instead.
+ * <p>
+ * <p>Hashes are cached, as they are between polls of the same window, and so are compressed responses. The bytes
+ * allocated per operation are reported by the GC profiler as {@code gc.alloc.rate.norm}.</p>
+ * <p>
+ * <p>Run with {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=org.zalando.planb.revocation.util.StreamedRevocationListBenchmark}, or from the IDE.</p>
+ *
+ * @author <a href="mailto:team-greendale@zalando.de">Team Greendale</a>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StreamedRevocationListBenchmark {
+
+    @Param({"100", "10000"})
+    private int revocations;
+
+    private final OutputStream out = ByteStreams.nullOutputStream();
+
+    private ObjectMapper objectMapper;
+
+    private StreamedRevocationList list;
+
+    private DigestHeaderFilter filter;
+
+    private DigestHeaderFilter cachingFilter;
+
+    private MockHttpServletRequest request;
+
+    @Setup
+    public void setUp() throws NoSuchAlgorithmException, IOException {
+        objectMapper = new ObjectMapper().registerModule(new GuavaModule())
+                .setPropertyNamingStrategy(PropertyNamingStrategy.CAMEL_CASE_TO_LOWER_CASE_WITH_UNDERSCORES);
+        final RevocationInfoConverter converter = new RevocationInfoConverter(ImmutableMessageHasher.builder()
+                .putHashingAlgorithms(RevocationType.TOKEN, MessageDigest.getInstance("SHA-256"))
+                .putHashingAlgorithms(RevocationType.CLAIM, MessageDigest.getInstance("SHA-256"))
+                .salt("salt")
+                .separator('|')
+                .cacheMaximumSize(revocations * 2)
+                .build());
+
+        final List<RevocationData> stored = new ArrayList<>(revocations);
+        for (int i = 0; i < revocations; i++) {
+            final ImmutableRevocationRequest.Builder request = ImmutableRevocationRequest.builder();
+            switch (i % 3) {
+                case 0:
+                    request.type(RevocationType.TOKEN)
+                            .data(ImmutableRevokedTokenData.builder().token("token" + i).issuedBefore(i).build());
+                    break;
+                case 1:
+                    request.type(RevocationType.CLAIM).data(ImmutableRevokedClaimsData.builder()
+                            .claims(ImmutableMap.of("sub", "user" + i, "realm", "/services"))
+                            .issuedBefore(i)
+                            .build());
+                    break;
+                default:
+                    request.type(RevocationType.GLOBAL).data(ImmutableRevokedGlobal.builder().issuedBefore(i).build());
+            }
+            stored.add(ImmutableRevocationData.builder().revokedAt(1000 + i).revocationRequest(request.build())
+                    .build());
+        }
+        final Map<NotificationType, Object> meta = new EnumMap<>(NotificationType.class);
+        meta.put(NotificationType.MAX_TIME_DELTA, 86400);
+        list = converter.stream(meta, stored);
+
+        if (!Arrays.equals(objectMapper.writeValueAsBytes(list),
+                objectMapper.writeValueAsBytes(list.toRevocationList()))) {
+            throw new IllegalStateException("Streamed and converted revocations differ");
+        }
+
+        final CompressedResponseCache compression = new CompressedResponseCache(new MetricRegistry(),
+                64 * 1024 * 1024, 2048);
+        filter = new DigestHeaderFilter(compression);
+        cachingFilter = new DigestHeaderFilter(compression,
+                new RenderedResponseCache(new MetricRegistry(), 64 * 1024 * 1024));
+        request = new MockHttpServletRequest("GET", "/revocations");
+        request.addHeader(HttpHeaders.ACCEPT_ENCODING, "gzip");
+    }
+
+    @Benchmark
+    public void converted() throws IOException {
+        objectMapper.writeValue(out, list.toRevocationList());
+    }
+
+    @Benchmark
+    public void streamed() throws IOException {
+        objectMapper.writeValue(out, list);
+    }
+
+    @Benchmark
+    public MockHttpServletResponse filtered() throws IOException, ServletException {
+        final MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, (req, res) -> objectMapper.writeValue(res.getOutputStream(), list));
+        return response;
+    }
+
+    @Benchmark
+    public MockHttpServletResponse cached() throws IOException, ServletException {
+        final MockHttpServletResponse response = new MockHttpServletResponse();
+        cachingFilter.doFilter(request, response, (req, res) -> {
+            ((HttpServletResponse) res).setHeader(HttpHeaders.CACHE_CONTROL, "max-age=86400, public");
+            objectMapper.writeValue(res.getOutputStream(), list);
+        });
+        return response;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(StreamedRevocationListBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
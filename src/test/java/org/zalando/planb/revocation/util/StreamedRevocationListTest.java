@@ -0,0 +1,122 @@
+package org.zalando.planb.revocation.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.PropertyNamingStrategy;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.guava.GuavaModule;
+import com.google.common.collect.ImmutableMap;
+import org.junit.Before;
+import org.junit.Test;
+import org.zalando.planb.revocation.domain.ImmutableRevocationData;
+import org.zalando.planb.revocation.domain.ImmutableRevocationRequest;
+import org.zalando.planb.revocation.domain.ImmutableRevokedClaimsData;
+import org.zalando.planb.revocation.domain.ImmutableRevokedGlobal;
+import org.zalando.planb.revocation.domain.ImmutableRevokedTokenData;
+import org.zalando.planb.revocation.domain.NotificationType;
+import org.zalando.planb.revocation.domain.RevocationData;
+import org.zalando.planb.revocation.domain.RevocationType;
+
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link StreamedRevocationList}.
+ *
+ * @author <a href="mailto:team-greendale@zalando.de">Team Greendale</a>
+ */
+public class StreamedRevocationListTest {
+
+    private RevocationInfoConverter converter;
+
+    private final Map<NotificationType, Object> meta = new EnumMap<>(NotificationType.class);
+
+    private final List<RevocationData> revocations = new ArrayList<>();
+
+    @Before
+    public void setUp() throws Exception {
+        converter = new RevocationInfoConverter(ImmutableMessageHasher.builder()
+                .putHashingAlgorithms(RevocationType.TOKEN, MessageDigest.getInstance("SHA-256"))
+                .putHashingAlgorithms(RevocationType.CLAIM, MessageDigest.getInstance("SHA-1"))
+                .salt("salt")
+                .separator('|')
+                .build());
+
+        meta.put(NotificationType.MAX_TIME_DELTA, 100);
+        meta.put(NotificationType.DEGRADED_CONSISTENCY, true);
+        meta.put(NotificationType.NEXT_FROM, 1005);
+        revocations.add(ImmutableRevocationData.builder()
+                .revokedAt(1000)
+                .revocationRequest(ImmutableRevocationRequest.builder()
+                        .type(RevocationType.TOKEN)
+                        .data(ImmutableRevokedTokenData.builder().token("abc").issuedBefore(990).build())
+                        .build())
+                .build());
+        revocations.add(ImmutableRevocationData.builder()
+                .revokedAt(1001)
+                .revocationRequest(ImmutableRevocationRequest.builder()
+                        .type(RevocationType.CLAIM)
+                        .data(ImmutableRevokedClaimsData.builder()
+                                .claims(ImmutableMap.of("sub", "test0", "realm", "/services"))
+                                .issuedBefore(991)
+                                .build())
+                        .build())
+                .build());
+        revocations.add(ImmutableRevocationData.builder()
+                .revokedAt(1002)
+                .expiresAt(2000)
+                .revocationRequest(ImmutableRevocationRequest.builder()
+                        .type(RevocationType.GLOBAL)
+                        .data(ImmutableRevokedGlobal.builder().issuedBefore(992).build())
+                        .build())
+                .build());
+    }
+
+    private void assertSameOutput(final ObjectMapper objectMapper) throws Exception {
+        final StreamedRevocationList streamed = converter.stream(meta, revocations);
+
+        assertThat(new String(objectMapper.writeValueAsBytes(streamed), "UTF-8"))
+                .isEqualTo(new String(objectMapper.writeValueAsBytes(streamed.toRevocationList()), "UTF-8"));
+    }
+
+    @Test
+    public void testSameOutputAsRevocationList() throws Exception {
+        assertSameOutput(new ObjectMapper().registerModule(new GuavaModule()));
+    }
+
+    @Test
+    public void testSameOutputWithSnakeCase() throws Exception {
+        assertSameOutput(new ObjectMapper().registerModule(new GuavaModule())
+                .setPropertyNamingStrategy(PropertyNamingStrategy.CAMEL_CASE_TO_LOWER_CASE_WITH_UNDERSCORES));
+    }
+
+    @Test
+    public void testSameOutputWithIndentation() throws Exception {
+        assertSameOutput(new ObjectMapper().registerModule(new GuavaModule())
+                .setPropertyNamingStrategy(PropertyNamingStrategy.PASCAL_CASE_TO_CAMEL_CASE)
+                .enable(SerializationFeature.INDENT_OUTPUT));
+    }
+
+    @Test
+    public void testSameOutputWhenEmpty() throws Exception {
+        meta.clear();
+        revocations.clear();
+        assertSameOutput(new ObjectMapper().registerModule(new GuavaModule())
+                .setPropertyNamingStrategy(PropertyNamingStrategy.CAMEL_CASE_TO_LOWER_CASE_WITH_UNDERSCORES));
+    }
+
+    @Test
+    public void testSameOutputAcrossStrategies() throws Exception {
+        final ObjectMapper snakeCase = new ObjectMapper().registerModule(new GuavaModule())
+                .setPropertyNamingStrategy(PropertyNamingStrategy.CAMEL_CASE_TO_LOWER_CASE_WITH_UNDERSCORES);
+        final ObjectMapper camelCase = new ObjectMapper().registerModule(new GuavaModule());
+        for (ObjectMapper objectMapper : Arrays.asList(snakeCase, camelCase, snakeCase)) {
+            assertSameOutput(objectMapper);
+        }
+    }
+}
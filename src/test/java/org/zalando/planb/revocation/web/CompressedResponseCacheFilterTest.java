@@ -0,0 +1,94 @@
+package org.zalando.planb.revocation.web;
+
+import com.codahale.metrics.MetricRegistry;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.util.StreamUtils;
+
+import javax.servlet.FilterChain;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CompressedResponseCacheFilterTest {
+
+    private static final byte[] BODY = new String(new char[4096]).replace('\0', 'x').getBytes(StandardCharsets.UTF_8);
+
+    private static final FilterChain CHAIN = (req, res) -> res.getOutputStream().write(BODY);
+
+    private MetricRegistry metricRegistry;
+
+    private CompressedResponseCache cache;
+
+    private CompressedResponseCacheFilter filter;
+
+    @Before
+    public void setUp() throws Exception {
+        metricRegistry = new MetricRegistry();
+        cache = new CompressedResponseCache(metricRegistry, 1024 * 1024, 2048);
+        filter = new CompressedResponseCacheFilter(cache);
+    }
+
+    private MockHttpServletResponse get(final String acceptEncoding, final FilterChain chain) throws Exception {
+        final MockHttpServletRequest request = new MockHttpServletRequest("GET", "/revocations");
+        if (acceptEncoding != null) {
+            request.addHeader(HttpHeaders.ACCEPT_ENCODING, acceptEncoding);
+        }
+        final MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain);
+        return response;
+    }
+
+    private static byte[] gunzip(final byte[] content) throws Exception {
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(content))) {
+            return StreamUtils.copyToByteArray(in);
+        }
+    }
+
+    @Test
+    public void testCompressedOnceForIdenticalResponses() throws Exception {
+        final MockHttpServletResponse first = get("gzip, deflate", CHAIN);
+        final MockHttpServletResponse second = get("gzip", CHAIN);
+
+        assertThat(first.getHeader(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+        assertThat(first.getHeader(HttpHeaders.VARY)).isEqualTo(HttpHeaders.ACCEPT_ENCODING);
+        assertThat(gunzip(first.getContentAsByteArray())).isEqualTo(BODY);
+        assertThat(first.getContentLength()).isEqualTo(first.getContentAsByteArray().length);
+        assertThat(second.getContentAsByteArray()).isEqualTo(first.getContentAsByteArray());
+
+        assertThat(metricRegistry.meter("planb.compression.cache.misses").getCount()).isEqualTo(1);
+        assertThat(metricRegistry.meter("planb.compression.cache.hits").getCount()).isEqualTo(1);
+        assertThat(metricRegistry.histogram("planb.compression.ratio").getSnapshot().getMax()).isLessThan(100);
+        assertThat(cache.cachedBytes()).isEqualTo(first.getContentAsByteArray().length);
+    }
+
+    @Test
+    public void testUncompressedWhenGzipNotAccepted() throws Exception {
+        final MockHttpServletResponse response = get("gzip;q=0", CHAIN);
+
+        assertThat(response.getHeader(HttpHeaders.CONTENT_ENCODING)).isNull();
+        assertThat(response.getContentAsByteArray()).isEqualTo(BODY);
+        assertThat(get(null, CHAIN).getContentAsByteArray()).isEqualTo(BODY);
+    }
+
+    @Test
+    public void testSmallAndUnsuccessfulResponsesAreNotCompressed() throws Exception {
+        final MockHttpServletResponse small = get("gzip", (req, res) -> res.getOutputStream().write(new byte[10]));
+        final MockHttpServletResponse problem = get("gzip", (req, res) -> {
+            ((HttpServletResponse) res).setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            res.getOutputStream().write(BODY);
+        });
+
+        assertThat(small.getHeader(HttpHeaders.CONTENT_ENCODING)).isNull();
+        assertThat(small.getContentAsByteArray()).hasSize(10);
+        assertThat(problem.getHeader(HttpHeaders.CONTENT_ENCODING)).isNull();
+        assertThat(problem.getContentAsByteArray()).isEqualTo(BODY);
+    }
+}
@@ -0,0 +1,174 @@
+package org.zalando.planb.revocation.web;
+
+import com.codahale.metrics.MetricRegistry;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.util.StreamUtils;
+
+import javax.servlet.FilterChain;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class DigestHeaderFilterTest {
+
+    private static final byte[] BODY = "{\"meta\":null,\"revocations\":[]}".getBytes(StandardCharsets.UTF_8);
+
+    private DigestHeaderFilter filter;
+
+    @Before
+    public void setUp() throws Exception {
+        filter = new DigestHeaderFilter();
+    }
+
+    @Test
+    public void testDigestOfSuccessfulResponse() throws Exception {
+        final MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/revocations"), response,
+                (req, res) -> res.getOutputStream().write(BODY));
+
+        assertThat(response.getContentAsByteArray()).isEqualTo(BODY);
+        assertThat(response.getHeader(DigestHeaderFilter.DIGEST_HEADER)).isEqualTo("SHA-256="
+                + Base64.getEncoder().encodeToString(MessageDigest.getInstance("SHA-256").digest(BODY)));
+    }
+
+    @Test
+    public void testUnchangedResponseIsNotModified() throws Exception {
+        final MockHttpServletResponse first = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/revocations"), first,
+                (req, res) -> res.getOutputStream().write(BODY));
+        final String etag = first.getHeader(HttpHeaders.ETAG);
+        assertThat(etag).startsWith("\"").endsWith("\"");
+
+        final MockHttpServletRequest request = new MockHttpServletRequest("GET", "/revocations");
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, etag);
+        final MockHttpServletResponse second = new MockHttpServletResponse();
+        filter.doFilter(request, second, (req, res) -> res.getOutputStream().write(BODY));
+
+        assertThat(second.getStatus()).isEqualTo(HttpServletResponse.SC_NOT_MODIFIED);
+        assertThat(second.getContentAsByteArray()).isEmpty();
+        assertThat(second.getHeader(HttpHeaders.ETAG)).isEqualTo(etag);
+
+        final MockHttpServletRequest stale = new MockHttpServletRequest("GET", "/revocations");
+        stale.addHeader(HttpHeaders.IF_NONE_MATCH, "\"stale\"");
+        final MockHttpServletResponse third = new MockHttpServletResponse();
+        filter.doFilter(stale, third, (req, res) -> res.getOutputStream().write(BODY));
+
+        assertThat(third.getStatus()).isEqualTo(HttpServletResponse.SC_OK);
+        assertThat(third.getContentAsByteArray()).isEqualTo(BODY);
+    }
+
+    @Test
+    public void testDigestOfUncompressedBodyWhenCompressed() throws Exception {
+        final byte[] body = new String(new char[4096]).replace('\0', 'x').getBytes(StandardCharsets.UTF_8);
+        final CompressedResponseCache cache = new CompressedResponseCache(new MetricRegistry(), 1024 * 1024, 2048);
+        final MockHttpServletRequest request = new MockHttpServletRequest("GET", "/revocations");
+        request.addHeader(HttpHeaders.ACCEPT_ENCODING, "gzip");
+        final MockHttpServletResponse response = new MockHttpServletResponse();
+
+        new DigestHeaderFilter(cache).doFilter(request, response, (req, res) -> res.getOutputStream().write(body));
+
+        assertThat(response.getHeader(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+        assertThat(response.getHeader(HttpHeaders.VARY)).isEqualTo(HttpHeaders.ACCEPT_ENCODING);
+        assertThat(response.getHeader(DigestHeaderFilter.DIGEST_HEADER)).isEqualTo(DigestHeaderFilter.digest(body));
+        assertThat(response.getHeader(HttpHeaders.ETAG)).isNotNull();
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(response.getContentAsByteArray()))) {
+            assertThat(StreamUtils.copyToByteArray(in)).isEqualTo(body);
+        }
+        assertThat(cache.cachedBytes()).isEqualTo(response.getContentAsByteArray().length);
+    }
+
+    @Test
+    public void testImmutableResponseIsSentFromCache() throws Exception {
+        final DigestHeaderFilter caching = new DigestHeaderFilter(null,
+                new RenderedResponseCache(new MetricRegistry(), 1024 * 1024));
+        final AtomicInteger rendered = new AtomicInteger();
+        final FilterChain chain = (req, res) -> {
+            rendered.incrementAndGet();
+            ((HttpServletResponse) res).setHeader(HttpHeaders.CACHE_CONTROL, "max-age=3600, public");
+            res.setContentType("application/json");
+            res.getOutputStream().write(BODY);
+        };
+
+        final MockHttpServletResponse first = new MockHttpServletResponse();
+        caching.doFilter(closedRange(), first, chain);
+        final MockHttpServletResponse second = new MockHttpServletResponse();
+        caching.doFilter(closedRange(), second, chain);
+
+        assertThat(rendered.get()).isEqualTo(1);
+        assertThat(second.getContentAsByteArray()).isEqualTo(BODY);
+        assertThat(second.getContentType()).isEqualTo("application/json");
+        assertThat(second.getHeader(HttpHeaders.CACHE_CONTROL)).startsWith("max-age=").endsWith(", public");
+        assertThat(second.getHeader(HttpHeaders.ETAG)).isEqualTo(first.getHeader(HttpHeaders.ETAG));
+        assertThat(second.getHeader(DigestHeaderFilter.DIGEST_HEADER))
+                .isEqualTo(first.getHeader(DigestHeaderFilter.DIGEST_HEADER));
+
+        final MockHttpServletRequest conditional = closedRange();
+        conditional.addHeader(HttpHeaders.IF_NONE_MATCH, first.getHeader(HttpHeaders.ETAG));
+        final MockHttpServletResponse third = new MockHttpServletResponse();
+        caching.doFilter(conditional, third, chain);
+
+        assertThat(rendered.get()).isEqualTo(1);
+        assertThat(third.getStatus()).isEqualTo(HttpServletResponse.SC_NOT_MODIFIED);
+        assertThat(third.getContentAsByteArray()).isEmpty();
+
+        final MockHttpServletRequest otherRange = closedRange();
+        otherRange.setQueryString("from=1&to=10");
+        caching.doFilter(otherRange, new MockHttpServletResponse(), chain);
+
+        assertThat(rendered.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void testResponseWithoutCacheControlIsRenderedEveryTime() throws Exception {
+        final DigestHeaderFilter caching = new DigestHeaderFilter(null,
+                new RenderedResponseCache(new MetricRegistry(), 1024 * 1024));
+        final AtomicInteger rendered = new AtomicInteger();
+        final FilterChain chain = (req, res) -> {
+            rendered.incrementAndGet();
+            res.getOutputStream().write(BODY);
+        };
+
+        caching.doFilter(closedRange(), new MockHttpServletResponse(), chain);
+        caching.doFilter(closedRange(), new MockHttpServletResponse(), chain);
+
+        assertThat(rendered.get()).isEqualTo(2);
+    }
+
+    private static MockHttpServletRequest closedRange() {
+        final MockHttpServletRequest request = new MockHttpServletRequest("GET", "/revocations");
+        request.setQueryString("from=1&to=2");
+        return request;
+    }
+
+    @Test
+    public void testNoDigestOfUnsuccessfulResponse() throws Exception {
+        final MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/revocations"), response, (req, res) -> {
+            ((HttpServletResponse) res).setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            res.getOutputStream().write(BODY);
+        });
+
+        assertThat(response.getContentAsByteArray()).isEqualTo(BODY);
+        assertThat(response.getHeader(DigestHeaderFilter.DIGEST_HEADER)).isNull();
+        assertThat(response.getHeader(HttpHeaders.ETAG)).isNull();
+    }
+
+    @Test
+    public void testDigestOfEmptyBody() {
+        assertThat(DigestHeaderFilter.digest(new byte[0]))
+                .isEqualTo("SHA-256=47DEQpj8HBSa+/TImW+5JCeuQeRkm5NMpJWZG3hSuFU=");
+    }
+}